@@ -34,19 +34,21 @@ function getOption(options) {
 
 var fillOutAction = new BufferedAction();
 
-function convertBackend(taskId, content, options) {
+// the outline of the result is reported unless outline is false, warm-up conversions aren't the edited document
+function convertBackend(taskId, content, options, outline) {
     var message = {
         func: arguments.callee.caller.name,
         taskId: taskId,
         content: content,
-        options: options
+        options: options,
+        outline: outline !== false
     };
 
     myWorker.postMessage(JSON.stringify(message));
 }
 
-function convertAsciidoc(taskId, content, options) {
-    convertBackend(taskId, content, options);
+function convertAsciidoc(taskId, content, options, outline) {
+    convertBackend(taskId, content, options, outline);
 }
 
 function convertOdf(taskId, content, options) {
@@ -56,12 +58,12 @@ function convertOdf(taskId, content, options) {
     afx.completeWebWorker(taskId, rendered, doc.$backend(), doc.doctype);
 }
 
-function convertHtml(taskId, content, options) {
-    convertBackend(taskId, content, options);
+function convertHtml(taskId, content, options, outline) {
+    convertBackend(taskId, content, options, outline);
 }
 
-function convertDocbook(taskId, content, options) {
-    convertBackend(taskId, content, options);
+function convertDocbook(taskId, content, options, outline) {
+    convertBackend(taskId, content, options, outline);
 }
 
 function findRenderedSelection(content) {
@@ -8,6 +8,42 @@ deckjsExt.replaceSlides = function (data) {
     }, 50);
 };
 
+// replaces a range of top level slides and stays on the current slide, false when the shown deck doesn't match
+deckjsExt.patchSlides = function (json) {
+    var patch = JSON.parse(json);
+    var container = document.querySelector(".deck-container");
+
+    if (!container || !$.deck("getSlides")) {
+        return false;
+    }
+
+    var slides = Array.prototype.filter.call(container.children, function (child) {
+        return child.tagName === "SECTION";
+    });
+
+    if (slides.length !== patch.count) {
+        return false;
+    }
+
+    var current = $.deck("getSlides").indexOf($.deck("getSlide"));
+    var next = slides[patch.from + patch.remove] || null;
+
+    for (var i = patch.from; i < patch.from + patch.remove; i++) {
+        container.removeChild(slides[i]);
+    }
+
+    var div = document.createElement("div");
+    div.innerHTML = patch.slides.join("");
+
+    while (div.firstElementChild) {
+        container.insertBefore(div.firstElementChild, next);
+    }
+
+    $.deck('.slide');
+    $.deck('go', Math.max(0, Math.min(current, $.deck("getSlides").length - 1)));
+    return true;
+};
+
 deckjsExt.flipCurrentPage = function (lineno) {
 
     var closest = $("div.deck-container").find(".data-line-" + lineno).closest("section.slide");
@@ -38,6 +38,13 @@ function updateMarkupScroll(row) {
     if (lastEditorRow == row)
         return;
 
+    if (largeDocument) {
+        if (row >= sectionStart && row < sectionEnd)
+            afx.scrollByLine((row - sectionOffset) + "");
+        lastEditorRow = row;
+        return;
+    }
+
     afx.scrollByLine(row + "");
 
     lastEditorRow = row;
@@ -83,7 +90,7 @@ function updateStatusBox() {
         var column = cursorPosition.column;
 
         var lineCount = editor.session.getLength();
-        var wordCount = editor.session.getValue().length;
+        var wordCount = largeDocument ? documentLength : editor.session.getValue().length;
 
         afx.updateStatusBox(row, column, lineCount, wordCount);
     }, 1000);
@@ -99,6 +106,9 @@ editor.getSession().selection.on('changeCursor', function (e) {
 
     updateMarkupScroll(row);
 
+    if (largeDocument && (row < sectionStart || row >= sectionEnd))
+        renderAction.buff(renderSection, 100);
+
 });
 
 // editor.on("guttermousedown", onGutterMouseDown);
@@ -109,9 +119,16 @@ var editorChangeListener = function (obj) {
     if (afterFirstChange)
         editorPane.appendWildcard();
 
-    renderAction.buff(function () {
-        afx.textListener(editor.getValue(), editorMode());
-    }, 100);
+    if (largeDocument) {
+        documentLength += deltaLength(obj);
+        trackOutlineRange(obj);
+        renderAction.buff(renderSection, 100);
+        outlineAction.buff(scanOutline, 2000);
+    } else {
+        renderAction.buff(function () {
+            afx.textListener(editor.getValue(), editorMode());
+        }, 100);
+    }
 
     checkSpelling();
 
@@ -130,6 +147,9 @@ function clearTypoMarkers() {
 var spellcheckAction = new BufferedAction();
 function checkSpelling() {
 
+    if (largeDocument && !spellCheckRequested)
+        return;
+
     clearTypoMarkers();
     spellcheckAction.buff(function () {
         afx.processTokens();
@@ -227,6 +247,141 @@ function setEditorValue(content) {
     afterFirstChange = true;
 }
 
+// large documents are loaded in chunks and only the section around the cursor is rendered
+var largeDocument = false;
+var documentLength = 0;
+var spellCheckRequested = false;
+var sectionStart = -1;
+var sectionEnd = -1;
+var sectionOffset = 0;
+var maxSectionRows = 3000;
+var headingRegex = /^(={1,6}|#{1,6})\s+\S/;
+var outlineAction = new BufferedAction();
+// rows changed since the last outline scan, the end is exclusive
+var outlineStart = -1;
+var outlineEnd = -1;
+var outlineLength = 0;
+
+function setLargeDocument(length) {
+    largeDocument = true;
+    documentLength = length;
+}
+
+// chunks end at line boundaries, so each one is appended as whole lines
+function appendEditorChunk(chunk) {
+    var session = editor.getSession();
+    session.insert({row: session.getLength(), column: 0}, chunk);
+}
+
+function deltaLength(delta) {
+    var length = delta.lines.length - 1;
+    for (var i = 0; i < delta.lines.length; i++)
+        length += delta.lines[i].length;
+    return delta.action == "insert" ? length : -length;
+}
+
+// keeps the changed rows in current row numbers, rows below a change move with it
+function trackOutlineRange(delta) {
+    var start = delta.start.row;
+    var rows = delta.end.row - start;
+
+    if (outlineStart < 0) {
+        outlineStart = start;
+        outlineEnd = start + 1;
+    }
+
+    if (delta.action == "insert") {
+        if (outlineEnd > start)
+            outlineEnd += rows;
+    } else if (outlineEnd > delta.end.row + 1) {
+        outlineEnd -= rows;
+    } else if (outlineEnd > start) {
+        outlineEnd = start + 1;
+    }
+
+    outlineStart = Math.min(outlineStart, start);
+    outlineEnd = Math.max(outlineEnd, start + (delta.action == "insert" ? rows : 0) + 1);
+}
+
+function resetOutlineRange() {
+    outlineStart = -1;
+    outlineEnd = -1;
+    outlineLength = editor.getSession().getLength();
+}
+
+function documentHeader(session) {
+    var header = [];
+    var first = session.getLine(0);
+    if (!/^(=\s|:)/.test(first))
+        return header;
+    for (var row = 0; row < session.getLength() && row < 200; row++) {
+        var line = session.getLine(row);
+        if (line.trim() == "")
+            break;
+        header.push(line);
+    }
+    return header;
+}
+
+function renderSection() {
+    var session = editor.getSession();
+    var length = session.getLength();
+    var row = editor.getCursorPosition().row;
+
+    var start = row;
+    while (start > 0 && row - start < maxSectionRows && !headingRegex.test(session.getLine(start)))
+        start--;
+
+    var end = row + 1;
+    while (end < length && end - start < maxSectionRows && !headingRegex.test(session.getLine(end)))
+        end++;
+
+    var lines = [];
+    if (start > 0) {
+        lines = documentHeader(session);
+        if (lines.length > 0)
+            lines.push("");
+    }
+
+    sectionStart = start;
+    sectionEnd = end;
+    sectionOffset = start - lines.length;
+
+    afx.textListener(lines.concat(session.getLines(start, end - 1)).join("\n"), editorMode());
+}
+
+function renderFullDocument() {
+    sectionStart = 0;
+    sectionEnd = editor.session.getLength();
+    sectionOffset = 0;
+    afx.textListener(editor.getValue(), editorMode());
+}
+
+function requestSpellCheck() {
+    spellCheckRequested = true;
+    checkSpelling();
+}
+
+// only the rows changed since the last scan are sent, the rest of the lines are kept in the editor pane
+function scanOutline() {
+    var session = editor.getSession();
+    var length = session.getLength();
+    var start = outlineStart;
+    var lines = "[]";
+
+    if (start >= 0) {
+        var end = Math.min(outlineEnd, length);
+        start = Math.min(start, end - 1);
+        lines = JSON.stringify(session.getLines(start, end - 1));
+    }
+
+    editorPane.scanOutline(start, length - outlineLength, lines, editorMode());
+
+    outlineStart = -1;
+    outlineEnd = -1;
+    outlineLength = length;
+}
+
 var emmetRegex = /^ace\/mode\/(css|less|scss|sass|stylus|html|php|twig|ejs|handlebars)$/;
 function switchMode(mode) {
     if (mode) {
@@ -276,7 +431,12 @@ function initializeEmmet(mode) {
 var rerenderAction = new BufferedAction();
 function rerender() {
     rerenderAction.buff(function () {
-        afx.textListener(editor.getValue(), editorMode());
+        if (largeDocument) {
+            renderSection();
+            scanOutline();
+        } else {
+            afx.textListener(editor.getValue(), editorMode());
+        }
         updateStatusBox();
     }, 100);
     checkSpelling();
@@ -296,6 +456,45 @@ function resetUndoManager() {
     editor.getSession().setUndoManager(new ace.UndoManager());
 }
 
+// selection, scroll position and undo history of a tab before its page is unloaded
+function getHibernationState() {
+    var session = editor.getSession();
+    var undoManager = session.getUndoManager();
+    return JSON.stringify({
+        selection: session.selection.toJSON(),
+        scrollTop: session.getScrollTop(),
+        scrollLeft: session.getScrollLeft(),
+        undo: {
+            undoStack: undoManager.$undoStack,
+            redoStack: undoManager.$redoStack,
+            rev: undoManager.$rev,
+            maxRev: undoManager.$maxRev,
+            redoStackBaseRev: undoManager.$redoStackBaseRev,
+            mark: undoManager.mark
+        }
+    });
+}
+
+function restoreHibernationState(json) {
+    var state = JSON.parse(json);
+    var session = editor.getSession();
+    var undoManager = new ace.UndoManager();
+
+    if (state.undo && state.undo.undoStack) {
+        undoManager.$undoStack = state.undo.undoStack;
+        undoManager.$redoStack = state.undo.redoStack || [];
+        undoManager.$rev = state.undo.rev;
+        undoManager.$maxRev = state.undo.maxRev;
+        undoManager.$redoStackBaseRev = state.undo.redoStackBaseRev;
+        undoManager.mark = state.undo.mark;
+    }
+
+    session.setUndoManager(undoManager);
+    session.selection.fromJSON(state.selection);
+    session.setScrollTop(state.scrollTop);
+    session.setScrollLeft(state.scrollLeft);
+}
+
 var markers = [];
 function addTypo(row, start, end, tokenClass) {
     var marker = editor.getSession().addMarker(
@@ -115,6 +115,10 @@ function markdownToAsciidoc(input) {
     return result;
 }
 
+function markdownToHtml(input) {
+    return marked(input);
+}
+
 function repeatStuff(s, n) {
     var a = [];
     while (a.length < n) {
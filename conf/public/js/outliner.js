@@ -1,63 +1,35 @@
 function fillOutlines(doc) {
 
-    postMessage(JSON.stringify({
-        type: "afx",
-        func: "clearOutline",
-        parameters: []
-    }));
-
-    var sections = doc.$sections();
-    sections.forEach(function (section, i) {
-
-        var level = section.$level();
-        var title = section.title;
-        var lineno = section.$lineno();
-        var id = section.$id();
-        var parentLineNo = null;
-
-        // var log=`Outline:: ${parentLineNo} ${level} ${title} ${lineno} ${id}`;
-        // console.log(log);
+    // one batch per render, entries are [parentIndex, level, lineno, id, title] in document order
+    var outline = [];
+    collectOutline(doc, -1, outline);
 
-        postMessage(JSON.stringify({
-            type: "afx",
-            func: "fillOutline",
-            parameters: [null, level, title, lineno, id]
-        }));
-
-        fillOutlinesSubSections(section);
-
-    });
     postMessage(JSON.stringify({
         type: "afx",
-        func: "finishOutline",
-        parameters: []
+        func: "updateOutline",
+        parameters: [JSON.stringify(outline)]
     }));
 }
 
-function fillOutlinesSubSections(section) {
-    var sections = section.$sections();
-    var parentLineNo = section.$lineno();
-    sections.forEach(function (subsection, i) {
+function collectOutline(node, parentIndex, outline) {
+    var sections = node.$sections();
+    sections.forEach(function (section, i) {
+
+        var index = parentIndex;
 
         try {
-            var level = subsection.$level();
-            var title = subsection.$title();
-            var lineno = subsection.$lineno();
-            var id = subsection.$id();
-
-            // var log=`Outline:: ${parentLineNo} ${level} ${title} ${lineno} ${id}`;
-            // console.log(log);
-
-            postMessage(JSON.stringify({
-                type: "afx",
-                func: "fillOutline",
-                parameters: [parentLineNo, level, title, lineno, id]
-            }));
+            var level = section.$level();
+            var title = parentIndex < 0 ? section.title : section.$title();
+            var lineno = section.$lineno();
+            var id = section.$id();
+
+            index = outline.length;
+            outline.push([parentIndex, level, typeof lineno == "number" ? lineno : 0, id, title]);
         }
         catch (e) {
 
         }
 
-        fillOutlinesSubSections(subsection);
+        collectOutline(section, index, outline);
     });
-}
\ No newline at end of file
+}
@@ -6,6 +6,42 @@ revealjsExt.replaceSlides = function (data) {
     setTimeout(initializeReveal, 50);
 }
 
+// replaces a range of top level slides and stays on the current slide, false when the shown deck doesn't match
+revealjsExt.patchSlides = function (json) {
+    var patch = JSON.parse(json);
+    var container = document.querySelector("div.slides");
+
+    if (!container || typeof Reveal === "undefined" || !Reveal.isReady()) {
+        return false;
+    }
+
+    var slides = Array.prototype.filter.call(container.children, function (child) {
+        return child.tagName === "SECTION";
+    });
+
+    if (slides.length !== patch.count) {
+        return false;
+    }
+
+    var indices = Reveal.getIndices();
+    var next = slides[patch.from + patch.remove] || null;
+
+    for (var i = patch.from; i < patch.from + patch.remove; i++) {
+        container.removeChild(slides[i]);
+    }
+
+    var div = document.createElement("div");
+    div.innerHTML = patch.slides.join("");
+
+    while (div.firstElementChild) {
+        container.insertBefore(div.firstElementChild, next);
+    }
+
+    Reveal.sync();
+    Reveal.slide(indices.h, indices.v, indices.f);
+    return true;
+};
+
 revealjsExt.flipCurrentPage = function (lineno) {
 
     var closest = $(".data-line-" + lineno).closest("section.stack");
@@ -3,7 +3,7 @@ function getOption(options) {
 }
 
 var fillOutAction = new BufferedAction();
-function convertBackend(taskId, content, options) {
+function convertBackend(taskId, content, options, outline) {
 
     var doc = Opal.Asciidoctor.$load(content, getOption(options));
     var rendered = doc.$convert();
@@ -14,30 +14,33 @@ function convertBackend(taskId, content, options) {
         parameters: [taskId, rendered, doc.$backend(), doc.doctype]
     }));
 
+    if (outline === false)
+        return;
+
     fillOutAction.buff(function () {
         fillOutlines(doc);
     }, 1000);
 }
 
-function convertAsciidoc(taskId, content, options) {
+function convertAsciidoc(taskId, content, options, outline) {
 
-    convertBackend(taskId, content, options);
+    convertBackend(taskId, content, options, outline);
 
 }
 
-function convertOdf(taskId, content, options) {
+function convertOdf(taskId, content, options, outline) {
 
-    convertBackend(taskId, content, options);
+    convertBackend(taskId, content, options, outline);
 }
 
-function convertHtml(taskId, content, options) {
+function convertHtml(taskId, content, options, outline) {
 
-    convertBackend(taskId, content, options);
+    convertBackend(taskId, content, options, outline);
 }
 
-function convertDocbook(taskId, content, options) {
+function convertDocbook(taskId, content, options, outline) {
 
-    convertBackend(taskId, content, options);
+    convertBackend(taskId, content, options, outline);
 }
 
 function findRenderedSelection(content) {
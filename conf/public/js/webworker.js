@@ -82,7 +82,7 @@ self.onmessage = function (e) {
         if (func && func in self) {
             var self2 = self[func];
             if(self2){
-                self2(taskId, content, options);
+                self2(taskId, content, options, data.outline);
             }
 
         }
@@ -0,0 +1,80 @@
+package com.kodedu.benchmark;
+
+import com.kodedu.other.Current;
+import com.kodedu.service.ThreadService;
+import com.kodedu.service.cache.BinaryCacheService;
+import com.kodedu.service.cache.CacheData;
+import com.kodedu.service.flight.FlightRecorderService;
+import com.kodedu.service.metrics.MetricRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot cache under contention, writers are the renderers and readers are the preview requests.
+ * The working set stays below the memory limit, so disk spilling isn't part of the measurement.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryCacheBenchmark {
+
+    private static final int KEY_COUNT = 256;
+
+    @Param({"4096", "65536"})
+    private int payloadSize;
+
+    private BinaryCacheService cacheService;
+    private String[] keys;
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        ThreadService threadService = new ThreadService(new StandardEnvironment(), new MetricRegistry());
+        cacheService = new BinaryCacheService(threadService, new Current(null, threadService), new MetricRegistry(),
+                new FlightRecorderService());
+
+        keys = new String[KEY_COUNT];
+        payload = new byte[payloadSize];
+        new Random(CorpusGenerator.DEFAULT_SEED).nextBytes(payload);
+
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "tree-" + i + ".png";
+            cacheService.putBinary(keys[i], payload);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        @Setup
+        public void setup(ThreadParams threadParams) {
+            index = threadParams.getThreadIndex() * 31;
+        }
+
+        int next() {
+            return index++ & (KEY_COUNT - 1);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public String put(Cursor cursor) {
+        return cacheService.putBinary(keys[cursor.next()], payload);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(6)
+    public CacheData get(Cursor cursor) {
+        return cacheService.getCacheData(keys[cursor.next()]);
+    }
+}
@@ -0,0 +1,80 @@
+package com.kodedu.benchmark;
+
+import com.kodedu.benchmark.CorpusGenerator.BookSize;
+import com.kodedu.config.AsciidocConfigMerger;
+import com.kodedu.config.EditorConfigBean;
+import javafx.embed.swing.JFXPanel;
+import org.openjdk.jmh.annotations.*;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging document header attributes into the converter config, done on every render
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigMergerBenchmark {
+
+    @Param({"SMALL", "LARGE"})
+    private BookSize size;
+
+    private AsciidocConfigMerger configMerger;
+    private JsonObject config;
+    private String asciidoc;
+    private String[] editedHeaders;
+    private int counter;
+
+    @Setup
+    public void setup() {
+
+        // config beans create controls, so the toolkit must be up
+        new JFXPanel();
+
+        EditorConfigBean editorConfigBean = new EditorConfigBean(null, null, null);
+        editorConfigBean.getDefaultLanguage().setAll("en");
+        configMerger = new AsciidocConfigMerger(editorConfigBean);
+
+        JsonObjectBuilder attributes = Json.createObjectBuilder();
+        for (int i = 0; i < 40; i++) {
+            attributes.add("attribute-" + i, "value-" + i);
+        }
+        attributes.add("icons", "font");
+        attributes.add("toc", "left");
+
+        config = Json.createObjectBuilder()
+                .add("backend", "html5")
+                .add("safe", "unsafe")
+                .add("attributes", attributes)
+                .build();
+
+        asciidoc = CorpusGenerator.book(size);
+
+        // a typing session in the header, each edit changes the header
+        editedHeaders = new String[64];
+        for (int i = 0; i < editedHeaders.length; i++) {
+            editedHeaders[i] = ":revnumber: " + i + "\n" + asciidoc;
+        }
+    }
+
+    @Benchmark
+    public JsonObject updateConfigBodyEdit() {
+        return configMerger.updateConfig(asciidoc, config);
+    }
+
+    @Benchmark
+    public String updateConfigStringBodyEdit() {
+        return configMerger.updateConfigString(asciidoc, config);
+    }
+
+    @Benchmark
+    public JsonObject updateConfigHeaderEdit() {
+        return configMerger.updateConfig(editedHeaders[counter++ & (editedHeaders.length - 1)], config);
+    }
+}
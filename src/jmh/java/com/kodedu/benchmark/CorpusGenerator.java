@@ -0,0 +1,302 @@
+package com.kodedu.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible synthetic corpora for the benchmarks.
+ * <p>
+ * Same seed and size always give the same output, so results of different runs can be compared.
+ * Run main to write the corpus into a directory for inspection.
+ */
+public final class CorpusGenerator {
+
+    public static final long DEFAULT_SEED = 20181025L;
+
+    private static final String[] WORDS = {
+            "asciidoc", "document", "editor", "preview", "render", "chapter", "section", "table", "image",
+            "source", "listing", "attribute", "header", "paragraph", "example", "sidebar", "admonition",
+            "the", "and", "with", "from", "into", "while", "because", "every", "should", "could", "would",
+            "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "simple", "complex", "fast", "slow",
+            "writer", "reader", "output", "input", "format", "convert", "export", "build", "release",
+            // a few misspellings, so the spell checker has something to suggest
+            "documnet", "previw", "recieve", "seperate", "occured", "definately"
+    };
+
+    private static final String[] LANGUAGES = {"java", "javascript", "ruby", "xml", "bash"};
+
+    public enum BookSize {
+        SMALL(2, 3), MEDIUM(10, 8), LARGE(40, 20);
+
+        private final int chapters;
+        private final int sectionsPerChapter;
+
+        BookSize(int chapters, int sectionsPerChapter) {
+            this.chapters = chapters;
+            this.sectionsPerChapter = sectionsPerChapter;
+        }
+
+        public int getChapters() {
+            return chapters;
+        }
+
+        public int getSectionsPerChapter() {
+            return sectionsPerChapter;
+        }
+    }
+
+    private CorpusGenerator() {
+    }
+
+    public static String book(BookSize size) {
+        return book(size.getChapters(), size.getSectionsPerChapter(), DEFAULT_SEED);
+    }
+
+    public static String book(int chapters, int sectionsPerChapter, long seed) {
+
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("= Synthetic Book ").append(seed).append("\n");
+        builder.append("Benchmark Author <author@example.com>\n");
+        builder.append(":doctype: book\n");
+        builder.append(":toc: left\n");
+        builder.append(":icons: font\n");
+        builder.append(":source-highlighter: highlightjs\n");
+        builder.append(":imagesdir: images\n");
+        builder.append(":lang: tr\n");
+        builder.append("\n");
+
+        for (int chapter = 1; chapter <= chapters; chapter++) {
+            builder.append("== Chapter ").append(chapter).append(" ").append(sentence(random, 3)).append("\n\n");
+
+            for (int section = 1; section <= sectionsPerChapter; section++) {
+                builder.append("=== Section ").append(chapter).append(".").append(section).append("\n\n");
+
+                for (int paragraph = 0; paragraph < 3; paragraph++) {
+                    builder.append(paragraph(random)).append("\n\n");
+                }
+
+                switch (random.nextInt(4)) {
+                    case 0:
+                        for (int item = 0; item < 4; item++) {
+                            builder.append("* ").append(sentence(random, 6)).append("\n");
+                        }
+                        builder.append("\n");
+                        break;
+                    case 1:
+                        builder.append(".Figure ").append(chapter).append(".").append(section).append("\n");
+                        builder.append("image::figure-").append(random.nextInt(50)).append(".png[]\n\n");
+                        break;
+                    case 2:
+                        builder.append("[source,").append(LANGUAGES[random.nextInt(LANGUAGES.length)]).append("]\n");
+                        builder.append("----\n");
+                        builder.append("String value = \"").append(word(random)).append("\"; // <1>\n");
+                        builder.append("process(value); // <2>\n");
+                        builder.append("----\n");
+                        builder.append("<1> ").append(sentence(random, 5)).append("\n");
+                        builder.append("<2> ").append(sentence(random, 5)).append("\n\n");
+                        break;
+                    default:
+                        builder.append("|===\n| Name | Value | Description\n\n");
+                        for (int row = 0; row < 5; row++) {
+                            builder.append("| ").append(word(random))
+                                    .append(" | ").append(random.nextInt(1000))
+                                    .append(" | ").append(sentence(random, 4)).append("\n");
+                        }
+                        builder.append("|===\n\n");
+                        break;
+                }
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Rendered docbook shaped like asciidoctor output, with figures and callouts having duplicated refs
+     */
+    public static String docbook(BookSize size) {
+
+        Random random = new Random(DEFAULT_SEED);
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        builder.append("<book xmlns=\"http://docbook.org/ns/docbook\" xmlns:xl=\"http://www.w3.org/1999/xlink\" version=\"5.0\" xml:lang=\"en\">\n");
+        builder.append("<info><title>Synthetic Book</title></info>\n");
+
+        int callout = 0;
+
+        for (int chapter = 1; chapter <= size.getChapters(); chapter++) {
+            builder.append("<chapter xml:id=\"_chapter_").append(chapter).append("\">\n");
+            builder.append("<title>Chapter ").append(chapter).append("</title>\n");
+
+            for (int section = 1; section <= size.getSectionsPerChapter(); section++) {
+                builder.append("<section xml:id=\"_section_").append(chapter).append("_").append(section).append("\">\n");
+                builder.append("<title>Section ").append(section).append("</title>\n");
+
+                for (int paragraph = 0; paragraph < 3; paragraph++) {
+                    builder.append("<simpara>").append(paragraph(random)).append("</simpara>\n");
+                }
+
+                builder.append("<figure><title>Figure</title><mediaobject><imageobject>")
+                        .append("<imagedata fileref=\"images/figure-").append(random.nextInt(50)).append(".png\"/>")
+                        .append("</imageobject></mediaobject></figure>\n");
+
+                callout++;
+                builder.append("<programlisting language=\"java\" linenumbering=\"unnumbered\">String value; <co xml:id=\"CO")
+                        .append(callout).append("-1\"/>\nprocess(value); <co xml:id=\"CO").append(callout).append("-2\"/></programlisting>\n");
+                builder.append("<calloutlist>\n");
+                builder.append("<callout arearefs=\"CO").append(callout).append("-1 CO").append(callout).append("-2\"><para>")
+                        .append(sentence(random, 5)).append("</para></callout>\n");
+                builder.append("<callout arearefs=\"CO").append(callout).append("-2\"><para>")
+                        .append(sentence(random, 5)).append("</para></callout>\n");
+                builder.append("</calloutlist>\n");
+
+                builder.append("</section>\n");
+            }
+
+            builder.append("</chapter>\n");
+        }
+
+        builder.append("</book>\n");
+
+        return builder.toString();
+    }
+
+    /**
+     * Token json in the form the editor sends to the spell checker, one token per line
+     */
+    public static String tokenJson(String content) {
+
+        StringBuilder builder = new StringBuilder("[");
+        String[] lines = content.split("\n");
+
+        boolean first = true;
+        for (int row = 0; row < lines.length; row++) {
+            String line = lines[row];
+
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            if (!first) {
+                builder.append(",");
+            }
+            first = false;
+
+            builder.append("{\"row\":").append(row)
+                    .append(",\"start\":0,\"end\":").append(line.length())
+                    .append(",\"type\":\"text\",\"value\":\"").append(escapeJson(line)).append("\"}");
+        }
+
+        return builder.append("]").toString();
+    }
+
+    /**
+     * Writes the book in given charset, existing files are reused
+     */
+    public static Path writeBook(Path directory, BookSize size, Charset charset) throws IOException {
+
+        Files.createDirectories(directory);
+
+        Path path = directory.resolve(String.format("book-%s-%s.adoc", size.name().toLowerCase(), charset.name().toLowerCase()));
+
+        if (Files.notExists(path)) {
+            Files.write(path, book(size).getBytes(charset));
+        }
+
+        return path;
+    }
+
+    /**
+     * Writes a tree of empty files, every 100th name repeats in another directory like images/cover.png does in real projects.
+     * Existing trees with the same file count are reused.
+     *
+     * @return file paths in creation order
+     */
+    public static List<Path> writeFileTree(Path root, int fileCount, int filesPerDirectory) throws IOException {
+
+        List<Path> paths = new ArrayList<>(fileCount);
+        Path marker = root.resolve(".corpus-" + fileCount);
+        boolean exists = Files.exists(marker);
+
+        for (int i = 0; i < fileCount; i++) {
+            Path directory = root.resolve(String.format("dir-%04d", i / filesPerDirectory));
+            String name = (i % 100 == 99) ? String.format("shared-%d.png", (i / 100) % 10) : String.format("file-%06d.adoc", i);
+            Path path = directory.resolve(name);
+            paths.add(path);
+
+            if (!exists && Files.notExists(path)) {
+                Files.createDirectories(directory);
+                Files.createFile(path);
+            }
+        }
+
+        if (!exists) {
+            Files.createFile(marker);
+        }
+
+        return paths;
+    }
+
+    public static Path corpusDirectory() {
+        return Paths.get(System.getProperty("afx.corpus.dir", "target/jmh-corpus")).toAbsolutePath();
+    }
+
+    private static String paragraph(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int sentences = 3 + random.nextInt(4);
+        for (int i = 0; i < sentences; i++) {
+            if (i > 0) {
+                builder.append(" ");
+            }
+            builder.append(sentence(random, 8 + random.nextInt(10)));
+        }
+        return builder.toString();
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = word(random);
+            if (i == 0) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            } else {
+                builder.append(" ");
+            }
+            builder.append(word);
+        }
+        return builder.append(".").toString();
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String escapeJson(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\t", "\\t");
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        Path directory = args.length > 0 ? Paths.get(args[0]) : corpusDirectory();
+
+        for (BookSize size : BookSize.values()) {
+            writeBook(directory, size, StandardCharsets.UTF_8);
+            Files.write(directory.resolve(String.format("book-%s.xml", size.name().toLowerCase())),
+                    docbook(size).getBytes(StandardCharsets.UTF_8));
+        }
+
+        writeFileTree(directory.resolve("tree"), 100_000, 1000);
+
+        System.out.println("Corpus written to " + directory);
+    }
+}
@@ -0,0 +1,41 @@
+package com.kodedu.benchmark;
+
+import com.kodedu.benchmark.CorpusGenerator.BookSize;
+import com.kodedu.service.convert.docbook.DocBookConverter;
+import com.kodedu.service.convert.docbook.DocbookFilterChain;
+import com.kodedu.service.convert.docbook.DocbookValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Post processing of rendered docbook before it is handed to the exporters
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocBookPostProcessBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    private BookSize size;
+
+    private DocBookConverter docBookConverter;
+    private String rendered;
+
+    @Setup
+    public void setup() {
+        // post processing runs the filter chain without validation, the validator isn't asked for a schema
+        DocbookValidator docbookValidator = new DocbookValidator(null, null, null, null);
+        DocbookFilterChain docbookFilterChain = new DocbookFilterChain(docbookValidator);
+        docBookConverter = new DocBookConverter(null, docbookFilterChain, null);
+        rendered = CorpusGenerator.docbook(size);
+    }
+
+    @Benchmark
+    public String postProcess() {
+        return docBookConverter.postProcess(rendered);
+    }
+}
@@ -0,0 +1,90 @@
+package com.kodedu.benchmark;
+
+import com.kodedu.controller.FileService;
+import com.kodedu.service.flight.FlightRecorderService;
+import com.kodedu.service.metrics.MetricRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serving preview resources with and without range requests
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileServiceBenchmark {
+
+    @Param({"65536", "4194304"})
+    private int fileSize;
+
+    private FileService fileService;
+    private Path path;
+    private String eTag;
+
+    @Setup
+    public void setup() throws Exception {
+
+        fileService = new FileService(new MetricRegistry(), new FlightRecorderService());
+
+        Path directory = CorpusGenerator.corpusDirectory().resolve("files");
+        Files.createDirectories(directory);
+        path = directory.resolve("video-" + fileSize + ".mp4");
+
+        if (Files.notExists(path) || Files.size(path) != fileSize) {
+            byte[] bytes = new byte[fileSize];
+            new Random(CorpusGenerator.DEFAULT_SEED).nextBytes(bytes);
+            Files.write(path, bytes);
+        }
+
+        eTag = path.getFileName() + "_" + fileSize + "_" + path.toFile().lastModified();
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/" + path.getFileName());
+        request.addHeader("Accept", "*/*");
+        return request;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse fullFile() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileService.processFile(request(), response, path);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse singleRange() {
+        MockHttpServletRequest request = request();
+        request.addHeader("Range", "bytes=1024-33791");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileService.processFile(request, response, path);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse multiRange() {
+        MockHttpServletRequest request = request();
+        request.addHeader("Range", "bytes=0-1023,4096-8191,-2048");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileService.processFile(request, response, path);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse notModified() {
+        MockHttpServletRequest request = request();
+        request.addHeader("If-None-Match", eTag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileService.processFile(request, response, path);
+        return response;
+    }
+}
@@ -0,0 +1,39 @@
+package com.kodedu.benchmark;
+
+import com.kodedu.benchmark.CorpusGenerator.BookSize;
+import com.kodedu.other.IOHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a document with charset detection, as done when a tab is opened
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IOHelperBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    private BookSize size;
+
+    @Param({"UTF-8", "ISO-8859-9"})
+    private String charset;
+
+    private Path path;
+
+    @Setup
+    public void setup() throws Exception {
+        path = CorpusGenerator.writeBook(CorpusGenerator.corpusDirectory().resolve("books"), size, Charset.forName(charset));
+    }
+
+    @Benchmark
+    public String readFile() {
+        return IOHelper.readFile(path);
+    }
+}
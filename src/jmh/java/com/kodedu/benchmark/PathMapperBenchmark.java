@@ -0,0 +1,77 @@
+package com.kodedu.benchmark;
+
+import com.kodedu.service.PathMapper;
+import com.kodedu.service.ThreadService;
+import com.kodedu.service.metrics.MetricRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving bare file names against an indexed 100k-file tree, as done for includes and images
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathMapperBenchmark {
+
+    private static final int FILE_COUNT = 100_000;
+
+    private PathMapper pathMapper;
+    private String[] uniqueNames;
+    private String[] sharedNames;
+    private String[] missingNames;
+    private int counter;
+
+    @Setup
+    public void setup() throws Exception {
+
+        List<Path> paths = CorpusGenerator.writeFileTree(CorpusGenerator.corpusDirectory().resolve("tree"), FILE_COUNT, 1000);
+
+        pathMapper = new PathMapper(new ThreadService(new StandardEnvironment(), new MetricRegistry()));
+
+        // same as what the indexing thread does, without waiting for it
+        for (Path path : paths) {
+            pathMapper.addPath(path);
+        }
+
+        Random random = new Random(CorpusGenerator.DEFAULT_SEED);
+
+        uniqueNames = new String[1024];
+        sharedNames = new String[1024];
+        missingNames = new String[1024];
+
+        for (int i = 0; i < uniqueNames.length; i++) {
+            String name;
+            do {
+                name = paths.get(random.nextInt(FILE_COUNT)).getFileName().toString();
+            } while (name.startsWith("shared-"));
+            uniqueNames[i] = name;
+            sharedNames[i] = String.format("shared-%d.png", random.nextInt(10));
+            missingNames[i] = String.format("missing-%06d.adoc", random.nextInt(FILE_COUNT));
+        }
+    }
+
+    @Benchmark
+    public Optional<Path> lookUpUnique() {
+        return pathMapper.lookUpFile(uniqueNames[counter++ & 1023]);
+    }
+
+    @Benchmark
+    public Optional<Path> lookUpAmbiguous() {
+        return pathMapper.lookUpFile(sharedNames[counter++ & 1023]);
+    }
+
+    @Benchmark
+    public Optional<Path> lookUpMissing() {
+        return pathMapper.lookUpFile(missingNames[counter++ & 1023]);
+    }
+}
@@ -0,0 +1,133 @@
+package com.kodedu.benchmark;
+
+import com.kodedu.other.PngEncoder;
+import com.kodedu.other.Rasters;
+import com.kodedu.other.TrimWhite;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trimming, frame comparison and png encoding of snapshots, as done for formulas, trees and terminal gif frames.
+ * The per pixel getRGB scans are kept here as the reference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RasterBenchmark {
+
+    // a formula, a highlighted tree page
+    @Param({"400x120", "3000x6000"})
+    private String size;
+
+    private BufferedImage snapshot;
+    private BufferedImage sameFrame;
+    private PngEncoder fastEncoder;
+    private PngEncoder defaultEncoder;
+
+    @Setup
+    public void setup() {
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+
+        snapshot = drawSnapshot(width, height);
+        sameFrame = drawSnapshot(width, height);
+        fastEncoder = new PngEncoder(1);
+        defaultEncoder = new PngEncoder(6);
+    }
+
+    private BufferedImage drawSnapshot(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+
+        // text like content in the top left third, the rest stays white like a snapshot page
+        Random random = new Random(CorpusGenerator.DEFAULT_SEED);
+        graphics.setColor(Color.DARK_GRAY);
+        for (int y = 10; y < height / 3; y += 18) {
+            for (int x = 10; x < width / 3; x += 9) {
+                graphics.fillRect(x, y, 1 + random.nextInt(7), 12);
+            }
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage trim() {
+        return new TrimWhite().trim(snapshot);
+    }
+
+    @Benchmark
+    public Rectangle contentBounds() {
+        return Rasters.contentBounds(snapshot, Color.WHITE.getRGB());
+    }
+
+    @Benchmark
+    public int contentBoundsGetRgb() {
+        int white = Color.WHITE.getRGB();
+        int right = 0;
+        for (int y = 0; y < snapshot.getHeight(); y++) {
+            for (int x = snapshot.getWidth() - 1; x >= 0; x--) {
+                if (snapshot.getRGB(x, y) != white && x > right) {
+                    right = x;
+                    break;
+                }
+            }
+        }
+        int bottom = 0;
+        for (int x = 0; x < snapshot.getWidth(); x++) {
+            for (int y = snapshot.getHeight() - 1; y >= 0; y--) {
+                if (snapshot.getRGB(x, y) != white && y > bottom) {
+                    bottom = y;
+                    break;
+                }
+            }
+        }
+        return right + bottom;
+    }
+
+    @Benchmark
+    public boolean isSameImage() {
+        return Rasters.isSameImage(snapshot, sameFrame);
+    }
+
+    @Benchmark
+    public boolean isSameImageGetRgb() {
+        for (int y = 0; y < snapshot.getHeight(); y++) {
+            for (int x = 0; x < snapshot.getWidth(); x++) {
+                if (snapshot.getRGB(x, y) != sameFrame.getRGB(x, y)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    public byte[] encodePngFast() throws Exception {
+        return fastEncoder.encode(snapshot);
+    }
+
+    @Benchmark
+    public byte[] encodePngDefault() throws Exception {
+        return defaultEncoder.encode(snapshot);
+    }
+
+    @Benchmark
+    public byte[] encodePngImageIO() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(snapshot, "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
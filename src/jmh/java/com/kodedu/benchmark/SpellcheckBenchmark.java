@@ -0,0 +1,79 @@
+package com.kodedu.benchmark;
+
+import com.kodedu.benchmark.CorpusGenerator.BookSize;
+import com.kodedu.spell.dictionary.LanguageSpeller;
+import com.kodedu.spell.dictionary.Token;
+import morfologik.speller.Speller;
+import morfologik.stemming.Dictionary;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Token splitting and spell checking of a document, the pipeline of DictionaryService#processTokens.
+ * Loading the dictionary is measured separately since processTokens reads it on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpellcheckBenchmark {
+
+    @Param({"SMALL", "MEDIUM"})
+    private BookSize size;
+
+    private Path dictionaryPath;
+    private LanguageSpeller languageSpeller;
+    private String tokenJson;
+
+    @Setup
+    public void setup() throws Exception {
+
+        dictionaryPath = Paths.get(System.getProperty("afx.dictionary", "conf/spellcheck/en/English.dict")).toAbsolutePath();
+
+        languageSpeller = languageSpeller(dictionaryPath);
+        tokenJson = CorpusGenerator.tokenJson(CorpusGenerator.book(size));
+    }
+
+    private static LanguageSpeller languageSpeller(Path path) throws Exception {
+        Dictionary dictionary = Dictionary.read(path);
+        LanguageSpeller languageSpeller = new LanguageSpeller();
+        languageSpeller.setDictionary(dictionary);
+        languageSpeller.setSpeller(new Speller(dictionary));
+        languageSpeller.setEncoding(dictionary.metadata.getEncoding());
+        return languageSpeller;
+    }
+
+    @Benchmark
+    public List<Token> tokenize() {
+        return languageSpeller.getTokenList(tokenJson)
+                .stream()
+                .flatMap(token -> token.fromLines(token.getValue()).stream())
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Token> tokenizeAndCheck() {
+        return languageSpeller.getTokenList(tokenJson)
+                .stream()
+                .flatMap(token -> token.fromLines(token.getValue()).stream())
+                .filter(t -> languageSpeller.isMisspelled(t.getValue()))
+                .peek(t -> t.setEmptySuggestion(languageSpeller.findSuggestions(t.getValue()).isEmpty()))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public LanguageSpeller loadDictionary() throws Exception {
+        return languageSpeller(dictionaryPath);
+    }
+}
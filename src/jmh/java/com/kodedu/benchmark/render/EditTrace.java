@@ -0,0 +1,185 @@
+package com.kodedu.benchmark.render;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Ace editor deltas with the time they happened, relative to the start of the session.
+ * <p>
+ * Recorded traces are json lines, one delta per line in Ace's own form plus a time field:
+ * <pre>{"time":120,"action":"insert","start":{"row":3,"column":7},"end":{"row":3,"column":8},"lines":["a"]}</pre>
+ */
+public class EditTrace {
+
+    private final List<Delta> deltas;
+
+    public EditTrace(List<Delta> deltas) {
+        this.deltas = Collections.unmodifiableList(deltas);
+    }
+
+    public List<Delta> getDeltas() {
+        return deltas;
+    }
+
+    public long getDuration() {
+        return deltas.isEmpty() ? 0 : deltas.get(deltas.size() - 1).getTime();
+    }
+
+    public static EditTrace read(Path path) throws IOException {
+
+        List<Delta> deltas = new ArrayList<>();
+
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            try (JsonReader reader = Json.createReader(new StringReader(line))) {
+                JsonObject object = reader.readObject();
+                JsonObject start = object.getJsonObject("start");
+                JsonObject end = object.getJsonObject("end");
+                JsonArray lines = object.getJsonArray("lines");
+
+                List<String> lineList = new ArrayList<>();
+                for (int i = 0; i < lines.size(); i++) {
+                    lineList.add(lines.getString(i));
+                }
+
+                deltas.add(new Delta(object.getJsonNumber("time").longValue(), object.getString("action"),
+                        start.getInt("row"), start.getInt("column"), end.getInt("row"), end.getInt("column"), lineList));
+            }
+        }
+
+        return new EditTrace(deltas);
+    }
+
+    public void write(Path path) throws IOException {
+
+        List<String> lines = new ArrayList<>();
+
+        for (Delta delta : deltas) {
+            JsonArrayBuilder lineArray = Json.createArrayBuilder();
+            delta.getLines().forEach(lineArray::add);
+
+            lines.add(Json.createObjectBuilder()
+                    .add("time", delta.getTime())
+                    .add("action", delta.getAction())
+                    .add("start", Json.createObjectBuilder().add("row", delta.getStartRow()).add("column", delta.getStartColumn()))
+                    .add("end", Json.createObjectBuilder().add("row", delta.getEndRow()).add("column", delta.getEndColumn()))
+                    .add("lines", lineArray)
+                    .build().toString());
+        }
+
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Typing session at the end of the document, with typos fixed by backspace, new paragraphs and thinking pauses
+     *
+     * @param initial        document the session starts with
+     * @param characters     count of typed characters
+     * @param charsPerMinute typing speed
+     */
+    public static EditTrace typing(String initial, int characters, int charsPerMinute, long seed) {
+
+        Random random = new Random(seed);
+        List<Delta> deltas = new ArrayList<>();
+
+        String[] initialLines = initial.split("\n", -1);
+        int row = initialLines.length - 1;
+        int column = initialLines[row].length();
+
+        double interval = 60_000.0 / charsPerMinute;
+        String text = "the quick brown fox jumps over the lazy dog while the preview keeps up with every keystroke ";
+
+        long time = 0;
+
+        for (int i = 0; i < characters; i++) {
+
+            time += (long) Math.max(1, interval * (0.5 + random.nextDouble()));
+
+            if (random.nextInt(400) == 0) {
+                time += 1000 + random.nextInt(1500);
+            }
+
+            int dice = random.nextInt(100);
+
+            if (dice < 4 && column > 0) {
+                deltas.add(new Delta(time, "remove", row, column - 1, row, column, Arrays.asList("x")));
+                column--;
+            } else if (dice < 6) {
+                deltas.add(new Delta(time, "insert", row, column, row + 1, 0, Arrays.asList("", "")));
+                row++;
+                column = 0;
+            } else {
+                String character = String.valueOf(text.charAt(i % text.length()));
+                deltas.add(new Delta(time, "insert", row, column, row, column + 1, Collections.singletonList(character)));
+                column++;
+            }
+        }
+
+        return new EditTrace(deltas);
+    }
+
+    public static class Delta {
+        private final long time;
+        private final String action;
+        private final int startRow;
+        private final int startColumn;
+        private final int endRow;
+        private final int endColumn;
+        private final List<String> lines;
+
+        public Delta(long time, String action, int startRow, int startColumn, int endRow, int endColumn, List<String> lines) {
+            this.time = time;
+            this.action = action;
+            this.startRow = startRow;
+            this.startColumn = startColumn;
+            this.endRow = endRow;
+            this.endColumn = endColumn;
+            this.lines = lines;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public int getStartRow() {
+            return startRow;
+        }
+
+        public int getStartColumn() {
+            return startColumn;
+        }
+
+        public int getEndRow() {
+            return endRow;
+        }
+
+        public int getEndColumn() {
+            return endColumn;
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+    }
+}
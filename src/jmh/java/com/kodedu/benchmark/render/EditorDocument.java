@@ -0,0 +1,62 @@
+package com.kodedu.benchmark.render;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Line based document that applies Ace deltas the same way the editor does
+ */
+public class EditorDocument {
+
+    private final List<String> lines;
+
+    public EditorDocument(String content) {
+        this.lines = new ArrayList<>(Arrays.asList(content.split("\n", -1)));
+    }
+
+    public void apply(EditTrace.Delta delta) {
+
+        int startRow = Math.min(delta.getStartRow(), lines.size() - 1);
+        String startLine = lines.get(startRow);
+        int startColumn = Math.min(delta.getStartColumn(), startLine.length());
+
+        if ("insert".equals(delta.getAction())) {
+
+            List<String> inserted = delta.getLines();
+            String prefix = startLine.substring(0, startColumn);
+            String suffix = startLine.substring(startColumn);
+
+            if (inserted.size() == 1) {
+                lines.set(startRow, prefix + inserted.get(0) + suffix);
+                return;
+            }
+
+            List<String> replacement = new ArrayList<>(inserted);
+            replacement.set(0, prefix + inserted.get(0));
+            int last = replacement.size() - 1;
+            replacement.set(last, inserted.get(last) + suffix);
+
+            lines.remove(startRow);
+            lines.addAll(startRow, replacement);
+
+        } else if ("remove".equals(delta.getAction())) {
+
+            int endRow = Math.min(delta.getEndRow(), lines.size() - 1);
+            String endLine = lines.get(endRow);
+            int endColumn = Math.min(delta.getEndColumn(), endLine.length());
+
+            String merged = startLine.substring(0, startColumn) + endLine.substring(endColumn);
+
+            for (int row = endRow; row > startRow; row--) {
+                lines.remove(row);
+            }
+
+            lines.set(startRow, merged);
+        }
+    }
+
+    public String getValue() {
+        return String.join("\n", lines);
+    }
+}
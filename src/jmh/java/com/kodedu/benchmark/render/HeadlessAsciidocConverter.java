@@ -0,0 +1,121 @@
+package com.kodedu.benchmark.render;
+
+import com.kodedu.engine.AsciidocConvertible;
+import com.kodedu.other.ConverterResult;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stand-in for the asciidoctor.js engines, so the render path runs without a WebView or Nashorn.
+ * <p>
+ * Does a simple line based conversion and spins for the configured time per KB of input,
+ * which can be calibrated against the real engine on a given machine.
+ */
+public class HeadlessAsciidocConverter implements AsciidocConvertible {
+
+    private final Pattern sectionPattern = Pattern.compile("^(={1,6})\\s+(.*)$");
+    private final Pattern attributePattern = Pattern.compile("^:(?<key>[^:]+):(?<value>.*)$");
+
+    private final long nanosPerKb;
+
+    public HeadlessAsciidocConverter(long microsPerKb) {
+        this.nanosPerKb = TimeUnit.MICROSECONDS.toNanos(microsPerKb);
+    }
+
+    @Override
+    public ConverterResult convertDocbook(String asciidoc) {
+        return new ConverterResult(null, convert(asciidoc), "docbook5", "book");
+    }
+
+    @Override
+    public ConverterResult convertAsciidoc(String asciidoc) {
+        return new ConverterResult(null, convert(asciidoc), "html5", "article");
+    }
+
+    @Override
+    public ConverterResult convertHtml(String asciidoc) {
+        return convertAsciidoc(asciidoc);
+    }
+
+    @Override
+    public void convertOdf(String asciidoc) {
+        convert(asciidoc);
+    }
+
+    @Override
+    public void fillOutlines(Object doc) {
+
+    }
+
+    @Override
+    public String applyReplacements(String asciidoc) {
+        return asciidoc;
+    }
+
+    private String convert(String asciidoc) {
+
+        long startedAt = System.nanoTime();
+
+        StringBuilder html = new StringBuilder(asciidoc.length() + asciidoc.length() / 4);
+        boolean inParagraph = false;
+        boolean inListing = false;
+
+        for (String line : asciidoc.split("\n", -1)) {
+
+            if ("----".equals(line)) {
+                html.append(inListing ? "</code></pre>\n" : "<pre><code>");
+                inListing = !inListing;
+                continue;
+            }
+
+            if (inListing) {
+                html.append(escape(line)).append('\n');
+                continue;
+            }
+
+            if (line.trim().isEmpty()) {
+                if (inParagraph) {
+                    html.append("</p>\n");
+                    inParagraph = false;
+                }
+                continue;
+            }
+
+            Matcher sectionMatcher = sectionPattern.matcher(line);
+            Matcher attributeMatcher = attributePattern.matcher(line);
+
+            if (sectionMatcher.matches()) {
+                int level = sectionMatcher.group(1).length();
+                html.append("<h").append(level).append('>').append(escape(sectionMatcher.group(2)))
+                        .append("</h").append(level).append(">\n");
+            } else if (attributeMatcher.matches()) {
+                // attribute entries don't produce output
+            } else if (line.startsWith("* ")) {
+                html.append("<ul><li>").append(escape(line.substring(2))).append("</li></ul>\n");
+            } else {
+                if (!inParagraph) {
+                    html.append("<p>");
+                    inParagraph = true;
+                }
+                html.append(escape(line)).append(' ');
+            }
+        }
+
+        if (inParagraph) {
+            html.append("</p>\n");
+        }
+
+        long cost = nanosPerKb * asciidoc.length() / 1024;
+        while (System.nanoTime() - startedAt < cost) {
+            // busy like the script engine would be
+        }
+
+        return html.toString();
+    }
+
+    private String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,352 @@
+package com.kodedu.benchmark.render;
+
+import com.kodedu.benchmark.CorpusGenerator;
+import com.kodedu.benchmark.CorpusGenerator.BookSize;
+import com.kodedu.other.ConverterResult;
+import com.kodedu.other.RenderLoop;
+import com.kodedu.service.Lane;
+import com.kodedu.service.LaneMetrics;
+import com.kodedu.service.ThreadService;
+import com.kodedu.service.metrics.MetricRegistry;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.stage.Stage;
+import org.springframework.core.env.StandardEnvironment;
+
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays editor deltas through a replica of the preview render path and reports keystroke to preview latency.
+ * <p>
+ * The pipeline is a replica of the asciidoc preview path of ApplicationController, textListener, render and
+ * updateRendered are copied here, only the {@link RenderLoop} and the lanes of {@link ThreadService} are the app's own.
+ * Edits are offered on the FX thread to a RenderLoop like the controller's, which renders the latest one on the render lane.
+ * The conversion and the preview refresh are stand-ins: {@link HeadlessAsciidocConverter} converts instead of asciidoctor.js
+ * in the converter web worker, and the refresh busies the FX thread for a configured time instead of the refreshUI call of the
+ * WebView. Left out of the replica: the book header include check, slide, markdown and html modes, flight recorder events,
+ * render metrics and the live preview broadcast.
+ * <p>
+ * Runs without a display with Monocle:
+ * <pre>mvn -Pbenchmark test-compile exec:exec@render-latency -Drender.args="--size LARGE --chars 1200"</pre>
+ * Options: --trace (recorded json lines), --record (save the synthetic trace), --size, --chars, --cpm, --speed,
+ * --converter-cost and --refresh-cost (microseconds per KB), --out (default target/render-latency.json).
+ */
+public class RenderLatencyHarness {
+
+    private static final CountDownLatch fxStarted = new CountDownLatch(1);
+
+    private final ThreadService threadService = new ThreadService(new StandardEnvironment(), new MetricRegistry());
+    private final RenderLoop<Edit> renderLoop = new RenderLoop<>(this::render);
+    private final NavigableMap<Long, Long> pendingEdits = new ConcurrentSkipListMap<>();
+    private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> fxLags = Collections.synchronizedList(new ArrayList<>());
+    private final StringProperty preview = new SimpleStringProperty();
+    private final AtomicLong renders = new AtomicLong();
+    private final AtomicLong lastRendered = new AtomicLong();
+
+    private final Options options;
+    private final HeadlessAsciidocConverter converter;
+
+    private RenderLatencyHarness(Options options) {
+        this.options = options;
+        this.converter = new HeadlessAsciidocConverter(options.converterCost);
+    }
+
+    /**
+     * Only brings the toolkit up, no stage is shown
+     */
+    public static class FxToolkit extends Application {
+        @Override
+        public void start(Stage stage) {
+            Platform.setImplicitExit(false);
+            fxStarted.countDown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Options options = Options.parse(args);
+
+        Thread launcher = new Thread(() -> Application.launch(FxToolkit.class), "fx-launcher");
+        launcher.setDaemon(true);
+        launcher.start();
+
+        if (!fxStarted.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("JavaFX toolkit didn't start, is Monocle on the classpath?");
+        }
+
+        try {
+            new RenderLatencyHarness(options).run();
+        } finally {
+            Platform.exit();
+        }
+
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+
+        String initial = CorpusGenerator.book(options.size);
+
+        EditTrace trace = Objects.nonNull(options.trace)
+                ? EditTrace.read(options.trace)
+                : EditTrace.typing(initial, options.chars, options.cpm, CorpusGenerator.DEFAULT_SEED);
+
+        if (Objects.nonNull(options.record)) {
+            trace.write(options.record);
+        }
+
+        EditorDocument document = new EditorDocument(initial);
+
+        renderLoop.start(threadService.executor(Lane.RENDER));
+
+        ScheduledExecutorService probe = Executors.newSingleThreadScheduledExecutor();
+        probe.scheduleAtFixedRate(() -> {
+            long postedAt = System.nanoTime();
+            threadService.runActionLater(() -> fxLags.add(System.nanoTime() - postedAt));
+        }, 0, 10, TimeUnit.MILLISECONDS);
+
+        LaneMetrics uiMetrics = threadService.getLaneMetrics(Lane.UI);
+        double busyBefore = uiMetrics.getTotalRunMillis();
+
+        long startedAt = System.nanoTime();
+        long sequence = 0;
+
+        for (EditTrace.Delta delta : trace.getDeltas()) {
+
+            long dueAt = startedAt + (long) (TimeUnit.MILLISECONDS.toNanos(delta.getTime()) / options.speed);
+            long waitFor;
+            while ((waitFor = dueAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(waitFor);
+            }
+
+            document.apply(delta);
+
+            final long editSequence = ++sequence;
+            final long typedAt = System.nanoTime();
+            final String text = document.getValue();
+
+            // the editor calls textListener from the FX thread
+            threadService.runActionLater(() -> textListener(editSequence, typedAt, text));
+        }
+
+        long lastSequence = sequence;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (lastRendered.get() < lastSequence && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        double wallMillis = (System.nanoTime() - startedAt) / 1_000_000.0;
+        double busyMillis = uiMetrics.getTotalRunMillis() - busyBefore;
+
+        renderLoop.stop();
+        probe.shutdownNow();
+
+        report(trace, lastSequence, wallMillis, busyMillis);
+    }
+
+    private void textListener(long sequence, long typedAt, String text) {
+        pendingEdits.put(sequence, typedAt);
+        renderLoop.offer(new Edit(sequence, text));
+    }
+
+    private void render(Edit edit, long editedAt) {
+
+        ConverterResult result = converter.convertAsciidoc(edit.text);
+        renders.incrementAndGet();
+
+        if (result.isBackend("html5")) {
+            updateRendered(edit.sequence, result.getRendered());
+        }
+    }
+
+    private void updateRendered(long sequence, String rendered) {
+        threadService.runActionLater(() -> {
+
+            // stands for the refreshUI script call of the preview
+            long cost = TimeUnit.MICROSECONDS.toNanos(options.refreshCost) * rendered.length() / 1024;
+            long startedAt = System.nanoTime();
+            preview.set(rendered);
+            while (System.nanoTime() - startedAt < cost) {
+                // busy like the WebView would be
+            }
+
+            long renderedAt = System.nanoTime();
+
+            // edits coalesced into this render are shown now as well
+            NavigableMap<Long, Long> shown = pendingEdits.headMap(sequence, true);
+            for (Long typedAt : shown.values()) {
+                latencies.add(renderedAt - typedAt);
+            }
+            shown.clear();
+
+            lastRendered.accumulateAndGet(sequence, Math::max);
+        });
+    }
+
+    private void report(EditTrace trace, long lastSequence, double wallMillis, double busyMillis) throws Exception {
+
+        List<Long> latencyList = sorted(latencies);
+        List<Long> lagList = sorted(fxLags);
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("deltas", trace.getDeltas().size());
+        values.put("traceDurationMs", trace.getDuration());
+        values.put("renders", renders.get());
+        values.put("droppedIntermediateRenders", renderLoop.getDropped());
+        values.put("finalEditRendered", lastRendered.get() >= lastSequence);
+        values.put("latencyP50Ms", millis(percentile(latencyList, 0.50)));
+        values.put("latencyP95Ms", millis(percentile(latencyList, 0.95)));
+        values.put("latencyP99Ms", millis(percentile(latencyList, 0.99)));
+        values.put("latencyMaxMs", millis(percentile(latencyList, 1.0)));
+        values.put("fxBusyMs", round(busyMillis));
+        values.put("fxBusyPercent", round(busyMillis * 100 / Math.max(1, wallMillis)));
+        values.put("fxLagP99Ms", millis(percentile(lagList, 0.99)));
+        values.put("fxLagMaxMs", millis(percentile(lagList, 1.0)));
+
+        StringBuilder text = new StringBuilder("Render latency\n");
+        values.forEach((key, value) -> text.append(String.format("  %-28s %s%n", key, value)));
+        System.out.println(text);
+
+        JsonObjectBuilder json = Json.createObjectBuilder();
+        values.forEach((key, value) -> {
+            if (value instanceof Boolean) {
+                json.add(key, (Boolean) value);
+            } else if (value instanceof Double) {
+                json.add(key, (Double) value);
+            } else {
+                json.add(key, ((Number) value).longValue());
+            }
+        });
+
+        Files.createDirectories(options.out.toAbsolutePath().getParent());
+        Files.write(options.out, json.build().toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Long> sorted(List<Long> list) {
+        synchronized (list) {
+            List<Long> copy = new ArrayList<>(list);
+            Collections.sort(copy);
+            return copy;
+        }
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static class Edit {
+        private final long sequence;
+        private final String text;
+
+        private Edit(long sequence, String text) {
+            this.sequence = sequence;
+            this.text = text;
+        }
+    }
+
+    private static class Options {
+        private Path trace;
+        private Path record;
+        private Path out = Paths.get("target/render-latency.json");
+        private BookSize size = BookSize.MEDIUM;
+        private int chars = 600;
+        private int cpm = 300;
+        private double speed = 1.0;
+        private long converterCost = 2000;
+        private long refreshCost = 100;
+
+        private static Options parse(String[] arguments) {
+
+            Options options = new Options();
+
+            // maven passes all of render.args as a single argument
+            List<String> args = new ArrayList<>();
+            for (String argument : arguments) {
+                for (String part : argument.trim().split("\\s+")) {
+                    if (!part.isEmpty()) {
+                        args.add(part);
+                    }
+                }
+            }
+
+            for (int i = 0; i < args.size(); i++) {
+
+                String arg = args.get(i);
+
+                if (i + 1 >= args.size()) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+
+                String value = args.get(++i);
+
+                switch (arg) {
+                    case "--trace":
+                        options.trace = Paths.get(value);
+                        break;
+                    case "--record":
+                        options.record = Paths.get(value);
+                        break;
+                    case "--out":
+                        options.out = Paths.get(value);
+                        break;
+                    case "--size":
+                        options.size = BookSize.valueOf(value.toUpperCase());
+                        break;
+                    case "--chars":
+                        options.chars = Integer.parseInt(value);
+                        break;
+                    case "--cpm":
+                        options.cpm = Integer.parseInt(value);
+                        break;
+                    case "--speed":
+                        options.speed = Double.parseDouble(value);
+                        break;
+                    case "--converter-cost":
+                        options.converterCost = Long.parseLong(value);
+                        break;
+                    case "--refresh-cost":
+                        options.refreshCost = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+
+            return options;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.kodedu.animation;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Writes only the changed region of each frame to the gif.
+ * <p>
+ * A frame is held back until the next change, so its delay is the time it was actually shown.
+ * Not thread safe, used by the encoder thread of a recording.
+ */
+final class DeltaFrameWriter implements Closeable {
+
+    private final GifSequenceWriter gifWriter;
+    private final int width;
+    private final int height;
+    private final int lastFrameDelay;
+    private final PaletteQuantizer quantizer = new PaletteQuantizer();
+
+    private int[] previous;
+    private int[] current;
+
+    private BufferedImage pendingImage;
+    private int pendingLeft;
+    private int pendingTop;
+    private long pendingTimestamp;
+
+    DeltaFrameWriter(GifSequenceWriter gifWriter, int width, int height, int lastFrameDelay) {
+        this.gifWriter = gifWriter;
+        this.width = width;
+        this.height = height;
+        this.lastFrameDelay = lastFrameDelay;
+        this.current = new int[width * height];
+    }
+
+    /**
+     * Adds the captured frame, the image can be reused when this returns
+     *
+     * @return whether the frame had changes
+     */
+    boolean add(WritableImage image, long timestamp) throws IOException {
+
+        image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), current, 0, width);
+
+        Rectangle dirty = isNull(previous) ? new Rectangle(0, 0, width, height) : dirtyRegion(previous, current);
+
+        if (isNull(dirty)) {
+            return false;
+        }
+
+        writePending(timestamp);
+
+        pendingImage = quantizer.quantize(current, width, dirty.x, dirty.y, dirty.width, dirty.height);
+        pendingLeft = dirty.x;
+        pendingTop = dirty.y;
+        pendingTimestamp = timestamp;
+
+        int[] swap = previous;
+        previous = current;
+        current = isNull(swap) ? new int[width * height] : swap;
+
+        return true;
+    }
+
+    private void writePending(long timestamp) throws IOException {
+        if (nonNull(pendingImage)) {
+            gifWriter.writeToSequence(pendingImage, pendingLeft, pendingTop, (int) (timestamp - pendingTimestamp));
+            pendingImage = null;
+        }
+    }
+
+    /**
+     * Bounds of the pixels which differ, null when the frames are the same
+     */
+    private Rectangle dirtyRegion(int[] first, int[] second) {
+
+        int top = 0;
+        while (top < height && sameRow(first, second, top)) {
+            top++;
+        }
+
+        if (top == height) {
+            return null;
+        }
+
+        int bottom = height - 1;
+        while (bottom > top && sameRow(first, second, bottom)) {
+            bottom--;
+        }
+
+        int left = width - 1;
+        int right = 0;
+
+        for (int y = top; y <= bottom; y++) {
+            int offset = y * width;
+
+            for (int x = 0; x < left; x++) {
+                if (first[offset + x] != second[offset + x]) {
+                    left = x;
+                    break;
+                }
+            }
+
+            for (int x = width - 1; x > right; x--) {
+                if (first[offset + x] != second[offset + x]) {
+                    right = x;
+                    break;
+                }
+            }
+        }
+
+        if (right < left) {
+            right = left;
+        }
+
+        return new Rectangle(left, top, right - left + 1, bottom - top + 1);
+    }
+
+    private boolean sameRow(int[] first, int[] second, int y) {
+        int offset = y * width;
+        for (int x = 0; x < width; x++) {
+            if (first[offset + x] != second[offset + x]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writePending(pendingTimestamp + lastFrameDelay);
+        } finally {
+            gifWriter.close();
+        }
+    }
+}
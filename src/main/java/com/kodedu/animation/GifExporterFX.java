@@ -6,9 +6,10 @@ package com.kodedu.animation;
 
 import com.kodedu.other.IOHelper;
 import com.kodedu.service.ThreadService;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.Node;
 import javafx.scene.image.WritableImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
@@ -16,21 +17,32 @@ import org.springframework.stereotype.Component;
 import javax.imageio.stream.FileImageOutputStream;
 import javax.imageio.stream.ImageOutputStream;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
 import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.isNull;
 
 /**
+ * Records a node as gif.
+ * <p>
+ * Frames are captured into a small ring of reused images, the encoder thread writes the changed region of each frame.
+ * When the encoder falls behind there is no free image in the ring and frames are dropped until it catches up.
+ *
  * @author william
  */
 @Component
 @Lazy
 public class GifExporterFX {
 
+    private final Logger logger = LoggerFactory.getLogger(GifExporterFX.class);
+
+    // images being captured, waiting or being encoded
+    private static final int FRAME_RING_SIZE = 4;
+
     private final ThreadService threadService;
 
     @Autowired
@@ -38,61 +50,88 @@ public class GifExporterFX {
         this.threadService = threadService;
     }
 
-    private BufferedImage latestBufferedImage;
-
     public ScheduledFuture<?> captureNow(Node target, Path outputDirectory, int timeBetweenFramesMS, boolean loopContinuously) throws Exception {
+
+        // the gif size is fixed by the first frame
+        int w = Math.max(1, (int) target.getBoundsInParent().getWidth());
+        int h = Math.max(1, (int) target.getBoundsInParent().getHeight());
+
         ImageOutputStream output = new FileImageOutputStream(outputDirectory.toFile());
-        GifSequenceWriter gifWriter = new GifSequenceWriter(output, 3, timeBetweenFramesMS, loopContinuously);
+        GifSequenceWriter gifWriter = new GifSequenceWriter(output, BufferedImage.TYPE_INT_ARGB_PRE, timeBetweenFramesMS, loopContinuously);
+        DeltaFrameWriter frameWriter = new DeltaFrameWriter(gifWriter, w, h, timeBetweenFramesMS);
+
+        BlockingQueue<WritableImage> freeImages = new ArrayBlockingQueue<>(FRAME_RING_SIZE);
+        BlockingQueue<CapturedFrame> capturedFrames = new ArrayBlockingQueue<>(FRAME_RING_SIZE);
+
+        for (int i = 0; i < FRAME_RING_SIZE; i++) {
+            freeImages.offer(new WritableImage(w, h));
+        }
+
+        AtomicInteger droppedFrames = new AtomicInteger();
 
         ScheduledFuture<?> future = threadService.scheduleWithDelay(() -> {
 
-            Semaphore semaphore = new Semaphore(1);
+            WritableImage img = freeImages.poll();
 
-            int w = (int) target.getBoundsInParent().getWidth();
-            int h = (int) target.getBoundsInParent().getHeight();
-            WritableImage img = new WritableImage(w, h);
+            if (isNull(img)) {
+                droppedFrames.incrementAndGet();
+                return;
+            }
+
+            long timestamp = System.currentTimeMillis();
 
             threadService.runActionLater(() -> {
                 try {
                     target.snapshot(null, img);
-                    BufferedImage bufferedImage = SwingFXUtils.fromFXImage(img, null);
-                    threadService.runTaskLater(() -> {
-                        boolean isSame = IOHelper.isSameImage(bufferedImage, latestBufferedImage);
-                        latestBufferedImage = bufferedImage;
-                        if (!isSame) {
-                            try {
-                                gifWriter.writeToSequence(bufferedImage);
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                    });
-                    semaphore.release();
+                    capturedFrames.offer(new CapturedFrame(img, timestamp));
                 } catch (Exception ex) {
-                    Logger.getLogger(GifExporterFX.class.getName()).log(Level.SEVERE, null, ex);
+                    freeImages.offer(img);
+                    logger.error("Problem occured while capturing gif frame", ex);
                 }
             });
 
-            try {
-                semaphore.acquire();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-
         }, timeBetweenFramesMS, TimeUnit.MILLISECONDS);
 
         threadService.start(() -> {
+
+            int writtenFrames = 0;
+
             try {
-                future.get();
+                while (!future.isDone() || !capturedFrames.isEmpty()) {
+
+                    CapturedFrame frame = capturedFrames.poll(timeBetweenFramesMS, TimeUnit.MILLISECONDS);
+
+                    if (isNull(frame)) {
+                        continue;
+                    }
+
+                    try {
+                        if (frameWriter.add(frame.image, frame.timestamp)) {
+                            writtenFrames++;
+                        }
+                    } finally {
+                        freeImages.offer(frame.image);
+                    }
+                }
             } catch (Exception e) {
+                logger.error("Problem occured while encoding gif {}", outputDirectory, e);
+            } finally {
+                IOHelper.close(frameWriter, output);
             }
 
-
-            IOHelper.close(gifWriter, output);
+            logger.debug("Gif {} is recorded, {} frames written, {} dropped", outputDirectory, writtenFrames, droppedFrames.get());
         });
 
         return future;
+    }
 
+    private static final class CapturedFrame {
+        private final WritableImage image;
+        private final long timestamp;
 
+        private CapturedFrame(WritableImage image, long timestamp) {
+            this.image = image;
+            this.timestamp = timestamp;
+        }
     }
-}
\ No newline at end of file
+}
@@ -19,6 +19,8 @@ public class GifSequenceWriter implements Closeable {
     protected ImageWriter gifWriter;
     protected ImageWriteParam imageWriteParam;
     protected IIOMetadata imageMetaData;
+    protected boolean loopContinuously;
+    private boolean loopWritten;
 
     /**
      * Creates a new GifSequenceWriter
@@ -73,16 +75,8 @@ public class GifSequenceWriter implements Closeable {
                 root,
                 "ApplicationExtensions");
 
-        IIOMetadataNode child = new IIOMetadataNode("ApplicationExtension");
-
-        child.setAttribute("applicationID", "NETSCAPE");
-        child.setAttribute("authenticationCode", "2.0");
-
-        int loop = loopContinuously ? 0 : 1;
-
-        child.setUserObject(new byte[]{0x1, (byte) (loop & 0xFF), (byte)
-                ((loop >> 8) & 0xFF)});
-        appEntensionsNode.appendChild(child);
+        this.loopContinuously = loopContinuously;
+        appEntensionsNode.appendChild(loopExtension());
 
         imageMetaData.setFromTree(metaFormatName, root);
 
@@ -91,6 +85,47 @@ public class GifSequenceWriter implements Closeable {
         gifWriter.prepareWriteSequence(null);
     }
 
+    /**
+     * Writes a frame covering the given region of the previous frames, which are kept (doNotDispose)
+     *
+     * @param img    the changed region, with its own palette
+     * @param left   x of the region in the animation
+     * @param top    y of the region in the animation
+     * @param delayMS how long the frame is shown
+     */
+    public void writeToSequence(RenderedImage img, int left, int top, int delayMS) throws IOException {
+
+        IIOMetadata frameMetaData = gifWriter.getDefaultImageMetadata(
+                ImageTypeSpecifier.createFromRenderedImage(img), imageWriteParam);
+
+        String metaFormatName = frameMetaData.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) frameMetaData.getAsTree(metaFormatName);
+
+        IIOMetadataNode graphicsControlExtensionNode = getNode(root, "GraphicControlExtension");
+        graphicsControlExtensionNode.setAttribute("disposalMethod", "doNotDispose");
+        graphicsControlExtensionNode.setAttribute("userInputFlag", "FALSE");
+        graphicsControlExtensionNode.setAttribute("transparentColorFlag", "FALSE");
+        graphicsControlExtensionNode.setAttribute("delayTime", Integer.toString(Math.max(2, delayMS / 10)));
+        graphicsControlExtensionNode.setAttribute("transparentColorIndex", "0");
+
+        IIOMetadataNode imageDescriptorNode = getNode(root, "ImageDescriptor");
+        imageDescriptorNode.setAttribute("imageLeftPosition", Integer.toString(left));
+        imageDescriptorNode.setAttribute("imageTopPosition", Integer.toString(top));
+        imageDescriptorNode.setAttribute("imageWidth", Integer.toString(img.getWidth()));
+        imageDescriptorNode.setAttribute("imageHeight", Integer.toString(img.getHeight()));
+        imageDescriptorNode.setAttribute("interlaceFlag", "FALSE");
+
+        // the loop extension is only needed once, in the first frame
+        if (!loopWritten) {
+            getNode(root, "ApplicationExtensions").appendChild(loopExtension());
+            loopWritten = true;
+        }
+
+        frameMetaData.setFromTree(metaFormatName, root);
+
+        gifWriter.writeToSequence(new IIOImage(img, null, frameMetaData), imageWriteParam);
+    }
+
     public void writeToSequence(RenderedImage img) throws IOException {
         gifWriter.writeToSequence(
                 new IIOImage(
@@ -100,6 +135,19 @@ public class GifSequenceWriter implements Closeable {
                 imageWriteParam);
     }
 
+    private IIOMetadataNode loopExtension() {
+        IIOMetadataNode child = new IIOMetadataNode("ApplicationExtension");
+
+        child.setAttribute("applicationID", "NETSCAPE");
+        child.setAttribute("authenticationCode", "2.0");
+
+        int loop = loopContinuously ? 0 : 1;
+
+        child.setUserObject(new byte[]{0x1, (byte) (loop & 0xFF), (byte)
+                ((loop >> 8) & 0xFF)});
+        return child;
+    }
+
     /**
      * Close this GifSequenceWriter object. This does not close the underlying
      * stream, just finishes off the GIF.
@@ -0,0 +1,177 @@
+package com.kodedu.animation;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.util.Arrays;
+
+/**
+ * Reduces argb pixels to a gif palette of at most 256 colors.
+ * <p>
+ * Terminal frames mostly have few colors, they get an exact palette. Otherwise colors are grouped into rgb555 buckets
+ * and the most used 256 buckets (averaged) become the palette.
+ */
+final class PaletteQuantizer {
+
+    private static final int MAX_COLORS = 256;
+    private static final int BUCKETS = 1 << 15;
+
+    // exact palette lookup, open addressing on rgb
+    private final int[] exactKeys = new int[1024];
+    private final int[] exactIndexes = new int[1024];
+
+    private final int[] bucketCounts = new int[BUCKETS];
+    private final long[] bucketRed = new long[BUCKETS];
+    private final long[] bucketGreen = new long[BUCKETS];
+    private final long[] bucketBlue = new long[BUCKETS];
+    private final byte[] bucketIndexes = new byte[BUCKETS];
+
+    /**
+     * Indexed image of the region of the frame
+     */
+    BufferedImage quantize(int[] pixels, int scanline, int left, int top, int width, int height) {
+
+        byte[] red = new byte[MAX_COLORS];
+        byte[] green = new byte[MAX_COLORS];
+        byte[] blue = new byte[MAX_COLORS];
+
+        int size = exactPalette(pixels, scanline, left, top, width, height, red, green, blue);
+        boolean exact = size > 0;
+
+        if (!exact) {
+            size = popularPalette(pixels, scanline, left, top, width, height, red, green, blue);
+        }
+
+        IndexColorModel colorModel = new IndexColorModel(8, size, red, green, blue);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+        byte[] indexes = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+        for (int y = 0, i = 0; y < height; y++) {
+            int offset = (top + y) * scanline + left;
+            for (int x = 0; x < width; x++) {
+                int rgb = pixels[offset + x] & 0xFFFFFF;
+                indexes[i++] = exact ? (byte) exactIndexes[slot(rgb)] : bucketIndexes[bucket(rgb)];
+            }
+        }
+
+        return image;
+    }
+
+    /**
+     * Palette size, 0 when there are more than 256 colors
+     */
+    private int exactPalette(int[] pixels, int scanline, int left, int top, int width, int height,
+                             byte[] red, byte[] green, byte[] blue) {
+
+        Arrays.fill(exactKeys, -1);
+        int size = 0;
+
+        for (int y = 0; y < height; y++) {
+            int offset = (top + y) * scanline + left;
+            for (int x = 0; x < width; x++) {
+                int rgb = pixels[offset + x] & 0xFFFFFF;
+                int slot = slot(rgb);
+                if (exactKeys[slot] == rgb) {
+                    continue;
+                }
+                if (size == MAX_COLORS) {
+                    return 0;
+                }
+                exactKeys[slot] = rgb;
+                exactIndexes[slot] = size;
+                red[size] = (byte) (rgb >> 16);
+                green[size] = (byte) (rgb >> 8);
+                blue[size] = (byte) rgb;
+                size++;
+            }
+        }
+
+        return Math.max(1, size);
+    }
+
+    private int slot(int rgb) {
+        int slot = (rgb * 0x9E3779B1) >>> 22;
+        while (exactKeys[slot] != -1 && exactKeys[slot] != rgb) {
+            slot = (slot + 1) & (exactKeys.length - 1);
+        }
+        return slot;
+    }
+
+    private int popularPalette(int[] pixels, int scanline, int left, int top, int width, int height,
+                               byte[] red, byte[] green, byte[] blue) {
+
+        Arrays.fill(bucketCounts, 0);
+        Arrays.fill(bucketRed, 0);
+        Arrays.fill(bucketGreen, 0);
+        Arrays.fill(bucketBlue, 0);
+
+        int used = 0;
+        for (int y = 0; y < height; y++) {
+            int offset = (top + y) * scanline + left;
+            for (int x = 0; x < width; x++) {
+                int rgb = pixels[offset + x];
+                int bucket = bucket(rgb);
+                if (bucketCounts[bucket]++ == 0) {
+                    used++;
+                }
+                bucketRed[bucket] += (rgb >> 16) & 0xFF;
+                bucketGreen[bucket] += (rgb >> 8) & 0xFF;
+                bucketBlue[bucket] += rgb & 0xFF;
+            }
+        }
+
+        // count in the high bits, so sorting orders buckets by use
+        long[] ranked = new long[used];
+        int[] usedBuckets = new int[used];
+        for (int bucket = 0, i = 0; bucket < BUCKETS; bucket++) {
+            if (bucketCounts[bucket] > 0) {
+                usedBuckets[i] = bucket;
+                ranked[i++] = ((long) bucketCounts[bucket] << 15) | bucket;
+            }
+        }
+        Arrays.sort(ranked);
+
+        int size = Math.min(MAX_COLORS, used);
+        int[] paletteRgb = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            int bucket = (int) (ranked[used - 1 - i] & (BUCKETS - 1));
+            int count = bucketCounts[bucket];
+            int r = (int) (bucketRed[bucket] / count);
+            int g = (int) (bucketGreen[bucket] / count);
+            int b = (int) (bucketBlue[bucket] / count);
+            red[i] = (byte) r;
+            green[i] = (byte) g;
+            blue[i] = (byte) b;
+            paletteRgb[i] = (r << 16) | (g << 8) | b;
+        }
+
+        for (int bucket : usedBuckets) {
+            int count = bucketCounts[bucket];
+            bucketIndexes[bucket] = (byte) nearest(paletteRgb, (int) (bucketRed[bucket] / count),
+                    (int) (bucketGreen[bucket] / count), (int) (bucketBlue[bucket] / count));
+        }
+
+        return size;
+    }
+
+    private static int nearest(int[] palette, int r, int g, int b) {
+        int nearest = 0;
+        int minDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < palette.length; i++) {
+            int dr = ((palette[i] >> 16) & 0xFF) - r;
+            int dg = ((palette[i] >> 8) & 0xFF) - g;
+            int db = (palette[i] & 0xFF) - b;
+            int distance = dr * dr * 2 + dg * dg * 4 + db * db * 3;
+            if (distance < minDistance) {
+                minDistance = distance;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    private static int bucket(int rgb) {
+        return ((rgb >> 9) & 0x7C00) | ((rgb >> 6) & 0x3E0) | ((rgb >> 3) & 0x1F);
+    }
+}
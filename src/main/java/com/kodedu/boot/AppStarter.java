@@ -6,6 +6,7 @@ import com.kodedu.config.EditorConfigBean;
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.service.FileOpenListener;
 import com.kodedu.service.ThreadService;
+import com.kodedu.service.WarmupService;
 import com.kodedu.service.ui.TabService;
 import de.tototec.cmdoption.CmdlineParser;
 import de.tototec.cmdoption.CmdlineParserException;
@@ -18,9 +19,7 @@ import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyCodeCombination;
-import javafx.scene.layout.AnchorPane;
 import javafx.scene.text.Font;
-import javafx.stage.Modality;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
 import org.apache.commons.io.IOUtils;
@@ -31,6 +30,7 @@ import org.springframework.context.ConfigurableApplicationContext;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 import static javafx.scene.input.KeyCombination.SHORTCUT_DOWN;
 
@@ -48,6 +48,8 @@ public class AppStarter extends Application {
     @Override
     public void start(final Stage stage) {
 
+        StartupTimeline.mark("JavaFX started");
+
         Thread.setDefaultUncaughtExceptionHandler((t, e) -> logger.error(e.getMessage(), e));
 
         loadRequiredFonts();
@@ -99,11 +101,16 @@ public class AppStarter extends Application {
 
         this.stage = stage;
         context = SpringApplication.run(SpringAppConfig.class);
+        StartupTimeline.mark("Spring context started");
+
         editorConfigBean = context.getBean(EditorConfigBean.class);
         controller = context.getBean(ApplicationController.class);
         threadService = context.getBean(ThreadService.class);
         configurationService = context.getBean(ConfigurationService.class);
 
+        // config beans are read in parallel while the main scene is loaded
+        CompletableFuture<Void> configLoader = configurationService.loadConfigurations();
+
         final FXMLLoader parentLoader = new FXMLLoader();
         parentLoader.setControllerFactory(context::getBean);
 
@@ -111,6 +118,7 @@ public class AppStarter extends Application {
         Parent root = parentLoader.load(sceneStream);
 
         Scene scene = new Scene(root);
+        StartupTimeline.mark("Main scene loaded");
 
         stage.setTitle("AsciidocFX");
         InputStream logoStream = AppStarter.class.getResourceAsStream("/logo.png");
@@ -119,6 +127,7 @@ public class AppStarter extends Application {
         threadService.runActionLater(stage::setScene, scene);
 
         controller.initializeApp();
+        StartupTimeline.mark("Application initialized");
 
         stage.setOnShowing(e -> {
 
@@ -126,7 +135,7 @@ public class AppStarter extends Application {
             controller.setScene(scene);
             controller.setHostServices(getHostServices());
 
-            configurationService.loadConfigurations();
+            configurationService.createConfigForms();
             controller.applyInitialConfigurations();
             controller.checkStageInsideScreens();
 
@@ -135,8 +144,14 @@ public class AppStarter extends Application {
         stage.setOnShown(e -> {
             controller.bindConfigurations();
             controller.showConfigLoaderOnNewInstall();
+            StartupTimeline.mark("Main window shown");
+            context.getBean(WarmupService.class).warmUpLater();
         });
 
+        // config values are queued to the FX thread before the stage is shown
+        configLoader.join();
+        StartupTimeline.mark("Configurations loaded");
+
         threadService.runActionLater(() -> {
             setMaximized();
 
@@ -150,44 +165,6 @@ public class AppStarter extends Application {
         IOUtils.closeQuietly(sceneStream);
         IOUtils.closeQuietly(logoStream);
 
-        final FXMLLoader asciidocTableLoader = new FXMLLoader();
-        final FXMLLoader markdownTableLoader = new FXMLLoader();
-
-        asciidocTableLoader.setControllerFactory(context::getBean);
-        markdownTableLoader.setControllerFactory(context::getBean);
-
-        InputStream asciidocTableStream = AppStarter.class.getResourceAsStream("/fxml/AsciidocTablePopup.fxml");
-        AnchorPane asciidocTableAnchor = asciidocTableLoader.load(asciidocTableStream);
-
-        InputStream markdownTableStream = AppStarter.class.getResourceAsStream("/fxml/MarkdownTablePopup.fxml");
-        AnchorPane markdownTableAnchor = markdownTableLoader.load(markdownTableStream);
-
-        Stage asciidocTableStage = threadService.supply(Stage::new);
-        threadService.runActionLater(asciidocTableStage::setScene, new Scene(asciidocTableAnchor));
-        asciidocTableStage.setTitle("Table Generator");
-        asciidocTableStage.initModality(Modality.WINDOW_MODAL);
-        asciidocTableStage.initOwner(scene.getWindow());
-        asciidocTableStage.getIcons().add(new Image(logoStream));
-
-        Stage markdownTableStage = threadService.supply(Stage::new);
-        threadService.runActionLater(markdownTableStage::setScene, new Scene(markdownTableAnchor));
-        markdownTableStage.setTitle("Table Generator");
-        markdownTableStage.initModality(Modality.WINDOW_MODAL);
-        markdownTableStage.initOwner(scene.getWindow());
-        markdownTableStage.getIcons().add(new Image(logoStream));
-
-        IOUtils.closeQuietly(asciidocTableStream);
-        IOUtils.closeQuietly(markdownTableStream);
-
-        controller.setAsciidocTableAnchor(asciidocTableAnchor);
-        controller.setMarkdownTableAnchor(markdownTableAnchor);
-        controller.setAsciidocTableStage(asciidocTableStage);
-        controller.setAsciidocTableScene(asciidocTableStage.getScene());
-        controller.setMarkdownTableStage(markdownTableStage);
-        controller.setMarkdownTableScene(markdownTableStage.getScene());
-
-        controller.applyCurrentTheme(asciidocTableStage, markdownTableStage);
-
         controller.initializeSaveOnBlur();
 
         scene.getAccelerators().put(new KeyCodeCombination(KeyCode.S, SHORTCUT_DOWN), controller::saveDoc);
@@ -214,6 +191,8 @@ public class AppStarter extends Application {
         stage.widthProperty().addListener(controller::stageWidthChanged);
         stage.heightProperty().addListener(controller::stageWidthChanged);
 
+        threadService.runActionLater(StartupTimeline::log);
+
     }
 
     private void setMaximized() {
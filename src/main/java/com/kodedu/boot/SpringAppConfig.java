@@ -16,11 +16,16 @@
 
 package com.kodedu.boot;
 
-import com.kodedu.controller.ApplicationController;
+import com.kodedu.service.live.LiveBroadcastHub;
+import io.undertow.websockets.extensions.PerMessageDeflateHandshake;
+import io.undertow.websockets.jsr.WebSocketDeploymentInfo;
 import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.boot.web.servlet.support.SpringBootServletInitializer;
 import org.springframework.context.annotation.*;
 import org.springframework.web.client.RestTemplate;
@@ -39,11 +44,25 @@ import java.util.Base64;
 public class SpringAppConfig extends SpringBootServletInitializer implements WebSocketConfigurer {
 
     @Autowired
-    private ApplicationController applicationController;
+    private LiveBroadcastHub liveBroadcastHub;
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(applicationController, "/ws", "/ws**", "/ws/**").withSockJS();
+        registry.addHandler(liveBroadcastHub, "/ws", "/ws**", "/ws/**").withSockJS();
+    }
+
+    /**
+     * Enables permessage-deflate for live preview WebSocket, rendered html compresses well
+     */
+    @Bean
+    @ConditionalOnProperty(name = "application.live.compression", havingValue = "true", matchIfMissing = true)
+    public WebServerFactoryCustomizer<UndertowServletWebServerFactory> perMessageDeflateCustomizer() {
+        return factory -> factory.addDeploymentInfoCustomizers(deploymentInfo -> {
+            Object attribute = deploymentInfo.getServletContextAttributes().get(WebSocketDeploymentInfo.ATTRIBUTE_NAME);
+            if (attribute instanceof WebSocketDeploymentInfo) {
+                ((WebSocketDeploymentInfo) attribute).addExtension(new PerMessageDeflateHandshake(false, 6));
+            }
+        });
     }
 
     @Bean
@@ -0,0 +1,58 @@
+package com.kodedu.boot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the startup steps with their time since JVM start, logged once the main window is up
+ */
+public final class StartupTimeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeline.class);
+
+    private static final long jvmStartTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final List<String> steps = new CopyOnWriteArrayList<>();
+    private static volatile boolean logged = false;
+
+    private StartupTimeline() {
+    }
+
+    public static void mark(String step) {
+        steps.add(String.format("%6d ms  %-40s [%s]", elapsed(), step, Thread.currentThread().getName()));
+    }
+
+    /**
+     * Marks a step together with how long it took
+     *
+     * @param startedAt {@link System#nanoTime()} when the step started
+     */
+    public static void mark(String step, long startedAt) {
+        long took = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        steps.add(String.format("%6d ms  %-40s [%s] took %d ms", elapsed(), step, Thread.currentThread().getName(), took));
+    }
+
+    public static void log() {
+
+        if (logged) {
+            return;
+        }
+
+        logged = true;
+
+        StringBuilder builder = new StringBuilder("Startup timeline");
+        for (String step : steps) {
+            builder.append(System.lineSeparator()).append(step);
+        }
+
+        logger.info(builder.toString());
+    }
+
+    private static long elapsed() {
+        return System.currentTimeMillis() - jvmStartTime;
+    }
+}
@@ -7,9 +7,11 @@ import com.kodedu.config.SpellcheckConfigBean;
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.keyboard.KeyHelper;
 import com.kodedu.other.IOHelper;
+import com.kodedu.outline.HeadingLines;
 import com.kodedu.service.DirectoryService;
 import com.kodedu.service.ParserService;
 import com.kodedu.service.ThreadService;
+import com.kodedu.service.cache.ImageInfoService;
 import com.kodedu.service.convert.markdown.MarkdownService;
 import com.kodedu.service.extension.AsciiTreeGenerator;
 import com.kodedu.service.shortcut.ShortcutProvider;
@@ -45,12 +47,17 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import javax.json.Json;
+import javax.json.JsonReader;
+import javax.json.JsonString;
 import java.io.File;
+import java.io.StringReader;
 import java.nio.charset.CharsetDecoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -91,6 +98,27 @@ public class EditorPane extends AnchorPane {
     @Value("${application.preview.url}")
     private String previewUrl;
 
+    @Value("${application.editor.url}")
+    private String editorUrl;
+
+    @Value("${application.editor.large-document-size:2}")
+    private int largeDocumentSize;
+
+    @Value("${application.editor.load-chunk-size:262144}")
+    private int loadChunkSize;
+
+    // time spent appending chunks in a pulse while loading a large document
+    private static final long CHUNK_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+
+    // large documents are loaded in chunks, only the section around the cursor is rendered
+    private boolean largeDocument;
+    private final HeadingLines headingLines = new HeadingLines();
+
+    // text and editor state of a hibernated tab, its page is unloaded until the tab is selected again
+    private String hibernatedValue;
+    private String hibernatedState;
+    private boolean waking;
+
     private final DirectoryService directoryService;
     private ContextMenu contextMenu;
     private Number pageX;
@@ -130,17 +158,29 @@ public class EditorPane extends AnchorPane {
         getWindow().setMember("editorPane", this);
         updateOptions();
 
-        if (Objects.nonNull(path)) {
+        if (isHibernated()) {
+            restoreHibernated();
+        } else if (Objects.nonNull(path)) {
             threadService.runTaskLater(() -> {
                 try {
                     final String content = IOHelper.readFile(path);
                     setLastModifiedTime(IOHelper.getLastModifiedTime(path));
+                    applicationContext.getBean(ImageInfoService.class).prefetch(path, content);
                     threadService.runActionLater(() -> {
                         changeEditorMode();
-                        setInitialized();
-                        setEditorValue(content);
-                        resetUndoManager();
-                        ready.setValue(true);
+                        if (content.length() > largeDocumentSize * 1024L * 1024L) {
+                            logger.info("{} is opened as a large document, only the section around the cursor is rendered", path);
+                            loadLargeDocument(content, () -> {
+                                setInitialized();
+                                resetUndoManager();
+                                ready.setValue(true);
+                            });
+                        } else {
+                            setInitialized();
+                            setEditorValue(content);
+                            resetUndoManager();
+                            ready.setValue(true);
+                        }
                     });
                 } catch (Exception e) {
                     myTab.closeIt();
@@ -158,6 +198,166 @@ public class EditorPane extends AnchorPane {
         webView.requestFocus();
     }
 
+    private void restoreHibernated() {
+        String value = hibernatedValue;
+        String state = hibernatedState;
+        hibernatedValue = null;
+        hibernatedState = null;
+        waking = false;
+
+        Runnable restoreState = () -> {
+            try {
+                call("restoreHibernationState", state);
+            } catch (Exception e) {
+                logger.debug("Editor state is not restored, undo history is reset", e);
+                resetUndoManager();
+            }
+            ready.setValue(true);
+        };
+
+        call("switchMode", mode);
+
+        if (largeDocument) {
+            loadLargeDocument(value, () -> {
+                setInitialized();
+                restoreState.run();
+            });
+        } else {
+            setInitialized();
+            setEditorValue(value);
+            threadService.runActionLater(restoreState);
+        }
+    }
+
+    /**
+     * Streams the content into the editor in line aligned chunks, a few chunks per pulse, so the UI stays
+     * responsive while a large document is loaded. Must be called in FX thread.
+     */
+    private void loadLargeDocument(String content, Runnable afterLoaded) {
+        largeDocument = true;
+        call("setLargeDocument", content.length());
+        appendChunks(content, 0, afterLoaded);
+    }
+
+    private void appendChunks(String content, int offset, Runnable afterLoaded) {
+
+        long deadline = System.nanoTime() + CHUNK_BUDGET_NANOS;
+
+        do {
+            int end = chunkEnd(content, offset);
+            String chunk = content.substring(offset, end);
+            if (offset == 0) {
+                call("setEditorValue", chunk);
+            } else {
+                call("appendEditorChunk", chunk);
+            }
+            offset = end;
+        } while (offset < content.length() && System.nanoTime() < deadline);
+
+        if (offset < content.length()) {
+            int next = offset;
+            threadService.runActionLater(() -> appendChunks(content, next, afterLoaded), true);
+        } else {
+            updateFoldStyle();
+            scanLoadedOutline(content);
+            afterLoaded.run();
+        }
+    }
+
+    /**
+     * The outline of a large document is scanned from the loaded text once, then from the changed rows only
+     */
+    private void scanLoadedOutline(String content) {
+        call("resetOutlineRange");
+        headingLines.reset(content);
+        controller.scanOutline(headingLines, editorMode());
+    }
+
+    /**
+     * Applies the rows changed since the last scan and rescans the outline of a large document
+     *
+     * @param start        first changed row, -1 if no row has changed
+     * @param lineDelta    change of the line count since the last scan
+     * @param changedLines json array of the rows from start, as they are now
+     */
+    @WebkitCall(from = "editor")
+    public void scanOutline(int start, int lineDelta, String changedLines, String mode) {
+
+        if (start >= 0) {
+            List<String> changed = new ArrayList<>();
+            try (JsonReader reader = Json.createReader(new StringReader(changedLines))) {
+                for (JsonString line : reader.readArray().getValuesAs(JsonString.class)) {
+                    changed.add(line.getString());
+                }
+            }
+
+            if (!headingLines.replace(start, lineDelta, changed)) {
+                logger.debug("Outline lines are out of sync, the document is scanned again");
+                call("resetOutlineRange");
+                headingLines.reset(getEditorValue());
+            }
+        }
+
+        controller.scanOutline(headingLines, mode);
+    }
+
+    private int chunkEnd(String content, int offset) {
+        int end = Math.min(content.length(), offset + Math.max(1, loadChunkSize));
+        if (end < content.length()) {
+            int lineEnd = content.lastIndexOf('\n', end - 1);
+            if (lineEnd >= offset) {
+                end = lineEnd + 1;
+            }
+        }
+        return end;
+    }
+
+    public boolean isLargeDocument() {
+        return largeDocument;
+    }
+
+    /**
+     * Keeps the text and editor state, then unloads the editor page
+     *
+     * @return whether the editor is hibernated
+     */
+    public boolean hibernate() {
+
+        if (!getReady() || isHibernated()) {
+            return false;
+        }
+
+        String state;
+        try {
+            hibernatedValue = getEditorValue();
+            state = (String) webEngine().executeScript("getHibernationState()");
+        } catch (Exception e) {
+            logger.debug("Editor state is not taken, {} stays loaded", path, e);
+            hibernatedValue = null;
+            return false;
+        }
+
+        hibernatedState = state;
+        ready.setValue(false);
+        this.getChildren().remove(webView);
+        webEngine().load("about:blank");
+        return true;
+    }
+
+    /**
+     * Loads the editor page again, the state is restored when the page is ready
+     */
+    public void wake() {
+        if (isHibernated() && !waking) {
+            waking = true;
+            load(String.format(editorUrl, controller.getPort()));
+        }
+    }
+
+    public boolean isHibernated() {
+        return Objects.nonNull(hibernatedState);
+    }
+
     private void afterEditorReady(ObservableValue observable, boolean oldValue, boolean newValue) {
         if (newValue) {
             ObservableList<Runnable> runnables = FXCollections.observableArrayList(handleReadyTasks);
@@ -258,11 +458,18 @@ public class EditorPane extends AnchorPane {
     }
 
     public String getEditorValue() {
+        if (isHibernated()) {
+            return hibernatedValue;
+        }
         return (String) webEngine().executeScript("editor.getValue()");
     }
 
     public void setEditorValue(String value) {
         threadService.runActionLater(() -> {
+            if (isHibernated() && !waking) {
+                hibernatedValue = value;
+                return;
+            }
             getWindow().setMember("editorValue", value);
             webEngine().executeScript("setEditorValue(editorValue)");
             getWebView().requestFocus();
@@ -425,6 +632,12 @@ public class EditorPane extends AnchorPane {
             shortcutProvider.getProvider().includeAsSubdocument();
         });
         MenuItem replacements = MenuItemBuilt.item("Apply Replacements").click(this::replaceSubs);
+        MenuItem renderFullDocument = MenuItemBuilt.item("Render full document").click(e -> {
+            webEngine().executeScript("renderFullDocument()");
+        });
+        MenuItem requestSpellCheck = MenuItemBuilt.item("Check spelling").click(e -> {
+            webEngine().executeScript("requestSpellCheck()");
+        });
         MenuItem markdownToAsciidoc = MenuItemBuilt.item("Markdown to Asciidoc").click(e -> {
             MarkdownService markdownService = applicationContext.getBean(MarkdownService.class);
             markdownService.convertToAsciidoc(getEditorValue(),
@@ -459,6 +672,8 @@ public class EditorPane extends AnchorPane {
                     replacements,
                     indexSelection,
                     includeAsSubDocument,
+                    renderFullDocument,
+                    requestSpellCheck,
                     languageMenu);
 
             for (MenuItem menuItem : menuItems) {
@@ -509,6 +724,8 @@ public class EditorPane extends AnchorPane {
 
             markdownToAsciidoc.setVisible(isMarkdown());
             indexSelection.setVisible(isAsciidoc());
+            renderFullDocument.setVisible(largeDocument);
+            requestSpellCheck.setVisible(largeDocument);
 
             if (event instanceof MouseEvent) {
                 MouseEvent mouseEvent = (MouseEvent) event;
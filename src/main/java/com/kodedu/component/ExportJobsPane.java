@@ -0,0 +1,214 @@
+package com.kodedu.component;
+
+import com.kodedu.service.convert.export.ExportFormat;
+import com.kodedu.service.convert.export.ExportJob;
+import com.kodedu.service.convert.export.ExportJobManager;
+import com.kodedu.service.convert.export.ExportJobState;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.Button;
+import javafx.scene.control.Control;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.ProgressBarTableCell;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Running and finished export jobs, refreshed twice a second while it is shown
+ */
+public class ExportJobsPane extends VBox {
+
+    private final ExportJobManager exportJobManager;
+    private final ObservableList<JobRow> rows = FXCollections.observableArrayList();
+    private final Map<Long, JobRow> rowMap = new HashMap<>();
+    private final Timeline refreshTimeline;
+
+    public ExportJobsPane(ExportJobManager exportJobManager, Runnable showLogs) {
+
+        this.exportJobManager = exportJobManager;
+
+        TableView<JobRow> jobViewer = new TableView<>(rows);
+        jobViewer.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        jobViewer.setPlaceholder(new Label("No exports yet"));
+
+        TableColumn<JobRow, Double> progressColumn = new TableColumn<>("Progress");
+        progressColumn.setCellValueFactory(param -> param.getValue().progressProperty());
+        progressColumn.setCellFactory(ProgressBarTableCell.forTableColumn());
+        progressColumn.setMaxWidth(0.15 * Integer.MAX_VALUE);
+
+        jobViewer.getColumns().addAll(Arrays.asList(
+                column("Id", 0.05, JobRow::idProperty),
+                column("Document", 0.2, JobRow::documentProperty),
+                column("Formats", 0.15, JobRow::formatsProperty),
+                column("State", 0.1, JobRow::stateProperty),
+                column("Stage", 0.25, JobRow::stageProperty),
+                column("Elapsed", 0.1, JobRow::elapsedProperty)));
+        jobViewer.getColumns().add(5, progressColumn);
+
+        Button logsButton = new Button("Logs");
+        logsButton.setOnAction(e -> showLogs.run());
+
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(e -> {
+            JobRow row = jobViewer.getSelectionModel().getSelectedItem();
+            if (Objects.nonNull(row)) {
+                exportJobManager.cancel(row.job);
+                refresh();
+            }
+        });
+        cancelButton.disableProperty().bind(jobViewer.getSelectionModel().selectedItemProperty().isNull());
+
+        Button clearButton = new Button("Clear finished");
+        clearButton.setOnAction(e -> {
+            exportJobManager.clearFinished();
+            refresh();
+        });
+
+        List<Control> controls = Arrays.asList(logsButton, cancelButton, clearButton);
+
+        FlowPane flowPane = new FlowPane(5, 5);
+        flowPane.getChildren().addAll(controls);
+
+        jobViewer.setMinHeight(0);
+        setMinHeight(0);
+        setSpacing(0);
+        getChildren().addAll(flowPane, jobViewer);
+        VBox.setVgrow(jobViewer, Priority.ALWAYS);
+
+        refreshTimeline = new Timeline(new KeyFrame(Duration.millis(500), e -> refresh()));
+        refreshTimeline.setCycleCount(Animation.INDEFINITE);
+
+        sceneProperty().addListener((observable, oldValue, newValue) -> {
+            if (Objects.nonNull(newValue)) {
+                refresh();
+                refreshTimeline.play();
+            } else {
+                refreshTimeline.stop();
+            }
+        });
+    }
+
+    private TableColumn<JobRow, String> column(String text, double width, Function<JobRow, StringProperty> property) {
+        TableColumn<JobRow, String> column = new TableColumn<>(text);
+        column.setCellValueFactory(param -> property.apply(param.getValue()));
+        column.setMaxWidth(width * Integer.MAX_VALUE);
+        return column;
+    }
+
+    private void refresh() {
+
+        List<ExportJob> jobs = exportJobManager.getJobs();
+        Set<Long> ids = new HashSet<>();
+
+        for (ExportJob job : jobs) {
+
+            ids.add(job.getId());
+            JobRow row = rowMap.get(job.getId());
+
+            if (Objects.isNull(row)) {
+                row = new JobRow(job);
+                rowMap.put(job.getId(), row);
+                rows.add(0, row);
+            }
+
+            row.update();
+        }
+
+        if (rowMap.size() > ids.size()) {
+            rowMap.keySet().retainAll(ids);
+            rows.removeIf(row -> !ids.contains(row.job.getId()));
+        }
+    }
+
+    public static class JobRow {
+
+        private final ExportJob job;
+        private final StringProperty id = new SimpleStringProperty();
+        private final StringProperty document = new SimpleStringProperty();
+        private final StringProperty formats = new SimpleStringProperty();
+        private final StringProperty state = new SimpleStringProperty();
+        private final StringProperty stage = new SimpleStringProperty();
+        private final ObjectProperty<Double> progress = new SimpleObjectProperty<>(0.0);
+        private final StringProperty elapsed = new SimpleStringProperty();
+
+        public JobRow(ExportJob job) {
+            this.job = job;
+            this.id.set(String.valueOf(job.getId()));
+            this.document.set(String.valueOf(job.getDocumentPath().getFileName()));
+            this.formats.set(job.getOutputs().keySet().stream()
+                    .map(ExportFormat::getFormatName)
+                    .collect(Collectors.joining(", ")));
+        }
+
+        private void update() {
+
+            ExportJobState jobState = job.getState();
+
+            if (jobState == ExportJobState.RUNNING && job.getToken().isCancelled()) {
+                state.set("CANCELLING");
+            } else {
+                state.set(jobState.name());
+            }
+
+            if (jobState == ExportJobState.RUNNING) {
+                stage.set(job.getCurrentStages());
+            } else if (jobState == ExportJobState.FAILED) {
+                stage.set(Objects.toString(job.getFailure(), ""));
+            } else {
+                stage.set("");
+            }
+
+            progress.set(job.getProgress());
+            elapsed.set(String.format("%.1f s", job.getElapsedMillis() / 1000.0));
+        }
+
+        public StringProperty idProperty() {
+            return id;
+        }
+
+        public StringProperty documentProperty() {
+            return document;
+        }
+
+        public StringProperty formatsProperty() {
+            return formats;
+        }
+
+        public StringProperty stateProperty() {
+            return state;
+        }
+
+        public StringProperty stageProperty() {
+            return stage;
+        }
+
+        public ObjectProperty<Double> progressProperty() {
+            return progress;
+        }
+
+        public StringProperty elapsedProperty() {
+            return elapsed;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.kodedu.component;
+
+import com.kodedu.service.metrics.Counter;
+import com.kodedu.service.metrics.Metric;
+import com.kodedu.service.metrics.MetricRegistry;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.scene.control.Button;
+import javafx.scene.control.Control;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Live view of the metric registry, refreshed every second while it is shown
+ */
+public class MetricsPane extends VBox {
+
+    private final MetricRegistry metricRegistry;
+    private final ObservableList<MetricRow> rows = FXCollections.observableArrayList();
+    private final Map<String, MetricRow> rowMap = new HashMap<>();
+    private final Timeline refreshTimeline;
+    private long lastRefresh;
+
+    public MetricsPane(MetricRegistry metricRegistry, Runnable showLogs, Runnable browse) {
+
+        this.metricRegistry = metricRegistry;
+
+        FilteredList<MetricRow> filteredRows = new FilteredList<>(rows, row -> true);
+
+        TableView<MetricRow> metricViewer = new TableView<>(filteredRows);
+        metricViewer.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        metricViewer.getColumns().addAll(Arrays.asList(
+                column("Name", 0.3, MetricRow::nameProperty),
+                column("Labels", 0.2, MetricRow::labelsProperty),
+                column("Value", 0.4, MetricRow::valueProperty),
+                column("Rate/s", 0.1, MetricRow::rateProperty)));
+
+        TextField searchField = new TextField();
+        searchField.setPromptText("Search in metrics..");
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
+            String search = Objects.toString(newValue, "").toLowerCase();
+            filteredRows.setPredicate(row -> search.isEmpty()
+                    || row.nameProperty().get().contains(search)
+                    || row.labelsProperty().get().toLowerCase().contains(search));
+        });
+
+        Button logsButton = new Button("Logs");
+        logsButton.setOnAction(e -> showLogs.run());
+
+        Button browseButton = new Button("Browse");
+        browseButton.setOnAction(e -> browse.run());
+
+        List<Control> controls = Arrays.asList(logsButton, searchField, browseButton);
+
+        FlowPane flowPane = new FlowPane(5, 5);
+        for (Control control : controls) {
+            flowPane.getChildren().add(control);
+            control.prefHeightProperty().bind(searchField.heightProperty());
+        }
+
+        metricViewer.setMinHeight(0);
+        setMinHeight(0);
+        setSpacing(0);
+        getChildren().addAll(flowPane, metricViewer);
+        VBox.setVgrow(metricViewer, Priority.ALWAYS);
+
+        refreshTimeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> refresh()));
+        refreshTimeline.setCycleCount(Animation.INDEFINITE);
+
+        sceneProperty().addListener((observable, oldValue, newValue) -> {
+            if (Objects.nonNull(newValue)) {
+                refresh();
+                refreshTimeline.play();
+            } else {
+                refreshTimeline.stop();
+            }
+        });
+    }
+
+    private TableColumn<MetricRow, String> column(String text, double width, Function<MetricRow, StringProperty> property) {
+        TableColumn<MetricRow, String> column = new TableColumn<>(text);
+        column.setCellValueFactory(param -> property.apply(param.getValue()));
+        column.setMaxWidth(width * Integer.MAX_VALUE);
+        return column;
+    }
+
+    private void refresh() {
+
+        long now = System.nanoTime();
+        double seconds = lastRefresh == 0 ? 0 : (now - lastRefresh) / 1e9;
+        lastRefresh = now;
+
+        for (Metric metric : metricRegistry.getMetrics()) {
+
+            MetricRow row = rowMap.get(metric.getId());
+
+            if (Objects.isNull(row)) {
+                row = new MetricRow(metric);
+                rowMap.put(metric.getId(), row);
+                rows.add(row);
+            }
+
+            row.update(seconds);
+        }
+    }
+
+    public static class MetricRow {
+
+        private final Metric metric;
+        private final StringProperty name = new SimpleStringProperty();
+        private final StringProperty labels = new SimpleStringProperty();
+        private final StringProperty value = new SimpleStringProperty();
+        private final StringProperty rate = new SimpleStringProperty("");
+        private double lastValue = Double.NaN;
+
+        public MetricRow(Metric metric) {
+            this.metric = metric;
+            this.name.set(metric.getName());
+            this.labels.set(metric.getLabels().toString().replaceAll("[{}]", ""));
+        }
+
+        private void update(double seconds) {
+
+            value.set(metric.describe());
+
+            if (metric instanceof Counter) {
+                double current = metric.getValue();
+                if (seconds > 0 && !Double.isNaN(lastValue)) {
+                    rate.set(String.format("%.1f", (current - lastValue) / seconds));
+                }
+                lastValue = current;
+            }
+        }
+
+        public StringProperty nameProperty() {
+            return name;
+        }
+
+        public StringProperty labelsProperty() {
+            return labels;
+        }
+
+        public StringProperty valueProperty() {
+            return value;
+        }
+
+        public StringProperty rateProperty() {
+            return rate;
+        }
+    }
+}
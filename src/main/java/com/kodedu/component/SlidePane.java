@@ -5,6 +5,7 @@ import com.kodedu.controller.ApplicationController;
 import com.kodedu.engine.AsciidocWebkitConverter;
 import com.kodedu.other.Current;
 import com.kodedu.service.ThreadService;
+import com.kodedu.service.convert.slide.SlidePatch;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.concurrent.Worker;
@@ -83,6 +84,25 @@ public class SlidePane extends ViewPanel {
 
     }
 
+    /**
+     * Replaces the changed slides in place and keeps the current slide, the whole deck is replaced when the shown
+     * deck doesn't match the patch
+     */
+    public void patchSlides(SlidePatch patch, String rendered) {
+        getWindow().setMember("afx", controller);
+        String backendExt = backend + "Ext";
+        try {
+            Object patched = ((JSObject) getWindow().eval(backendExt)).call("patchSlides", patch.toJson());
+            if (Boolean.TRUE.equals(patched)) {
+                return;
+            }
+        } catch (Exception e) {
+            logger.debug("{} is not found while patching slides, but don't worry.", backendExt, e);
+        }
+
+        replaceSlides(rendered);
+    }
+
     @Override
     public void runScroller(String text) {
         String backendExt = backend + "Ext";
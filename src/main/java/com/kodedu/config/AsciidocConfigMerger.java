@@ -7,9 +7,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.json.*;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,15 +27,56 @@ public class AsciidocConfigMerger {
 
     public final Pattern attributePattern = Pattern.compile("^:(!*)(?<key>.*)(!*):(.*)$", Pattern.MULTILINE);
 
+    private static final int MAX_CACHE_SIZE = 32;
+
+    // (config, default language, document header) -> merged config
+    private final Map<MergeKey, MergedConfig> mergeCache = new ConcurrentHashMap<>();
+
     @Autowired
     public AsciidocConfigMerger(EditorConfigBean editorConfigBean) {
         this.editorConfigBean = editorConfigBean;
     }
 
     public JsonObject updateConfig(String asciidoc, JsonObject config) {
+        return merge(asciidoc, config).getConfig();
+    }
+
+    /**
+     * Same as {@link #updateConfig(String, JsonObject)} but returns the serialized form,
+     * which is cached as long as the config and the document header stay the same
+     */
+    public String updateConfigString(String asciidoc, JsonObject config) {
+        return merge(asciidoc, config).getSerialized();
+    }
+
+    private MergedConfig merge(String asciidoc, JsonObject config) {
+
+        String header = findHeader(asciidoc);
+        String language = defaultLanguage();
+
+        MergeKey cacheKey = new MergeKey(config, language, header);
+
+        MergedConfig mergedConfig = mergeCache.get(cacheKey);
+
+        if (Objects.nonNull(mergedConfig)) {
+            return mergedConfig;
+        }
+
+        mergedConfig = new MergedConfig(mergeConfig(header, config, language));
+
+        if (mergeCache.size() >= MAX_CACHE_SIZE) {
+            mergeCache.clear();
+        }
+
+        mergeCache.put(cacheKey, mergedConfig);
+
+        return mergedConfig;
+    }
+
+    private JsonObject mergeConfig(String header, JsonObject config, String language) {
         try {
 
-            Matcher matcher = attributePattern.matcher(asciidoc);
+            Matcher matcher = attributePattern.matcher(header);
 
             JsonObject currentAttributes = config.getJsonObject("attributes");
 
@@ -51,7 +94,7 @@ public class AsciidocConfigMerger {
             }
 
             // find document attributes
-            List<String> foundKeys = new LinkedList<>();
+            Set<String> foundKeys = new HashSet<>();
             while (matcher.find()) {
                 String key = matcher.group("key");
                 foundKeys.add(key);
@@ -76,12 +119,9 @@ public class AsciidocConfigMerger {
 
 
             if (!foundKeys.contains("lang") && !currentAttributes.containsKey("lang")) {
-                ObservableList<String> defaultLanguage = editorConfigBean.getDefaultLanguage();
-
-                if (defaultLanguage.size() > 0) {
-                    finalAttrBuilder.add("lang=" + defaultLanguage.get(0));
+                if (Objects.nonNull(language)) {
+                    finalAttrBuilder.add("lang=" + language);
                 }
-
             }
 
             finalBuilder.add("attributes", finalAttrBuilder);
@@ -92,4 +132,109 @@ public class AsciidocConfigMerger {
         }
         return config;
     }
+
+    private String defaultLanguage() {
+        ObservableList<String> defaultLanguage = editorConfigBean.getDefaultLanguage();
+
+        if (defaultLanguage.size() > 0) {
+            return defaultLanguage.get(0);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the document header, leading blank and comment lines are skipped and
+     * the header ends at the first blank line. Attribute entries are looked up only in this region.
+     */
+    public String findHeader(String asciidoc) {
+
+        if (Objects.isNull(asciidoc)) {
+            return "";
+        }
+
+        int length = asciidoc.length();
+        int start = 0;
+        boolean inHeader = false;
+
+        while (start < length) {
+            int end = asciidoc.indexOf('\n', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            String line = asciidoc.substring(start, end).trim();
+
+            if (line.isEmpty()) {
+                if (inHeader) {
+                    return asciidoc.substring(0, start);
+                }
+            } else if (!inHeader && line.startsWith("//")) {
+                // leading comments aren't part of the header
+            } else {
+                inHeader = true;
+            }
+
+            start = end + 1;
+        }
+
+        return asciidoc;
+    }
+
+    /**
+     * Compares the config by content, so configs with colliding hash codes don't share a merge
+     */
+    private static class MergeKey {
+        private final JsonObject config;
+        private final String language;
+        private final String header;
+        private final int hashCode;
+
+        public MergeKey(JsonObject config, String language, String header) {
+            this.config = config;
+            this.language = language;
+            this.header = header;
+            this.hashCode = Objects.hash(config, language, header);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MergeKey)) {
+                return false;
+            }
+            MergeKey other = (MergeKey) o;
+            return hashCode == other.hashCode
+                    && header.equals(other.header)
+                    && Objects.equals(language, other.language)
+                    && config.equals(other.config);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class MergedConfig {
+        private final JsonObject config;
+        private volatile String serialized;
+
+        public MergedConfig(JsonObject config) {
+            this.config = config;
+        }
+
+        public JsonObject getConfig() {
+            return config;
+        }
+
+        public String getSerialized() {
+            if (Objects.isNull(serialized)) {
+                serialized = config.toString();
+            }
+            return serialized;
+        }
+    }
 }
@@ -11,8 +11,10 @@ import com.kodedu.config.factory.TableFactory;
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.other.IOHelper;
 import com.kodedu.service.ThreadService;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
@@ -59,10 +61,34 @@ public abstract class AsciidoctorConfigBase extends ConfigurationBase {
     private final Button loadButton = new Button("Load");
     private final Label infoLabel = new Label();
 
+    // built once per change, every render reads it
+    private JsonObject json;
+    private final InvalidationListener jsonInvalidator = observable -> invalidateJSON();
+
     public AsciidoctorConfigBase(ApplicationController controller, ThreadService threadService) {
         super(controller, threadService);
         this.controller = controller;
         this.threadService = threadService;
+
+        Arrays.asList(jsPlatform, safe, sourcemap, header_footer, backend, attributes)
+                .forEach(property -> property.addListener(jsonInvalidator));
+
+        attributes.addListener((ListChangeListener<AttributesTable>) change -> {
+            while (change.next()) {
+                for (AttributesTable attribute : change.getRemoved()) {
+                    attribute.attributeProperty().removeListener(jsonInvalidator);
+                    attribute.valueProperty().removeListener(jsonInvalidator);
+                }
+                for (AttributesTable attribute : change.getAddedSubList()) {
+                    attribute.attributeProperty().addListener(jsonInvalidator);
+                    attribute.valueProperty().addListener(jsonInvalidator);
+                }
+            }
+        });
+    }
+
+    private synchronized void invalidateJSON() {
+        json = null;
     }
 
     public String getBackend() {
@@ -222,7 +248,14 @@ public abstract class AsciidoctorConfigBase extends ConfigurationBase {
     }
 
     @Override
-    public JsonObject getJSON() {
+    public synchronized JsonObject getJSON() {
+        if (Objects.isNull(json)) {
+            json = buildJSON();
+        }
+        return json;
+    }
+
+    private JsonObject buildJSON() {
         JsonObjectBuilder attributesObject = Json.createObjectBuilder();
 
         ObservableList<AttributesTable> attributes = getAttributes();
@@ -1,22 +1,32 @@
 package com.kodedu.config;
 
+import com.kodedu.boot.StartupTimeline;
 import com.kodedu.component.ToggleButtonBuilt;
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.service.ThreadService;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.geometry.Insets;
+import javafx.scene.Scene;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Created by usta on 17.07.2015.
@@ -36,6 +46,9 @@ public class ConfigurationService {
     private final TerminalConfigBean terminalConfigBean;
     private final ExtensionConfigBean extensionConfigBean;
     private VBox configBox;
+    private CompletableFuture<Void> configLoader;
+
+    private final Logger logger = LoggerFactory.getLogger(ConfigurationService.class);
 
     @Autowired
     public ConfigurationService(LocationConfigBean locationConfigBean, EditorConfigBean editorConfigBean, PreviewConfigBean previewConfigBean, HtmlConfigBean htmlConfigBean, DocbookConfigBean docbookConfigBean, ApplicationController controller, StoredConfigBean storedConfigBean, ThreadService threadService, SpellcheckConfigBean spellcheckConfigBean, TerminalConfigBean terminalConfigBean, ExtensionConfigBean extensionConfigBean) {
@@ -52,17 +65,49 @@ public class ConfigurationService {
         this.extensionConfigBean = extensionConfigBean;
     }
 
-    public void loadConfigurations(Runnable... runnables) {
+    /**
+     * Loads config beans in parallel. Each bean reads its json off the FX thread and queues its values
+     * to the FX thread, so the values are applied before anything queued after the returned future completes.
+     */
+    public synchronized CompletableFuture<Void> loadConfigurations() {
 
-        locationConfigBean.load();
-        storedConfigBean.load();
-        editorConfigBean.load();
-        previewConfigBean.load();
-        htmlConfigBean.load();
-        docbookConfigBean.load();
-        spellcheckConfigBean.load();
-        terminalConfigBean.load();
-        extensionConfigBean.load();
+        if (Objects.nonNull(configLoader)) {
+            return configLoader;
+        }
+
+        List<ConfigurationBase> configBeans = Arrays.asList(
+                locationConfigBean,
+                storedConfigBean,
+                editorConfigBean,
+                previewConfigBean,
+                htmlConfigBean,
+                docbookConfigBean,
+                spellcheckConfigBean,
+                terminalConfigBean,
+                extensionConfigBean
+        );
+
+        CompletableFuture<?>[] loaders = configBeans.stream()
+                .map(configBean -> CompletableFuture.runAsync(() -> {
+                    long startedAt = System.nanoTime();
+                    try {
+                        configBean.load();
+                    } catch (Exception e) {
+                        logger.error("Problem occured while loading {}", configBean.getClass().getSimpleName(), e);
+                    }
+                    StartupTimeline.mark(configBean.getClass().getSimpleName() + " loaded", startedAt);
+                }, threadService.executor()))
+                .toArray(CompletableFuture[]::new);
+
+        configLoader = CompletableFuture.allOf(loaders);
+
+        return configLoader;
+    }
+
+    /**
+     * Creates the settings toggles, a settings form is built when it is shown first
+     */
+    public void createConfigForms() {
 
         List<ConfigurationBase> configBeanList = Arrays.asList(
                 editorConfigBean,
@@ -83,38 +128,49 @@ public class ConfigurationService {
         FlowPane flowPane = new FlowPane(5, 5);
         flowPane.setPadding(new Insets(5, 0, 0, 0));
 
+        Map<ConfigurationBase, VBox> forms = new HashMap<>();
+        Function<ConfigurationBase, VBox> formOf = configBean -> forms.computeIfAbsent(configBean, ConfigurationBase::createForm);
+
         List<ToggleButton> toggleButtons = new ArrayList<>();
-        VBox editorConfigForm = null;
 
         for (ConfigurationBase configBean : configBeanList) {
-            VBox form = configBean.createForm();
             ToggleButton toggleButton = ToggleButtonBuilt.item(configBean.formName()).click(event -> {
-                formsPane.setContent(form);
+                formsPane.setContent(formOf.apply(configBean));
             });
             toggleButtons.add(toggleButton);
-
-            if (Objects.isNull(editorConfigForm))
-                editorConfigForm = form;
         }
 
-        final VBox finalEditorConfigForm = editorConfigForm;
-        threadService.runActionLater(() -> {
+        configBox = controller.getConfigBox();
+
+        // first form is built when the settings view is attached to the scene
+        ChangeListener<Scene> firstShow = new ChangeListener<Scene>() {
+            @Override
+            public void changed(ObservableValue<? extends Scene> observable, Scene oldValue, Scene scene) {
+                if (Objects.nonNull(scene)) {
+                    observable.removeListener(this);
+                    if (Objects.isNull(formsPane.getContent())) {
+                        formsPane.setContent(formOf.apply(configBeanList.get(0)));
+                    }
+                }
+            }
+        };
 
-            formsPane.setContent(finalEditorConfigForm);
+        threadService.runActionLater(() -> {
 
             for (ToggleButton toggleButton : toggleButtons) {
                 toggleGroup.getToggles().add(toggleButton);
                 flowPane.getChildren().add(toggleButton);
             }
 
-            configBox = controller.getConfigBox();
             configBox.getChildren().add(flowPane);
             configBox.getChildren().add(formsPane);
 
             VBox.setVgrow(formsPane, Priority.ALWAYS);
 
-            for (Runnable runnable : runnables) {
-                runnable.run();
+            if (Objects.nonNull(configBox.getScene())) {
+                formsPane.setContent(formOf.apply(configBeanList.get(0)));
+            } else {
+                configBox.sceneProperty().addListener(firstShow);
             }
         });
     }
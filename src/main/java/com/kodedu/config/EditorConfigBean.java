@@ -61,6 +61,7 @@ public class EditorConfigBean extends ConfigurationBase {
     private BooleanProperty validateDocbook = new SimpleBooleanProperty(false);
     private BooleanProperty detachedPreview = new SimpleBooleanProperty(false);
     private BooleanProperty skipHiddenFiles = new SimpleBooleanProperty(true);
+    private BooleanProperty previewMarkdownAsHtml = new SimpleBooleanProperty(false);
     private ObjectProperty<Boolean> newInstall = new SimpleObjectProperty<>();
     private StringProperty clipboardImageFilePattern = new SimpleStringProperty("'Image'-ddMMyy-hhmmss.SSS'.png'");
     private DoubleProperty screenX = new SimpleDoubleProperty(0);
@@ -119,6 +120,18 @@ public class EditorConfigBean extends ConfigurationBase {
         this.skipHiddenFiles.set(skipHiddenFiles);
     }
 
+    public boolean isPreviewMarkdownAsHtml() {
+        return previewMarkdownAsHtml.get();
+    }
+
+    public BooleanProperty previewMarkdownAsHtmlProperty() {
+        return previewMarkdownAsHtml;
+    }
+
+    public void setPreviewMarkdownAsHtml(boolean previewMarkdownAsHtml) {
+        this.previewMarkdownAsHtml.set(previewMarkdownAsHtml);
+    }
+
     public boolean isDetachedPreview() {
         return detachedPreview.get();
     }
@@ -442,7 +455,7 @@ public class EditorConfigBean extends ConfigurationBase {
         FXForm editorConfigForm = new FXFormBuilder<>()
                 .resourceBundle(ResourceBundle.getBundle("editorConfig"))
                 .includeAndReorder("editorTheme", "aceTheme", "detachedPreview", "validateDocbook", "fontSize",
-                        "scrollSpeed", "useWrapMode", "wrapLimit", "foldStyle", "showGutter", "defaultLanguage", "autoUpdate","skipHiddenFiles",
+                        "scrollSpeed", "useWrapMode", "wrapLimit", "foldStyle", "showGutter", "defaultLanguage", "autoUpdate","skipHiddenFiles", "previewMarkdownAsHtml",
                         "clipboardImageFilePattern", "hangFileSizeLimit", "extensionImageScale")
                 .build();
 
@@ -504,6 +517,7 @@ public class EditorConfigBean extends ConfigurationBase {
         boolean showGutter = jsonObject.getBoolean("showGutter", false);
         boolean detachedPreview = jsonObject.getBoolean("detachedPreview", false);
         boolean skipHiddenFiles = jsonObject.getBoolean("skipHiddenFiles", true);
+        boolean previewMarkdownAsHtml = jsonObject.getBoolean("previewMarkdownAsHtml", false);
         boolean newInstall = jsonObject.getBoolean("newInstall", true);
         int wrapLimit = jsonObject.getInt("wrapLimit", 0);
         boolean autoUpdate = jsonObject.getBoolean("autoUpdate", true);
@@ -559,6 +573,7 @@ public class EditorConfigBean extends ConfigurationBase {
             this.setWrapLimit(wrapLimit);
             this.setAutoUpdate(autoUpdate);
             this.setSkipHiddenFiles(skipHiddenFiles);
+            this.setPreviewMarkdownAsHtml(previewMarkdownAsHtml);
             this.setValidateDocbook(validateDocbook);
             this.setClipboardImageFilePattern(clipboardImageFilePattern);
             this.setHangFileSizeLimit(hangFileSizeLimit);
@@ -695,6 +710,7 @@ public class EditorConfigBean extends ConfigurationBase {
                 .add("verticalSplitter", getVerticalSplitter())
                 .add("autoUpdate", getAutoUpdate())
                 .add("skipHiddenFiles", isSkipHiddenFiles())
+                .add("previewMarkdownAsHtml", isPreviewMarkdownAsHtml())
                 .add("newInstall", getNewInstall())
                 .add("validateDocbook", getValidateDocbook())
                 .add("clipboardImageFilePattern", getClipboardImageFilePattern())
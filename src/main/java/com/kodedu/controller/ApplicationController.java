@@ -14,24 +14,31 @@ import com.kodedu.keyboard.KeyHelper;
 import com.kodedu.logging.MyLog;
 import com.kodedu.logging.TableViewLogAppender;
 import com.kodedu.other.*;
+import com.kodedu.outline.HeadingLines;
 import com.kodedu.outline.Section;
 import com.kodedu.service.*;
-import com.kodedu.service.convert.DocumentConverter;
+import com.kodedu.service.cache.ImageInfoService;
 import com.kodedu.service.convert.GitbookToAsciibookService;
-import com.kodedu.service.convert.docbook.DocBookConverter;
-import com.kodedu.service.convert.ebook.EpubConverter;
-import com.kodedu.service.convert.ebook.MobiConverter;
-import com.kodedu.service.convert.html.HtmlBookConverter;
+import com.kodedu.service.convert.export.ExportFormat;
+import com.kodedu.service.convert.export.ExportJobManager;
 import com.kodedu.service.convert.markdown.MarkdownService;
 import com.kodedu.service.convert.slide.SlideConverter;
 import com.kodedu.service.extension.MathJaxService;
 import com.kodedu.service.extension.PlantUmlService;
 import com.kodedu.service.extension.TreeService;
 import com.kodedu.service.extension.chart.ChartProvider;
+import com.kodedu.service.flight.FlightEvent;
+import com.kodedu.service.flight.FlightEventType;
+import com.kodedu.service.flight.FlightRecorderService;
+import com.kodedu.service.live.LiveBroadcastHub;
+import com.kodedu.service.metrics.Histogram;
+import com.kodedu.service.metrics.MetricRegistry;
 import com.kodedu.service.shortcut.ShortcutProvider;
 import com.kodedu.service.table.AsciidocTableController;
 import com.kodedu.service.ui.FileBrowseService;
 import com.kodedu.service.ui.IndikatorService;
+import com.kodedu.service.ui.OutlineService;
+import com.kodedu.service.ui.TabHibernationService;
 import com.kodedu.service.ui.TabService;
 import com.kodedu.service.ui.TooltipTimeFixService;
 import com.kodedu.spell.dictionary.DictionaryService;
@@ -56,6 +63,7 @@ import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
 import javafx.scene.Group;
@@ -77,23 +85,18 @@ import org.kordamp.ikonli.javafx.FontIcon;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.imageio.ImageIO;
-import javax.imageio.ImageReader;
-import javax.imageio.stream.ImageInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.InetAddress;
 import java.net.URL;
 import java.nio.file.Files;
@@ -105,10 +108,8 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
@@ -120,7 +121,7 @@ import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 @Component
-public class ApplicationController extends TextWebSocketHandler implements Initializable {
+public class ApplicationController implements Initializable {
 
     public Label goUpLabel;
     public VBox terminalLeftBox;
@@ -154,6 +155,7 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     public Menu favoriteDirMenu;
     public MenuItem addToFavoriteDir;
     public MenuItem afxVersionItem;
+    public MenuItem flightRecordingItem;
     public MenuItem renameFile;
     public MenuItem newFile;
     public TabPane tabPane;
@@ -188,7 +190,6 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
 
     private Path userHome = IOHelper.getPath(System.getProperty("user.home"));
 
-    private List<Section> outlineList = new ArrayList<>();
     private ObservableList<DocumentMode> modeList = FXCollections.observableArrayList();
 
     private final Pattern bookArticleHeaderRegex
@@ -201,7 +202,8 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
 
     private AtomicBoolean includeAsciidocResource = new AtomicBoolean(false);
 
-    private static ObservableList<MyLog> logList = FXCollections.synchronizedObservableList(FXCollections.observableArrayList());
+    // only touched in FX thread, filled by TableViewLogAppender
+    private static ObservableList<MyLog> logList = FXCollections.observableArrayList();
 
     @Autowired
     public HtmlPane htmlPane;
@@ -230,6 +232,7 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     @Autowired
     private AsciidocTableController asciidocTableController;
 
+    @Lazy
     @Autowired
     private TreeService treeService;
 
@@ -239,24 +242,30 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     @Autowired
     private TabService tabService;
 
+    @Autowired
+    private OutlineService outlineService;
+
+    @Autowired
+    private TabHibernationService tabHibernationService;
+
     @Autowired
     private PlantUmlService plantUmlService;
 
+    @Lazy
     @Autowired
     private MathJaxService mathJaxService;
 
     @Autowired
-    private DocBookConverter docBookConverter;
+    private MetricRegistry metricRegistry;
 
     @Autowired
-    private HtmlBookConverter htmlBookService;
+    private FlightRecorderService flightRecorderService;
 
     @Autowired
-    @Qualifier("pdfBookConverter")
-    private DocumentConverter pdfBookConverter;
+    private LiveBroadcastHub liveBroadcastHub;
 
     @Autowired
-    private EpubConverter epubConverter;
+    private ExportJobManager exportJobManager;
 
     @Autowired
     private Current current;
@@ -267,9 +276,6 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     @Autowired
     private IndikatorService indikatorService;
 
-    @Autowired
-    private MobiConverter mobiConverter;
-
     @Autowired
     private SampleBookService sampleBookService;
 
@@ -303,8 +309,10 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     @Autowired
     private SpellcheckConfigBean spellcheckConfigBean;
 
+    @Autowired
+    private ImageInfoService imageInfoService;
+
     private Stage stage;
-    private List<WebSocketSession> sessionList = new ArrayList<>();
     private Scene scene;
     private AnchorPane asciidocTableAnchor;
     private Stage asciidocTableStage;
@@ -377,13 +385,49 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     private String VERSION_PATTERN = "\\.AsciidocFX-\\d+\\.\\d+\\.\\d+";
 
     public void createAsciidocTable() {
+        if (isNull(asciidocTableStage)) {
+            asciidocTableAnchor = loadTablePopup("/fxml/AsciidocTablePopup.fxml");
+            asciidocTableStage = createTableStage(asciidocTableAnchor);
+            asciidocTableScene = asciidocTableStage.getScene();
+        }
         asciidocTableStage.showAndWait();
     }
 
     public void createMarkdownTable() {
+        if (isNull(markdownTableStage)) {
+            markdownTableAnchor = loadTablePopup("/fxml/MarkdownTablePopup.fxml");
+            markdownTableStage = createTableStage(markdownTableAnchor);
+            markdownTableScene = markdownTableStage.getScene();
+        }
         markdownTableStage.showAndWait();
     }
 
+    // Table popups are built on first use instead of startup
+    private AnchorPane loadTablePopup(String fxml) {
+        FXMLLoader tableLoader = new FXMLLoader();
+        tableLoader.setControllerFactory(applicationContext::getBean);
+        try (InputStream tableStream = AppStarter.class.getResourceAsStream(fxml)) {
+            return tableLoader.load(tableStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Stage createTableStage(AnchorPane tableAnchor) {
+        Stage tableStage = new Stage();
+        tableStage.setScene(new Scene(tableAnchor));
+        tableStage.setTitle("Table Generator");
+        tableStage.initModality(Modality.WINDOW_MODAL);
+        tableStage.initOwner(stage);
+
+        InputStream logoStream = AppStarter.class.getResourceAsStream("/logo.png");
+        tableStage.getIcons().add(new Image(logoStream));
+        IOUtils.closeQuietly(logoStream);
+
+        applyCurrentTheme(tableStage);
+        return tableStage;
+    }
+
     @FXML
     private void fullScreen(ActionEvent event) {
         getStage().setFullScreen(!getStage().isFullScreen());
@@ -404,9 +448,7 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
             saveDoc();
         }
 
-        threadService.runTaskLater(() -> {
-            pdfBookConverter.convert(askPath);
-        });
+        export(EnumSet.of(ExportFormat.PDF), askPath);
     }
 
     @FXML
@@ -435,29 +477,7 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
             saveDoc();
         }
 
-        threadService.runTaskLater(() -> {
-
-            indikatorService.startProgressBar();
-
-            Path docbookPath = directoryService.getSaveOutputPath(ExtensionFilters.DOCBOOK, askPath);
-
-            Consumer<String> step = docbook -> {
-                final String finalDocbook = docbook;
-                threadService.runTaskLater(() -> {
-                    IOHelper.writeToFile(docbookPath, finalDocbook, CREATE, TRUNCATE_EXISTING, WRITE);
-                });
-                threadService.runActionLater(() -> {
-                    ObservableList<Item> recentFiles = storedConfigBean.getRecentFiles();
-                    recentFiles.remove(new Item(docbookPath));
-                    recentFiles.add(0, new Item(docbookPath));
-                });
-                indikatorService.stopProgressBar();
-            };
-
-            docBookConverter.convert(false, step);
-
-        });
-
+        export(EnumSet.of(ExportFormat.DOCBOOK), askPath);
     }
 
     private void convertEpub() {
@@ -465,8 +485,20 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     }
 
     private void convertEpub(boolean askPath) {
+        export(EnumSet.of(ExportFormat.EPUB), askPath);
+    }
+
+    /**
+     * Queues an export job of the current document, stages shared by the formats run once
+     */
+    public void export(Set<ExportFormat> formats, boolean askPath) {
+
+        if (formats.contains(ExportFormat.MOBI) && !checkKindlegen()) {
+            return;
+        }
+
         threadService.runTaskLater(() -> {
-            epubConverter.produceEpub3(askPath);
+            exportJobManager.submit(formats, askPath);
         });
     }
 
@@ -477,8 +509,18 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     }
 
     @WebkitCall(from = "mathjax.html")
-    public void snapshotFormula(String formula, String imagesDir, String imageTarget) {
-        mathJaxService.snapshotFormula(formula, imagesDir, imageTarget);
+    public void snapshotFormulas(String batchId, String bounds) {
+        mathJaxService.snapshotFormulas(batchId, bounds);
+    }
+
+    @WebkitCall(from = "mathjax.html")
+    public void svgFormula(String batchId, String index, String svg) {
+        mathJaxService.svgFormula(batchId, index, svg);
+    }
+
+    @WebkitCall(from = "mathjax.html")
+    public void completeFormulas(String batchId) {
+        mathJaxService.completeFormulas(batchId);
     }
 
     private void convertMobi() {
@@ -486,6 +528,10 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     }
 
     private void convertMobi(boolean askPath) {
+        export(EnumSet.of(ExportFormat.MOBI), askPath);
+    }
+
+    private boolean checkKindlegen() {
 
         if (nonNull(locationConfigBean.getKindlegen())) {
             if (!Files.exists(IOHelper.getPath(locationConfigBean.getKindlegen()))) {
@@ -497,16 +543,13 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
             FileChooser fileChooser = directoryService.newFileChooser("Select 'kindlegen' executable");
             File kindlegenFile = fileChooser.showOpenDialog(null);
             if (isNull(kindlegenFile)) {
-                return;
+                return false;
             }
 
             locationConfigBean.setKindlegen(kindlegenFile.toPath().toString());
         }
 
-        threadService.runTaskLater(() -> {
-            mobiConverter.convert(askPath);
-        });
-
+        return true;
     }
 
     private void generateHtml() {
@@ -519,9 +562,7 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
             this.saveDoc();
         }
 
-        threadService.runTaskLater(() -> {
-            htmlBookService.convert(askPath);
-        });
+        export(EnumSet.of(ExportFormat.HTML), askPath);
     }
 
     public void tree(String content, String type, String imagesDir, String imageTarget, String nodename) {
@@ -534,14 +575,14 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
 
     public void createFileTree(String tree, String type, String imagesDir, String imageTarget, String nodename) {
 
-        threadService.runTaskLater(() -> {
+        threadService.runTaskLater(Lane.DIAGRAM, () -> {
             treeService.createFileTree(tree, type, imagesDir, imageTarget, nodename);
         });
     }
 
     public void createHighlightFileTree(String tree, String type, String imagesDir, String imageTarget, String nodename) {
 
-        threadService.runTaskLater(() -> {
+        threadService.runTaskLater(Lane.DIAGRAM, () -> {
             treeService.createHighlightFileTree(tree, type, imagesDir, imageTarget, nodename);
         });
     }
@@ -607,15 +648,14 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
 
         Arrays.asList(htmlPane, slidePane, liveReloadPane).forEach(viewPanel -> VBox.getVgrow(viewPanel));
 
-        threadService.runTaskLater(() -> {
-            while (true) {
-                try {
-                    renderLoop();
-                } catch (Exception e) {
-                    logger.error(e.getMessage(), e);
-                }
-            }
-        });
+        metricRegistry.gauge("afx_render_dropped", "Edits superseded by a newer edit before they were rendered", renderLoop::getDropped);
+
+        for (String mode : Arrays.asList("asciidoc", "markdown", "html", "other")) {
+            renderTimers.put(mode, metricRegistry.timer("afx_render_seconds", "Time spent rendering the preview", "mode", mode));
+            renderLatencyTimers.put(mode, metricRegistry.timer("afx_render_latency_seconds", "Time from the latest edit to its rendered preview", "mode", mode));
+        }
+
+        renderLoop.start(threadService.executor(Lane.RENDER));
 
         progressBar.prefWidthProperty().bind(rightShowerHider.widthProperty());
 
@@ -799,6 +839,10 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
                     this.convertEpub(true);
                 })).build());
 
+        ebookProMenu.getItems().add(MenuItemBuilt.item("Pdf, Epub and Mobi").tip("Builds the docbook once for all formats").click(event -> {
+            this.export(EnumSet.of(ExportFormat.PDF, ExportFormat.EPUB, ExportFormat.MOBI), false);
+        }));
+
         ebookPro.setOnMouseClicked(event -> {
             ebookProMenu.show(ebookPro, event.getScreenX(), 50);
         });
@@ -965,6 +1009,7 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
         });
 
         tabService.initializeTabChangeListener(tabPane);
+        tabHibernationService.initialize(tabPane);
         threadService.runActionLater(() -> {
             detachStage = new Stage();
             detachStage.setTitle("AsciidocFX Preview");
@@ -1282,7 +1327,7 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
         return null;
     }
 
-    TerminalBuilder terminalBuilder = new TerminalBuilder();
+    private TerminalBuilder terminalBuilder;
 
     @FXML
     public void newTerminal(ActionEvent actionEvent, Path... path) {
@@ -1291,6 +1336,10 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
             terminalToggleButton.fire();
         }
 
+        if (isNull(terminalBuilder)) {
+            terminalBuilder = new TerminalBuilder();
+        }
+
         TerminalConfig terminalConfig = terminalConfigBean.createTerminalConfig();
         terminalBuilder.setTerminalConfig(terminalConfig);
 
@@ -1490,9 +1539,6 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
             }
         });
 
-        // TODO: Lazy initial ?
-        mathJaxService.reload();
-
         String workingDirectory = storedConfigBean.getWorkingDirectory();
 
         if (nonNull(workingDirectory)) {
@@ -1617,6 +1663,13 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
 
     }
 
+    // images loaded after the render get their size on a single rerender
+    private void rerenderForImageInfo() {
+        threadService.buff("imageInfo").schedule(() -> {
+            threadService.runActionLater(() -> current.currentEditor().rerender());
+        }, 100, TimeUnit.MILLISECONDS);
+    }
+
     private void getImageSizeInfo(String path, Object info) {
 
         if (path.startsWith("/")) {
@@ -1639,39 +1692,23 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
             return;
         }
 
-        Path imagePath = parent.resolve(path);
-
-        if (Files.notExists(imagePath)) {
-            return;
-        }
+        Path imagePath = parent.resolve(path).normalize();
 
-        try (ImageInputStream in = ImageIO.createImageInputStream(imagePath.toFile())) {
-            final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
-            if (readers.hasNext()) {
-                ImageReader reader = readers.next();
-                try {
-                    reader.setInput(in);
-                    int width = reader.getWidth(0);
-                    int height = reader.getHeight(0);
-
-                    if ((info instanceof JSObject)) {
-                        JSObject object = (JSObject) info;
-                        object.setMember("width", width);
-                        object.setMember("height", height);
-                    } else if (info instanceof jdk.nashorn.api.scripting.JSObject) {
-                        jdk.nashorn.api.scripting.JSObject object = (jdk.nashorn.api.scripting.JSObject) info;
-                        object.setMember("width", width);
-                        object.setMember("height", height);
-                        ;
-                    }
-
-                    reader.dispose();
-
-                    return;
-                } finally {
-                    reader.dispose();
+        try {
+            imageInfoService.getImageInfo(imagePath, this::rerenderForImageInfo).ifPresent(imageInfo -> {
+                int width = imageInfo.getWidth();
+                int height = imageInfo.getHeight();
+
+                if ((info instanceof JSObject)) {
+                    JSObject object = (JSObject) info;
+                    object.setMember("width", width);
+                    object.setMember("height", height);
+                } else if (info instanceof jdk.nashorn.api.scripting.JSObject) {
+                    jdk.nashorn.api.scripting.JSObject object = (jdk.nashorn.api.scripting.JSObject) info;
+                    object.setMember("width", width);
+                    object.setMember("height", height);
                 }
-            }
+            });
         } catch (Exception e) {
             logger.error("Problem occured while getting image size info", e);
         }
@@ -1680,11 +1717,7 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     @WebkitCall(from = "asciidoctor-image-size-info")
     public void getImageInfo(final String path, Object info) {
 
-        if ((info instanceof JSObject)) {
-            threadService.runActionLater(() -> {
-                getImageSizeInfo(path, info);
-            });
-        } else if (info instanceof jdk.nashorn.api.scripting.JSObject) {
+        if ((info instanceof JSObject) || (info instanceof jdk.nashorn.api.scripting.JSObject)) {
             getImageSizeInfo(path, info);
         }
     }
@@ -1947,6 +1980,23 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
             openInDesktop(IOHelper.getPath(getLogPath()));
         });
 
+        MetricsPane metricsPane = new MetricsPane(metricRegistry,
+                () -> bottomShowerHider.showNode(logVBox),
+                () -> browseInDesktop(String.format("http://localhost:%d/afx/metrics?format=json", port)));
+
+        Button metricsButton = new Button("Metrics");
+        metricsButton.setOnAction(e -> {
+            bottomShowerHider.showNode(metricsPane);
+        });
+
+        ExportJobsPane exportJobsPane = new ExportJobsPane(exportJobManager,
+                () -> bottomShowerHider.showNode(logVBox));
+
+        Button exportsButton = new Button("Exports");
+        exportsButton.setOnAction(e -> {
+            bottomShowerHider.showNode(exportJobsPane);
+        });
+
         TextField searchLogField = new TextField();
         searchLogField.setPromptText("Search in logs..");
         searchLogField.textProperty().addListener((observable, oldValue, newValue) -> {
@@ -1992,7 +2042,7 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
 
         List<Control> controls = Arrays.asList(allToggle,
                 errorToggle, warnToggle, infoToggle, debugToggle,
-                searchLogField, clearLogsButton, browseLogsButton);
+                searchLogField, clearLogsButton, browseLogsButton, metricsButton, exportsButton);
 
         FlowPane logFlowPane = new FlowPane(5, 5);
 
@@ -2023,6 +2073,11 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     @WebkitCall(from = "index")
     public void fillOutlines(Object doc) {
 
+        // the preview of a large document has a single section, its outline comes from the header scan
+        if (isLargeDocument()) {
+            return;
+        }
+
         if (outlineTreeView.isVisible()) {
             converterProvider.get(previewConfigBean).fillOutlines(doc);
         }
@@ -2041,103 +2096,21 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     }
 
     @WebkitCall(from = "index")
-    public void clearOutline() {
-        outlineList = new ArrayList<>();
-    }
-
-    @WebkitCall(from = "index")
-    public void finishOutline() {
-
-        threadService.runActionLater(() -> {
-
-            if (outlineTreeView.getRoot() == null) {
-                TreeItem<Section> rootItem = new TreeItem<>();
-                rootItem.setExpanded(true);
-                Section rootSection = new Section();
-                rootSection.setLevel(-1);
-                String outlineTitle = "Outline";
-                rootSection.setTitle(outlineTitle);
-
-                rootItem.setValue(rootSection);
-
-                outlineTreeView.setRoot(rootItem);
-
-                outlineTreeView.setOnMouseClicked(event -> {
-                    try {
-                        TreeItem<Section> item = outlineTreeView.getSelectionModel().getSelectedItem();
-                        EditorPane editorPane = current.currentEditor();
-                        editorPane.moveCursorTo(item.getValue().getLineno());
-                    } catch (Exception e) {
-                        logger.error("Problem occured while jumping from outline");
-                    }
-                });
-            }
-
-            if (outlineList.size() > 0) {
-                outlineTreeView.getRoot().getChildren().clear();
-            }
-
-            for (Section section : outlineList) {
-                TreeItem<Section> sectionItem = new TreeItem<>(section);
-                sectionItem.setExpanded(true);
-                outlineTreeView.getRoot().getChildren().add(sectionItem);
-
-                TreeSet<Section> subsections = section.getSubsections();
-                for (Section subsection : subsections) {
-                    TreeItem<Section> subItem = new TreeItem<>(subsection);
-                    subItem.setExpanded(true);
-                    sectionItem.getChildren().add(subItem);
-                    this.addSubSections(subItem, subsection.getSubsections());
-                }
-            }
-
-        });
-
-    }
-
-    private void addSubSections(TreeItem<Section> subItem, TreeSet<Section> outlineList) {
-        for (Section section : outlineList) {
-            TreeItem<Section> sectionItem = new TreeItem<>(section);
-            subItem.getChildren().add(sectionItem);
-
-            TreeSet<Section> subsections = section.getSubsections();
-            for (Section subsection : subsections) {
-                TreeItem<Section> item = new TreeItem<>(subsection);
-                sectionItem.getChildren().add(item);
-                this.addSubSections(item, subsection.getSubsections());
-            }
+    public void updateOutline(String outline) {
+        if (!isLargeDocument()) {
+            outlineService.update(outline);
         }
     }
 
-    Section lastParent = null;
-    Section lastSection = null;
-
-    @WebkitCall(from = "index")
-    public void fillOutline(String parentLineNo, String level, String title, String lineno, String id) {
-
-        Section section = new Section();
-        section.setLevel(Integer.valueOf(level));
-        section.setTitle(title);
-        section.setLineno(Integer.valueOf(lineno));
-        section.setId(id);
-
-        if (isNull(parentLineNo)) {
-            outlineList.add(section);
-            lastParent = section;
-        } else if (nonNull(lastSection)) {
-            if (nonNull(lastParent) && lastSection.getLevel().compareTo(section.getLevel()) > 0) {
-                lastParent.getSubsections().add(section);
-                section.setParent(lastParent);
-            } else if (lastSection.getLevel().compareTo(section.getLevel()) < 0) {
-                lastSection.getSubsections().add(section);
-                section.setParent(lastSection);
-            } else {
-                lastSection.getParent().getSubsections().add(section);
-                section.setParent(lastSection.getParent());
-            }
-        }
+    public void scanOutline(HeadingLines lines, String mode) {
+        outlineService.scan(lines, mode);
+    }
 
-        lastSection = section;
+    private boolean isLargeDocument() {
+        return Optional.ofNullable(current.currentTab())
+                .map(MyTab::getEditorPane)
+                .map(EditorPane::isLargeDocument)
+                .orElse(false);
     }
 
     @FXML
@@ -2145,16 +2118,6 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
         directoryService.askWorkingDir();
     }
 
-    @Override
-    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        sessionList.add(session);
-
-        Optional
-                .ofNullable(lastConverterResult)
-                .map(ConverterResult::getRendered)
-                .ifPresent(this::sendOverWebSocket);
-    }
-
     @FXML
     public void closeApp(ActionEvent event) {
         try {
@@ -2226,7 +2189,7 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
     @WebkitCall(from = "asciidoctor-uml")
     public void plantuml(String uml, String type, String imagesDir, String imageTarget, String nodename, String options) throws IOException {
 
-        threadService.runTaskLater(() -> {
+        threadService.runTaskLater(Lane.DIAGRAM, () -> {
             plantUmlService.plantUml(uml, type, imagesDir, imageTarget, nodename, options);
         });
     }
@@ -2250,19 +2213,14 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
             }
 
             current.currentPath().map(Path::getParent).ifPresent(root -> {
-                threadService.runTaskLater(() -> {
-                    String csvContent = IOHelper.readFile(root.resolve(csvFile));
-
-                    threadService.runActionLater(() -> {
-                        try {
-                            Map<String, String> optMap = parseChartOptions(options);
-                            optMap.put("csv-file", csvFile);
-                            chartProvider.getProvider(chartType).chartBuild(csvContent, imagesDir, imageTarget, optMap);
-
-                        } catch (Exception e) {
-                            logger.info(e.getMessage(), e);
-                        }
-                    });
+                threadService.runTaskLater(Lane.DIAGRAM, () -> {
+                    try {
+                        Map<String, String> optMap = parseChartOptions(options);
+                        optMap.put("csv-file", csvFile);
+                        chartProvider.getProvider(chartType).chartBuildFromCsv(root.resolve(csvFile), imagesDir, imageTarget, optMap);
+                    } catch (Exception e) {
+                        logger.info(e.getMessage(), e);
+                    }
                 });
             });
         });
@@ -2333,19 +2291,19 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
         });
     }
 
-    private AtomicReference<Tuple<String, String>> latestTupleReference = new AtomicReference<>();
-    private Semaphore renderLoopSemaphore = new Semaphore(1);
+    // edits made while rendering aren't lost, they are rendered next as a single update
+    private final RenderLoop<Tuple<String, String>> renderLoop = new RenderLoop<>(this::render);
 
-    private void renderLoop() throws InterruptedException {
+    // render timers by mode, looked up once before the render loop is started
+    private final Map<String, Histogram> renderTimers = new HashMap<>();
+    private final Map<String, Histogram> renderLatencyTimers = new HashMap<>();
 
-        renderLoopSemaphore.acquire();
+    private void render(Tuple<String, String> tuple, long editedAt) {
 
         if (stopRendering.get()) {
             return;
         }
 
-        Tuple<String, String> tuple = latestTupleReference.get();
-
         if (isNull(tuple)) {
             return;
         }
@@ -2353,6 +2311,12 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
         String text = tuple.getKey();
         String mode = tuple.getValue();
 
+        long startedAt = System.nanoTime();
+
+        FlightEvent flightEvent = flightRecorderService.begin(FlightEventType.RENDER, mode)
+                .path(current.currentPath().orElse(null))
+                .size(text.length());
+
         try {
 
             boolean bookArticleHeader = this.bookArticleHeaderRegex.matcher(text).find();
@@ -2393,16 +2357,30 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
 
             } else if ("markdown".equalsIgnoreCase(mode)) {
                 MarkdownService markdownService = applicationContext.getBean(MarkdownService.class);
-                markdownService.convertToAsciidoc(text, asciidoc -> {
-                    ConverterResult result = converterProvider.get(previewConfigBean).convertAsciidoc(asciidoc);
-                    result.afterRender(this::updateRendered);
-                });
+                String tabKey = current.currentPath().map(Path::toString).orElse("untitled");
+                if (editorConfigBean.isPreviewMarkdownAsHtml()) {
+                    markdownService.convertToHtml(tabKey, text, this::updateRendered);
+                } else {
+                    markdownService.convertToAsciidoc(tabKey, text, asciidoc -> {
+                        ConverterResult result = converterProvider.get(previewConfigBean).convertAsciidoc(asciidoc);
+                        result.afterRender(this::updateRendered);
+                    });
+                }
                 rightShowerHider.showNode(htmlPane);
             }
 
         } catch (Exception e) {
             setIncludeAsciidocResource(false);
             logger.error("Problem occured while rendering content", e);
+        } finally {
+            flightEvent.end();
+
+            String modeLabel = Objects.toString(mode, "").toLowerCase();
+            if (!renderTimers.containsKey(modeLabel)) {
+                modeLabel = "other";
+            }
+            renderTimers.get(modeLabel).recordSince(startedAt);
+            renderLatencyTimers.get(modeLabel).recordSince(editedAt);
         }
     }
 
@@ -2411,31 +2389,14 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
         Optional.ofNullable(rendered)
                 .ifPresent(html -> {
                     htmlPane.refreshUI(html);
-                    sendOverWebSocket(html);
+                    liveBroadcastHub.publish(html);
                 });
 
     }
 
-    private void sendOverWebSocket(String html) {
-        if (sessionList.size() > 0) {
-            threadService.runTaskLater(() -> {
-                sessionList.stream().filter(WebSocketSession::isOpen).forEach(e -> {
-                    try {
-                        e.sendMessage(new TextMessage(html));
-                    } catch (Exception ex) {
-                        logger.error("Problem occured while sending content over WebSocket", ex);
-                    }
-                });
-            });
-        }
-    }
-
     @WebkitCall(from = "editor")
     public void textListener(String text, String mode) {
-        latestTupleReference.set(new Tuple<>(text, mode));
-        if (renderLoopSemaphore.hasQueuedThreads()) {
-            renderLoopSemaphore.release();
-        }
+        renderLoop.offer(new Tuple<>(text, mode));
     }
 
     @WebkitCall(from = "editor")
@@ -2456,7 +2417,7 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
         final String tokenList = editorPane.tokenList();
         final String mode = editorPane.editorMode();
 
-        threadService.runTaskLater(() -> {
+        threadService.runTaskLater(Lane.INDEXING, () -> {
             dictionaryService.processTokens(editorPane, tokenList, mode);
         });
     }
@@ -2704,6 +2665,34 @@ public class ApplicationController extends TextWebSocketHandler implements Initi
         browseInDesktop(issuePage);
     }
 
+    @FXML
+    private void toggleFlightRecording(ActionEvent actionEvent) {
+
+        if (!flightRecorderService.isSupported()) {
+            logger.warn("Flight recorder is not supported by this Java runtime");
+            return;
+        }
+
+        threadService.runTaskLater(() -> {
+            try {
+                if (flightRecorderService.isRecording()) {
+                    Path dumpPath = flightRecorderService.stopRecording(IOHelper.getPath(getLogPath()));
+                    threadService.runActionLater(() -> {
+                        flightRecordingItem.setText("Start Flight Recording");
+                        statusMessage.setText("Flight recording is saved to " + dumpPath);
+                    });
+                } else {
+                    flightRecorderService.startRecording();
+                    threadService.runActionLater(() -> {
+                        flightRecordingItem.setText("Stop Flight Recording");
+                    });
+                }
+            } catch (Exception e) {
+                logger.error("Problem occured while flight recording", e);
+            }
+        });
+    }
+
     @FXML
     private void openCommunityForum(ActionEvent actionEvent) {
         browseInDesktop(issueForum);
@@ -2,6 +2,7 @@ package com.kodedu.controller;
 
 import com.kodedu.other.IOHelper;
 import com.kodedu.service.DirectoryService;
+import com.kodedu.service.cache.ResourceFetchService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,11 +10,9 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
-import org.springframework.web.client.RestTemplate;
 
 import java.nio.file.Path;
-import java.util.Base64;
-import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import static org.springframework.web.bind.annotation.RequestMethod.*;
 
@@ -23,58 +22,51 @@ import static org.springframework.web.bind.annotation.RequestMethod.*;
 @Controller
 public class DataUriController {
 
-    private final RestTemplate restTemplate;
-    private final Base64.Encoder base64Encoder;
     private final DirectoryService directoryService;
+    private final ResourceFetchService resourceFetchService;
 
     private final Logger logger = LoggerFactory.getLogger(DataUriController.class);
 
     @Autowired
-    public DataUriController(RestTemplate restTemplate, Base64.Encoder base64Encoder, DirectoryService directoryService) {
-        this.restTemplate = restTemplate;
-        this.base64Encoder = base64Encoder;
+    public DataUriController(DirectoryService directoryService, ResourceFetchService resourceFetchService) {
         this.directoryService = directoryService;
+        this.resourceFetchService = resourceFetchService;
     }
 
     @RequestMapping(value = "/read-data-uri", method = {HEAD, OPTIONS, POST}, produces = "*/*", consumes = "*/*")
     @ResponseBody
-    public String readUri(@RequestParam(value = "path", required = true) String imageUri,
-                          @RequestParam(value = "mimetype", required = true, defaultValue = "image/png") String mimetype
+    public CompletableFuture<String> readUri(@RequestParam(value = "path", required = true) String imageUri,
+                                             @RequestParam(value = "mimetype", required = true, defaultValue = "image/png") String mimetype
     ) {
 
         String encoding = "base64";
-        String dataUri = String.format("data:%s:%s,", mimetype, encoding);
+        String emptyDataUri = String.format("data:%s:%s,", mimetype, encoding);
+        String dataFormat = "data:%s;%s,%s";
 
-        try {
-
-            String dataFormat = "data:%s;%s,%s";
-
-            if (imageUri.startsWith("//")) {
-                imageUri = imageUri.replaceFirst("//", "http://");
-            }
+        final String finalUri = imageUri.startsWith("//") ? imageUri.replaceFirst("//", "http://") : imageUri;
 
-            dataUri = String.format(dataFormat, mimetype, encoding, getImageContent(imageUri));
+        try {
+            return getImageContent(finalUri)
+                    .thenApply(content -> String.format(dataFormat, mimetype, encoding, content))
+                    .exceptionally(e -> {
+                        if (finalUri.startsWith("http")) {
+                            logger.warn("image to embed not found or not readable: {}", finalUri);
+                        }
+                        return emptyDataUri;
+                    });
         } catch (Exception e) {
-            if (imageUri.startsWith("http")) {
-                logger.warn("image to embed not found or not readable: {}", imageUri);
-            }
+            return CompletableFuture.completedFuture(emptyDataUri);
         }
-
-        return dataUri;
     }
 
-    private Object getImageContent(String imageUri) {
-        byte[] bytes = new byte[]{};
+    private CompletableFuture<String> getImageContent(String imageUri) {
 
         if (isExternalUri(imageUri)) {
-            bytes = restTemplate.getForObject(imageUri, byte[].class);
-        } else {
-            final Path path = directoryService.findPathInWorkdirOrLookup(IOHelper.getPath(imageUri));
-            Objects.requireNonNull(path, "No such file or directory: " + imageUri);
-            bytes = IOHelper.readFile(path, byte[].class);
+            return resourceFetchService.fetchBase64(imageUri, null);
         }
 
-        return base64Encoder.encodeToString(bytes);
+        final Path path = directoryService.findPathInWorkdirOrLookup(IOHelper.getPath(imageUri));
+        return resourceFetchService.fetchBase64(imageUri, path);
     }
 
     private boolean isSvg(String uri) {
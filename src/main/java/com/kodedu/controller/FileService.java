@@ -1,7 +1,13 @@
 package com.kodedu.controller;
 
+import com.kodedu.service.flight.FlightEvent;
+import com.kodedu.service.flight.FlightEventType;
+import com.kodedu.service.flight.FlightRecorderService;
+import com.kodedu.service.metrics.Counter;
+import com.kodedu.service.metrics.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.servlet.ServletException;
@@ -31,11 +37,32 @@ public class FileService {
 
     private Logger logger = LoggerFactory.getLogger(FileService.class);
 
+    private final Counter bytesServed;
+    private final Counter requests;
+    private final FlightRecorderService flightRecorderService;
+
+    @Autowired
+    public FileService(MetricRegistry metricRegistry, FlightRecorderService flightRecorderService) {
+        this.flightRecorderService = flightRecorderService;
+        this.bytesServed = metricRegistry.counter("afx_file_served_bytes_total", "Bytes of local files served by the embedded server");
+        this.requests = metricRegistry.counter("afx_file_requests_total", "Local file requests to the embedded server");
+    }
+
     public void processFile(HttpServletRequest request, HttpServletResponse response, Path path) {
+        requests.increment();
+
+        FlightEvent flightEvent = flightRecorderService.begin(FlightEventType.FILE, request.getMethod()).path(path);
+
         try {
             processRequest(request, response, path, hasContent(request));
         } catch (Exception e) {
             logger.debug(e.getMessage(), e);
+        } finally {
+            if (flightEvent.isRecorded() && Objects.nonNull(path)) {
+                flightEvent.size(path.toFile().length())
+                        .cacheOutcome(response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED ? "not-modified" : "served");
+            }
+            flightEvent.end();
         }
     }
 
@@ -390,6 +417,8 @@ public class FileService {
                 }
             }
         }
+
+        bytesServed.add(length);
     }
 
     /**
@@ -0,0 +1,53 @@
+package com.kodedu.controller;
+
+import com.kodedu.service.metrics.MetricRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Objects;
+
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+
+/**
+ * Exposes the metric registry in Prometheus text format, or as JSON with ?format=json
+ */
+@Controller
+public class MetricsResource {
+
+    private static final MediaType PROMETHEUS_TYPE = MediaType.parseMediaType("text/plain; version=0.0.4; charset=utf-8");
+
+    private final MetricRegistry metricRegistry;
+
+    @Autowired
+    public MetricsResource(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    @RequestMapping(value = {"/afx/metrics"}, method = GET, produces = "*/*")
+    @ResponseBody
+    public ResponseEntity<String> metrics(@RequestParam(value = "format", required = false) String format,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        boolean json = "json".equalsIgnoreCase(format)
+                || (Objects.isNull(format) && Objects.nonNull(accept) && accept.contains(MediaType.APPLICATION_JSON_VALUE));
+
+        if (json) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                    .body(metricRegistry.toJson().toString());
+        }
+
+        return ResponseEntity.ok()
+                .contentType(PROMETHEUS_TYPE)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .body(metricRegistry.toPrometheus());
+    }
+}
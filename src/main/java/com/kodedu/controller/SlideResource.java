@@ -3,6 +3,8 @@ package com.kodedu.controller;
 import com.kodedu.other.Current;
 import com.kodedu.service.DirectoryService;
 import com.kodedu.service.convert.slide.SlideConverter;
+import com.kodedu.service.convert.slide.SlideDeck;
+import org.springframework.http.HttpStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -39,7 +41,8 @@ public class SlideResource {
     @RequestMapping(value = {"/afx/slide", "/afx/slide/**", "/afx/slide/*.*"}, method = {GET, HEAD, OPTIONS, POST}, produces = "*/*", consumes = "*/*")
     @ResponseBody
     public void onrequest(HttpServletRequest request, HttpServletResponse response,
-                          @RequestParam(value = "p", required = false) String p, @RequestParam(value = "receiver", required = false) String receiver) {
+                          @RequestParam(value = "p", required = false) String p, @RequestParam(value = "receiver", required = false) String receiver,
+                          @RequestParam(value = "fragment", required = false) Integer fragment) {
 
         Payload payload = new Payload(request, response);
         payload.setPattern("/afx/slide/");
@@ -50,6 +53,14 @@ public class SlideResource {
                 sendSlide(payload);
                 return;
             }
+
+            if (p.contains("slides.json")) {
+                sendSlideHashes(payload);
+                return;
+            }
+        } else if (Objects.nonNull(fragment)) {
+            sendFragment(payload, fragment);
+            return;
         } else if (Objects.nonNull(receiver)) {
             sendSlide(payload);
             return;
@@ -62,4 +73,47 @@ public class SlideResource {
         payload.getResponse().setContentType("text/html;charset=UTF-8");
         payload.write(slideConverter.getRendered());
     }
+
+    /**
+     * Hashes of the current slides, viewers fetch only the fragments whose hash changed
+     */
+    private void sendSlideHashes(Payload payload) {
+
+        SlideDeck deck = slideConverter.getDeck();
+
+        if (Objects.isNull(deck)) {
+            payload.setStatus(HttpStatus.NOT_FOUND);
+            return;
+        }
+
+        payload.getResponse().setContentType("application/json;charset=UTF-8");
+        payload.getResponse().setHeader("Cache-Control", "no-cache");
+        payload.write(deck.toJson().toString());
+    }
+
+    /**
+     * One slide of the last render, its hash is the ETag
+     */
+    private void sendFragment(Payload payload, int index) {
+
+        SlideDeck deck = slideConverter.getDeck();
+
+        if (Objects.isNull(deck) || index < 0 || index >= deck.size()) {
+            payload.setStatus(HttpStatus.NOT_FOUND);
+            return;
+        }
+
+        String etag = "\"" + deck.getHash(index) + "\"";
+        HttpServletResponse response = payload.getResponse();
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "no-cache");
+
+        if (etag.equals(payload.getRequest().getHeader("If-None-Match"))) {
+            payload.setStatus(HttpStatus.NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType("text/html;charset=UTF-8");
+        payload.write(deck.getSlide(index));
+    }
 }
@@ -4,6 +4,7 @@ import com.kodedu.other.Current;
 import com.kodedu.other.IOHelper;
 import com.kodedu.service.DirectoryService;
 import com.kodedu.service.ThreadService;
+import com.kodedu.service.cache.ResourceFetchService;
 import com.kodedu.service.ui.TabService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,13 +13,13 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
-import org.springframework.web.client.RestTemplate;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.nio.file.Path;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.web.bind.annotation.RequestMethod.*;
 
@@ -35,13 +36,13 @@ public class WebWorkerResource {
     private final ThreadService threadService;
     private final ApplicationController controller;
     private final DataUriController dataUriService;
-    private final RestTemplate restTemplate;
+    private final ResourceFetchService resourceFetchService;
     private final CommonResource commonResource;
 
     private Logger logger = LoggerFactory.getLogger(WebWorkerResource.class);
 
     @Autowired
-    public WebWorkerResource(Current current, TabService tabService, DirectoryService directoryService, FileService fileService, ThreadService threadService, ApplicationController controller, DataUriController dataUriService, RestTemplate restTemplate, CommonResource commonResource) {
+    public WebWorkerResource(Current current, TabService tabService, DirectoryService directoryService, FileService fileService, ThreadService threadService, ApplicationController controller, DataUriController dataUriService, ResourceFetchService resourceFetchService, CommonResource commonResource) {
         this.current = current;
         this.tabService = tabService;
         this.directoryService = directoryService;
@@ -49,7 +50,7 @@ public class WebWorkerResource {
         this.threadService = threadService;
         this.controller = controller;
         this.dataUriService = dataUriService;
-        this.restTemplate = restTemplate;
+        this.resourceFetchService = resourceFetchService;
         this.commonResource = commonResource;
     }
 
@@ -86,7 +87,7 @@ public class WebWorkerResource {
                 String data = "";
 
                 try {
-                    data = restTemplate.getForObject(finalURI, String.class);
+                    data = resourceFetchService.fetchText(finalURI).get(30, TimeUnit.SECONDS);
                 } catch (Exception ex) {
                     logger.warn("resource not found or not readable: {}", finalURI);
                 }
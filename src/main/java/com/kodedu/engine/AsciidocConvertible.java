@@ -13,6 +13,17 @@ public interface AsciidocConvertible {
 
     public ConverterResult convertHtml(String asciidoc);
 
+    /**
+     * @param fillOutline whether the outline of the result is reported, converters not reporting outlines ignore it
+     */
+    public default ConverterResult convertDocbook(String asciidoc, boolean fillOutline) {
+        return convertDocbook(asciidoc);
+    }
+
+    public default ConverterResult convertAsciidoc(String asciidoc, boolean fillOutline) {
+        return convertAsciidoc(asciidoc);
+    }
+
     public void convertOdf(String asciidoc);
 
     public void fillOutlines(Object doc);
@@ -60,9 +60,9 @@ public class AsciidocNashornConverter implements AsciidocConvertible {
         try {
             completableFuture.join();
 
-            JsonObject finalConfig = updateConfig(asciidoc, config);
+            String finalConfig = updateConfig(asciidoc, config);
 
-            Object o = invocable.invokeFunction(functionName, asciidoc, finalConfig.toString());
+            Object o = invocable.invokeFunction(functionName, asciidoc, finalConfig);
             JSObject convertDocbook = (JSObject) o;
             ConverterResult converterResult = new ConverterResult(convertDocbook);
             return converterResult;
@@ -115,8 +115,8 @@ public class AsciidocNashornConverter implements AsciidocConvertible {
         return asciidoc;
     }
 
-    private JsonObject updateConfig(String asciidoc, JsonObject config) {
-        return configMerger.updateConfig(asciidoc, config);
+    private String updateConfig(String asciidoc, JsonObject config) {
+        return configMerger.updateConfigString(asciidoc, config);
     }
 
     public void initialize() {
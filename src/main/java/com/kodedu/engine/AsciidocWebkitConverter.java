@@ -8,6 +8,12 @@ import com.kodedu.other.Current;
 import com.kodedu.other.IOHelper;
 import com.kodedu.service.DirectoryService;
 import com.kodedu.service.ThreadService;
+import com.kodedu.service.flight.FlightEvent;
+import com.kodedu.service.flight.FlightEventType;
+import com.kodedu.service.flight.FlightRecorderService;
+import com.kodedu.service.metrics.Counter;
+import com.kodedu.service.metrics.Histogram;
+import com.kodedu.service.metrics.MetricRegistry;
 import javafx.application.Platform;
 import netscape.javascript.JSObject;
 import org.slf4j.Logger;
@@ -19,11 +25,13 @@ import org.springframework.stereotype.Component;
 import javax.json.JsonObject;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Created by usta on 09.04.2015.
@@ -43,15 +51,23 @@ public class AsciidocWebkitConverter extends ViewPanel implements AsciidocConver
 
     private Logger logger = LoggerFactory.getLogger(AsciidocWebkitConverter.class);
     private final DirectoryService directoryService;
+    // meters of the converter functions, looked up once
+    private final Map<String, ConverterMeters> converterMeters = new HashMap<>();
+    private final FlightRecorderService flightRecorderService;
 
     @Autowired
-    public AsciidocWebkitConverter(ThreadService threadService, ApplicationController controller, Current current, EditorConfigBean editorConfigBean, PreviewConfigBean previewConfigBean, DocbookConfigBean docbookConfigBean, HtmlConfigBean htmlConfigBean, AsciidocConfigMerger configMerger, DirectoryService directoryService) {
+    public AsciidocWebkitConverter(ThreadService threadService, ApplicationController controller, Current current, EditorConfigBean editorConfigBean, PreviewConfigBean previewConfigBean, DocbookConfigBean docbookConfigBean, HtmlConfigBean htmlConfigBean, AsciidocConfigMerger configMerger, DirectoryService directoryService, MetricRegistry metricRegistry, FlightRecorderService flightRecorderService) {
         super(threadService, controller, current, editorConfigBean);
         this.previewConfigBean = previewConfigBean;
         this.docbookConfigBean = docbookConfigBean;
         this.htmlConfigBean = htmlConfigBean;
         this.configMerger = configMerger;
         this.directoryService = directoryService;
+        this.flightRecorderService = flightRecorderService;
+        for (String functionName : new String[]{"convertDocbook", "convertAsciidoc", "convertHtml"}) {
+            converterMeters.put(functionName, new ConverterMeters(metricRegistry, functionName));
+        }
+        metricRegistry.gauge("afx_converter_pending_tasks", "Conversions waiting for the converter web worker", webWorkerTasks::size);
     }
 
     public String getTemplate(String templateDir) {
@@ -135,33 +151,54 @@ public class AsciidocWebkitConverter extends ViewPanel implements AsciidocConver
         return (String) webEngine().executeScript("findRenderedSelection(context)");
     }
 
-    protected ConverterResult convert(String functionName, String asciidoc, JsonObject config) {
+    protected ConverterResult convert(String functionName, String asciidoc, String conf) {
+        return convert(functionName, asciidoc, conf, true);
+    }
+
+    /**
+     * @param fillOutline whether the outline of the result is reported, false for content other than the edited document
+     */
+    protected ConverterResult convert(String functionName, String asciidoc, String conf, boolean fillOutline) {
 
         final CompletableFuture<ConverterResult> completableFuture = new CompletableFuture();
         final String taskId = UUID.randomUUID().toString();
+        final long startedAt = System.nanoTime();
+        final ConverterMeters meters = converterMeters.get(functionName);
+        final FlightEvent flightEvent = flightRecorderService.begin(FlightEventType.CONVERT, functionName)
+                .path(current.currentPath().orElse(null))
+                .size(asciidoc.length());
 
         webWorkerTasks.put(taskId, completableFuture);
-        final String conf = config.toString();
         threadService.runActionLater(() -> {
             this.setMember("taskId", taskId);
             this.setMember("editorValue", asciidoc);
             this.setMember("editorOptions", conf);
+            this.setMember("fillOutline", fillOutline);
             try {
-                webEngine().executeScript(String.format("if ((typeof %s)!== \"undefined\"){ %s(taskId,editorValue,editorOptions) }", functionName, functionName));
+                webEngine().executeScript(String.format("if ((typeof %s)!== \"undefined\"){ %s(taskId,editorValue,editorOptions,fillOutline) }", functionName, functionName));
             } catch (Exception e) {
                 completableFuture.completeExceptionally(e);
             }
         });
 
         try {
-            return completableFuture.get(60, TimeUnit.SECONDS);
+            ConverterResult converterResult = completableFuture.get(60, TimeUnit.SECONDS);
+            meters.duration.recordSince(startedAt);
+            return converterResult;
+        } catch (TimeoutException e) {
+            webWorkerTasks.remove(taskId);
+            meters.timeouts.increment();
+            throw new RuntimeException(e);
         } catch (Exception e) {
+            meters.failures.increment();
             throw new RuntimeException(e);
+        } finally {
+            flightEvent.end();
         }
     }
 
-    private JsonObject updateConfig(String asciidoc, JsonObject config) {
-        return configMerger.updateConfig(asciidoc, config);
+    private String updateConfig(String asciidoc, JsonObject config) {
+        return configMerger.updateConfigString(asciidoc, config);
     }
 
     @Override
@@ -174,6 +211,16 @@ public class AsciidocWebkitConverter extends ViewPanel implements AsciidocConver
         return convert("convertAsciidoc", asciidoc, updateConfig(asciidoc, previewConfigBean.getJSON()));
     }
 
+    @Override
+    public ConverterResult convertDocbook(String asciidoc, boolean fillOutline) {
+        return convert("convertDocbook", asciidoc, updateConfig(asciidoc, docbookConfigBean.getJSON()), fillOutline);
+    }
+
+    @Override
+    public ConverterResult convertAsciidoc(String asciidoc, boolean fillOutline) {
+        return convert("convertAsciidoc", asciidoc, updateConfig(asciidoc, previewConfigBean.getJSON()), fillOutline);
+    }
+
     @Override
     public ConverterResult convertHtml(String asciidoc) {
         return convert("convertHtml", asciidoc, updateConfig(asciidoc, htmlConfigBean.getJSON()));
@@ -197,4 +244,16 @@ public class AsciidocWebkitConverter extends ViewPanel implements AsciidocConver
 
         return false;
     }
+
+    private static class ConverterMeters {
+        private final Histogram duration;
+        private final Counter timeouts;
+        private final Counter failures;
+
+        private ConverterMeters(MetricRegistry metricRegistry, String functionName) {
+            this.duration = metricRegistry.timer("afx_converter_seconds", "Duration of converter tasks", "function", functionName);
+            this.timeouts = metricRegistry.counter("afx_converter_timeouts_total", "Converter tasks timed out", "function", functionName);
+            this.failures = metricRegistry.counter("afx_converter_failures_total", "Converter tasks failed", "function", functionName);
+        }
+    }
 }
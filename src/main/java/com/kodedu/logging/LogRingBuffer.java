@@ -0,0 +1,93 @@
+package com.kodedu.logging;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock free bounded buffer between the logging threads and the log viewer.
+ * <p>
+ * Writers never block, when the reader falls behind by more than the capacity the oldest logs are overwritten.
+ * There is a single reader, the JavaFX thread.
+ */
+final class LogRingBuffer {
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long readSequence;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    void offer(MyLog log) {
+        long sequence = writeSequence.getAndIncrement();
+        slots.set((int) (sequence & mask), new Entry(sequence, log));
+    }
+
+    /**
+     * Moves the logs written since the last drain to the target, in order
+     *
+     * @return number of logs added
+     */
+    int drainTo(List<MyLog> target) {
+
+        long written = writeSequence.get();
+
+        // overwritten before they could be read
+        if (written - readSequence > slots.length()) {
+            dropped.addAndGet(written - slots.length() - readSequence);
+            readSequence = written - slots.length();
+        }
+
+        int count = 0;
+
+        while (readSequence < written) {
+
+            Entry entry = slots.get((int) (readSequence & mask));
+
+            // the writer got its sequence but hasn't stored the log yet, read it in the next drain
+            if (entry == null || entry.sequence < readSequence) {
+                break;
+            }
+
+            // overwritten while draining
+            if (entry.sequence > readSequence) {
+                dropped.incrementAndGet();
+                readSequence++;
+                continue;
+            }
+
+            target.add(entry.log);
+            readSequence++;
+            count++;
+        }
+
+        return count;
+    }
+
+    boolean isEmpty() {
+        return readSequence >= writeSequence.get();
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    private static final class Entry {
+        private final long sequence;
+        private final MyLog log;
+
+        private Entry(long sequence, MyLog log) {
+            this.sequence = sequence;
+            this.log = log;
+        }
+    }
+}
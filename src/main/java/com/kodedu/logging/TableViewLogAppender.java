@@ -12,27 +12,37 @@ import javafx.scene.control.Label;
 import javafx.scene.control.TableView;
 import javafx.scene.control.ToggleButton;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
  * Created by usta on 02.06.2015.
+ * <p>
+ * Logs are put into a bounded ring buffer and moved to the log viewer once per pulse. The viewer only keeps the
+ * latest logs (windowSize), the full log is in the log file.
  */
 
 public class TableViewLogAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
 
     private static TableView<MyLog> logViewer;
     private static ObservableList<MyLog> logList;
-    private static List<MyLog> buffer = Collections.synchronizedList(new LinkedList<MyLog>());
     private static Label logShortMessage;
     private static ThreadService threadService;
     PatternLayoutEncoder encoder;
     private static ToggleButton logShowHider;
 
+    private int capacity = 1024;
+    private int windowSize = 2000;
+    private String[] excludedLoggers = new String[0];
+
+    private LogRingBuffer buffer;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private volatile boolean errorOccured;
+
     public static void setLogViewer(TableView<MyLog> logViewer) {
         TableViewLogAppender.logViewer = logViewer;
     }
@@ -53,6 +63,12 @@ public class TableViewLogAppender extends UnsynchronizedAppenderBase<ILoggingEve
         return logShowHider;
     }
 
+    @Override
+    public void start() {
+        buffer = new LogRingBuffer(capacity);
+        super.start();
+    }
+
     @Override
     protected void append(ILoggingEvent event) {
 
@@ -60,42 +76,75 @@ public class TableViewLogAppender extends UnsynchronizedAppenderBase<ILoggingEve
             return;
 
         String message = event.getFormattedMessage();
-        String level = event.getLevel().toString();
 
-        if (Objects.isNull(message)) {
+        if (Objects.isNull(message) || isExcluded(event.getLoggerName())) {
             return;
         }
 
         if (event.getLevel() == Level.ERROR) {
-            logShowHider.getStyleClass().add("red-label");
+            errorOccured = true;
+            IThrowableProxy tp = event.getThrowableProxy();
+            if (Objects.nonNull(tp)) {
+                message += "\n" + ThrowableProxyUtil.asString(tp);
+            }
+        }
+
+        if (message.isEmpty()) {
+            return;
         }
 
-        final String finalMessage = message;
-        threadService.buff("logMessager").schedule(() -> {
-            threadService.runActionLater(() -> {
-                logShortMessage.setText(finalMessage);
-            });
-        }, 1, TimeUnit.SECONDS);
+        buffer.offer(new MyLog(event.getLevel().toString(), message));
 
+        if (drainScheduled.compareAndSet(false, true)) {
+            threadService.runActionLater(this::drain, true);
+        }
+    }
 
-        IThrowableProxy tp = event.getThrowableProxy();
-        if (Objects.nonNull(tp) && event.getLevel() == Level.ERROR) {
-            String tpMessage = ThrowableProxyUtil.asString(tp);
-            message += "\n" + tpMessage;
+    private boolean isExcluded(String loggerName) {
+        for (String excludedLogger : excludedLoggers) {
+            if (loggerName.startsWith(excludedLogger)) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    private void drain() {
 
-        if (!message.isEmpty()) {
-            MyLog myLog = new MyLog(level, message);
-            buffer.add(myLog);
+        drainScheduled.set(false);
+
+        List<MyLog> logs = new ArrayList<>();
+        buffer.drainTo(logs);
+
+        // a writer was still storing its log, pick it up in the next pulse
+        if (!buffer.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            threadService.runActionLater(this::drain, true);
         }
 
-        threadService.buff("logAppender").schedule(() -> {
-            final List<MyLog> clone = new LinkedList<>(buffer);
-            buffer.clear();
-            threadService.runActionLater(() -> {
-                logList.addAll(clone);
-            });
-        }, 2, TimeUnit.SECONDS);
+        if (logs.isEmpty()) {
+            return;
+        }
+
+        if (logs.size() > windowSize) {
+            logs = logs.subList(logs.size() - windowSize, logs.size());
+        }
+
+        int overflow = logList.size() + logs.size() - windowSize;
+
+        if (overflow > 0) {
+            logList.remove(0, overflow);
+        }
+
+        logList.addAll(logs);
+
+        logShortMessage.setText(logs.get(logs.size() - 1).getMessage());
+
+        if (errorOccured) {
+            errorOccured = false;
+            if (!logShowHider.getStyleClass().contains("red-label")) {
+                logShowHider.getStyleClass().add("red-label");
+            }
+        }
     }
 
     public PatternLayoutEncoder getEncoder() {
@@ -106,6 +155,30 @@ public class TableViewLogAppender extends UnsynchronizedAppenderBase<ILoggingEve
         this.encoder = encoder;
     }
 
+    /**
+     * Logs kept between two pulses, older ones are dropped when logging outpaces the viewer
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Logs kept in the viewer
+     */
+    public void setWindowSize(int windowSize) {
+        this.windowSize = Math.max(1, windowSize);
+    }
+
+    /**
+     * Comma separated logger name prefixes which aren't shown in the viewer
+     */
+    public void setExcludedLoggers(String excludedLoggers) {
+        this.excludedLoggers = Arrays.stream(excludedLoggers.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toArray(String[]::new);
+    }
+
     public static void setThreadService(ThreadService threadService) {
         TableViewLogAppender.threadService = threadService;
     }
@@ -45,6 +45,9 @@ public class IOHelper {
 
     private static final Map<Path, String> pathCharsetMap = new LRUMap();
 
+    // deflate level of written png images, ImageIO always uses the best compression
+    private static final int PNG_COMPRESSION = 6;
+
     public static Optional<Exception> writeToFile(Path path, String content, StandardOpenOption... openOption) {
         String charset = pathCharsetMap.getOrDefault(path, "UTF-8");
 
@@ -208,6 +211,12 @@ public class IOHelper {
 
     public static void imageWrite(BufferedImage bufferedImage, String format, File output) {
         try {
+            if ("png".equalsIgnoreCase(format)) {
+                try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(output))) {
+                    new PngEncoder(PNG_COMPRESSION).encode(bufferedImage, outputStream);
+                }
+                return;
+            }
             ImageIO.write(bufferedImage, format, output);
         } catch (Exception e) {
             logger.error("Problem occured while writing buff image to {}", output, e);
@@ -567,34 +576,7 @@ public class IOHelper {
     }
 
     public static boolean isSameImage(BufferedImage firstImage, BufferedImage secondImage) {
-
-        if (isNull(firstImage)) {
-            return false;
-        }
-
-        if (isNull(secondImage)) {
-            return false;
-        }
-
-        // The images must be the same size.
-        if (firstImage.getWidth() == secondImage.getWidth() && firstImage.getHeight() == secondImage.getHeight()) {
-            int width = firstImage.getWidth();
-            int height = firstImage.getHeight();
-
-            // Loop over every pixel.
-            for (int y = 0; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    // Compare the pixels for equality.
-                    if (firstImage.getRGB(x, y) != secondImage.getRGB(x, y)) {
-                        return false;
-                    }
-                }
-            }
-        } else {
-            return false;
-        }
-
-        return true;
+        return Rasters.isSameImage(firstImage, secondImage);
     }
 
     public static Path getPath(String path) {
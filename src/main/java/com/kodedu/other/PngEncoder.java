@@ -0,0 +1,186 @@
+package com.kodedu.other;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Png encoder with a tunable deflate level.
+ * <p>
+ * ImageIO always deflates with the best compression, which dominates the cost of writing a snapshot.
+ * Rows are read from the raster and filtered adaptively (none, sub, up or paeth, whichever has the smallest sum), images without
+ * alpha are written as rgb.
+ */
+public final class PngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final int COLOR_RGB = 2;
+    private static final int COLOR_RGBA = 6;
+
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_PAETH = 4;
+
+    private final int compressionLevel;
+
+    /**
+     * @param compressionLevel deflate level, 0 (none) to 9 (best)
+     */
+    public PngEncoder(int compressionLevel) {
+        this.compressionLevel = Math.max(Deflater.NO_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, compressionLevel));
+    }
+
+    public byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(image.getWidth() * image.getHeight() / 4 + 64);
+        encode(image, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    public void encode(BufferedImage image, OutputStream outputStream) throws IOException {
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean alpha = image.getColorModel().hasAlpha();
+        int bytesPerPixel = alpha ? 4 : 3;
+
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(width);
+        headerData.writeInt(height);
+        headerData.writeByte(8);
+        headerData.writeByte(alpha ? COLOR_RGBA : COLOR_RGB);
+        headerData.writeByte(0);
+        headerData.writeByte(0);
+        headerData.writeByte(0);
+        writeChunk(output, "IHDR", header.toByteArray(), header.size());
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(width * height * bytesPerPixel / 8 + 64);
+        Deflater deflater = new Deflater(compressionLevel);
+
+        try (DeflaterOutputStream deflaterStream = new DeflaterOutputStream(compressed, deflater, 64 * 1024)) {
+
+            int rowLength = width * bytesPerPixel;
+            Rasters.PixelRows rows = new Rasters.PixelRows(image, true);
+            byte[] previous = new byte[rowLength];
+            byte[] current = new byte[rowLength];
+            byte[][] filtered = new byte[5][rowLength + 1];
+
+            for (int y = 0; y < height; y++) {
+
+                int[] row = rows.row(y);
+                int offset = rows.offset(y);
+
+                for (int x = 0, i = 0; x < width; x++) {
+                    int pixel = rows.unpremultiplied(row[offset + x]);
+                    current[i++] = (byte) (pixel >> 16);
+                    current[i++] = (byte) (pixel >> 8);
+                    current[i++] = (byte) pixel;
+                    if (alpha) {
+                        current[i++] = (byte) (pixel >>> 24);
+                    }
+                }
+
+                deflaterStream.write(filter(current, previous, y == 0, bytesPerPixel, filtered));
+
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+        } finally {
+            deflater.end();
+        }
+
+        writeChunk(output, "IDAT", compressed.toByteArray(), compressed.size());
+        writeChunk(output, "IEND", new byte[0], 0);
+        output.flush();
+    }
+
+    private byte[] filter(byte[] row, byte[] previous, boolean firstRow, int bytesPerPixel, byte[][] filtered) {
+
+        int length = row.length;
+
+        byte[] none = filtered[FILTER_NONE];
+        none[0] = FILTER_NONE;
+        System.arraycopy(row, 0, none, 1, length);
+
+        byte[] sub = filtered[FILTER_SUB];
+        sub[0] = FILTER_SUB;
+        long noneSum = 0;
+        long subSum = 0;
+        for (int i = 0; i < length; i++) {
+            int left = i >= bytesPerPixel ? row[i - bytesPerPixel] & 0xFF : 0;
+            sub[i + 1] = (byte) ((row[i] & 0xFF) - left);
+            noneSum += Math.abs(row[i]);
+            subSum += Math.abs(sub[i + 1]);
+        }
+
+        byte[] best = subSum < noneSum ? sub : none;
+        long bestSum = Math.min(subSum, noneSum);
+
+        // the first row has no row above, up and paeth would equal none and sub
+        if (firstRow) {
+            return best;
+        }
+
+        byte[] up = filtered[FILTER_UP];
+        byte[] paeth = filtered[FILTER_PAETH];
+        up[0] = FILTER_UP;
+        paeth[0] = FILTER_PAETH;
+        long upSum = 0;
+        long paethSum = 0;
+        for (int i = 0; i < length; i++) {
+            int value = row[i] & 0xFF;
+            int above = previous[i] & 0xFF;
+            int left = i >= bytesPerPixel ? row[i - bytesPerPixel] & 0xFF : 0;
+            int upperLeft = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xFF : 0;
+            up[i + 1] = (byte) (value - above);
+            paeth[i + 1] = (byte) (value - paethPredictor(left, above, upperLeft));
+            upSum += Math.abs(up[i + 1]);
+            paethSum += Math.abs(paeth[i + 1]);
+        }
+
+        if (upSum < bestSum) {
+            best = up;
+            bestSum = upSum;
+        }
+
+        if (paethSum < bestSum) {
+            best = paeth;
+        }
+
+        return best;
+    }
+
+    private static int paethPredictor(int left, int above, int upperLeft) {
+        int estimate = left + above - upperLeft;
+        int leftDistance = Math.abs(estimate - left);
+        int aboveDistance = Math.abs(estimate - above);
+        int upperLeftDistance = Math.abs(estimate - upperLeft);
+        if (leftDistance <= aboveDistance && leftDistance <= upperLeftDistance) {
+            return left;
+        }
+        return aboveDistance <= upperLeftDistance ? above : upperLeft;
+    }
+
+    private static void writeChunk(DataOutputStream output, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        output.writeInt(length);
+        output.write(typeBytes);
+        output.write(data, 0, length);
+        output.writeInt((int) crc.getValue());
+    }
+}
@@ -0,0 +1,205 @@
+package com.kodedu.other;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Pixel scans working on whole rows instead of per pixel getRGB calls.
+ * <p>
+ * Int packed images (which snapshots are) are read from their data buffer directly, other types are read row by row
+ * with the bulk getRGB.
+ */
+public final class Rasters {
+
+    private static final int OPAQUE = 0xFF000000;
+
+    private Rasters() {
+    }
+
+    /**
+     * Bounds of the pixels which are not the background color, null when the image only has the background
+     *
+     * @param background argb color, like Color.WHITE.getRGB()
+     */
+    public static Rectangle contentBounds(BufferedImage image, int background) {
+
+        PixelRows rows = new PixelRows(image, true);
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        int top = 0;
+        while (top < height && rows.isBlank(top, 0, width, background)) {
+            top++;
+        }
+
+        if (top == height) {
+            return null;
+        }
+
+        int bottom = height - 1;
+        while (bottom > top && rows.isBlank(bottom, 0, width, background)) {
+            bottom--;
+        }
+
+        // each row only needs to be scanned outside of the bounds found so far
+        int left = width - 1;
+        int right = 0;
+
+        for (int y = top; y <= bottom; y++) {
+            int[] row = rows.row(y);
+            int offset = rows.offset(y);
+
+            for (int x = 0; x < left; x++) {
+                if (rows.argb(row[offset + x]) != background) {
+                    left = x;
+                    break;
+                }
+            }
+
+            for (int x = width - 1; x > right; x--) {
+                if (rows.argb(row[offset + x]) != background) {
+                    right = x;
+                    break;
+                }
+            }
+        }
+
+        // single column of content
+        if (right < left) {
+            right = left;
+        }
+
+        return new Rectangle(left, top, right - left + 1, bottom - top + 1);
+    }
+
+    /**
+     * Whether both images have the same size and pixels, stops at the first different row
+     */
+    public static boolean isSameImage(BufferedImage firstImage, BufferedImage secondImage) {
+
+        if (isNull(firstImage) || isNull(secondImage)) {
+            return false;
+        }
+
+        if (firstImage == secondImage) {
+            return true;
+        }
+
+        int width = firstImage.getWidth();
+        int height = firstImage.getHeight();
+
+        if (width != secondImage.getWidth() || height != secondImage.getHeight()) {
+            return false;
+        }
+
+        // raw ints are only comparable when both images pack pixels the same way, otherwise both are read as argb
+        boolean sameType = firstImage.getType() == secondImage.getType();
+        PixelRows first = new PixelRows(firstImage, sameType);
+        PixelRows second = new PixelRows(secondImage, sameType);
+
+        for (int y = 0; y < height; y++) {
+            int[] firstRow = first.row(y);
+            int firstOffset = first.offset(y);
+            int[] secondRow = second.row(y);
+            int secondOffset = second.offset(y);
+
+            for (int x = 0; x < width; x++) {
+                if (first.argb(firstRow[firstOffset + x]) != second.argb(secondRow[secondOffset + x])) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Row access of an image, either into its int data buffer or into a reused row buffer
+     */
+    static final class PixelRows {
+
+        private final BufferedImage image;
+        private final boolean direct;
+        private final int[] data;
+        private final int scanlineStride;
+        private final int alphaMask;
+        private final boolean premultiplied;
+        private final int[] buffer;
+
+        PixelRows(BufferedImage image, boolean allowDirect) {
+            this.image = image;
+
+            int type = image.getType();
+            Raster raster = image.getRaster();
+
+            boolean packed = allowDirect && (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB
+                    || type == BufferedImage.TYPE_INT_ARGB_PRE)
+                    && raster.getDataBuffer() instanceof DataBufferInt
+                    && raster.getDataBuffer().getNumBanks() == 1
+                    && raster.getDataBuffer().getOffset() == 0
+                    && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+                    && raster.getSampleModelTranslateX() == 0
+                    && raster.getSampleModelTranslateY() == 0;
+
+            this.direct = packed;
+            this.data = packed ? ((DataBufferInt) raster.getDataBuffer()).getData() : null;
+            this.scanlineStride = packed ? ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride() : 0;
+            // the alpha byte of rgb images is undefined, getRGB reports them as opaque
+            this.alphaMask = packed && type == BufferedImage.TYPE_INT_RGB ? OPAQUE : 0;
+            this.premultiplied = packed && type == BufferedImage.TYPE_INT_ARGB_PRE;
+            this.buffer = packed ? null : new int[image.getWidth()];
+        }
+
+        int[] row(int y) {
+            if (direct) {
+                return data;
+            }
+            image.getRGB(0, y, image.getWidth(), 1, buffer, 0, buffer.length);
+            return buffer;
+        }
+
+        int offset(int y) {
+            return direct ? y * scanlineStride : 0;
+        }
+
+        /**
+         * Pixel as compared to a getRGB color. Premultiplied pixels equal the color only when they are opaque.
+         */
+        int argb(int pixel) {
+            return pixel | alphaMask;
+        }
+
+        /**
+         * Pixel as returned by getRGB
+         */
+        int unpremultiplied(int pixel) {
+            int alpha = pixel >>> 24;
+            if (!premultiplied || alpha == 0xFF) {
+                return pixel | alphaMask;
+            }
+            if (alpha == 0) {
+                return 0;
+            }
+            int red = Math.min(0xFF, ((pixel >> 16) & 0xFF) * 0xFF / alpha);
+            int green = Math.min(0xFF, ((pixel >> 8) & 0xFF) * 0xFF / alpha);
+            int blue = Math.min(0xFF, (pixel & 0xFF) * 0xFF / alpha);
+            return (alpha << 24) | (red << 16) | (green << 8) | blue;
+        }
+
+        boolean isBlank(int y, int from, int to, int background) {
+            int[] row = row(y);
+            int offset = offset(y);
+            for (int x = from; x < to; x++) {
+                if ((row[offset + x] | alphaMask) != background) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
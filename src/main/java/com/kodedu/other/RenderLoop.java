@@ -0,0 +1,118 @@
+package com.kodedu.other;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Renders the latest edit, edits offered while rendering are coalesced into the next render.
+ * Renders run one at a time on the executor it is started with, no thread is held between edits.
+ */
+public class RenderLoop<T> {
+
+    private final Logger logger = LoggerFactory.getLogger(RenderLoop.class);
+
+    private final AtomicReference<Edit<T>> latest = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Renderer<T> renderer;
+
+    private volatile Executor executor;
+
+    public RenderLoop(Renderer<T> renderer) {
+        this.renderer = renderer;
+    }
+
+    @FunctionalInterface
+    public interface Renderer<T> {
+        /**
+         * @param editedAt {@link System#nanoTime()} of the edit
+         */
+        void render(T value, long editedAt) throws Exception;
+    }
+
+    /**
+     * Edits offered before are rendered once started
+     */
+    public void start(Executor executor) {
+        this.executor = executor;
+        schedule();
+    }
+
+    /**
+     * Edits offered after stop aren't rendered
+     */
+    public void stop() {
+        this.executor = null;
+    }
+
+    public void offer(T value) {
+        if (Objects.nonNull(latest.getAndSet(new Edit<>(value, System.nanoTime())))) {
+            dropped.incrementAndGet();
+        }
+        schedule();
+    }
+
+    private void schedule() {
+
+        Executor executor = this.executor;
+
+        if (Objects.isNull(executor) || Objects.isNull(latest.get())) {
+            return;
+        }
+
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(new FutureTask<Void>(this::drain, null) {
+                @Override
+                protected void done() {
+                    // dropped by a full lane, the latest edit is submitted again
+                    if (isCancelled()) {
+                        scheduled.set(false);
+                        schedule();
+                    }
+                }
+            });
+        }
+    }
+
+    private void drain() {
+        try {
+            Edit<T> edit;
+            while (Objects.nonNull(edit = latest.getAndSet(null))) {
+                try {
+                    renderer.render(edit.value, edit.editedAt);
+                } catch (Exception e) {
+                    logger.error("Problem occured while rendering content", e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+        }
+
+        // an edit offered after the last one was taken, but before the flag was cleared
+        schedule();
+    }
+
+    /**
+     * Count of edits superseded by a newer edit before they were rendered
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private static class Edit<T> {
+        private final T value;
+        private final long editedAt;
+
+        private Edit(T value, long editedAt) {
+            this.value = value;
+            this.editedAt = editedAt;
+        }
+    }
+}
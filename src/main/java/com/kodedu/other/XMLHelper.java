@@ -5,11 +5,18 @@ import org.slf4j.LoggerFactory;
 import org.w3c.dom.Node;
 
 import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Created by usta on 19.03.2015.
@@ -19,16 +26,44 @@ public class XMLHelper {
     private static final Logger logger = LoggerFactory.getLogger(IOHelper.class);
 
     public static String nodeToString(Node node, boolean omitDeclaration) {
-        try (StringWriter writer = new StringWriter();) {
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, omitDeclaration ? "yes" : "no");
-            transformer.setOutputProperty(OutputKeys.INDENT, "no");
+        return sourceToString(new DOMSource(node), omitDeclaration);
+    }
 
-            transformer.transform(new DOMSource(node), new StreamResult(writer));
-            return writer.toString();
+    public static String sourceToString(Source source, boolean omitDeclaration) {
+        try {
+            return transformToString(source, omitDeclaration);
         } catch (Exception ex) {
-            logger.error("Problem occured while converting Node to String", ex);
+            logger.error("Problem occured while converting Source to String", ex);
         }
         return "";
     }
+
+    /**
+     * Like {@link #sourceToString(Source, boolean)}, but a failed read, like a filter stopping it, is thrown
+     */
+    public static String transformToString(Source source, boolean omitDeclaration) throws TransformerException {
+        StringWriter writer = new StringWriter();
+        newTransformer(omitDeclaration).transform(source, new StreamResult(writer));
+        return writer.toString();
+    }
+
+    /**
+     * Streams the source into the file, without holding the document in memory
+     */
+    public static boolean sourceToFile(Source source, Path path) {
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(path))) {
+            newTransformer(false).transform(source, new StreamResult(outputStream));
+            return true;
+        } catch (Exception ex) {
+            logger.error("Problem occured while writing Source to {}", path, ex);
+        }
+        return false;
+    }
+
+    private static Transformer newTransformer(boolean omitDeclaration) throws TransformerConfigurationException {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, omitDeclaration ? "yes" : "no");
+        transformer.setOutputProperty(OutputKeys.INDENT, "no");
+        return transformer;
+    }
 }
@@ -0,0 +1,73 @@
+package com.kodedu.outline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lines of a large document for its outline scan, kept in sync with the changed rows of the editor.
+ * Lines which can't start a heading, block id or delimiter are kept as null, so only their count costs memory.
+ */
+public class HeadingLines {
+
+    // first characters of asciidoc and markdown headings, block ids and delimiters
+    private static final String MARKERS = "=#-./+_*`[";
+
+    private final List<String> lines = new ArrayList<>();
+
+    public synchronized void reset(String text) {
+
+        lines.clear();
+
+        int start = 0;
+        while (true) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                lines.add(keep(text.substring(start)));
+                break;
+            }
+            lines.add(end > start && MARKERS.indexOf(text.charAt(start)) >= 0 ? keep(text.substring(start, end)) : null);
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Replaces the rows changed since the last update
+     *
+     * @param start     first changed row
+     * @param lineDelta change of the line count since the last update
+     * @param changed   rows from start, as they are now
+     * @return false if the change doesn't fit the kept lines
+     */
+    public synchronized boolean replace(int start, int lineDelta, List<String> changed) {
+
+        int end = start + changed.size() - lineDelta;
+
+        if (start < 0 || end < start || end > lines.size()) {
+            return false;
+        }
+
+        List<String> kept = new ArrayList<>(changed.size());
+        for (String line : changed) {
+            kept.add(keep(line));
+        }
+
+        List<String> range = lines.subList(start, end);
+        range.clear();
+        range.addAll(kept);
+
+        return true;
+    }
+
+    public synchronized List<String> snapshot() {
+        return new ArrayList<>(lines);
+    }
+
+    private String keep(String line) {
+
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+
+        return line.isEmpty() || MARKERS.indexOf(line.charAt(0)) < 0 ? null : line;
+    }
+}
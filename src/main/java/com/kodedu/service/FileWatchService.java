@@ -3,6 +3,10 @@ package com.kodedu.service;
 import com.kodedu.component.MyTab;
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.other.IOHelper;
+import com.kodedu.service.cache.ImageInfoService;
+import com.kodedu.service.convert.export.ArtifactCache;
+import com.kodedu.service.metrics.Counter;
+import com.kodedu.service.metrics.MetricRegistry;
 import com.kodedu.service.ui.FileBrowseService;
 import com.kodedu.service.ui.TabService;
 import javafx.collections.ObservableList;
@@ -15,6 +19,8 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.nio.file.*;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -42,12 +48,21 @@ public class FileWatchService {
 
     private Map<WatchKey, Path> watchKeys = new ConcurrentHashMap<>();
     private final PathMapper pathMapper;
+    private final ImageInfoService imageInfoService;
+    private final ArtifactCache artifactCache;
+    private final Map<WatchEvent.Kind<?>, Counter> eventCounters = new HashMap<>();
 
     @Autowired
-    public FileWatchService(ApplicationController controller, ThreadService threadService, PathMapper pathMapper) {
+    public FileWatchService(ApplicationController controller, ThreadService threadService, PathMapper pathMapper, ImageInfoService imageInfoService, ArtifactCache artifactCache, MetricRegistry metricRegistry) {
         this.controller = controller;
         this.threadService = threadService;
         this.pathMapper = pathMapper;
+        this.imageInfoService = imageInfoService;
+        this.artifactCache = artifactCache;
+        for (WatchEvent.Kind<?> kind : Arrays.asList(ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY, OVERFLOW)) {
+            eventCounters.put(kind, metricRegistry.counter("afx_file_watch_events_total", "File system events received", "kind", kind.name().toLowerCase()));
+        }
+        metricRegistry.gauge("afx_file_watch_paths", "Directories watched for changes", watchKeys::size);
     }
 
     @PostConstruct
@@ -117,6 +132,20 @@ public class FileWatchService {
             boolean updateFsView = false;
             for (WatchEvent<?> event : watchEvents) {
                 WatchEvent.Kind<?> kind = event.kind();
+
+                Counter eventCounter = eventCounters.get(kind);
+                if (Objects.nonNull(eventCounter)) {
+                    eventCounter.add(event.count());
+                }
+
+                if (kind != OVERFLOW) {
+                    Path changedPath = path.resolve((Path) event.context());
+                    imageInfoService.invalidate(changedPath);
+                    artifactCache.invalidate(changedPath);
+                } else {
+                    artifactCache.invalidate(path);
+                }
+
                 if (kind == ENTRY_MODIFY && event.count() == 1) {
                     WatchEvent<Path> ev = (WatchEvent<Path>) event;
                     Path modifiedPath = path.resolve(ev.context());
@@ -0,0 +1,48 @@
+package com.kodedu.service;
+
+/**
+ * Named work lanes of {@link ThreadService}, each lane has its own bounded queue and parallelism
+ */
+public enum Lane {
+
+    // general purpose background work
+    DEFAULT("default", 16, 10000, false),
+    // keystroke triggered rendering, only the latest work matters
+    RENDER("render", 2, 16, true),
+    // updates pushed to the JavaFX thread, coalesced per pulse
+    UI("ui", 1, Integer.MAX_VALUE, false),
+    // file system indexing, spell checking
+    INDEXING("indexing", 2, 1000, false),
+    // pdf, epub, mobi, html and docbook exports
+    EXPORT("export", 2, 100, false),
+    // plantuml, mathjax, tree and chart rendering
+    DIAGRAM("diagram", 4, 1000, false);
+
+    private final String laneName;
+    private final int defaultParallelism;
+    private final int defaultQueueSize;
+    private final boolean dropOldest;
+
+    Lane(String laneName, int defaultParallelism, int defaultQueueSize, boolean dropOldest) {
+        this.laneName = laneName;
+        this.defaultParallelism = defaultParallelism;
+        this.defaultQueueSize = defaultQueueSize;
+        this.dropOldest = dropOldest;
+    }
+
+    public String getLaneName() {
+        return laneName;
+    }
+
+    public int getDefaultParallelism() {
+        return defaultParallelism;
+    }
+
+    public int getDefaultQueueSize() {
+        return defaultQueueSize;
+    }
+
+    public boolean isDropOldest() {
+        return dropOldest;
+    }
+}
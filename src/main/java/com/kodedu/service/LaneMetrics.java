@@ -0,0 +1,143 @@
+package com.kodedu.service;
+
+import com.kodedu.service.metrics.Counter;
+import com.kodedu.service.metrics.Histogram;
+import com.kodedu.service.metrics.MetricRegistry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Queue depth, wait time and run time of a {@link Lane}
+ */
+public class LaneMetrics {
+
+    private final Lane lane;
+    private final IntSupplier queueDepth;
+
+    private final Counter submitted;
+    private final Counter completed;
+    private final Counter rejected;
+    private final Histogram waitTimer;
+    private final Histogram runTimer;
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    public LaneMetrics(Lane lane, IntSupplier queueDepth, MetricRegistry metricRegistry) {
+        this.lane = lane;
+        this.queueDepth = queueDepth;
+
+        String laneName = lane.getLaneName();
+        this.submitted = metricRegistry.counter("afx_lane_submitted_total", "Tasks submitted to the lane", "lane", laneName);
+        this.completed = metricRegistry.counter("afx_lane_completed_total", "Tasks completed by the lane", "lane", laneName);
+        this.rejected = metricRegistry.counter("afx_lane_rejected_total", "Tasks rejected because the lane queue was full", "lane", laneName);
+        this.waitTimer = metricRegistry.timer("afx_lane_wait_seconds", "Time tasks waited in the lane queue", "lane", laneName);
+        this.runTimer = metricRegistry.timer("afx_lane_run_seconds", "Time tasks ran in the lane", "lane", laneName);
+        metricRegistry.gauge("afx_lane_queue_depth", "Tasks waiting in the lane queue", this::getQueueDepth, "lane", laneName);
+    }
+
+    /**
+     * Wraps the runnable, so its wait and run time is recorded
+     */
+    public Timed wrap(Runnable runnable) {
+        submitted.increment();
+        return new Timed(runnable, System.nanoTime());
+    }
+
+    /**
+     * Queued in place of the submitted runnable, which is kept so a dropped task can be cancelled
+     */
+    public class Timed implements Runnable {
+        private final Runnable runnable;
+        private final long submittedAt;
+
+        private Timed(Runnable runnable, long submittedAt) {
+            this.runnable = runnable;
+            this.submittedAt = submittedAt;
+        }
+
+        public Runnable getRunnable() {
+            return runnable;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            recordWait(startedAt - submittedAt);
+            try {
+                runnable.run();
+            } finally {
+                recordRun(System.nanoTime() - startedAt);
+            }
+        }
+    }
+
+    public void recordWait(long nanos) {
+        waitTimer.record(nanos);
+        totalWaitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void recordRun(long nanos) {
+        completed.increment();
+        runTimer.record(nanos);
+        totalRunNanos.add(nanos);
+        maxRunNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    public Lane getLane() {
+        return lane;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public long getSubmitted() {
+        return submitted.getCount();
+    }
+
+    public long getCompleted() {
+        return completed.getCount();
+    }
+
+    public long getRejected() {
+        return rejected.getCount();
+    }
+
+    public double getAverageWaitMillis() {
+        long count = Math.max(1, getCompleted());
+        return totalWaitNanos.sum() / (double) count / 1_000_000;
+    }
+
+    public double getAverageRunMillis() {
+        long count = Math.max(1, getCompleted());
+        return totalRunNanos.sum() / (double) count / 1_000_000;
+    }
+
+    public double getTotalRunMillis() {
+        return totalRunNanos.sum() / 1_000_000.0;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public double getMaxRunMillis() {
+        return maxRunNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s queue=%d submitted=%d completed=%d rejected=%d wait(avg/max)=%.1f/%.1fms run(avg/max)=%.1f/%.1fms",
+                lane.getLaneName(), getQueueDepth(), getSubmitted(), getCompleted(), getRejected(),
+                getAverageWaitMillis(), getMaxWaitMillis(), getAverageRunMillis(), getMaxRunMillis());
+    }
+}
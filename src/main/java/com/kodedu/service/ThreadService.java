@@ -1,12 +1,19 @@
 package com.kodedu.service;
 
+import com.kodedu.service.metrics.MetricRegistry;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
-import java.util.Objects;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -16,19 +23,94 @@ import java.util.function.Supplier;
 @Component
 public class ThreadService {
 
+    private final Logger logger = LoggerFactory.getLogger(ThreadService.class);
+
+    // max time spent on a single FX pulse while draining ui updates
+    private static final long UI_PULSE_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
     private final ExecutorService threadPollWorker;
     private final ScheduledExecutorService scheduledWorker;
     private final ConcurrentHashMap<String, Buff> buffMap;
-    private final Semaphore uiSemaphore;
-    private final ExecutorService singleExecutor;
+    private final Map<Lane, ExecutorService> laneExecutors;
+    private final Map<Lane, LaneMetrics> laneMetrics;
+    private final ConcurrentLinkedQueue<Runnable> uiQueue;
+    private final AtomicInteger uiQueueSize;
+    private final AtomicBoolean uiPulseScheduled;
+    private final MetricRegistry metricRegistry;
 
-
-    public ThreadService() {
+    @Autowired
+    public ThreadService(Environment environment, MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
         scheduledWorker = Executors.newSingleThreadScheduledExecutor();
-        threadPollWorker = Executors.newWorkStealingPool(16);
-        singleExecutor = Executors.newSingleThreadExecutor();
-        uiSemaphore = new Semaphore(1);
         buffMap = new ConcurrentHashMap<>();
+        laneExecutors = new EnumMap<>(Lane.class);
+        laneMetrics = new EnumMap<>(Lane.class);
+        uiQueue = new ConcurrentLinkedQueue<>();
+        uiQueueSize = new AtomicInteger();
+        uiPulseScheduled = new AtomicBoolean(false);
+
+        int defaultParallelism = laneParallelism(environment, Lane.DEFAULT);
+        threadPollWorker = Executors.newWorkStealingPool(defaultParallelism);
+        laneExecutors.put(Lane.DEFAULT, threadPollWorker);
+        laneMetrics.put(Lane.DEFAULT, new LaneMetrics(Lane.DEFAULT, () -> (int) ((ForkJoinPool) threadPollWorker).getQueuedSubmissionCount(), metricRegistry));
+        laneMetrics.put(Lane.UI, new LaneMetrics(Lane.UI, uiQueueSize::get, metricRegistry));
+
+        for (Lane lane : Lane.values()) {
+            if (lane == Lane.DEFAULT || lane == Lane.UI) {
+                continue;
+            }
+            createLane(environment, lane);
+        }
+    }
+
+    private void createLane(Environment environment, Lane lane) {
+
+        int parallelism = laneParallelism(environment, lane);
+        int queueSize = environment.getProperty(String.format("application.thread.%s.queue-size", lane.getLaneName()),
+                Integer.class, lane.getDefaultQueueSize());
+
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, String.format("afx-%s-%d", lane.getLaneName(), threadCount.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        LaneMetrics metrics = new LaneMetrics(lane, queue::size, metricRegistry);
+
+        RejectedExecutionHandler rejectionHandler = (runnable, executor) -> {
+            metrics.recordRejected();
+            if (lane.isDropOldest()) {
+                // latest work wins, the oldest waiting one is dropped and cancelled, so its waiters don't block
+                cancel(executor.getQueue().poll());
+                executor.execute(runnable);
+            } else {
+                // lane is full, overflow to the general pool instead of blocking the caller
+                threadPollWorker.execute(runnable);
+            }
+        };
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                queue, threadFactory, rejectionHandler);
+        executor.allowCoreThreadTimeOut(true);
+
+        laneExecutors.put(lane, executor);
+        laneMetrics.put(lane, metrics);
+    }
+
+    private void cancel(Runnable dropped) {
+        Runnable runnable = dropped instanceof LaneMetrics.Timed ? ((LaneMetrics.Timed) dropped).getRunnable() : dropped;
+        if (runnable instanceof Future) {
+            ((Future<?>) runnable).cancel(false);
+        }
+    }
+
+    private int laneParallelism(Environment environment, Lane lane) {
+        int parallelism = environment.getProperty(String.format("application.thread.%s.parallelism", lane.getLaneName()),
+                Integer.class, lane.getDefaultParallelism());
+        return Math.max(1, parallelism);
     }
 
     public ScheduledFuture<?> schedule(Runnable runnable, long delay, TimeUnit timeUnit) {
@@ -41,6 +123,16 @@ public class ThreadService {
 
     // Runs Task in background thread pool
     public <T> Future<?> runTaskLater(Runnable runnable) {
+        return runTaskLater(Lane.DEFAULT, runnable);
+    }
+
+    // Runs Task in the thread pool of given lane
+    public <T> Future<?> runTaskLater(Lane lane, Runnable runnable) {
+
+        if (lane == Lane.UI) {
+            runActionLater(runnable);
+            return CompletableFuture.completedFuture(null);
+        }
 
         Task<T> task = new Task<T>() {
             @Override
@@ -56,7 +148,9 @@ public class ThreadService {
             }
         });
 
-        return threadPollWorker.submit(task);
+        laneExecutors.get(lane).execute(laneMetrics.get(lane).wrap(task));
+
+        return task;
     }
 
     // Runs task in JavaFX Thread
@@ -67,33 +161,43 @@ public class ThreadService {
     }
 
 
-    // Runs task in JavaFX Thread
+    // Runs task in JavaFX Thread, updates are batched into a single pulse
     public void runActionLater(final Runnable runnable) {
         if (Platform.isFxApplicationThread()) {
             runnable.run();
         } else {
+            uiQueue.offer(laneMetrics.get(Lane.UI).wrap(runnable));
+            uiQueueSize.incrementAndGet();
+            if (uiPulseScheduled.compareAndSet(false, true)) {
+                Platform.runLater(this::drainUiQueue);
+            }
+        }
+    }
+
+    private void drainUiQueue() {
+
+        uiPulseScheduled.set(false);
+
+        long startedAt = System.nanoTime();
+
+        Runnable runnable;
+        while (Objects.nonNull(runnable = uiQueue.poll())) {
+            uiQueueSize.decrementAndGet();
             try {
-                uiSemaphore.acquire();
-                Platform.runLater(() -> {
-                    try {
-                        runnable.run();
-                        releaseUiSemaphore();
-                    } catch (Exception e) {
-                        releaseUiSemaphore();
-                        throw new RuntimeException(e);
-                    }
-                });
+                runnable.run();
             } catch (Exception e) {
-                releaseUiSemaphore();
-                throw new RuntimeException(e);
+                logger.error("Problem occured while running ui action", e);
+            }
+
+            if (System.nanoTime() - startedAt > UI_PULSE_BUDGET_NANOS) {
+                break;
             }
         }
-    }
 
-    private void releaseUiSemaphore() {
-        singleExecutor.submit(() -> {
-            uiSemaphore.release();
-        });
+        // leave the rest for the next pulse, so the scene can be rendered in between
+        if (!uiQueue.isEmpty() && uiPulseScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drainUiQueue);
+        }
     }
 
     public void runActionLater(Runnable runnable, boolean force) {
@@ -113,6 +217,23 @@ public class ThreadService {
         return threadPollWorker;
     }
 
+    public Executor executor(Lane lane) {
+        if (lane == Lane.UI) {
+            return this::runActionLater;
+        }
+        LaneMetrics metrics = laneMetrics.get(lane);
+        ExecutorService executorService = laneExecutors.get(lane);
+        return runnable -> executorService.execute(metrics.wrap(runnable));
+    }
+
+    public Collection<LaneMetrics> getLaneMetrics() {
+        return Collections.unmodifiableCollection(laneMetrics.values());
+    }
+
+    public LaneMetrics getLaneMetrics(Lane lane) {
+        return laneMetrics.get(lane);
+    }
+
     public static void sleep(int ms) {
         try {
             Thread.sleep(ms);
@@ -0,0 +1,126 @@
+package com.kodedu.service;
+
+import com.kodedu.config.DocbookConfigBean;
+import com.kodedu.config.PreviewConfigBean;
+import com.kodedu.engine.AsciidocConverterProvider;
+import com.kodedu.other.ConverterResult;
+import com.kodedu.service.convert.docbook.DocBookConverter;
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the converter and diagram paths once in background after first paint,
+ * so the first real render doesn't pay for class loading and interpretation.
+ * <p>
+ * With -Dafx.training=true the app exits after warm-up, which is how the class list for the CDS archive is recorded.
+ */
+@Component
+public class WarmupService {
+
+    private final Logger logger = LoggerFactory.getLogger(WarmupService.class);
+
+    private static final String SAMPLE_ASCIIDOC = "= Warm up\n:toc:\n\n== Section\n\nSome *bold* and _italic_ text.\n\n" +
+            "* item\n* item\n\n[source,java]\n----\nSystem.out.println(\"warm up\"); // <1>\n----\n<1> callout\n\n" +
+            "|===\n| a | b\n| c | d\n|===\n\nNOTE: admonition\n";
+
+    private static final String SAMPLE_UML = "@startuml\nAlice -> Bob: warm up\n@enduml";
+
+    private final ThreadService threadService;
+    private final AsciidocConverterProvider converterProvider;
+    private final PreviewConfigBean previewConfigBean;
+    private final DocbookConfigBean docbookConfigBean;
+    private final DocBookConverter docBookConverter;
+
+    @Value("${application.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.warmup.delay:5000}")
+    private long delay;
+
+    private boolean started = false;
+
+    @Autowired
+    public WarmupService(ThreadService threadService, AsciidocConverterProvider converterProvider,
+                         PreviewConfigBean previewConfigBean, DocbookConfigBean docbookConfigBean, DocBookConverter docBookConverter) {
+        this.threadService = threadService;
+        this.converterProvider = converterProvider;
+        this.previewConfigBean = previewConfigBean;
+        this.docbookConfigBean = docbookConfigBean;
+        this.docBookConverter = docBookConverter;
+    }
+
+    public synchronized void warmUpLater() {
+
+        boolean training = isTraining();
+
+        if (started || (!enabled && !training)) {
+            return;
+        }
+
+        started = true;
+
+        threadService.schedule(() -> {
+            threadService.runTaskLater(() -> {
+                warmUp();
+                if (training) {
+                    logger.info("Training run is completed");
+                    System.exit(0);
+                }
+            });
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // the sample's outline isn't reported, it would replace the outline of the open document
+    private void warmUp() {
+
+        long startedAt = System.nanoTime();
+
+        step("Preview converter", () -> {
+            converterProvider.get(previewConfigBean).convertAsciidoc(SAMPLE_ASCIIDOC, false);
+        });
+
+        step("Docbook converter", () -> {
+            ConverterResult result = converterProvider.get(docbookConfigBean).convertDocbook(SAMPLE_ASCIIDOC, false);
+            if (Objects.nonNull(result.getRendered())) {
+                docBookConverter.postProcess(result.getRendered());
+            }
+        });
+
+        step("PlantUML", () -> {
+            try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+                new SourceStringReader(SAMPLE_UML).outputImage(os, new FileFormatOption(FileFormat.PNG));
+            }
+        });
+
+        logger.info("Warm-up is completed in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    private void step(String name, WarmupStep step) {
+        long startedAt = System.nanoTime();
+        try {
+            step.run();
+            logger.debug("{} is warmed up in {} ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } catch (Exception e) {
+            logger.warn("{} warm-up failed", name, e);
+        }
+    }
+
+    public static boolean isTraining() {
+        return Boolean.getBoolean("afx.training");
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep {
+        void run() throws Exception;
+    }
+}
@@ -2,16 +2,21 @@ package com.kodedu.service.cache;
 
 import com.kodedu.other.Current;
 import com.kodedu.other.IOHelper;
+import com.kodedu.other.PngEncoder;
 import com.kodedu.service.ThreadService;
+import com.kodedu.service.flight.FlightEvent;
+import com.kodedu.service.flight.FlightEventType;
+import com.kodedu.service.flight.FlightRecorderService;
+import com.kodedu.service.metrics.Counter;
+import com.kodedu.service.metrics.MetricRegistry;
 import javafx.application.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -31,13 +36,26 @@ public class BinaryCacheService {
     private final ConcurrentHashMap<String, CacheData> cache = new ConcurrentHashMap<>();
     private final ThreadService threadService;
     private final Current current;
+    private final Counter hits;
+    private final Counter misses;
+    private final FlightRecorderService flightRecorderService;
 
     private Logger logger = LoggerFactory.getLogger(BinaryCacheService.class);
 
+    // cached images live shortly, faster encoding matters more than their size
+    @Value("${application.cache.png-compression:1}")
+    private int pngCompression = 1;
+
     @Autowired
-    public BinaryCacheService(ThreadService threadService, Current current) {
+    public BinaryCacheService(ThreadService threadService, Current current, MetricRegistry metricRegistry,
+                              FlightRecorderService flightRecorderService) {
         this.threadService = threadService;
         this.current = current;
+        this.flightRecorderService = flightRecorderService;
+        this.hits = metricRegistry.counter("afx_binary_cache_requests_total", "Binary cache lookups", "result", "hit");
+        this.misses = metricRegistry.counter("afx_binary_cache_requests_total", "Binary cache lookups", "result", "miss");
+        metricRegistry.gauge("afx_binary_cache_memory_bytes", "Bytes kept in memory by the binary cache", totalSize::get);
+        metricRegistry.gauge("afx_binary_cache_entries", "Entries in the binary cache", cache::size);
     }
 
     public String putBinary(String key, byte[] bytes) {
@@ -49,14 +67,22 @@ public class BinaryCacheService {
             return key;
         }
 
+        FlightEvent flightEvent = flightRecorderService.begin(FlightEventType.CACHE, "put")
+                .path(key)
+                .size(bytes.length);
+
         synchronized (this) {
 
             if (hasCacheFor(bytes)) {
                 saveInMemory(key, bytes);
+                flightEvent.cacheOutcome("memory");
             } else {
                 saveInDisk(key, bytes);
+                flightEvent.cacheOutcome("disk");
             }
 
+            flightEvent.end();
+
             return key;
         }
     }
@@ -138,13 +164,26 @@ public class BinaryCacheService {
     }
 
     public CacheData getCacheData(String key) {
-        return cache.get(key);
+
+        FlightEvent flightEvent = flightRecorderService.begin(FlightEventType.CACHE, "get").path(key);
+
+        CacheData cacheData = cache.get(key);
+        if (cacheData == null) {
+            misses.increment();
+            flightEvent.cacheHit(false);
+        } else {
+            hits.increment();
+            flightEvent.cacheHit(true).size(cacheData.length());
+        }
+
+        flightEvent.end();
+
+        return cacheData;
     }
 
     public void putBinary(String key, BufferedImage trimmed) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();) {
-            ImageIO.write(trimmed, "png", outputStream);
-            byte[] bytes = outputStream.toByteArray();
+        try {
+            byte[] bytes = new PngEncoder(pngCompression).encode(trimmed);
             putBinary(key, bytes);
         } catch (IOException e) {
             e.printStackTrace();
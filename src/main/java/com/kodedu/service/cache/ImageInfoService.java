@@ -0,0 +1,232 @@
+package com.kodedu.service.cache;
+
+import com.kodedu.service.ThreadService;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps width and height of images keyed by (path, mtime, size),
+ * so the image size extension doesn't open image files on every render.
+ */
+@Component
+public class ImageInfoService {
+
+    private final Logger logger = LoggerFactory.getLogger(ImageInfoService.class);
+
+    private static final long REVALIDATE_INTERVAL = 2000;
+    private static final int MAX_CACHE_SIZE = 10000;
+
+    private final Pattern imagePattern = Pattern.compile("image::?(?<target>[^\\[\\s]+)\\[");
+    private final Pattern imagesDirPattern = Pattern.compile("^:imagesdir:\\s*(?<dir>.*)$", Pattern.MULTILINE);
+
+    private final ConcurrentHashMap<Path, ImageInfo> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Path, CompletableFuture<ImageInfo>> pendingLoads = new ConcurrentHashMap<>();
+    private final ThreadService threadService;
+
+    @Autowired
+    public ImageInfoService(ThreadService threadService) {
+        this.threadService = threadService;
+    }
+
+    /**
+     * Returns image info without touching the file system when called from the FX thread.
+     * Missing or stale entries are (re)loaded in background, onChanged is run once a load gives other info
+     * than the one returned, so the caller can render again.
+     */
+    public Optional<ImageInfo> getImageInfo(Path imagePath, Runnable onChanged) {
+
+        if (!Platform.isFxApplicationThread()) {
+            return Optional.ofNullable(loadIfChanged(imagePath));
+        }
+
+        ImageInfo imageInfo = cache.get(imagePath);
+
+        if (Objects.isNull(imageInfo) || imageInfo.needsValidation()) {
+            loadLater(imagePath).thenAccept(loaded -> {
+                if (Objects.nonNull(loaded) && loaded != imageInfo) {
+                    onChanged.run();
+                }
+            });
+        }
+
+        return Optional.ofNullable(imageInfo);
+    }
+
+    /**
+     * Loads infos of all images referenced by the document in parallel
+     */
+    public void prefetch(Path documentPath, String content) {
+
+        if (Objects.isNull(documentPath) || Objects.isNull(content)) {
+            return;
+        }
+
+        Path parent = documentPath.getParent();
+
+        if (Objects.isNull(parent)) {
+            return;
+        }
+
+        Path imagesDir = parent;
+        Matcher imagesDirMatcher = imagesDirPattern.matcher(content);
+        if (imagesDirMatcher.find()) {
+            try {
+                imagesDir = parent.resolve(imagesDirMatcher.group("dir").trim());
+            } catch (Exception e) {
+                logger.debug("Could not resolve imagesdir", e);
+            }
+        }
+
+        Matcher matcher = imagePattern.matcher(content);
+        while (matcher.find()) {
+            String target = matcher.group("target");
+
+            if (target.contains("://") || target.contains("{")) {
+                continue;
+            }
+
+            try {
+                loadLater(imagesDir.resolve(target).normalize());
+            } catch (Exception e) {
+                logger.debug("Could not resolve image {}", target, e);
+            }
+        }
+    }
+
+    public void invalidate(Path path) {
+        if (Objects.nonNull(path)) {
+            cache.remove(path);
+        }
+    }
+
+    // a load already pending for the path is shared
+    private CompletableFuture<ImageInfo> loadLater(Path imagePath) {
+
+        CompletableFuture<ImageInfo> future = new CompletableFuture<>();
+        CompletableFuture<ImageInfo> pending = pendingLoads.putIfAbsent(imagePath, future);
+
+        if (Objects.nonNull(pending)) {
+            return pending;
+        }
+
+        threadService.runTaskLater(() -> {
+            try {
+                future.complete(loadIfChanged(imagePath));
+            } finally {
+                pendingLoads.remove(imagePath, future);
+                future.complete(null);
+            }
+        });
+
+        return future;
+    }
+
+    private ImageInfo loadIfChanged(Path imagePath) {
+
+        if (Files.notExists(imagePath)) {
+            cache.remove(imagePath);
+            return null;
+        }
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(imagePath, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            long size = attributes.size();
+
+            ImageInfo imageInfo = cache.get(imagePath);
+
+            if (Objects.nonNull(imageInfo) && imageInfo.isSame(lastModified, size)) {
+                imageInfo.validated();
+                return imageInfo;
+            }
+
+            imageInfo = readImageInfo(imagePath, lastModified, size);
+
+            if (Objects.nonNull(imageInfo)) {
+                if (cache.size() >= MAX_CACHE_SIZE) {
+                    cache.clear();
+                }
+                cache.put(imagePath, imageInfo);
+            }
+
+            return imageInfo;
+        } catch (Exception e) {
+            logger.error("Problem occured while getting image size info", e);
+        }
+
+        return null;
+    }
+
+    private ImageInfo readImageInfo(Path imagePath, long lastModified, long size) throws Exception {
+
+        try (ImageInputStream in = ImageIO.createImageInputStream(imagePath.toFile())) {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in);
+                    int width = reader.getWidth(0);
+                    int height = reader.getHeight(0);
+                    return new ImageInfo(width, height, lastModified, size);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+
+        return null;
+    }
+
+    public static class ImageInfo {
+        private final int width;
+        private final int height;
+        private final long lastModified;
+        private final long size;
+        private volatile long validatedAt;
+
+        public ImageInfo(int width, int height, long lastModified, long size) {
+            this.width = width;
+            this.height = height;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.validatedAt = System.currentTimeMillis();
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        private boolean isSame(long lastModified, long size) {
+            return this.lastModified == lastModified && this.size == size;
+        }
+
+        private boolean needsValidation() {
+            return System.currentTimeMillis() - validatedAt > REVALIDATE_INTERVAL;
+        }
+
+        private void validated() {
+            this.validatedAt = System.currentTimeMillis();
+        }
+    }
+}
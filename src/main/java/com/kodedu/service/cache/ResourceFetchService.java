@@ -0,0 +1,398 @@
+package com.kodedu.service.cache;
+
+import com.kodedu.other.IOHelper;
+import com.kodedu.service.ThreadService;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Fetches local and remote resources for data-uri embedding and remote includes.
+ * <p>
+ * Results are kept in memory keyed by uri and validated by mtime (local) or ETag/Last-Modified (remote).
+ * Remote resources are also kept on disk, so repeated exports only send conditional requests.
+ * Both tiers are bounded in bytes and evict the least recently used entries first.
+ */
+@Component
+public class ResourceFetchService {
+
+    private final Logger logger = LoggerFactory.getLogger(ResourceFetchService.class);
+
+    private final ThreadService threadService;
+    private final Base64.Encoder base64Encoder;
+
+    private final Map<String, Resource> memoryCache = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, CompletableFuture<Resource>> inFlight = new ConcurrentHashMap<>();
+    private long memorySize = 0;
+    private final Object diskLock = new Object();
+
+    @Value("${application.resource.cache.memory-limit:52428800}")
+    private long memoryLimit;
+
+    @Value("${application.resource.cache.entry-limit:10485760}")
+    private long entryLimit;
+
+    @Value("${application.resource.cache.disk-limit:104857600}")
+    private long diskLimit;
+
+    @Value("${application.resource.fetch.connect-timeout:5000}")
+    private int connectTimeout;
+
+    @Value("${application.resource.fetch.read-timeout:15000}")
+    private int readTimeout;
+
+    @Value("${application.resource.fetch.fresh-for:60000}")
+    private long freshFor;
+
+    @Value("${application.config.folder}")
+    private String configDirName;
+
+    private Path diskCachePath;
+
+    @Autowired
+    public ResourceFetchService(ThreadService threadService, Base64.Encoder base64Encoder) {
+        this.threadService = threadService;
+        this.base64Encoder = base64Encoder;
+    }
+
+    /**
+     * Base64 content of the resource, encoding runs in the fetch thread
+     */
+    public CompletableFuture<String> fetchBase64(String uri, Path localPath) {
+        return fetch(uri, localPath).thenApply(Resource::getBase64);
+    }
+
+    /**
+     * UTF-8 text content of the resource
+     */
+    public CompletableFuture<String> fetchText(String uri) {
+        return fetch(uri, null).thenApply(Resource::getText);
+    }
+
+    /**
+     * Fetches the resource, concurrent requests of the same uri share one fetch
+     *
+     * @param uri       resource uri, http(s) uris are fetched remotely
+     * @param localPath resolved local file for non http uris
+     */
+    public CompletableFuture<Resource> fetch(String uri, Path localPath) {
+
+        String key = isExternalUri(uri) ? uri : String.valueOf(localPath);
+
+        CompletableFuture<Resource> future = new CompletableFuture<>();
+        CompletableFuture<Resource> existing = inFlight.putIfAbsent(key, future);
+
+        if (Objects.nonNull(existing)) {
+            return existing;
+        }
+
+        threadService.executor().execute(() -> {
+            try {
+                Resource resource = isExternalUri(uri) ? fetchRemote(uri) : fetchLocal(uri, localPath);
+                resource.getBase64();
+                putToMemory(key, resource);
+                future.complete(resource);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, future);
+            }
+        });
+
+        return future;
+    }
+
+    private Resource fetchLocal(String uri, Path path) throws IOException {
+
+        Objects.requireNonNull(path, "No such file or directory: " + uri);
+
+        String key = path.toString();
+        String validator = String.valueOf(Files.getLastModifiedTime(path).toMillis()) + ":" + Files.size(path);
+
+        Resource cached = getFromMemory(key);
+
+        if (Objects.nonNull(cached) && validator.equals(cached.getValidator())) {
+            return cached;
+        }
+
+        checkEntryLimit(uri, Files.size(path));
+
+        return new Resource(validator, null, IOHelper.readAllBytes(path));
+    }
+
+    private Resource fetchRemote(String uri) throws IOException {
+
+        Resource cached = getFromMemory(uri);
+
+        if (Objects.nonNull(cached) && cached.isFresh()) {
+            return cached;
+        }
+
+        if (Objects.isNull(cached)) {
+            cached = readFromDisk(uri);
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(uri).openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+
+        if (Objects.nonNull(cached)) {
+            if (Objects.nonNull(cached.getValidator())) {
+                connection.setRequestProperty("If-None-Match", cached.getValidator());
+            }
+            if (Objects.nonNull(cached.getLastModified())) {
+                connection.setRequestProperty("If-Modified-Since", cached.getLastModified());
+            }
+        }
+
+        try {
+            int responseCode = connection.getResponseCode();
+
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && Objects.nonNull(cached)) {
+                cached.validated();
+                return cached;
+            }
+
+            if (responseCode >= 400) {
+                throw new IOException(String.format("Remote resource returned %d: %s", responseCode, uri));
+            }
+
+            checkEntryLimit(uri, connection.getContentLengthLong());
+
+            byte[] bytes;
+            try (InputStream inputStream = connection.getInputStream()) {
+                bytes = IOUtils.toByteArray(inputStream);
+            }
+
+            checkEntryLimit(uri, bytes.length);
+
+            Resource resource = new Resource(connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"), bytes);
+            writeToDisk(uri, resource);
+            return resource;
+
+        } catch (IOException e) {
+            if (Objects.nonNull(cached)) {
+                logger.debug("Serving cached copy of {}", uri, e);
+                return cached;
+            }
+            throw e;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void checkEntryLimit(String uri, long length) throws IOException {
+        if (length > entryLimit) {
+            throw new IOException(String.format("Resource exceeds size limit of %d bytes: %s", entryLimit, uri));
+        }
+    }
+
+    private synchronized Resource getFromMemory(String key) {
+        return memoryCache.get(key);
+    }
+
+    private synchronized void putToMemory(String key, Resource resource) {
+
+        Resource previous = memoryCache.put(key, resource);
+
+        if (Objects.nonNull(previous)) {
+            memorySize -= previous.footprint();
+        }
+
+        memorySize += resource.footprint();
+
+        Iterator<Resource> iterator = memoryCache.values().iterator();
+        while (memorySize > memoryLimit && iterator.hasNext()) {
+            Resource eldest = iterator.next();
+            if (eldest == resource) {
+                continue;
+            }
+            memorySize -= eldest.footprint();
+            iterator.remove();
+        }
+    }
+
+    private Path diskCachePath() {
+        if (Objects.isNull(diskCachePath)) {
+            Path path = IOHelper.getPath(System.getProperty("user.home"))
+                    .resolve(configDirName)
+                    .resolve("cache")
+                    .resolve("resource");
+            IOHelper.createDirectories(path);
+            diskCachePath = path;
+        }
+        return diskCachePath;
+    }
+
+    private Resource readFromDisk(String uri) {
+        try {
+            String name = DigestUtils.md5DigestAsHex(uri.getBytes(StandardCharsets.UTF_8));
+            Path data = diskCachePath().resolve(name + ".data");
+            Path meta = diskCachePath().resolve(name + ".meta");
+
+            if (Files.notExists(data) || Files.notExists(meta)) {
+                return null;
+            }
+
+            List<String> lines = Files.readAllLines(meta, StandardCharsets.UTF_8);
+            String etag = lines.size() > 0 && !lines.get(0).isEmpty() ? lines.get(0) : null;
+            String lastModified = lines.size() > 1 && !lines.get(1).isEmpty() ? lines.get(1) : null;
+
+            Resource resource = new Resource(etag, lastModified, Files.readAllBytes(data));
+
+            // mtime of the data file is the last use of the entry
+            Files.setLastModifiedTime(data, FileTime.fromMillis(System.currentTimeMillis()));
+
+            return resource;
+        } catch (Exception e) {
+            logger.debug("Could not read disk cache of {}", uri, e);
+        }
+        return null;
+    }
+
+    private void writeToDisk(String uri, Resource resource) {
+
+        if (Objects.isNull(resource.getValidator()) && Objects.isNull(resource.getLastModified())) {
+            return;
+        }
+
+        try {
+            String name = DigestUtils.md5DigestAsHex(uri.getBytes(StandardCharsets.UTF_8));
+            Path data = diskCachePath().resolve(name + ".data");
+            Path meta = diskCachePath().resolve(name + ".meta");
+
+            String metaContent = Objects.toString(resource.getValidator(), "") + "\n" + Objects.toString(resource.getLastModified(), "");
+
+            synchronized (diskLock) {
+                Files.write(data, resource.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                Files.write(meta, metaContent.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                trimDisk();
+            }
+        } catch (Exception e) {
+            logger.debug("Could not write disk cache of {}", uri, e);
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the disk cache fits into its limit
+     */
+    private void trimDisk() throws IOException {
+
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(diskCachePath())) {
+            entries = files.filter(path -> path.getFileName().toString().endsWith(".data"))
+                    .sorted(Comparator.comparing(this::lastModified).reversed())
+                    .collect(Collectors.toList());
+        }
+
+        long diskSize = 0;
+
+        for (Path data : entries) {
+            Path meta = data.resolveSibling(data.getFileName().toString().replaceFirst("\\.data$", ".meta"));
+            diskSize += size(data) + size(meta);
+
+            if (diskSize > diskLimit) {
+                IOHelper.deleteIfExists(data);
+                IOHelper.deleteIfExists(meta);
+            }
+        }
+    }
+
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public boolean isExternalUri(String uri) {
+        return uri.startsWith("http://") || uri.startsWith("https://");
+    }
+
+    public class Resource {
+        private final String validator;
+        private final String lastModified;
+        private final byte[] bytes;
+        private volatile String base64;
+        private volatile long validatedAt;
+
+        public Resource(String validator, String lastModified, byte[] bytes) {
+            this.validator = validator;
+            this.lastModified = lastModified;
+            this.bytes = bytes;
+            this.validatedAt = System.currentTimeMillis();
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() - validatedAt < freshFor;
+        }
+
+        private void validated() {
+            this.validatedAt = System.currentTimeMillis();
+        }
+
+        public String getValidator() {
+            return validator;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Bytes held in memory, the content and its base64 form (two bytes per char)
+         */
+        public long footprint() {
+            return bytes.length + 2L * (4L * ((bytes.length + 2) / 3));
+        }
+
+        public String getBase64() {
+            if (Objects.isNull(base64)) {
+                base64 = base64Encoder.encodeToString(bytes);
+            }
+            return base64;
+        }
+
+        public String getText() {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.kodedu.service.convert.docbook;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Removes duplicated refs of callouts and picks the last one
+ */
+class CalloutRefsFilter extends XMLFilterImpl {
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+
+        if ("callout".equals(localName)) {
+            int index = atts.getIndex("", "arearefs");
+            if (index >= 0) {
+                String[] cos = atts.getValue(index).split(" ");
+                if (cos.length > 1) {
+                    AttributesImpl attributes = new AttributesImpl(atts);
+                    attributes.setValue(index, cos[cos.length - 1]);
+                    atts = attributes;
+                }
+            }
+        }
+
+        super.startElement(uri, localName, qName, atts);
+    }
+}
@@ -2,88 +2,77 @@ package com.kodedu.service.convert.docbook;
 
 import com.kodedu.config.DocbookConfigBean;
 import com.kodedu.engine.AsciidocConverterProvider;
-import com.kodedu.other.Current;
-import com.kodedu.other.IOHelper;
 import com.kodedu.other.XMLHelper;
-import com.kodedu.service.ThreadService;
-import com.kodedu.service.convert.DocumentConverter;
-import org.joox.Match;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamSource;
 import java.io.StringReader;
 import java.nio.file.Path;
-import java.util.function.Consumer;
-
-import static org.joox.JOOX.$;
 
 /**
  * Created by usta on 19.07.2014.
+ * <p>
+ * Rendered docbook is post processed, and validated when enabled, once by {@link #process(String, Path)},
+ * export stages read the result as a {@link Source}.
  */
 @Component
-public class DocBookConverter implements DocbookTraversable, DocumentConverter<String> {
+public class DocBookConverter implements DocbookTraversable {
 
     private Logger logger = LoggerFactory.getLogger(DocBookConverter.class);
 
-    private final Current current;
     private final AsciidocConverterProvider converterProvider;
-    private final DocbookValidator docbookValidator;
+    private final DocbookFilterChain docbookFilterChain;
     private final DocbookConfigBean docbookConfigBean;
-    private final ThreadService threadService;
 
     @Autowired
-    public DocBookConverter(Current current, AsciidocConverterProvider converterProvider, DocbookValidator docbookValidator, DocbookConfigBean docbookConfigBean, ThreadService threadService) {
-        this.current = current;
+    public DocBookConverter(AsciidocConverterProvider converterProvider, DocbookFilterChain docbookFilterChain, DocbookConfigBean docbookConfigBean) {
         this.converterProvider = converterProvider;
-        this.docbookValidator = docbookValidator;
+        this.docbookFilterChain = docbookFilterChain;
         this.docbookConfigBean = docbookConfigBean;
-        this.threadService = threadService;
     }
 
 
-    @Override
-    public void convert(boolean askPath, Consumer<String>... nextStep) {
-
-        Path currentTabPath = current.currentPath().get();
-        Path currentTabPathDir = currentTabPath.getParent();
-
-        String asciidoc = current.currentEditorValue();
-
-        threadService.runTaskLater(() -> {
-
-            String rendered = converterProvider.get(docbookConfigBean).convertDocbook(asciidoc).getRendered();
-
-            boolean validated = docbookValidator.validateDocbook(rendered);
-
-            if (!validated)
-                return;
-
-            StringReader bookReader = new StringReader(rendered);
-            Match rootDocument = IOHelper.$(new InputSource(bookReader));
-            bookReader.close();
-
-//            // makes figure centering
-            rootDocument.find("figure").find("imagedata").attr("align", "center");
-
-            // remove callout's duplicated refs and pick last
-            rootDocument.find("callout").forEach(elem -> {
-                String arearefs = $(elem).attr("arearefs");
-                String[] cos = arearefs.split(" ");
-                if (cos.length > 1)
-                    $(elem).attr("arearefs", cos[cos.length - 1]);
-            });
+    public String render(String asciidoc) {
+        return converterProvider.get(docbookConfigBean).convertDocbook(asciidoc).getRendered();
+    }
 
-            String result = XMLHelper.nodeToString(rootDocument.document(), false);
-//            result = result.replace("00HEADER00COLON00", ":");
+    /**
+     * Post processes the rendered docbook and validates it, when enabled, in a single streaming pass.
+     * Invalid docbook is shown and stops the pass.
+     *
+     * @return docbook which is read by {@link #source(String, Path)}
+     */
+    public String process(String rendered, Path documentPath) throws SAXException, TransformerException {
+        return XMLHelper.transformToString(docbookFilterChain.source(rendered, systemId(documentPath), true), false);
+    }
 
-            for (Consumer<String> step : nextStep) {
-                step.accept(result);
-            }
-        });
+    /**
+     * Docbook returned by {@link #process(String, Path)}, it isn't filtered again. It can be read once.
+     */
+    public Source source(String processed, Path documentPath) {
+        return new StreamSource(new StringReader(processed), systemId(documentPath));
     }
 
+    // relative image paths are resolved against the document
+    private String systemId(Path documentPath) {
+        return documentPath.toUri().toString();
+    }
 
+    /**
+     * Centers figures and picks the last ref of duplicated callouts in rendered docbook
+     */
+    public String postProcess(String rendered) {
+        try {
+            return XMLHelper.sourceToString(docbookFilterChain.source(rendered, null, false), false);
+        } catch (Exception e) {
+            logger.error("Problem occured while post processing Docbook content", e);
+            return "";
+        }
+    }
 }
@@ -0,0 +1,92 @@
+package com.kodedu.service.convert.docbook;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLFilter;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.validation.ValidatorHandler;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Rewrites rendered docbook while it is read by its consumer.
+ * <p>
+ * Each rewrite is a SAX filter, the chain is handed to the validator, XSLT transformers or serializers as a
+ * {@link SAXSource}, so the document is parsed once and never held as a DOM.
+ */
+@Component
+public class DocbookFilterChain {
+
+    private final DocbookValidator docbookValidator;
+    private final SAXParserFactory parserFactory;
+    private final List<Supplier<XMLFilter>> filters = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public DocbookFilterChain(DocbookValidator docbookValidator) {
+        this.docbookValidator = docbookValidator;
+        this.parserFactory = SAXParserFactory.newInstance();
+        this.parserFactory.setNamespaceAware(true);
+
+        // makes figure centering
+        addFilter(FigureAlignFilter::new);
+
+        // remove callout's duplicated refs and pick last
+        addFilter(CalloutRefsFilter::new);
+    }
+
+    /**
+     * Adds a rewrite, filters see the events in the order they are added. A new filter is created for each read.
+     */
+    public void addFilter(Supplier<XMLFilter> filter) {
+        filters.add(filter);
+    }
+
+    /**
+     * Rendered docbook as a source which is rewritten while it is read. It can be read once.
+     *
+     * @param systemId base of relative references, may be null
+     * @param validate validates the docbook on the way when validation is enabled, invalid docbook stops the read
+     */
+    public Source source(String rendered, String systemId, boolean validate) throws SAXException {
+
+        XMLReader reader = newReader();
+
+        if (validate) {
+            Optional<ValidatorHandler> validatorHandler = docbookValidator.newValidatorHandler(rendered);
+            if (validatorHandler.isPresent()) {
+                reader = new ValidatingFilter(reader, validatorHandler.get());
+            }
+        }
+
+        for (Supplier<XMLFilter> supplier : filters) {
+            XMLFilter filter = supplier.get();
+            filter.setParent(reader);
+            reader = filter;
+        }
+
+        InputSource inputSource = new InputSource(new StringReader(rendered));
+        inputSource.setSystemId(systemId);
+
+        return new SAXSource(reader, inputSource);
+    }
+
+    private XMLReader newReader() throws SAXException {
+        try {
+            synchronized (parserFactory) {
+                return parserFactory.newSAXParser().getXMLReader();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+    }
+}
@@ -4,22 +4,23 @@ import com.kodedu.config.EditorConfigBean;
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.other.Current;
 import com.kodedu.other.IOHelper;
-import com.kodedu.service.ui.IndikatorService;
 import com.kodedu.service.ui.TabService;
 import javafx.application.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
-import java.io.ByteArrayInputStream;
-import java.nio.charset.Charset;
+import javax.xml.validation.ValidatorHandler;
 import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Created by usta on 21.06.2015.
@@ -30,64 +31,80 @@ public class DocbookValidator {
     private final ApplicationController controller;
     private final TabService tabService;
     private final Current current;
-    private final IndikatorService indikatorService;
     private final EditorConfigBean editorConfigBean;
 
     private Logger logger = LoggerFactory.getLogger(DocbookValidator.class);
 
+    // schemas are thread safe, parsing the docbook xsd is expensive
+    private volatile Schema schema;
+
 
     @Autowired
-    public DocbookValidator(ApplicationController controller, TabService tabService, Current current, IndikatorService indikatorService, EditorConfigBean editorConfigBean) {
+    public DocbookValidator(ApplicationController controller, TabService tabService, Current current, EditorConfigBean editorConfigBean) {
         this.controller = controller;
         this.tabService = tabService;
         this.current = current;
-        this.indikatorService = indikatorService;
         this.editorConfigBean = editorConfigBean;
     }
 
-    public boolean validateDocbook(String rendered) {
+    /**
+     * Validator for the docbook read by a {@link DocbookFilterChain}, empty when validation is disabled.
+     * The first error is shown on the rendered docbook and stops the read.
+     */
+    public Optional<ValidatorHandler> newValidatorHandler(String rendered) throws SAXException {
 
         final boolean validateDocbook = editorConfigBean.getValidateDocbook();
 
         if (!validateDocbook) {
-            return true;
+            return Optional.empty();
         }
 
-        try {
-            SchemaFactory schemaFactory = SchemaFactory.newInstance("http://www.w3.org/2001/XMLSchema");
-
-            Path xsdPath = controller.getConfigPath().resolve("docbook-config/xsd/docbook.xsd");
-            Schema sch = schemaFactory.newSchema(new StreamSource(xsdPath.toFile()));
-            Validator validator = sch.newValidator();
+        ValidatorHandler validatorHandler = schema().newValidatorHandler();
+        validatorHandler.setErrorHandler(new ErrorHandler() {
+            @Override
+            public void warning(SAXParseException exception) {
+                logger.debug("Docbook validation warning", exception);
+            }
 
-            validator.validate(new StreamSource(new ByteArrayInputStream(rendered.getBytes(Charset.forName("UTF-8")))));
+            @Override
+            public void error(SAXParseException exception) throws SAXException {
+                showValidationError(rendered, exception);
+                throw exception;
+            }
 
-            logger.debug("Docbook successfully validated");
+            @Override
+            public void fatalError(SAXParseException exception) throws SAXException {
+                showValidationError(rendered, exception);
+                throw exception;
+            }
+        });
 
-            return true;
+        return Optional.of(validatorHandler);
+    }
 
-        } catch (Exception e) {
+    private Schema schema() throws SAXException {
+        Schema schema = this.schema;
+        if (Objects.isNull(schema)) {
+            SchemaFactory schemaFactory = SchemaFactory.newInstance("http://www.w3.org/2001/XMLSchema");
+            Path xsdPath = controller.getConfigPath().resolve("docbook-config/xsd/docbook.xsd");
+            this.schema = schema = schemaFactory.newSchema(new StreamSource(xsdPath.toFile()));
+        }
+        return schema;
+    }
 
-            if (e instanceof SAXParseException) {
-                SAXParseException pe = (SAXParseException) e;
-                int columnNumber = pe.getColumnNumber();
-                int lineNumber = pe.getLineNumber();
+    private void showValidationError(String rendered, SAXParseException pe) {
 
-                Path currentDir = current.currentPath().map(Path::getParent).get();
-                Path xmlPath = IOHelper.createTempFile(currentDir, ".xml");
-                IOHelper.writeToFile(xmlPath, rendered);
-                Platform.runLater(() -> {
-                    tabService.addTab(xmlPath, () -> {
-                        current.currentEditor().call("addAnnotation", (lineNumber - 1), columnNumber, pe.getMessage(), "error");
-                    });
-                });
-                logger.error("Please fix Docbook validation error. LineNumber: {}, Column: {}", lineNumber, columnNumber, pe);
-            } else {
-                logger.error("Problem occured while validating Docbook content", e);
-            }
+        int columnNumber = pe.getColumnNumber();
+        int lineNumber = pe.getLineNumber();
 
-            indikatorService.stopProgressBar();
-            return false;
-        }
+        Path currentDir = current.currentPath().map(Path::getParent).get();
+        Path xmlPath = IOHelper.createTempFile(currentDir, ".xml");
+        IOHelper.writeToFile(xmlPath, rendered);
+        Platform.runLater(() -> {
+            tabService.addTab(xmlPath, () -> {
+                current.currentEditor().call("addAnnotation", (lineNumber - 1), columnNumber, pe.getMessage(), "error");
+            });
+        });
+        logger.error("Please fix Docbook validation error. LineNumber: {}, Column: {}", lineNumber, columnNumber, pe);
     }
 }
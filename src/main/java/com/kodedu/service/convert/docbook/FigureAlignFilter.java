@@ -0,0 +1,43 @@
+package com.kodedu.service.convert.docbook;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Centers the images of figures
+ */
+class FigureAlignFilter extends XMLFilterImpl {
+
+    private int figureDepth;
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+
+        if ("figure".equals(localName)) {
+            figureDepth++;
+        } else if (figureDepth > 0 && "imagedata".equals(localName)) {
+            AttributesImpl attributes = new AttributesImpl(atts);
+            int index = attributes.getIndex("", "align");
+            if (index >= 0) {
+                attributes.setValue(index, "center");
+            } else {
+                attributes.addAttribute("", "align", "align", "CDATA", "center");
+            }
+            atts = attributes;
+        }
+
+        super.startElement(uri, localName, qName, atts);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+
+        if ("figure".equals(localName)) {
+            figureDepth--;
+        }
+
+        super.endElement(uri, localName, qName);
+    }
+}
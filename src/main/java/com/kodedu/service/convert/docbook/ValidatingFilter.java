@@ -0,0 +1,37 @@
+package com.kodedu.service.convert.docbook;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.validation.ValidatorHandler;
+import java.io.IOException;
+
+/**
+ * Validates the events passing through, the first error stops the parse
+ */
+class ValidatingFilter extends XMLFilterImpl {
+
+    private final ValidatorHandler validatorHandler;
+
+    ValidatingFilter(XMLReader parent, ValidatorHandler validatorHandler) {
+        super(parent);
+        this.validatorHandler = validatorHandler;
+    }
+
+    @Override
+    public void parse(InputSource input) throws SAXException, IOException {
+
+        ContentHandler next = getContentHandler();
+        validatorHandler.setContentHandler(next);
+        setContentHandler(validatorHandler);
+
+        try {
+            super.parse(input);
+        } finally {
+            setContentHandler(next);
+        }
+    }
+}
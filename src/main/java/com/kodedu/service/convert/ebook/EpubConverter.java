@@ -1,27 +1,23 @@
 package com.kodedu.service.convert.ebook;
 
 import com.kodedu.controller.ApplicationController;
-import com.kodedu.other.Current;
-import com.kodedu.other.ExtensionFilters;
 import com.kodedu.other.IOHelper;
-import com.kodedu.service.DirectoryService;
 import com.kodedu.service.PathResolverService;
-import com.kodedu.service.ThreadService;
-import com.kodedu.service.convert.docbook.DocBookConverter;
-import com.kodedu.service.ui.IndikatorService;
+import com.kodedu.service.convert.export.CancellableFilter;
+import com.kodedu.service.convert.export.CancellationToken;
 import org.joox.Match;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.StringReader;
 import java.io.StringWriter;
 import java.nio.file.*;
 import java.util.List;
@@ -44,157 +40,98 @@ public class EpubConverter {
     private final Logger logger = LoggerFactory.getLogger(EpubConverter.class);
 
     private final ApplicationController asciiDocController;
-    private final Current current;
-    private final ThreadService threadService;
-    private final DirectoryService directoryService;
-    private final IndikatorService indikatorService;
-    private final DocBookConverter docBookConverter;
     private final PathResolverService pathResolverService;
 
-    private Path epubPath;
-
     @Autowired
-    public EpubConverter(final ApplicationController asciiDocController, final Current current, final ThreadService threadService,
-                         final DirectoryService directoryService, final IndikatorService indikatorService, final DocBookConverter docBookConverter, PathResolverService pathResolverService) {
+    public EpubConverter(final ApplicationController asciiDocController, PathResolverService pathResolverService) {
         this.asciiDocController = asciiDocController;
-        this.current = current;
-        this.threadService = threadService;
-        this.directoryService = directoryService;
-        this.indikatorService = indikatorService;
-        this.docBookConverter = docBookConverter;
         this.pathResolverService = pathResolverService;
     }
 
-    public Path produceEpub3Temp() {
-        return produceEpub3(false, true);
-    }
-
-    public Path produceEpub3(boolean askPath) {
-        return produceEpub3(askPath, false);
-    }
-
-    private Path produceEpub3(boolean askPath, boolean isTemp) {
-
-        try {
-
-            Path currentTabPath = current.currentPath().get();
-            Path currentTabPathDir = currentTabPath.getParent();
-            Path configPath = asciiDocController.getConfigPath();
-            String tabText = current.getCurrentTabText().replace("*", "").trim();
-
-            epubPath = directoryService.getSaveOutputPath(ExtensionFilters.EPUB, askPath);
-
-            if (isTemp) {
-                epubPath = IOHelper.createTempFile(".epub");
-            }
-
-            try {
-                if (!isTemp) {
-                    indikatorService.startProgressBar();
-                    logger.debug("Epub conversion started");
-                }
-
-                Path epubTemp = Files.createTempDirectory("epub");
-
+    /**
+     * Transforms the docbook to epub3 chunks and packs them with the images of the document into the epub file.
+     * Parsing, copying and packing stop once the token is cancelled.
+     */
+    public void buildEpub(Source docbook, Path epubPath, Path documentDir, CancellationToken token) throws Exception {
 
-                TransformerFactory factory = TransformerFactory.newInstance();
-                Transformer transformer = factory.newTransformer(new StreamSource(configPath.resolve("docbook/epub3/chunk.xsl").toFile()));
+        Path configPath = asciiDocController.getConfigPath();
+        Path epubTemp = Files.createTempDirectory("epub");
 
-                docBookConverter.convert(false, docbook -> {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        Transformer transformer = factory.newTransformer(new StreamSource(configPath.resolve("docbook/epub3/chunk.xsl").toFile()));
 
+        Path oebpsPath = epubTemp.resolve("OEBPS");
+        transformer.setParameter("base.dir", oebpsPath.toString());
+        try (StringWriter fakeWriter = new StringWriter();) {
+            transformer.transform(CancellableFilter.source(docbook, token), new StreamResult(fakeWriter));
+        }
 
-                    threadService.runTaskLater(() -> {
-                        Path oebpsPath = epubTemp.resolve("OEBPS");
-                        transformer.setParameter("base.dir", oebpsPath.toString());
-                        try (StringReader reader = new StringReader(docbook);
-                             StringWriter fakeWriter = new StringWriter();) {
-                            StreamSource src = new StreamSource(reader);
-                            transformer.transform(src, new StreamResult(fakeWriter));
-                        } catch (Exception e) {
-                            logger.error("Problem occured while converting to Epub", e);
-                            return;
-                        }
-
-                        Path containerXml = epubTemp.resolve("META-INF/container.xml");
-
-                        Match root = IOHelper.$(containerXml.toFile());
-                        root
-                                .find("rootfile")
-                                .attr("full-path", "OEBPS/package.opf");
-
-                        StringBuilder builder = new StringBuilder();
-                        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
-
-                        Match wrapper = $("wrapper");
-                        wrapper.append(root);
-                        builder.append(wrapper.content());
-
-                        IOHelper.matchWrite(root, containerXml.toFile());
-
-                        IOHelper.writeToFile(containerXml, builder.toString(), TRUNCATE_EXISTING, WRITE);
-
-                        Path epubOut = epubTemp.resolve("book.epub");
+        token.throwIfCancelled();
 
-                        Stream<Path> imageStream = IOHelper.find(currentTabPathDir, Integer.MAX_VALUE, (p, attr) -> pathResolverService.isImage(p));
+        Path containerXml = epubTemp.resolve("META-INF/container.xml");
 
-                        imageStream.forEach(img -> {
-                            IOHelper.copyFile(img.toFile(), oebpsPath.resolve(currentTabPathDir.relativize(img)).toFile());
-                        });
+        Match root = IOHelper.$(containerXml.toFile());
+        root
+                .find("rootfile")
+                .attr("full-path", "OEBPS/package.opf");
 
-                        IOHelper.copyDirectoryToDirectory(configPath.resolve("docbook/images/callouts").toFile(), epubTemp.resolve("OEBPS/images")
-                                .toFile());
+        StringBuilder builder = new StringBuilder();
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
 
-                        try (FileOutputStream fileOutputStream = new FileOutputStream(epubOut.toFile());
-                             ZipOutputStream zipOutputStream = new ZipOutputStream(fileOutputStream);) {
+        Match wrapper = $("wrapper");
+        wrapper.append(root);
+        builder.append(wrapper.content());
 
-                            zipOutputStream.setMethod(ZipOutputStream.DEFLATED);
-                            zipOutputStream.setLevel(Deflater.NO_COMPRESSION);
-                            ZipEntry zipEntry = new ZipEntry("mimetype");
-                            zipOutputStream.putNextEntry(zipEntry);
-                            zipOutputStream.write("application/epub+zip".getBytes());
+        IOHelper.matchWrite(root, containerXml.toFile());
 
-                        } catch (Exception e) {
-                            logger.error("Problem occured while zipping mimetype");
-                        }
+        IOHelper.writeToFile(containerXml, builder.toString(), TRUNCATE_EXISTING, WRITE);
 
-                        try (FileSystem zipfs = FileSystems.newFileSystem(epubOut, null)) {
-                            iterativelyPackDir(epubTemp.resolve("OEBPS"), epubTemp, zipfs);
-                            iterativelyPackDir(epubTemp.resolve("META-INF"), epubTemp, zipfs);
-                        } catch (IOException e) {
-                            logger.error("Problem occured while packing epub content");
-                        }
+        Path epubOut = epubTemp.resolve("book.epub");
 
-                        IOHelper.move(epubOut, epubPath, StandardCopyOption.REPLACE_EXISTING);
+        Stream<Path> imageStream = IOHelper.find(documentDir, Integer.MAX_VALUE, (p, attr) -> pathResolverService.isImage(p));
 
-                        if (!isTemp) {
-                            indikatorService.stopProgressBar();
-                            logger.debug("Epub conversion ended");
-                            asciiDocController.addRemoveRecentList(epubPath);
-                        }
+        imageStream.forEach(img -> {
+            token.throwIfCancelled();
+            IOHelper.copyFile(img.toFile(), oebpsPath.resolve(documentDir.relativize(img)).toFile());
+        });
 
-                    });
-                });
+        IOHelper.copyDirectoryToDirectory(configPath.resolve("docbook/images/callouts").toFile(), epubTemp.resolve("OEBPS/images")
+                .toFile());
 
-            } catch (Exception e) {
-                logger.error("Problem occured while converting to Epub", e);
-            }
+        try (FileOutputStream fileOutputStream = new FileOutputStream(epubOut.toFile());
+             ZipOutputStream zipOutputStream = new ZipOutputStream(fileOutputStream);) {
 
+            zipOutputStream.setMethod(ZipOutputStream.DEFLATED);
+            zipOutputStream.setLevel(Deflater.NO_COMPRESSION);
+            ZipEntry zipEntry = new ZipEntry("mimetype");
+            zipOutputStream.putNextEntry(zipEntry);
+            zipOutputStream.write("application/epub+zip".getBytes());
 
         } catch (Exception e) {
-            logger.error("Problem occured while converting to Epub", e);
-            indikatorService.stopProgressBar();
+            logger.error("Problem occured while zipping mimetype");
+        }
+
+        try (FileSystem zipfs = FileSystems.newFileSystem(epubOut, null)) {
+            iterativelyPackDir(epubTemp.resolve("OEBPS"), epubTemp, zipfs, token);
+            iterativelyPackDir(epubTemp.resolve("META-INF"), epubTemp, zipfs, token);
+        } catch (IOException e) {
+            logger.error("Problem occured while packing epub content");
         }
 
-        return epubPath;
+        token.throwIfCancelled();
+
+        IOHelper.move(epubOut, epubPath, StandardCopyOption.REPLACE_EXISTING);
     }
 
 
-    private void iterativelyPackDir(Path rootPath, Path realRoot, FileSystem zipfs) throws IOException {
+    private void iterativelyPackDir(Path rootPath, Path realRoot, FileSystem zipfs, CancellationToken token) throws IOException {
         List<Path> fileList = IOHelper.list(rootPath).collect(Collectors.toList());
         for (Path oebpsFile : fileList) {
 
+            token.throwIfCancelled();
+
             if (Files.isDirectory(oebpsFile)) {
-                iterativelyPackDir(oebpsFile, realRoot, zipfs);
+                iterativelyPackDir(oebpsFile, realRoot, zipfs, token);
             } else {
                 Path relativeFile = realRoot.relativize(oebpsFile);
                 Path relativeRoot = realRoot.relativize(oebpsFile.getParent());
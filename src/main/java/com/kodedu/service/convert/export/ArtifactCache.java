@@ -0,0 +1,114 @@
+package com.kodedu.service.convert.export;
+
+import com.kodedu.service.metrics.Counter;
+import com.kodedu.service.metrics.MetricRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Intermediate export artifacts keyed by content hash.
+ * <p>
+ * A stage requested again while it runs shares the running future, so a stage runs at most once for the same
+ * content. Failed stages aren't kept. Includes and images aren't part of the hash, so the entries of a document
+ * are dropped when a file under its directory changes, except for the outputs written by exports.
+ */
+@Component
+public class ArtifactCache {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Path> outputs = ConcurrentHashMap.newKeySet();
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${application.export.cache.entries:8}")
+    private int maxEntries;
+
+    @Autowired
+    public ArtifactCache(MetricRegistry metricRegistry) {
+        this.hits = metricRegistry.counter("afx_export_artifacts_total", "Export stages requested", "result", "hit");
+        this.misses = metricRegistry.counter("afx_export_artifacts_total", "Export stages requested", "result", "miss");
+    }
+
+    /**
+     * Cached or running artifact of the key, otherwise starts the stage
+     *
+     * @param documentDir entries are dropped when a file under it changes
+     */
+    public synchronized <T> CompletableFuture<T> computeIfAbsent(String key, Path documentDir, Supplier<CompletableFuture<T>> stage) {
+
+        Entry entry = entries.get(key);
+
+        if (Objects.nonNull(entry)) {
+            hits.increment();
+            return (CompletableFuture<T>) entry.future;
+        }
+
+        misses.increment();
+
+        CompletableFuture<T> future = stage.get();
+        entries.put(key, new Entry(future, documentDir));
+        evictOverflow();
+
+        future.whenComplete((artifact, throwable) -> {
+            if (Objects.nonNull(throwable)) {
+                remove(key, future);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Marks a file written by an export, its changes don't drop entries
+     */
+    public void addOutput(Path output) {
+        outputs.add(output);
+    }
+
+    public synchronized void invalidate(Path changedPath) {
+
+        if (outputs.contains(changedPath)) {
+            return;
+        }
+
+        entries.values().removeIf(entry -> changedPath.startsWith(entry.documentDir));
+    }
+
+    private synchronized void remove(String key, CompletableFuture<?> future) {
+        Entry entry = entries.get(key);
+        if (Objects.nonNull(entry) && entry.future == future) {
+            entries.remove(key);
+        }
+    }
+
+    // least recently used first, running stages are kept
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            if (iterator.next().future.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<?> future;
+        private final Path documentDir;
+
+        private Entry(CompletableFuture<?> future, Path documentDir) {
+            this.future = future;
+            this.documentDir = documentDir;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.kodedu.service.convert.export;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.sax.SAXSource;
+
+/**
+ * Stops a SAX pipeline at the next element once its export is cancelled.
+ * <p>
+ * Put in front of a transformer it stops parsing the input, put behind it stops the transformation output, for
+ * example the FO stream read by FOP.
+ */
+public class CancellableFilter extends XMLFilterImpl {
+
+    private final CancellationToken token;
+
+    private CancellableFilter(CancellationToken token) {
+        this.token = token;
+    }
+
+    /**
+     * Source which stops being read once cancelled, it can be read once
+     */
+    public static Source source(Source source, CancellationToken token) throws SAXException {
+
+        if (token == CancellationToken.NONE) {
+            return source;
+        }
+
+        InputSource inputSource = SAXSource.sourceToInputSource(source);
+
+        // a tree source isn't parsed
+        if (inputSource == null) {
+            return source;
+        }
+
+        XMLReader reader = source instanceof SAXSource ? ((SAXSource) source).getXMLReader() : null;
+
+        CancellableFilter filter = new CancellableFilter(token);
+        filter.setParent(reader == null ? newReader() : reader);
+
+        return new SAXSource(filter, inputSource);
+    }
+
+    /**
+     * Handler which stops receiving events once cancelled
+     */
+    public static ContentHandler handler(ContentHandler handler, CancellationToken token) {
+
+        if (token == CancellationToken.NONE) {
+            return handler;
+        }
+
+        CancellableFilter filter = new CancellableFilter(token);
+        filter.setContentHandler(handler);
+
+        return filter;
+    }
+
+    private static XMLReader newReader() throws SAXException {
+        try {
+            SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+            parserFactory.setNamespaceAware(true);
+            return parserFactory.newSAXParser().getXMLReader();
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+        if (token.isCancelled()) {
+            throw new SAXException("Export is cancelled");
+        }
+        super.startElement(uri, localName, qName, atts);
+    }
+}
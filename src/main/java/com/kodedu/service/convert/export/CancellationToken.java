@@ -0,0 +1,61 @@
+package com.kodedu.service.convert.export;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Cancellation request of an export, checked by the stages between their units of work
+ */
+public class CancellationToken {
+
+    /**
+     * Token which is never cancelled
+     */
+    public static final CancellationToken NONE = new CancellationToken() {
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+
+    public void cancel() {
+
+        if (cancelled) {
+            return;
+        }
+
+        cancelled = true;
+
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException when cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Export is cancelled");
+        }
+    }
+
+    /**
+     * Runs the listener once cancelled, right away when already cancelled
+     */
+    public void onCancel(Runnable listener) {
+        Objects.requireNonNull(listener);
+        listeners.add(listener);
+        if (cancelled && listeners.remove(listener)) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.kodedu.service.convert.export;
+
+import com.kodedu.other.ExtensionFilters;
+import javafx.stage.FileChooser;
+
+/**
+ * Outputs of the {@link ExportPlanner}
+ */
+public enum ExportFormat {
+
+    HTML("html", ExtensionFilters.HTML),
+    DOCBOOK("docbook", ExtensionFilters.DOCBOOK),
+    PDF("pdf", ExtensionFilters.PDF),
+    EPUB("epub", ExtensionFilters.EPUB),
+    MOBI("mobi", ExtensionFilters.MOBI);
+
+    private final String formatName;
+    private final FileChooser.ExtensionFilter extensionFilter;
+
+    ExportFormat(String formatName, FileChooser.ExtensionFilter extensionFilter) {
+        this.formatName = formatName;
+        this.extensionFilter = extensionFilter;
+    }
+
+    public String getFormatName() {
+        return formatName;
+    }
+
+    public FileChooser.ExtensionFilter getExtensionFilter() {
+        return extensionFilter;
+    }
+
+    public boolean needsDocbook() {
+        return this != HTML;
+    }
+
+    public boolean needsEpub() {
+        return this == EPUB || this == MOBI;
+    }
+}
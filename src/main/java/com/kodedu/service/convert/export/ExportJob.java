@@ -0,0 +1,190 @@
+package com.kodedu.service.convert.export;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * One export of a document to a set of formats, run by the {@link ExportJobManager}.
+ * <p>
+ * The job is updated by the export threads and read by the worker pane, its state is safe to read from any thread.
+ */
+public class ExportJob {
+
+    private final long id;
+    private final Path documentPath;
+    private final Map<ExportFormat, Path> outputs;
+    private final CancellationToken token = new CancellationToken();
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+    private final Set<ExportFormat> written = ConcurrentHashMap.newKeySet();
+    private final long createdAt = System.currentTimeMillis();
+
+    // dropped once the job ends, finished jobs are kept in the history
+    private volatile String asciidoc;
+    private volatile ExportJobState state = ExportJobState.QUEUED;
+    private volatile long startedAt;
+    private volatile long endedAt;
+    private volatile String failure;
+
+    ExportJob(long id, Path documentPath, String asciidoc, Map<ExportFormat, Path> outputs) {
+        this.id = id;
+        this.documentPath = documentPath;
+        this.asciidoc = asciidoc;
+        this.outputs = Collections.unmodifiableMap(outputs);
+    }
+
+    /**
+     * Adds a stage which the job waits for
+     */
+    Stage addStage(String name) {
+        Stage stage = new Stage(name);
+        stages.add(stage);
+        return stage;
+    }
+
+    void start() {
+        startedAt = System.currentTimeMillis();
+        state = ExportJobState.RUNNING;
+    }
+
+    /**
+     * Marks the output of the format completely written
+     */
+    void written(ExportFormat format) {
+        written.add(format);
+    }
+
+    boolean isAllWritten() {
+        return written.containsAll(outputs.keySet());
+    }
+
+    void end(ExportJobState state, String failure) {
+        this.asciidoc = null;
+        this.failure = failure;
+        this.endedAt = System.currentTimeMillis();
+        this.state = state;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Path getDocumentPath() {
+        return documentPath;
+    }
+
+    String getAsciidoc() {
+        return asciidoc;
+    }
+
+    public Map<ExportFormat, Path> getOutputs() {
+        return outputs;
+    }
+
+    public CancellationToken getToken() {
+        return token;
+    }
+
+    public ExportJobState getState() {
+        return state;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Time spent running, up to now for a running job
+     */
+    public long getElapsedMillis() {
+        long started = startedAt;
+        if (started == 0) {
+            return 0;
+        }
+        long ended = endedAt;
+        return (ended == 0 ? System.currentTimeMillis() : ended) - started;
+    }
+
+    /**
+     * Completed share of the stages, between 0 and 1
+     */
+    public double getProgress() {
+        if (state == ExportJobState.SUCCEEDED) {
+            return 1;
+        }
+        if (stages.isEmpty()) {
+            return 0;
+        }
+        long done = stages.stream().filter(Stage::isDone).count();
+        return (double) done / stages.size();
+    }
+
+    /**
+     * Names of the running stages
+     */
+    public String getCurrentStages() {
+        return stages.stream()
+                .filter(Stage::isRunning)
+                .map(Stage::getName)
+                .collect(Collectors.joining(", "));
+    }
+
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    @Override
+    public String toString() {
+        return "Export job " + id + " " + outputs.keySet();
+    }
+
+    public static final class Stage {
+
+        private final String name;
+        private volatile long startedAt;
+        private volatile long endedAt;
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        void start() {
+            if (startedAt == 0) {
+                startedAt = System.currentTimeMillis();
+            }
+        }
+
+        void end() {
+            start();
+            endedAt = System.currentTimeMillis();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isRunning() {
+            return startedAt != 0 && endedAt == 0;
+        }
+
+        public boolean isDone() {
+            return endedAt != 0;
+        }
+
+        public long getElapsedMillis() {
+            if (startedAt == 0) {
+                return 0;
+            }
+            return (endedAt == 0 ? System.currentTimeMillis() : endedAt) - startedAt;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.kodedu.service.convert.export;
+
+import com.kodedu.other.Current;
+import com.kodedu.service.DirectoryService;
+import com.kodedu.service.metrics.MetricRegistry;
+import com.kodedu.service.ui.IndikatorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues export jobs and runs at most max-jobs of them at once.
+ * <p>
+ * Each job has its own state, stage progress and cancellation token. The progress bar is shown while any job runs,
+ * finished jobs are kept for the worker pane up to job-history.
+ */
+@Component
+public class ExportJobManager {
+
+    private final Logger logger = LoggerFactory.getLogger(ExportJobManager.class);
+
+    private final Current current;
+    private final DirectoryService directoryService;
+    private final ExportPlanner exportPlanner;
+    private final ArtifactCache artifactCache;
+    private final IndikatorService indikatorService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    // guarded by this
+    private final Deque<ExportJob> queue = new ArrayDeque<>();
+    private final List<ExportJob> jobs = new ArrayList<>();
+    private int running;
+
+    @Value("${application.export.max-jobs:2}")
+    private int maxJobs;
+
+    @Value("${application.export.job-history:50}")
+    private int jobHistory;
+
+    @Autowired
+    public ExportJobManager(Current current, DirectoryService directoryService, ExportPlanner exportPlanner,
+                            ArtifactCache artifactCache, IndikatorService indikatorService, MetricRegistry metricRegistry) {
+        this.current = current;
+        this.directoryService = directoryService;
+        this.exportPlanner = exportPlanner;
+        this.artifactCache = artifactCache;
+        this.indikatorService = indikatorService;
+        metricRegistry.gauge("afx_export_jobs", "Export jobs by state", this::getQueuedCount, "state", "queued");
+        metricRegistry.gauge("afx_export_jobs", "Export jobs by state", this::getRunningCount, "state", "running");
+    }
+
+    /**
+     * Queues an export of the current document, output paths are asked when askPath is set
+     */
+    public ExportJob submit(Set<ExportFormat> formats, boolean askPath) {
+
+        final Path documentPath = current.currentPath().get();
+        final String asciidoc = current.currentEditorValue();
+
+        Map<ExportFormat, Path> outputs = new EnumMap<>(ExportFormat.class);
+        for (ExportFormat format : formats) {
+            Path output = directoryService.getSaveOutputPath(format.getExtensionFilter(), askPath);
+            artifactCache.addOutput(output);
+            outputs.put(format, output);
+        }
+
+        ExportJob job = new ExportJob(sequence.incrementAndGet(), documentPath, asciidoc, outputs);
+
+        synchronized (this) {
+            jobs.add(job);
+            queue.add(job);
+            trimHistory();
+        }
+
+        logger.debug("{} is queued", job);
+
+        startQueued();
+
+        return job;
+    }
+
+    /**
+     * Removes a queued job, a running job stops at the next check of its stages
+     */
+    public void cancel(ExportJob job) {
+
+        boolean dequeued;
+
+        synchronized (this) {
+            dequeued = queue.remove(job);
+        }
+
+        job.getToken().cancel();
+
+        if (dequeued) {
+            job.end(ExportJobState.CANCELLED, null);
+            logger.debug("{} is cancelled before it started", job);
+        }
+    }
+
+    /**
+     * Jobs in submission order
+     */
+    public synchronized List<ExportJob> getJobs() {
+        return new ArrayList<>(jobs);
+    }
+
+    public synchronized void clearFinished() {
+        jobs.removeIf(job -> job.getState().isFinished());
+    }
+
+    private void startQueued() {
+
+        List<ExportJob> starting = new ArrayList<>();
+
+        synchronized (this) {
+            while (running < Math.max(1, maxJobs) && !queue.isEmpty()) {
+                ExportJob job = queue.poll();
+                if (running++ == 0) {
+                    indikatorService.startProgressBar();
+                }
+                job.start();
+                starting.add(job);
+            }
+        }
+
+        for (ExportJob job : starting) {
+            run(job);
+        }
+    }
+
+    private void run(ExportJob job) {
+
+        logger.debug("{} started", job);
+
+        CompletableFuture<Void> result;
+
+        try {
+            result = exportPlanner.export(job);
+        } catch (Exception e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+
+        result.whenComplete((nothing, throwable) -> finish(job, throwable));
+    }
+
+    private void finish(ExportJob job, Throwable throwable) {
+
+        // a job cancelled after its last output was written still succeeded
+        if (job.isAllWritten()) {
+            job.end(ExportJobState.SUCCEEDED, null);
+        } else if (job.getToken().isCancelled()) {
+            job.end(ExportJobState.CANCELLED, null);
+        } else if (Objects.nonNull(throwable)) {
+            job.end(ExportJobState.FAILED, rootMessage(throwable));
+        } else {
+            job.end(ExportJobState.SUCCEEDED, null);
+        }
+
+        logger.debug("{} ended as {} in {} ms", job, job.getState(), job.getElapsedMillis());
+
+        synchronized (this) {
+            if (--running == 0) {
+                indikatorService.stopProgressBar();
+            }
+        }
+
+        startQueued();
+    }
+
+    private String rootMessage(Throwable throwable) {
+        Throwable root = throwable;
+        while (Objects.nonNull(root.getCause()) && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return Objects.toString(root.getMessage(), root.getClass().getSimpleName());
+    }
+
+    // oldest finished jobs first
+    private void trimHistory() {
+        Iterator<ExportJob> iterator = jobs.iterator();
+        while (jobs.size() > jobHistory && iterator.hasNext()) {
+            if (iterator.next().getState().isFinished()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private synchronized double getQueuedCount() {
+        return queue.size();
+    }
+
+    private synchronized double getRunningCount() {
+        return running;
+    }
+}
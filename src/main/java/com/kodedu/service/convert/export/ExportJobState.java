@@ -0,0 +1,13 @@
+package com.kodedu.service.convert.export;
+
+/**
+ * States of an {@link ExportJob}
+ */
+public enum ExportJobState {
+
+    QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
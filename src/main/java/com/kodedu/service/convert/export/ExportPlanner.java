@@ -0,0 +1,313 @@
+package com.kodedu.service.convert.export;
+
+import com.kodedu.config.DocbookConfigBean;
+import com.kodedu.config.EditorConfigBean;
+import com.kodedu.config.HtmlConfigBean;
+import com.kodedu.controller.ApplicationController;
+import com.kodedu.other.IOHelper;
+import com.kodedu.service.Lane;
+import com.kodedu.service.ThreadService;
+import com.kodedu.service.convert.docbook.DocBookConverter;
+import com.kodedu.service.convert.ebook.EpubConverter;
+import com.kodedu.service.convert.ebook.MobiConverter;
+import com.kodedu.service.convert.html.HtmlBookConverter;
+import com.kodedu.service.convert.pdf.PdfBookConverter;
+import com.kodedu.service.flight.FlightEvent;
+import com.kodedu.service.flight.FlightEventType;
+import com.kodedu.service.flight.FlightRecorderService;
+import com.kodedu.service.metrics.Counter;
+import com.kodedu.service.metrics.Histogram;
+import com.kodedu.service.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Produces the formats of an {@link ExportJob} as a graph of stages.
+ * <p>
+ * asciidoc → docbook → {fo → pdf, epub → mobi, docbook file}, asciidoc → html.
+ * Each format pulls the stages it depends on from the {@link ArtifactCache}, so the post processed and validated docbook
+ * and the epub are produced once however many formats need them. The docbook is post processed and validated in
+ * one streaming pass, consumers read the result without filtering it again. Independent branches run concurrently
+ * in the export lane. A stage shared by several jobs is cancelled only when all of them are cancelled.
+ */
+@Component
+public class ExportPlanner {
+
+    private final Logger logger = LoggerFactory.getLogger(ExportPlanner.class);
+
+    private final ApplicationController controller;
+    private final ThreadService threadService;
+    private final DocBookConverter docBookConverter;
+    private final PdfBookConverter pdfBookConverter;
+    private final EpubConverter epubConverter;
+    private final MobiConverter mobiConverter;
+    private final HtmlBookConverter htmlBookConverter;
+    private final DocbookConfigBean docbookConfigBean;
+    private final HtmlConfigBean htmlConfigBean;
+    private final EditorConfigBean editorConfigBean;
+    private final ArtifactCache artifactCache;
+    private final Map<ExportFormat, Histogram> exportTimers = new EnumMap<>(ExportFormat.class);
+    private final Map<ExportFormat, Counter> exportFailures = new EnumMap<>(ExportFormat.class);
+    private final FlightRecorderService flightRecorderService;
+    private final Map<String, SharedCancellationToken> stageTokens = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExportPlanner(ApplicationController controller, ThreadService threadService, DocBookConverter docBookConverter,
+                         PdfBookConverter pdfBookConverter, EpubConverter epubConverter, MobiConverter mobiConverter,
+                         HtmlBookConverter htmlBookConverter, DocbookConfigBean docbookConfigBean, HtmlConfigBean htmlConfigBean,
+                         EditorConfigBean editorConfigBean, ArtifactCache artifactCache, MetricRegistry metricRegistry,
+                         FlightRecorderService flightRecorderService) {
+        this.controller = controller;
+        this.threadService = threadService;
+        this.docBookConverter = docBookConverter;
+        this.pdfBookConverter = pdfBookConverter;
+        this.epubConverter = epubConverter;
+        this.mobiConverter = mobiConverter;
+        this.htmlBookConverter = htmlBookConverter;
+        this.docbookConfigBean = docbookConfigBean;
+        this.htmlConfigBean = htmlConfigBean;
+        this.editorConfigBean = editorConfigBean;
+        this.artifactCache = artifactCache;
+        this.flightRecorderService = flightRecorderService;
+
+        for (ExportFormat format : ExportFormat.values()) {
+            exportTimers.put(format, metricRegistry.timer("afx_export_seconds", "Duration of exports", "format", format.getFormatName()));
+            exportFailures.put(format, metricRegistry.counter("afx_export_failures_total", "Failed exports", "format", format.getFormatName()));
+        }
+    }
+
+    /**
+     * Runs the stages of the job
+     *
+     * @return completes when all formats are written, failed or cancelled
+     */
+    public CompletableFuture<Void> export(ExportJob job) {
+
+        final Path documentPath = job.getDocumentPath();
+        final String asciidoc = job.getAsciidoc();
+        final Map<ExportFormat, Path> outputs = job.getOutputs();
+        final Set<ExportFormat> formats = outputs.keySet();
+        final CancellationToken token = job.getToken();
+
+        final long startedAt = System.nanoTime();
+        final Executor executor = threadService.executor(Lane.EXPORT);
+
+        CompletableFuture<String> docbook = null;
+        CompletableFuture<Path> epub = null;
+
+        if (formats.stream().anyMatch(ExportFormat::needsDocbook)) {
+            String docbookKey = hash("docbook", documentPath.toString(), docbookConfigBean.getJSON().toString(),
+                    String.valueOf(editorConfigBean.getValidateDocbook()), asciidoc);
+
+            docbook = docbookStage(job, docbookKey, asciidoc, executor);
+
+            if (formats.stream().anyMatch(ExportFormat::needsEpub)) {
+                epub = epubStage(job, docbookKey, docbook, executor);
+            }
+        }
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+
+        for (Map.Entry<ExportFormat, Path> entry : outputs.entrySet()) {
+
+            ExportFormat format = entry.getKey();
+            Path output = entry.getValue();
+            ExportJob.Stage stage = job.addStage("write " + format.getFormatName());
+            FlightEvent flightEvent = flightRecorderService.begin(FlightEventType.EXPORT, format.getFormatName()).path(documentPath);
+
+            CompletableFuture<Void> result;
+
+            switch (format) {
+                case HTML:
+                    result = then(job, stage, htmlStage(job, asciidoc, executor), html -> {
+                        IOHelper.writeToFile(output, html, CREATE, TRUNCATE_EXISTING, WRITE).ifPresent(e -> {
+                            throw new CompletionException(e);
+                        });
+                    }, executor);
+                    break;
+                case DOCBOOK:
+                    // already post processed and validated
+                    result = then(job, stage, docbook, processed -> {
+                        IOHelper.writeToFile(output, processed, CREATE, TRUNCATE_EXISTING, WRITE).ifPresent(e -> {
+                            throw new CompletionException(e);
+                        });
+                    }, executor);
+                    break;
+                case PDF:
+                    result = then(job, stage, docbook, processed -> pdfBookConverter.writePdf(docBookConverter.source(processed, documentPath), output, token), executor);
+                    break;
+                case EPUB:
+                    result = then(job, stage, epub, epubPath -> Files.copy(epubPath, output, StandardCopyOption.REPLACE_EXISTING), executor);
+                    break;
+                case MOBI:
+                    result = then(job, stage, epub, epubPath -> mobiConverter.convertToMobi(epubPath, output, token), executor);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown export format " + format);
+            }
+
+            results.add(result.whenComplete((nothing, throwable) -> {
+                if (Objects.isNull(throwable)) {
+                    job.written(format);
+                    flightEvent.size(output.toFile().length()).end();
+                    exportTimers.get(format).recordSince(startedAt);
+                    controller.addRemoveRecentList(output);
+                    logger.debug("{} is exported to {}", format, output);
+                } else if (token.isCancelled()) {
+                    flightEvent.end();
+                    // only a partially written output is removed, an earlier export is kept
+                    // pdf is written aside and only replaces the output when complete
+                    if (stage.isRunning() && format != ExportFormat.PDF) {
+                        IOHelper.deleteIfExists(output);
+                    }
+                    logger.debug("Export of {} is cancelled", output);
+                } else {
+                    flightEvent.size(output.toFile().length()).end();
+                    exportFailures.get(format).increment();
+                    logger.error("Problem occured while exporting {}", output, throwable);
+                }
+            }));
+        }
+
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<String> docbookStage(ExportJob job, String key, String asciidoc, Executor executor) {
+
+        Path documentPath = job.getDocumentPath();
+        SharedCancellationToken token = stageToken(key, job);
+
+        CompletableFuture<String> future = artifactCache.computeIfAbsent(key, documentPath.getParent(), () -> CompletableFuture.supplyAsync(() -> {
+            token.throwIfCancelled();
+            String rendered = docBookConverter.render(asciidoc);
+            token.throwIfCancelled();
+            try {
+                return docBookConverter.process(rendered, documentPath);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor));
+
+        return track(key, token, job.addStage("render and validate docbook"), null, future);
+    }
+
+    private CompletableFuture<Path> epubStage(ExportJob job, String docbookKey, CompletableFuture<String> docbook, Executor executor) {
+
+        String key = "epub:" + docbookKey;
+        Path documentPath = job.getDocumentPath();
+        SharedCancellationToken token = stageToken(key, job);
+
+        CompletableFuture<Path> future = artifactCache.computeIfAbsent(key, documentPath.getParent(), () -> docbook.thenApplyAsync(processed -> {
+            try {
+                token.throwIfCancelled();
+                Path epubPath = IOHelper.createTempFile(".epub");
+                epubPath.toFile().deleteOnExit();
+                epubConverter.buildEpub(docBookConverter.source(processed, documentPath), epubPath, documentPath.getParent(), token);
+                return epubPath;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor));
+
+        return track(key, token, job.addStage("build epub"), docbook, future);
+    }
+
+    private CompletableFuture<String> htmlStage(ExportJob job, String asciidoc, Executor executor) {
+
+        Path documentPath = job.getDocumentPath();
+        String key = hash("html", documentPath.toString(), htmlConfigBean.getJSON().toString(), asciidoc);
+        SharedCancellationToken token = stageToken(key, job);
+
+        CompletableFuture<String> future = artifactCache.computeIfAbsent(key, documentPath.getParent(), () -> CompletableFuture.supplyAsync(() -> {
+            token.throwIfCancelled();
+            return htmlBookConverter.render(asciidoc);
+        }, executor));
+
+        return track(key, token, job.addStage("render html"), null, future);
+    }
+
+    // token of a cached stage, a cancelled one belongs to a stage which is being dropped
+    private SharedCancellationToken stageToken(String key, ExportJob job) {
+        SharedCancellationToken token = stageTokens.compute(key, (k, existing) ->
+                Objects.isNull(existing) || existing.isCancelled() ? new SharedCancellationToken() : existing);
+        token.join(job.getToken());
+        return token;
+    }
+
+    // marks the stage of the job running once its input is there and done with the cached stage
+    private <T> CompletableFuture<T> track(String key, SharedCancellationToken token, ExportJob.Stage stage,
+                                           CompletableFuture<?> input, CompletableFuture<T> future) {
+
+        if (Objects.isNull(input)) {
+            stage.start();
+        } else {
+            input.thenRun(stage::start);
+        }
+
+        return future.whenComplete((artifact, throwable) -> {
+            stageTokens.remove(key, token);
+            if (Objects.isNull(throwable)) {
+                stage.end();
+            }
+        });
+    }
+
+    private <T> CompletableFuture<Void> then(ExportJob job, ExportJob.Stage stage, CompletableFuture<T> input,
+                                             ExportStep<T> step, Executor executor) {
+        return input.thenAcceptAsync(artifact -> {
+            job.getToken().throwIfCancelled();
+            stage.start();
+            try {
+                step.accept(artifact);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+            stage.end();
+        }, executor);
+    }
+
+    private String hash(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return parts[0] + ":" + new BigInteger(1, digest.digest()).toString(16);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ExportStep<T> {
+        void accept(T artifact) throws Exception;
+    }
+}
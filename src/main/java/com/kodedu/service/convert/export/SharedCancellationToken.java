@@ -0,0 +1,23 @@
+package com.kodedu.service.convert.export;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token of a stage shared by several jobs, it is cancelled once every job waiting for the stage is cancelled
+ */
+final class SharedCancellationToken extends CancellationToken {
+
+    private final AtomicInteger consumers = new AtomicInteger();
+
+    /**
+     * Adds a job waiting for the stage
+     */
+    void join(CancellationToken consumer) {
+        consumers.incrementAndGet();
+        consumer.onCancel(() -> {
+            if (consumers.decrementAndGet() == 0) {
+                cancel();
+            }
+        });
+    }
+}
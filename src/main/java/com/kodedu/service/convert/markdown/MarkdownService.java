@@ -2,10 +2,13 @@ package com.kodedu.service.convert.markdown;
 
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.other.Current;
+import com.kodedu.service.Lane;
 import com.kodedu.service.ThreadService;
+import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
@@ -16,8 +19,14 @@ import java.io.InputStreamReader;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
@@ -31,32 +40,35 @@ public class MarkdownService {
 
     private final Current current;
     private final ThreadService threadService;
-    private final ScriptEngine scriptEngine;
+    private final NashornScriptEngineFactory scriptEngineFactory;
     private final CompletableFuture completableFuture = new CompletableFuture();
     private final ApplicationController controller;
 
+    // Each context owns its own Nashorn global, a context is used by one thread at a time
+    private final BlockingQueue<Invocable> enginePool;
+    private final AtomicLong requestSequence = new AtomicLong();
+    // version of the latest request of each key, removed when that request completes
+    private final Map<String, Long> latestRequests = new ConcurrentHashMap<>();
+
     @Autowired
-    public MarkdownService(Current current, ThreadService threadService, ScriptEngine scriptEngine, ApplicationController controller) {
+    public MarkdownService(Current current, ThreadService threadService, NashornScriptEngineFactory scriptEngineFactory,
+                           ApplicationController controller, @Value("${application.markdown.pool.size:2}") int poolSize) {
         this.current = current;
         this.threadService = threadService;
-        this.scriptEngine = scriptEngine;
+        this.scriptEngineFactory = scriptEngineFactory;
         this.controller = controller;
+        this.enginePool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
 
         completableFuture.runAsync(() -> {
             try {
-                List<String> scripts = Arrays.asList("marked.js", "marked-extension.js");
-
-                Path configPath = controller.getConfigPath();
+                // First context is enough to start serving, the rest joins the pool when ready
+                enginePool.offer(createEngine());
+                completableFuture.complete(null);
 
-                for (String script : scripts) {
-                    Path resolve = configPath.resolve("public/js").resolve(script);
-                    try (FileInputStream fileInputStream = new FileInputStream(resolve.toFile());
-                         InputStreamReader is = new InputStreamReader(fileInputStream, "UTF-8");) {
-                        scriptEngine.eval(is);
-                    }
+                for (int i = 1; i < poolSize; i++) {
+                    enginePool.offer(createEngine());
                 }
 
-                completableFuture.complete(null);
             } catch (Exception e) {
                 logger.error("Could not evaluate initial javascript", e);
                 completableFuture.complete(e);
@@ -64,6 +76,31 @@ public class MarkdownService {
         }, threadService.executor());
     }
 
+    private Invocable createEngine() throws Exception {
+
+        ScriptEngine scriptEngine = scriptEngineFactory.getScriptEngine();
+
+        List<String> scripts = Arrays.asList("marked.js", "marked-extension.js");
+
+        Path configPath = controller.getConfigPath();
+
+        for (String script : scripts) {
+            Path resolve = configPath.resolve("public/js").resolve(script);
+            try (FileInputStream fileInputStream = new FileInputStream(resolve.toFile());
+                 InputStreamReader is = new InputStreamReader(fileInputStream, "UTF-8");) {
+                scriptEngine.eval(is);
+            }
+        }
+
+        Invocable invocable = (Invocable) scriptEngine;
+
+        // warm up the context before it serves the first keystroke
+        invocable.invokeFunction("markdownToAsciidoc", "# Warm up\n\n* item\n\n`code`");
+        invocable.invokeFunction("markdownToHtml", "# Warm up\n\n* item\n\n`code`");
+
+        return invocable;
+    }
+
     public void convertToAsciidoc(String content, Consumer<String>... next) {
 
         threadService.runTaskLater(() -> {
@@ -71,21 +108,80 @@ public class MarkdownService {
             if (Objects.isNull(content))
                 return;
 
-            completableFuture.join();
-
-            Object eval = "";
+            String eval = "";
             try {
-                Invocable invocable = (Invocable) scriptEngine;
-                eval = invocable.invokeFunction("markdownToAsciidoc", content);
+                eval = invoke("markdownToAsciidoc", content);
             } catch (Exception e) {
                 logger.error("Problem occured while converting Asciidoc to Markdown", e);
             } finally {
                 for (Consumer<String> n : next) {
-                    n.accept((String) eval);
+                    n.accept(eval);
+                }
+            }
+        });
+
+    }
+
+    /**
+     * Converts markdown to asciidoc, only the latest request of the given key reaches to next
+     */
+    public void convertToAsciidoc(String key, String content, Consumer<String> next) {
+        convertLatest("markdownToAsciidoc", key, content, next);
+    }
+
+    /**
+     * Converts markdown directly to html, only the latest request of the given key reaches to next
+     */
+    public void convertToHtml(String key, String content, Consumer<String> next) {
+        convertLatest("markdownToHtml", key, content, next);
+    }
+
+    private void convertLatest(String functionName, String key, String content, Consumer<String> next) {
+
+        if (Objects.isNull(content))
+            return;
+
+        // versions are unique across keys, so a removed key starting again never matches an older request
+        long version = requestSequence.incrementAndGet();
+        latestRequests.put(key, version);
+
+        threadService.runTaskLater(Lane.RENDER, () -> {
+            try {
+                if (!isLatest(key, version)) {
+                    return;
+                }
+
+                String eval = invoke(functionName, content);
+                if (isLatest(key, version)) {
+                    next.accept(eval);
                 }
+            } catch (Exception e) {
+                logger.error("Problem occured while converting Markdown", e);
+            } finally {
+                latestRequests.remove(key, version);
             }
         });
+    }
+
+    private boolean isLatest(String key, long version) {
+        return Objects.equals(latestRequests.get(key), version);
+    }
+
+    private String invoke(String functionName, String content) throws Exception {
+
+        completableFuture.join();
+
+        Invocable invocable = enginePool.poll(60, TimeUnit.SECONDS);
+
+        if (Objects.isNull(invocable)) {
+            throw new IllegalStateException("There is no available markdown engine");
+        }
 
+        try {
+            return (String) invocable.invokeFunction(functionName, content);
+        } finally {
+            enginePool.offer(invocable);
+        }
     }
 
 }
@@ -1,15 +1,9 @@
 package com.kodedu.service.convert.pdf;
 
 import com.kodedu.controller.ApplicationController;
-import com.kodedu.other.Current;
-import com.kodedu.other.ExtensionFilters;
 import com.kodedu.other.IOHelper;
-import com.kodedu.service.DirectoryService;
-import com.kodedu.service.PathResolverService;
-import com.kodedu.service.ThreadService;
-import com.kodedu.service.convert.DocumentConverter;
-import com.kodedu.service.convert.docbook.DocBookConverter;
-import com.kodedu.service.ui.IndikatorService;
+import com.kodedu.service.convert.export.CancellableFilter;
+import com.kodedu.service.convert.export.CancellationToken;
 import org.apache.fop.apps.Fop;
 import org.apache.fop.apps.FopFactory;
 import org.apache.fop.apps.FormattingResults;
@@ -30,101 +24,71 @@ import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Objects;
-import java.util.function.Consumer;
-
-import static java.nio.file.StandardOpenOption.*;
 
 /**
  * Created by usta on 09.04.2015.
  */
 @Component
-public class PdfBookConverter implements DocumentConverter<String> {
+public class PdfBookConverter {
 
     private final Logger logger = LoggerFactory.getLogger(PdfBookConverter.class);
 
     private final ApplicationController asciiDocController;
-    private final DocBookConverter docBookConverter;
-    private final IndikatorService indikatorService;
-    private final ThreadService threadService;
-    private final DirectoryService directoryService;
-    private final Current current;
-    private final PathResolverService pathResolverService;
     private FopFactory fopFactory;
 
     @Autowired
-    public PdfBookConverter(final ApplicationController asciiDocController, final DocBookConverter docBookConverter,
-                            final IndikatorService indikatorService,
-                            final ThreadService threadService, final DirectoryService directoryService, final Current current, PathResolverService pathResolverService) {
+    public PdfBookConverter(final ApplicationController asciiDocController) {
         this.asciiDocController = asciiDocController;
-        this.docBookConverter = docBookConverter;
-        this.indikatorService = indikatorService;
-        this.threadService = threadService;
-        this.directoryService = directoryService;
-        this.current = current;
-        this.pathResolverService = pathResolverService;
     }
 
+    /**
+     * Transforms the docbook to FO and streams it to FOP, the FO is never kept. Both the docbook parsing and the
+     * FO stream stop once the token is cancelled. The pdf is written next to the target and replaces it only when
+     * complete, so a failed export keeps the previous pdf.
+     */
+    public void writePdf(Source docbook, Path pdfPath, CancellationToken token) throws Exception {
 
-    @Override
-    public void convert(boolean askPath, Consumer<String>... nextStep) {
-
-        final Path currentTabPath = current.currentPath().get();
-        final Path currentTabPathDir = currentTabPath.getParent();
         final Path configPath = asciiDocController.getConfigPath();
+        final Path partPath = Files.createTempFile(pdfPath.toAbsolutePath().getParent(), pdfPath.getFileName().toString(), ".part");
 
-        threadService.runActionLater(() -> {
-
-            final Path pdfPath = directoryService.getSaveOutputPath(ExtensionFilters.PDF, askPath);
-
-            docBookConverter.convert(false, docbook -> {
-
-                indikatorService.startProgressBar();
-                logger.debug("PDF conversion started");
-
-                final Path docbookTempfile = IOHelper.createTempFile(currentTabPathDir, ".xml");
-                IOHelper.writeToFile(docbookTempfile, docbook, CREATE, WRITE, TRUNCATE_EXISTING);
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(partPath.toFile()));) {
+                // Setup XSLT
+                TransformerFactory factory = TransformerFactory.newInstance();
+                Transformer transformer = factory.newTransformer(new StreamSource(configPath.resolve("docbook-config/fo-pdf.xsl").toFile()));
+                transformer.setParameter("highlight.xslthl.config", configPath.resolve("docbook-config/xslthl-config.xml").toUri().toASCIIString());
+                transformer.setParameter("admon.graphics.path", configPath.resolve("docbook/images/").toUri().toASCIIString());
+                transformer.setParameter("callout.graphics.path", configPath.resolve("docbook/images/callouts/").toUri().toASCIIString());
 
-                try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(pdfPath.toFile()));) {
-                    // Setup XSLT
-                    TransformerFactory factory = TransformerFactory.newInstance();
-                    Transformer transformer = factory.newTransformer(new StreamSource(configPath.resolve("docbook-config/fo-pdf.xsl").toFile()));
-                    transformer.setParameter("highlight.xslthl.config", configPath.resolve("docbook-config/xslthl-config.xml").toUri().toASCIIString());
-                    transformer.setParameter("admon.graphics.path", configPath.resolve("docbook/images/").toUri().toASCIIString());
-                    transformer.setParameter("callout.graphics.path", configPath.resolve("docbook/images/callouts/").toUri().toASCIIString());
+                Fop fop = fopFactory(configPath).newFop(MimeConstants.MIME_PDF, outputStream);
 
-                    if (Objects.isNull(fopFactory)) {
-                        fopFactory = FopFactory.newInstance(configPath.resolve("docbook-config/fop.xconf.xml").toFile());
-                    }
+                // Resulting SAX events (the generated FO) must be piped through to FOP
+                Result res = new SAXResult(CancellableFilter.handler(fop.getDefaultHandler(), token));
 
-                    Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, outputStream);
+                // Step 6: Start XSLT transformation and FOP processing
+                transformer.transform(CancellableFilter.source(docbook, token), res);
 
-                    // Setup input for XSLT transformation
-                    Source src = new StreamSource(docbookTempfile.toFile());
+                token.throwIfCancelled();
 
-                    // Resulting SAX events (the generated FO) must be piped through to FOP
-                    Result res = new SAXResult(fop.getDefaultHandler());
+                // Result processing
+                FormattingResults foResults = fop.getResults();
 
-                    // Step 6: Start XSLT transformation and FOP processing
-                    transformer.transform(src, res);
+                logger.info("Generated {} pages in total.", foResults.getPageCount());
+            }
 
-                    Files.deleteIfExists(docbookTempfile);
-
-                    // Result processing
-                    FormattingResults foResults = fop.getResults();
-
-                    logger.info("Generated {} pages in total.", foResults.getPageCount());
-
-                } catch (Exception e) {
-                    logger.error("Problem occured while converting to PDF", e);
-                } finally {
-                    indikatorService.stopProgressBar();
-                    logger.debug("PDF conversion ended");
-
-                    asciiDocController.addRemoveRecentList(pdfPath);
-                }
-            });
-        });
+            Files.move(partPath, pdfPath, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            // only left behind when the export failed
+            IOHelper.deleteIfExists(partPath);
+        }
+    }
 
+    private synchronized FopFactory fopFactory(Path configPath) throws Exception {
+        if (Objects.isNull(fopFactory)) {
+            fopFactory = FopFactory.newInstance(configPath.resolve("docbook-config/fop.xconf.xml").toFile());
+        }
+        return fopFactory;
     }
 }
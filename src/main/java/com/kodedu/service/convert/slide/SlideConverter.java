@@ -5,16 +5,22 @@ import com.kodedu.controller.ApplicationController;
 import com.kodedu.other.Current;
 import com.kodedu.service.DirectoryService;
 import com.kodedu.service.ThreadService;
+import com.kodedu.service.metrics.Counter;
+import com.kodedu.service.metrics.MetricRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Created by usta on 09.04.2015.
+ * <p>
+ * A shown deck is patched with the slides changed since the previous render, so the current slide and its
+ * transitions are kept. The deck is replaced as a whole when anything outside the slides changes.
  */
 @Component
 public class SlideConverter {
@@ -24,7 +30,11 @@ public class SlideConverter {
     private final Current current;
     private final SlidePane slidePane;
     private final Pattern pattern = Pattern.compile(":slide-type:.*(deckjs|revealjs)", Pattern.MULTILINE);
-    private String rendered;
+    private volatile String rendered;
+    private volatile SlideDeck deck;
+    private final Counter patchedUpdates;
+    private final Counter fullUpdates;
+    private final Counter patchedSlides;
 
     @Value("${application.slide.url}")
     private String slideUrl;
@@ -32,12 +42,16 @@ public class SlideConverter {
 
 
     @Autowired
-    public SlideConverter(final ApplicationController controller, final ThreadService threadService, final Current current, SlidePane slidePane, DirectoryService directoryService) {
+    public SlideConverter(final ApplicationController controller, final ThreadService threadService, final Current current, SlidePane slidePane, DirectoryService directoryService,
+                          MetricRegistry metricRegistry) {
         this.controller = controller;
         this.threadService = threadService;
         this.current = current;
         this.slidePane = slidePane;
         this.directoryService = directoryService;
+        this.patchedUpdates = metricRegistry.counter("afx_slide_updates_total", "Slide preview updates", "kind", "patch");
+        this.fullUpdates = metricRegistry.counter("afx_slide_updates_total", "Slide preview updates", "kind", "full");
+        this.patchedSlides = metricRegistry.counter("afx_slide_patched_total", "Slides sent by patch updates");
     }
 
     public String currentType() {
@@ -53,9 +67,16 @@ public class SlideConverter {
     }
 
     public void convert(String rendered, Consumer<String>... nextStep) {
+
+        // hashed in the render thread
+        final SlideDeck deck = SlideDeck.parse(rendered);
+
         threadService.runActionLater(() -> {
 
+            final SlideDeck previous = this.deck;
+
             this.rendered = rendered;
+            this.deck = deck;
 
             String url = String.format(slideUrl, controller.getPort(), directoryService.interPath());
 
@@ -63,7 +84,15 @@ public class SlideConverter {
                 slidePane.load(url);
             } else {
                 threadService.runActionLater(() -> {
-                    slidePane.replaceSlides(rendered);
+                    SlidePatch patch = deck.diff(previous);
+                    if (Objects.isNull(patch)) {
+                        fullUpdates.increment();
+                        slidePane.replaceSlides(rendered);
+                    } else if (!patch.isEmpty()) {
+                        patchedUpdates.increment();
+                        patchedSlides.add(patch.getSlides().size());
+                        slidePane.patchSlides(patch, rendered);
+                    }
                 });
             }
 
@@ -76,4 +105,11 @@ public class SlideConverter {
     public String getRendered() {
         return rendered;
     }
+
+    /**
+     * Slides of the last render, null before the first one
+     */
+    public SlideDeck getDeck() {
+        return deck;
+    }
 }
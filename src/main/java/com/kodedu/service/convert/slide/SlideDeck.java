@@ -0,0 +1,161 @@
+package com.kodedu.service.convert.slide;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rendered reveal.js or deck.js deck split into its slides.
+ * <p>
+ * Slides are the top level sections of the slides container, each is hashed so two renders can be compared slide
+ * by slide. A deck which can't be split has no slides and is always replaced as a whole.
+ */
+public final class SlideDeck {
+
+    private static final Pattern CONTAINER = Pattern.compile(
+            "<div\\b[^>]*\\bclass=\"(?:[^\"]*\\s)?(?:slides|deck-container)(?:\\s[^\"]*)?\"[^>]*>");
+    private static final Pattern SECTION_TAG = Pattern.compile("<(/?)section\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+
+    private final String head;
+    private final String tail;
+    private final List<String> slides;
+    private final List<String> hashes;
+
+    private SlideDeck(String head, String tail, List<String> slides) {
+        this.head = head;
+        this.tail = tail;
+        this.slides = Collections.unmodifiableList(slides);
+        List<String> hashes = new ArrayList<>(slides.size());
+        for (String slide : slides) {
+            hashes.add(hash(slide));
+        }
+        this.hashes = Collections.unmodifiableList(hashes);
+    }
+
+    public static SlideDeck parse(String rendered) {
+
+        Matcher container = CONTAINER.matcher(rendered);
+
+        if (!container.find()) {
+            return unsplit(rendered);
+        }
+
+        List<String> slides = new ArrayList<>();
+        Matcher tag = SECTION_TAG.matcher(rendered);
+        tag.region(container.end(), rendered.length());
+
+        int depth = 0;
+        int slideStart = -1;
+        int first = -1;
+        int last = container.end();
+
+        while (tag.find()) {
+
+            if (tag.group(1).isEmpty()) {
+                if (depth++ == 0) {
+                    // only whitespace may be between slides, anything else is lost by patching
+                    if (first >= 0 && !rendered.substring(last, tag.start()).trim().isEmpty()) {
+                        return unsplit(rendered);
+                    }
+                    slideStart = tag.start();
+                }
+                continue;
+            }
+
+            // closes the container's parent
+            if (depth == 0) {
+                break;
+            }
+
+            if (--depth == 0) {
+                slides.add(rendered.substring(slideStart, tag.end()));
+                if (first < 0) {
+                    first = slideStart;
+                }
+                last = tag.end();
+            }
+        }
+
+        if (depth != 0 || slides.isEmpty()) {
+            return unsplit(rendered);
+        }
+
+        return new SlideDeck(rendered.substring(0, first), rendered.substring(last), slides);
+    }
+
+    private static SlideDeck unsplit(String rendered) {
+        return new SlideDeck(rendered, "", new ArrayList<>());
+    }
+
+    /**
+     * Smallest range of slides which turns the previous deck into this one
+     *
+     * @return null when the deck has to be replaced as a whole
+     */
+    public SlidePatch diff(SlideDeck previous) {
+
+        if (Objects.isNull(previous) || slides.isEmpty() || previous.slides.isEmpty()
+                || !head.equals(previous.head) || !tail.equals(previous.tail)) {
+            return null;
+        }
+
+        int size = hashes.size();
+        int previousSize = previous.hashes.size();
+
+        int prefix = 0;
+        while (prefix < size && prefix < previousSize && hashes.get(prefix).equals(previous.hashes.get(prefix))) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        while (suffix < size - prefix && suffix < previousSize - prefix
+                && hashes.get(size - 1 - suffix).equals(previous.hashes.get(previousSize - 1 - suffix))) {
+            suffix++;
+        }
+
+        return new SlidePatch(prefix, previousSize - prefix - suffix, previousSize, slides.subList(prefix, size - suffix));
+    }
+
+    public int size() {
+        return slides.size();
+    }
+
+    public String getSlide(int index) {
+        return slides.get(index);
+    }
+
+    public String getHash(int index) {
+        return hashes.get(index);
+    }
+
+    /**
+     * Slide hashes in order, viewers fetch the slides whose hash changed
+     */
+    public JsonObject toJson() {
+        JsonArrayBuilder hashArray = Json.createArrayBuilder();
+        hashes.forEach(hashArray::add);
+        return Json.createObjectBuilder()
+                .add("count", hashes.size())
+                .add("hashes", hashArray)
+                .build();
+    }
+
+    private static String hash(String slide) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return new BigInteger(1, digest.digest(slide.getBytes(StandardCharsets.UTF_8))).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.kodedu.service.convert.slide;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import java.util.List;
+
+/**
+ * Replaces a range of slides in a running deck
+ */
+public final class SlidePatch {
+
+    private final int from;
+    private final int remove;
+    private final int count;
+    private final List<String> slides;
+
+    /**
+     * @param from   index of the first changed slide
+     * @param remove slides removed from the shown deck
+     * @param count  slides of the shown deck, a deck with another count isn't patched
+     * @param slides slides inserted at from
+     */
+    SlidePatch(int from, int remove, int count, List<String> slides) {
+        this.from = from;
+        this.remove = remove;
+        this.count = count;
+        this.slides = slides;
+    }
+
+    public boolean isEmpty() {
+        return remove == 0 && slides.isEmpty();
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getRemove() {
+        return remove;
+    }
+
+    public List<String> getSlides() {
+        return slides;
+    }
+
+    public String toJson() {
+        JsonArrayBuilder slideArray = Json.createArrayBuilder();
+        slides.forEach(slideArray::add);
+        return Json.createObjectBuilder()
+                .add("from", from)
+                .add("remove", remove)
+                .add("count", count)
+                .add("slides", slideArray)
+                .build()
+                .toString();
+    }
+}
@@ -4,110 +4,342 @@ import com.kodedu.config.ExtensionConfigBean;
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.other.Current;
 import com.kodedu.other.IOHelper;
-import com.kodedu.other.TrimWhite;
+import com.kodedu.service.Lane;
 import com.kodedu.service.ThreadService;
 import com.kodedu.service.cache.BinaryCacheService;
+import com.kodedu.service.flight.FlightEvent;
+import com.kodedu.service.flight.FlightEventType;
+import com.kodedu.service.flight.FlightRecorderService;
 import javafx.concurrent.Worker;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.image.WritableImage;
-import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
 import netscape.javascript.JSObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Created by usta on 25.12.2014.
+ * Renders MathJax formulas into images.
+ * <p>
+ * Formulas requested during a render pass are gathered into a batch and typeset with one MathJax pass
+ * in a small pool of off-screen renderers. Formulas targeting svg files are written as svg when the
+ * configured MathJax has svg output. Others are laid out one under another, so a single snapshot covers
+ * many formulas and each is cropped by its bounds reported from the page, without scanning for white pixels.
  */
+@Lazy
 @Component
 public class MathJaxService {
 
     private final Logger logger = LoggerFactory.getLogger(MathJaxService.class);
 
+    private static final int BATCH_MIN_CHUNK = 8;
+    private static final int IMAGE_PADDING = 2;
+
     private final ApplicationController controller;
     private final Current current;
     private final ThreadService threadService;
     private final BinaryCacheService binaryCacheService;
     private final ExtensionConfigBean extensionConfigBean;
-    private WebView webView;
-    private boolean initialized;
+    private final FlightRecorderService flightRecorderService;
+
+    // accessed in FX thread only
+    private final List<MathJaxRenderer> renderers = new ArrayList<>();
+    private final Map<String, Formula> pending = new LinkedHashMap<>();
+    private final Map<String, MathBatch> batches = new LinkedHashMap<>();
+    private int nextRenderer;
+
+    // image target -> hash of the formula being rendered into it
+    private final Map<String, Integer> rendering = new ConcurrentHashMap<>();
+    private final AtomicLong batchIds = new AtomicLong();
 
     @Value("${application.mathjax.url}")
     private String mathjaxUrl;
 
+    @Value("${application.mathjax.pool.size:2}")
+    private int poolSize;
+
+    @Value("${application.mathjax.batch-delay:50}")
+    private long batchDelay;
+
     @Autowired
-    public MathJaxService(final ApplicationController controller, final Current current, ThreadService threadService, BinaryCacheService binaryCacheService, ExtensionConfigBean extensionConfigBean) {
+    public MathJaxService(final ApplicationController controller, final Current current, ThreadService threadService, BinaryCacheService binaryCacheService, ExtensionConfigBean extensionConfigBean,
+                          FlightRecorderService flightRecorderService) {
         this.controller = controller;
         this.current = current;
         this.threadService = threadService;
         this.binaryCacheService = binaryCacheService;
         this.extensionConfigBean = extensionConfigBean;
+        this.flightRecorderService = flightRecorderService;
     }
 
-    private void initialize(Runnable... runnable) {
-
-        webEngine().getLoadWorker().stateProperty().addListener((observableValue1, state, state2) -> {
-            if (state2 == Worker.State.SUCCEEDED) {
-                JSObject window = getWindow();
-                if (window.getMember("afx").equals("undefined"))
-                    window.setMember("afx", controller);
-
-                if (!initialized) {
-                    for (Runnable run : runnable) {
-                        run.run();
-                    }
-                }
-
-                initialized = true;
+    public void reload() {
+        // nothing to reload until the first formula is processed
+        threadService.runActionLater(() -> {
+            for (MathJaxRenderer renderer : renderers) {
+                renderer.load();
             }
         });
-
-        this.load();
     }
 
-    private void load() {
+    public void processFormula(String formula, String imagesDir, String imageTarget) {
         threadService.runActionLater(() -> {
-            webEngine().load(String.format(mathjaxUrl, controller.getPort()));
+            enqueue(formula, imagesDir, imageTarget);
         });
     }
 
-    public void reload() {
-        this.load();
+    private void enqueue(String formula, String imagesDir, String imageTarget) {
+
+        Objects.requireNonNull(imageTarget);
+
+        boolean cachedResource = imageTarget.contains("/afx/cache");
+        boolean svg = imageTarget.endsWith(".svg");
+
+        if (!imageTarget.endsWith(".png") && !svg && !cachedResource)
+            return;
+
+        int hashCode = (imageTarget + imagesDir + formula).hashCode();
+
+        Integer cacheHit = current.getCache().get(imageTarget);
+        Integer renderingHash = rendering.get(imageTarget);
+
+        FlightEvent flightEvent = flightRecorderService.begin(FlightEventType.DIAGRAM, "mathjax")
+                .path(imageTarget)
+                .size(formula.length());
+
+        if ((Objects.nonNull(cacheHit) && hashCode == cacheHit) || (Objects.nonNull(renderingHash) && hashCode == renderingHash)) {
+            flightEvent.cacheHit(true).end();
+            return;
+        }
+
+        flightEvent.cacheHit(false);
+
+        Path path = current.currentTab().getParentOrWorkdir();
+
+        Formula previous = pending.put(imageTarget, new Formula(formula, imageTarget, hashCode, cachedResource, svg, path, flightEvent));
+
+        if (Objects.nonNull(previous)) {
+            previous.flightEvent.end();
+        }
+
+        if (pending.size() == 1 && Objects.isNull(previous)) {
+            // formulas of a render pass arrive one by one, wait a little to typeset them together
+            threadService.schedule(() -> threadService.runActionLater(this::flush), batchDelay, TimeUnit.MILLISECONDS);
+        }
     }
 
-    private WebEngine webEngine() {
-        return getWebView().getEngine();
+    private void flush() {
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Formula> formulas = new ArrayList<>(pending.values());
+        pending.clear();
+
+        for (Formula formula : formulas) {
+            rendering.put(formula.imageTarget, formula.hashCode);
+        }
+
+        int size = Math.max(1, poolSize);
+        int chunk = Math.max(BATCH_MIN_CHUNK, (formulas.size() + size - 1) / size);
+
+        for (int from = 0; from < formulas.size(); from += chunk) {
+            List<Formula> part = new ArrayList<>(formulas.subList(from, Math.min(formulas.size(), from + chunk)));
+            MathBatch batch = new MathBatch(String.valueOf(batchIds.incrementAndGet()), nextRenderer(), part);
+            batches.put(batch.id, batch);
+            batch.renderer.typeset(batch);
+        }
+
+        logger.debug("MathJax batch of {} formulas is started", formulas.size());
     }
 
-    public void processFormula(String formula, String imagesDir, String imageTarget) {
+    private MathJaxRenderer nextRenderer() {
 
-        threadService.runActionLater(() -> {
+        int size = Math.max(1, poolSize);
+        int index = nextRenderer++ % size;
 
-            if (initialized) {
-                getWindow().call("processFormula", formula, imagesDir, imageTarget);
-            } else {
-                initialize(() -> {
-                    getWindow().call("processFormula", formula, imagesDir, imageTarget);
-                });
+        if (index >= renderers.size()) {
+            renderers.add(new MathJaxRenderer());
+            index = renderers.size() - 1;
+        }
+
+        return renderers.get(index);
+    }
+
+    /**
+     * Called from mathjax.html when a page of typeset formulas is on screen,
+     * bounds are [index, left, top, width, height] entries in css pixels
+     */
+    public void snapshotFormulas(String batchId, String bounds) {
+
+        MathBatch batch = batches.get(batchId);
+
+        if (Objects.isNull(batch)) {
+            return;
+        }
+
+        WebView webView = batch.renderer.webView;
+        WritableImage writableImage = webView.snapshot(new SnapshotParameters(), null);
+        double zoom = webView.getZoom();
+
+        List<Formula> formulas = new ArrayList<>();
+        List<double[]> rectangles = new ArrayList<>();
+
+        try (JsonReader reader = Json.createReader(new StringReader(bounds))) {
+            for (JsonValue value : reader.readArray()) {
+                JsonArray entry = (JsonArray) value;
+                Formula formula = batch.claim(entry.getInt(0));
+                if (Objects.nonNull(formula)) {
+                    formulas.add(formula);
+                    rectangles.add(new double[]{
+                            entry.getJsonNumber(1).doubleValue() * zoom, entry.getJsonNumber(2).doubleValue() * zoom,
+                            entry.getJsonNumber(3).doubleValue() * zoom, entry.getJsonNumber(4).doubleValue() * zoom});
+                }
             }
+        }
+
+        threadService.runTaskLater(Lane.DIAGRAM, () -> {
+
+            BufferedImage page = SwingFXUtils.fromFXImage(writableImage, null);
+
+            for (int i = 0; i < formulas.size(); i++) {
+                Formula formula = formulas.get(i);
+                try {
+                    writePng(formula, crop(page, rectangles.get(i)));
+                } catch (Exception e) {
+                    logger.error("Problem occured while generating MathJax png", e);
+                } finally {
+                    formula.finish();
+                }
+            }
+        });
+    }
+
+    /**
+     * Called from mathjax.html with the svg output of a formula
+     */
+    public void svgFormula(String batchId, String index, String svg) {
 
+        MathBatch batch = batches.get(batchId);
+
+        if (Objects.isNull(batch)) {
+            return;
+        }
+
+        Formula formula = batch.claim(Integer.parseInt(index));
+
+        if (Objects.isNull(formula)) {
+            return;
+        }
+
+        threadService.runTaskLater(Lane.DIAGRAM, () -> {
+            try {
+                Path imagePath = formula.path.resolve(formula.imageTarget);
+                IOHelper.createDirectories(imagePath.getParent());
+                IOHelper.writeToFile(imagePath, svg.getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+                current.getCache().put(formula.imageTarget, formula.hashCode);
+                logger.debug("MathJax extension is ended for {}", formula.imageTarget);
+
+                threadService.runActionLater(() -> {
+                    controller.clearImageCache(imagePath);
+                });
+            } catch (Exception e) {
+                logger.error("Problem occured while generating MathJax svg", e);
+            } finally {
+                formula.finish();
+            }
         });
     }
 
-    public JSObject getWindow() {
-        return (JSObject) webEngine().executeScript("window");
+    /**
+     * Called from mathjax.html when the batch is over, formulas not delivered are given up
+     */
+    public void completeFormulas(String batchId) {
+
+        MathBatch batch = batches.remove(batchId);
+
+        if (Objects.nonNull(batch)) {
+            batch.abandon();
+        }
     }
 
-    public WebView getWebView() {
-        if (Objects.isNull(webView)) {
+    private BufferedImage crop(BufferedImage page, double[] rectangle) {
+
+        int x = Math.max(0, (int) Math.floor(rectangle[0]) - IMAGE_PADDING);
+        int y = Math.max(0, (int) Math.floor(rectangle[1]) - IMAGE_PADDING);
+        int width = Math.min(page.getWidth() - x, (int) Math.ceil(rectangle[2]) + IMAGE_PADDING * 2);
+        int height = Math.min(page.getHeight() - y, (int) Math.ceil(rectangle[3]) + IMAGE_PADDING * 2);
+
+        if (width <= 0 || height <= 0) {
+            throw new IllegalStateException("Formula is out of the renderer bounds");
+        }
+
+        // copy, so the page raster is not kept alive by the cached image
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.drawImage(page.getSubimage(x, y, width, height), 0, 0, null);
+        graphics.dispose();
+
+        return image;
+    }
+
+    private void writePng(Formula formula, BufferedImage image) {
+
+        if (!formula.cachedResource) {
+            Path imagePath = formula.path.resolve(formula.imageTarget);
+            IOHelper.createDirectories(imagePath.getParent());
+            IOHelper.imageWrite(image, "png", imagePath.toFile());
+            threadService.runActionLater(() -> {
+                controller.clearImageCache(imagePath);
+            });
+        } else {
+            binaryCacheService.putBinary(formula.imageTarget, image);
+            threadService.runActionLater(() -> {
+                controller.clearImageCache(formula.imageTarget);
+            });
+        }
+
+        current.getCache().put(formula.imageTarget, formula.hashCode);
+        logger.debug("MathJax extension is ended for {}", formula.imageTarget);
+    }
+
+    private final class MathJaxRenderer {
+
+        private final WebView webView;
+        private final List<MathBatch> waiting = new ArrayList<>();
+        private boolean loaded;
+
+        private MathJaxRenderer() {
             webView = new WebView();
             webView.setMaxHeight(1000);
             webView.setPrefHeight(1000);
@@ -117,63 +349,140 @@ public class MathJaxService {
             webView.setLayoutY(-22000);
             webView.setZoom(extensionConfigBean.getDefaultImageZoom());
             controller.getRootAnchor().getChildren().add(webView);
+
+            webView.getEngine().getLoadWorker().stateProperty().addListener((observableValue, state, state2) -> {
+                if (state2 == Worker.State.SUCCEEDED) {
+                    JSObject window = getWindow();
+                    if (window.getMember("afx").equals("undefined"))
+                        window.setMember("afx", controller);
+
+                    loaded = true;
+
+                    for (MathBatch batch : waiting) {
+                        send(batch);
+                    }
+                    waiting.clear();
+                }
+            });
+
+            load();
         }
-        return webView;
-    }
 
-    public void snapshotFormula(String formula, String imagesDir, String imageTarget) {
+        private void load() {
+
+            loaded = false;
+
+            // batches of the previous page never complete
+            List<MathBatch> lost = new ArrayList<>();
+            for (MathBatch batch : batches.values()) {
+                if (batch.renderer == this && !waiting.contains(batch)) {
+                    lost.add(batch);
+                }
+            }
+            for (MathBatch batch : lost) {
+                completeFormulas(batch.id);
+            }
+
+            webView.getEngine().load(String.format(mathjaxUrl, controller.getPort()));
+        }
+
+        private void typeset(MathBatch batch) {
+            if (loaded) {
+                send(batch);
+            } else {
+                waiting.add(batch);
+            }
+        }
+
+        private void send(MathBatch batch) {
+            try {
+                getWindow().call("processFormulas", batch.id, batch.toJson());
+            } catch (Exception e) {
+                logger.error("Problem occured while sending formulas to MathJax", e);
+                completeFormulas(batch.id);
+            }
+        }
 
-        try {
-            Objects.requireNonNull(imageTarget);
+        private JSObject getWindow() {
+            return (JSObject) webView.getEngine().executeScript("window");
+        }
+    }
 
-            boolean cachedResource = imageTarget.contains("/afx/cache");
+    private final class MathBatch {
 
-            if (!imageTarget.endsWith(".png") && !cachedResource)
-                return;
+        private final String id;
+        private final MathJaxRenderer renderer;
+        private final List<Formula> formulas;
 
-            Integer cacheHit = current.getCache().get(imageTarget);
+        private MathBatch(String id, MathJaxRenderer renderer, List<Formula> formulas) {
+            this.id = id;
+            this.renderer = renderer;
+            this.formulas = formulas;
+        }
 
-            int hashCode = (imageTarget + imagesDir + formula).hashCode();
+        private String toJson() {
+            JsonArrayBuilder arrayBuilder = Json.createArrayBuilder();
+            for (Formula formula : formulas) {
+                arrayBuilder.add(Json.createObjectBuilder()
+                        .add("formula", formula.formula)
+                        .add("svg", formula.svg));
+            }
+            return arrayBuilder.build().toString();
+        }
 
-            if (Objects.isNull(cacheHit) || hashCode != cacheHit) {
+        private Formula claim(int index) {
 
-                WritableImage writableImage = getWebView().snapshot(new SnapshotParameters(), null);
-                BufferedImage bufferedImage = SwingFXUtils.fromFXImage(writableImage, null);
+            if (index < 0 || index >= formulas.size()) {
+                return null;
+            }
 
-                Path path = current.currentTab().getParentOrWorkdir();
+            Formula formula = formulas.get(index);
 
-                threadService.runTaskLater(() -> {
-                    try {
-                        TrimWhite trimWhite = new TrimWhite();
-                        BufferedImage trimmed = trimWhite.trim(bufferedImage);
-                        if (!cachedResource) {
-                            Path imagePath = path.resolve(imageTarget);
-                            IOHelper.createDirectories(imagePath.getParent());
-                            IOHelper.imageWrite(trimmed, "png", imagePath.toFile());
-                            threadService.runActionLater(() -> {
-                                controller.clearImageCache(imagePath);
-                            });
-                        } else {
-                            binaryCacheService.putBinary(imageTarget, trimmed);
-                            threadService.runActionLater(() -> {
-                                controller.clearImageCache(imageTarget);
-                            });
-                        }
+            if (formula.claimed) {
+                return null;
+            }
 
-                        current.getCache().put(imageTarget, hashCode);
-                        logger.debug("MathJax extension is ended for {}", imageTarget);
+            formula.claimed = true;
+            return formula;
+        }
 
-                    } catch (Exception e) {
-                        logger.error("Problem occured while generating MathJax png", e);
-                        throw new RuntimeException(e);
-                    }
-                });
+        private void abandon() {
+            for (Formula formula : formulas) {
+                if (!formula.claimed) {
+                    formula.claimed = true;
+                    logger.debug("MathJax couldn't render {}", formula.imageTarget);
+                    formula.finish();
+                }
             }
-        } catch (Exception e) {
-            logger.error("Problem occured while generating MathJax png", e);
-            throw e;
         }
+    }
 
+    private final class Formula {
+
+        private final String formula;
+        private final String imageTarget;
+        private final int hashCode;
+        private final boolean cachedResource;
+        private final boolean svg;
+        private final Path path;
+        private final FlightEvent flightEvent;
+
+        // FX thread only
+        private boolean claimed;
+
+        private Formula(String formula, String imageTarget, int hashCode, boolean cachedResource, boolean svg, Path path, FlightEvent flightEvent) {
+            this.formula = formula;
+            this.imageTarget = imageTarget;
+            this.hashCode = hashCode;
+            this.cachedResource = cachedResource;
+            this.svg = svg;
+            this.path = path;
+            this.flightEvent = flightEvent;
+        }
 
+        private void finish() {
+            rendering.remove(imageTarget, hashCode);
+            flightEvent.end();
+        }
     }
 }
@@ -5,8 +5,12 @@ import com.kodedu.controller.ApplicationController;
 import com.kodedu.other.Current;
 import com.kodedu.other.IOHelper;
 import com.kodedu.service.DirectoryService;
+import com.kodedu.service.Lane;
 import com.kodedu.service.ThreadService;
 import com.kodedu.service.cache.BinaryCacheService;
+import com.kodedu.service.flight.FlightEvent;
+import com.kodedu.service.flight.FlightEventType;
+import com.kodedu.service.flight.FlightRecorderService;
 import net.sourceforge.plantuml.FileFormat;
 import net.sourceforge.plantuml.FileFormatOption;
 import net.sourceforge.plantuml.FileSystem;
@@ -40,15 +44,18 @@ public class PlantUmlService {
     private final ExtensionConfigBean extensionConfigBean;
 
     private final DirectoryService directoryService;
+    private final FlightRecorderService flightRecorderService;
 
     @Autowired
-    public PlantUmlService(final Current current, final ApplicationController controller, final ThreadService threadService, BinaryCacheService binaryCacheService, ExtensionConfigBean extensionConfigBean, DirectoryService directoryService) {
+    public PlantUmlService(final Current current, final ApplicationController controller, final ThreadService threadService, BinaryCacheService binaryCacheService, ExtensionConfigBean extensionConfigBean, DirectoryService directoryService,
+                           FlightRecorderService flightRecorderService) {
         this.current = current;
         this.controller = controller;
         this.threadService = threadService;
         this.binaryCacheService = binaryCacheService;
         this.extensionConfigBean = extensionConfigBean;
         this.directoryService = directoryService;
+        this.flightRecorderService = flightRecorderService;
     }
 
     public void plantUml(String uml, String type, String imagesDir, String imageTarget, String nodename, String options) {
@@ -100,9 +107,17 @@ public class PlantUmlService {
 
         int hashCode = (imageTarget + imagesDir + type + uml + nodename + options).hashCode();
 
+        FlightEvent flightEvent = flightRecorderService.begin(FlightEventType.DIAGRAM, "plantuml")
+                .path(imageTarget)
+                .size(uml.length());
+
         if (nonNull(cacheHit))
-            if (hashCode == cacheHit)
+            if (hashCode == cacheHit) {
+                flightEvent.cacheHit(true).end();
                 return;
+            }
+
+        flightEvent.cacheHit(false);
 
         logger.debug("UML extension is started for {}", imageTarget);
 
@@ -117,7 +132,7 @@ public class PlantUmlService {
 
             FileFormat fileType = imageTarget.endsWith(".svg") ? FileFormat.SVG : FileFormat.PNG;
 
-            threadService.runTaskLater(() -> {
+            threadService.runTaskLater(Lane.DIAGRAM, () -> {
                 try {
 
                     reader.outputImage(os, new FileFormatOption(fileType));
@@ -136,6 +151,8 @@ public class PlantUmlService {
                     });
                 } catch (Exception e) {
                     logger.error("Problem occured while generating UML diagram", e);
+                } finally {
+                    flightEvent.end();
                 }
             });
 
@@ -0,0 +1,322 @@
+package com.kodedu.service.extension;
+
+import com.kodedu.config.ExtensionConfigBean;
+import com.kodedu.controller.ApplicationController;
+import com.kodedu.other.IOHelper;
+import com.kodedu.other.TrimWhite;
+import com.kodedu.service.Lane;
+import com.kodedu.service.ThreadService;
+import com.kodedu.service.cache.BinaryCacheService;
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+import javafx.scene.web.WebView;
+import netscape.javascript.JSObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Takes off-screen snapshots for the tree, chart and highlighted tree extensions.
+ * <p>
+ * Node snapshots are queued and taken in batches, limited per FX pulse so the scene is still rendered in between.
+ * Highlighted trees are rendered by a small pool of WebViews which load treeview.html once and are reused.
+ * Converting and encoding images always runs in the diagram lane.
+ */
+@Lazy
+@Component
+public class SnapshotService {
+
+    // max time spent on snapshots in a single FX pulse
+    private static final long PULSE_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+    // first render of a page waits for fonts and styles, reused pages are ready
+    private static final int FIRST_RENDER_DELAY = 500;
+    private static final int RENDER_DELAY = 50;
+
+    private final ApplicationController controller;
+    private final ThreadService threadService;
+    private final BinaryCacheService binaryCacheService;
+    private final ExtensionConfigBean extensionConfigBean;
+
+    private final ConcurrentLinkedQueue<NodeRequest> nodeRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    // accessed in FX thread only
+    private final List<TreeRenderer> treeRenderers = new ArrayList<>();
+    private final Deque<TreeRequest> treeRequests = new ArrayDeque<>();
+    private Pane snapshotPane;
+
+    @Value("${application.treeview.url}")
+    private String treeviewUrl;
+
+    @Value("${application.snapshot.pool.size:2}")
+    private int poolSize;
+
+    @Value("${application.snapshot.render-timeout:10000}")
+    private long renderTimeout;
+
+    @Autowired
+    public SnapshotService(ApplicationController controller, ThreadService threadService, BinaryCacheService binaryCacheService,
+                           ExtensionConfigBean extensionConfigBean) {
+        this.controller = controller;
+        this.threadService = threadService;
+        this.binaryCacheService = binaryCacheService;
+        this.extensionConfigBean = extensionConfigBean;
+    }
+
+    /**
+     * Snapshot of the node, which is attached to the scene only while the snapshot is taken, so scene styles apply
+     */
+    public CompletableFuture<BufferedImage> snapshot(Node node) {
+
+        NodeRequest request = new NodeRequest(node);
+        nodeRequests.offer(request);
+
+        if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drainNodeRequests);
+        }
+
+        return request.future;
+    }
+
+    /**
+     * Snapshot of a highlighted tree rendered by treeview.html, trimmed to its content
+     */
+    public CompletableFuture<BufferedImage> snapshotTree(String tree) {
+
+        TreeRequest request = new TreeRequest(tree);
+
+        threadService.runActionLater(() -> {
+            treeRequests.offer(request);
+            dispatchTreeRequests();
+        });
+
+        return request.future;
+    }
+
+    /**
+     * Writes the image as png to the image target, /afx/cache targets go to the binary cache. Runs in diagram lane.
+     */
+    public CompletableFuture<Void> saveImage(CompletableFuture<BufferedImage> image, Path root, String imagesDir, String imageTarget) {
+        return image.thenAcceptAsync(bufferedImage -> {
+            if (imageTarget.contains("/afx/cache")) {
+                binaryCacheService.putBinary(imageTarget, bufferedImage);
+                threadService.runActionLater(() -> {
+                    controller.clearImageCache(imageTarget);
+                });
+            } else {
+                Path imagePath = root.resolve(imageTarget);
+                IOHelper.createDirectories(root.resolve(imagesDir));
+                IOHelper.createDirectories(imagePath.getParent());
+                IOHelper.imageWrite(bufferedImage, "png", imagePath.toFile());
+                threadService.runActionLater(() -> {
+                    controller.clearImageCache(imagePath);
+                });
+            }
+        }, threadService.executor(Lane.DIAGRAM));
+    }
+
+    private Pane getSnapshotPane() {
+        if (Objects.isNull(snapshotPane)) {
+            snapshotPane = new Pane();
+            snapshotPane.setManaged(false);
+            snapshotPane.setLayoutX(-20000);
+            snapshotPane.setLayoutY(-20000);
+            controller.getRootAnchor().getChildren().add(snapshotPane);
+        }
+        return snapshotPane;
+    }
+
+    private void drainNodeRequests() {
+
+        drainScheduled.set(false);
+
+        long startedAt = System.nanoTime();
+        Pane pane = getSnapshotPane();
+
+        NodeRequest request;
+        while (Objects.nonNull(request = nodeRequests.poll())) {
+
+            Node node = request.node;
+
+            try {
+                node.setLayoutX(0);
+                node.setLayoutY(0);
+                pane.getChildren().add(node);
+                WritableImage writableImage = node.snapshot(new SnapshotParameters(), null);
+                complete(request.future, writableImage, false);
+            } catch (Exception e) {
+                request.future.completeExceptionally(e);
+            } finally {
+                pane.getChildren().remove(node);
+            }
+
+            if (System.nanoTime() - startedAt > PULSE_BUDGET_NANOS) {
+                break;
+            }
+        }
+
+        // leave the rest for the next pulse
+        if (!nodeRequests.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drainNodeRequests);
+        }
+    }
+
+    private void complete(CompletableFuture<BufferedImage> future, WritableImage writableImage, boolean trim) {
+        threadService.runTaskLater(Lane.DIAGRAM, () -> {
+            try {
+                BufferedImage bufferedImage = SwingFXUtils.fromFXImage(writableImage, null);
+                future.complete(trim ? new TrimWhite().trim(bufferedImage) : bufferedImage);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+    }
+
+    private void dispatchTreeRequests() {
+
+        while (!treeRequests.isEmpty()) {
+
+            TreeRenderer renderer = idleTreeRenderer();
+
+            if (Objects.isNull(renderer)) {
+                return;
+            }
+
+            renderer.render(treeRequests.poll());
+        }
+    }
+
+    private TreeRenderer idleTreeRenderer() {
+
+        for (TreeRenderer renderer : treeRenderers) {
+            if (renderer.isIdle()) {
+                return renderer;
+            }
+        }
+
+        if (treeRenderers.size() < Math.max(1, poolSize)) {
+            treeRenderers.add(new TreeRenderer());
+        }
+
+        // a new renderer takes requests when its page is ready
+        return null;
+    }
+
+    private final class TreeRenderer {
+
+        private final WebView webView;
+        private boolean ready;
+        private boolean used;
+        private TreeRequest current;
+
+        private TreeRenderer() {
+            webView = new WebView();
+            webView.setMinSize(0, 0);
+            webView.setPrefSize(3000, 6000);
+
+            webView.getEngine().setOnAlert(event -> {
+                String data = event.getData();
+                if ("READY".equals(data)) {
+                    ready = true;
+                    dispatchTreeRequests();
+                }
+                if ("RENDERED".equals(data)) {
+                    rendered();
+                }
+            });
+
+            getSnapshotPane().getChildren().add(webView);
+            webView.getEngine().load(String.format(treeviewUrl, controller.getPort()));
+        }
+
+        private boolean isIdle() {
+            return ready && Objects.isNull(current);
+        }
+
+        private void render(TreeRequest request) {
+
+            current = request;
+            webView.setZoom(extensionConfigBean.getDefaultImageZoom());
+
+            try {
+                ((JSObject) webView.getEngine().executeScript("window"))
+                        .call("executeTree", request.tree, used ? RENDER_DELAY : FIRST_RENDER_DELAY);
+                used = true;
+            } catch (Exception e) {
+                failed(request, e);
+                return;
+            }
+
+            threadService.schedule(() -> threadService.runActionLater(() -> {
+                if (current == request) {
+                    failed(request, new TimeoutException("Tree is not rendered in " + renderTimeout + " ms"));
+                }
+            }), renderTimeout, TimeUnit.MILLISECONDS);
+        }
+
+        private void rendered() {
+
+            TreeRequest request = current;
+
+            if (Objects.isNull(request)) {
+                return;
+            }
+
+            try {
+                WritableImage writableImage = webView.snapshot(new SnapshotParameters(), null);
+                complete(request.future, writableImage, true);
+            } catch (Exception e) {
+                request.future.completeExceptionally(e);
+            }
+
+            current = null;
+            dispatchTreeRequests();
+        }
+
+        private void failed(TreeRequest request, Exception e) {
+            request.future.completeExceptionally(e);
+            current = null;
+            // the page is in an unknown state, load it again
+            ready = false;
+            used = false;
+            webView.getEngine().reload();
+        }
+    }
+
+    private static final class NodeRequest {
+        private final Node node;
+        private final CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+
+        private NodeRequest(Node node) {
+            this.node = node;
+        }
+    }
+
+    private static final class TreeRequest {
+        private final String tree;
+        private final CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+
+        private TreeRequest(String tree) {
+            this.tree = tree;
+        }
+    }
+}
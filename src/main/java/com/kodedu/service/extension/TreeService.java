@@ -4,27 +4,20 @@ import com.kodedu.config.ExtensionConfigBean;
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.other.Current;
 import com.kodedu.other.IOHelper;
-import com.kodedu.other.TrimWhite;
 import com.kodedu.other.Tuple;
 import com.kodedu.service.ThreadService;
 import com.kodedu.service.cache.BinaryCacheService;
 import com.kodedu.service.ui.AwesomeService;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.Node;
-import javafx.scene.SnapshotParameters;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
-import javafx.scene.image.WritableImage;
-import javafx.scene.web.WebView;
-import netscape.javascript.JSObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.awt.image.BufferedImage;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
@@ -37,6 +30,7 @@ import java.util.stream.Collectors;
 /**
  * Created by usta on 25.12.2014.
  */
+@Lazy
 @Component
 public class TreeService implements DefaultSettings {
 
@@ -48,23 +42,21 @@ public class TreeService implements DefaultSettings {
     private AwesomeService awesomeService;
     private final BinaryCacheService binaryCacheService;
     private final ExtensionConfigBean extensionConfigBean;
+    private final SnapshotService snapshotService;
 
     Pattern pattern = Pattern.compile("^(addw|minw|setw|addh|minh|seth|scale):\\s*(\\d+)$");
 
-    @Value("${application.treeview.url}")
-    private String treeviewUrl;
-    private WebView treeview;
-    private boolean initialized;
-
     @Autowired
     public TreeService(final Current current, final ApplicationController controller, final ThreadService threadService,
-                       final AwesomeService awesomeService, BinaryCacheService binaryCacheService, ExtensionConfigBean extensionConfigBean) {
+                       final AwesomeService awesomeService, BinaryCacheService binaryCacheService, ExtensionConfigBean extensionConfigBean,
+                       SnapshotService snapshotService) {
         this.current = current;
         this.controller = controller;
         this.threadService = threadService;
         this.awesomeService = awesomeService;
         this.binaryCacheService = binaryCacheService;
         this.extensionConfigBean = extensionConfigBean;
+        this.snapshotService = snapshotService;
     }
 
     public void createFileTree(String tree, String type, String imagesDir, String imageTarget, String nodename) {
@@ -189,41 +181,26 @@ public class TreeService implements DefaultSettings {
                 int changeWidth = (settings.get("addw") - settings.get("minw"));
                 int changeHeight = (settings.get("addh") - settings.get("minh"));
 
-                threadService.runActionLater(() -> {
-                    controller.getRootAnchor().getChildren().add(fileView);
-
-                    if (settings.get("setw") > 0) {
-                        fileView.setPrefWidth(settings.get("setw"));
-                    } else {
-                        fileView.setPrefWidth(300 + changeWidth);
-                    }
-
-                    if (settings.get("seth") > 0) {
-                        fileView.setPrefHeight(settings.get("seth"));
-                    } else {
-                        fileView.setPrefHeight((treeItems.size() * 24) + 10 + changeHeight);
-                    }
-
-                    WritableImage writableImage = fileView.snapshot(new SnapshotParameters(), null);
-                    BufferedImage bufferedImage = SwingFXUtils.fromFXImage(writableImage, null);
-
-                    if (!cachedResource) {
-
-                        Path treePath = path.resolve(imageTarget);
-                        IOHelper.createDirectories(path.resolve(imagesDir));
-                        IOHelper.imageWrite((BufferedImage) bufferedImage, "png", treePath.toFile());
-                        controller.clearImageCache(treePath);
-
-                    } else {
-                        binaryCacheService.putBinary(imageTarget, (BufferedImage) bufferedImage);
-                        controller.clearImageCache(imageTarget);
-                    }
-
-                    logger.debug("Tree extension is ended for {}", imageTarget);
+                if (settings.get("setw") > 0) {
+                    fileView.setPrefWidth(settings.get("setw"));
+                } else {
+                    fileView.setPrefWidth(300 + changeWidth);
+                }
 
-                    controller.getRootAnchor().getChildren().remove(fileView);
+                if (settings.get("seth") > 0) {
+                    fileView.setPrefHeight(settings.get("seth"));
+                } else {
+                    fileView.setPrefHeight((treeItems.size() * 24) + 10 + changeHeight);
+                }
 
-                });
+                snapshotService.saveImage(snapshotService.snapshot(fileView), path, imagesDir, imageTarget)
+                        .whenComplete((result, throwable) -> {
+                            if (Objects.nonNull(throwable)) {
+                                logger.error("Problem occured while generating Filesystem Tree", throwable);
+                            } else {
+                                logger.debug("Tree extension is ended for {}", imageTarget);
+                            }
+                        });
 
             } catch (Exception e) {
                 logger.error("Problem occured while generating Filesystem Tree", e);
@@ -236,8 +213,6 @@ public class TreeService implements DefaultSettings {
     private TreeView getSnaphotTreeView() {
         TreeView fileView = new TreeView();
         fileView.getStyleClass().add("tree-extension");
-        fileView.setLayoutX(-13000);
-        fileView.setLayoutY(-13000);
         fileView.setMinSize(0, 0);
         return fileView;
     }
@@ -257,58 +232,11 @@ public class TreeService implements DefaultSettings {
 
             Path path = current.currentTab().getParentOrWorkdir();
 
-            threadService.runActionLater(() -> {
-
-                WebView treeview = new WebView();
-                treeview.setLayoutX(-16000);
-                treeview.setLayoutY(-16000);
-                treeview.setMinSize(0, 0);
-
-                int zoom = extensionConfigBean.getDefaultImageZoom();
-
-                treeview.setPrefSize(3000, 6000);
-                treeview.setZoom(zoom);
-
-                controller.getRootAnchor().getChildren().add(treeview);
-
-                threadService.runActionLater(() -> {
-                    treeview.getEngine().load(String.format(treeviewUrl, controller.getPort()));
-                });
-
-                treeview.getEngine().setOnAlert(event -> {
-                    String data = event.getData();
-                    if ("READY".equals(data)) {
-                        ((JSObject) treeview.getEngine().executeScript("window")).call("executeTree", tree);
-                    }
-                    if ("RENDERED".equals(data)) {
-
-                        WritableImage writableImage = treeview.snapshot(new SnapshotParameters(), null);
-                        BufferedImage bufferedImage = SwingFXUtils.fromFXImage(writableImage, null);
-
-                        threadService.runTaskLater(() -> {
-                            TrimWhite trimWhite = new TrimWhite();
-                            BufferedImage trimmed = trimWhite.trim(bufferedImage);
-
-                            if (!cachedResource) {
-
-                                Path treePath = path.resolve(imageTarget);
-                                IOHelper.createDirectories(path.resolve(imagesDir));
-                                IOHelper.imageWrite(trimmed, "png", treePath.toFile());
-                                controller.clearImageCache(treePath);
-                            } else {
-                                binaryCacheService.putBinary(imageTarget, trimmed);
-                                controller.clearImageCache(imageTarget);
-                            }
-
-                            threadService.runActionLater(() -> {
-                                controller.getRootAnchor().getChildren().remove(treeview);
-                            });
-                        });
-
-                    }
-                });
-            });
-
+            snapshotService.saveImage(snapshotService.snapshotTree(tree), path, imagesDir, imageTarget)
+                    .exceptionally(throwable -> {
+                        logger.error("Problem occured while generating Highlighted Tree", throwable);
+                        return null;
+                    });
         }
 
         current.getCache().put(imageTarget, hashCode);
@@ -15,8 +15,9 @@ import org.springframework.stereotype.Component;
 @Component("area-bean")
 public class AreaChartBuilderService extends XYChartBuilderService {
 
-    public AreaChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean) {
-        super(threadService, current, controller, extensionConfigBean);
+    public AreaChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean,
+                                   ChartDataService chartDataService) {
+        super(threadService, current, controller, extensionConfigBean, chartDataService);
     }
 
     @Override
@@ -28,4 +29,9 @@ public class AreaChartBuilderService extends XYChartBuilderService {
         return chart;
     }
 
+    @Override
+    protected boolean isNumberXAxis() {
+        return true;
+    }
+
 }
@@ -16,8 +16,9 @@ import org.springframework.stereotype.Component;
 @Component("bar-bean")
 public class BarChartBuilderService extends XYChartBuilderService {
 
-    public BarChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean) {
-        super(threadService, current, controller, extensionConfigBean);
+    public BarChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean,
+                                  ChartDataService chartDataService) {
+        super(threadService, current, controller, extensionConfigBean, chartDataService);
     }
 
     @Override
@@ -15,8 +15,9 @@ import org.springframework.stereotype.Component;
 @Component("bubble-bean")
 public class BubbleChartBuilderService extends XYChartBuilderService {
 
-    public BubbleChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean) {
-        super(threadService, current, controller, extensionConfigBean);
+    public BubbleChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean,
+                                     ChartDataService chartDataService) {
+        super(threadService, current, controller, extensionConfigBean, chartDataService);
     }
 
     @Override
@@ -28,5 +29,10 @@ public class BubbleChartBuilderService extends XYChartBuilderService {
         return chart;
     }
 
+    @Override
+    protected boolean isNumberXAxis() {
+        return true;
+    }
+
 
 }
@@ -2,8 +2,14 @@ package com.kodedu.service.extension.chart;
 
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.other.Current;
+import com.kodedu.other.IOHelper;
 import com.kodedu.service.ThreadService;
+import com.kodedu.service.extension.SnapshotService;
+import javafx.scene.Node;
 import javafx.scene.chart.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.nio.file.Path;
 import java.util.Map;
@@ -14,12 +20,17 @@ import java.util.Objects;
  */
 public abstract class ChartBuilderService {
 
+    private final Logger logger = LoggerFactory.getLogger(ChartBuilderService.class);
+
     private final ThreadService threadService;
     private final Current current;
     private final ApplicationController controller;
     protected Path currentRoot;
     protected Path imagePath;
 
+    @Autowired
+    private SnapshotService snapshotService;
+
     public ChartBuilderService(ThreadService threadService, Current current, ApplicationController controller) {
         this.threadService = threadService;
         this.current = current;
@@ -27,17 +38,39 @@ public abstract class ChartBuilderService {
     }
 
     public void chartBuild(String chartContent, String imagesDir, String imageTarget, Map<String, String> optMap) throws Exception {
+        prepare(imagesDir, imageTarget, (imageTarget + imagesDir + chartContent).hashCode() + optMap.hashCode());
+    }
 
-        if (!imageTarget.endsWith(".png"))
-            throw new InterruptedException();
+    /**
+     * Builds the chart of a csv file, called in background
+     */
+    public void chartBuildFromCsv(Path csvPath, String imagesDir, String imageTarget, Map<String, String> optMap) {
 
-        Integer cacheHit = current.getCache().get(imageTarget);
-        int hashCode = (imageTarget + imagesDir + chartContent).hashCode() + optMap.hashCode();
+        String csvContent = IOHelper.readFile(csvPath);
 
-        if (Objects.nonNull(cacheHit))
-            if (hashCode == cacheHit) {
-                throw new InterruptedException();
+        threadService.runActionLater(() -> {
+            try {
+                chartBuild(csvContent, imagesDir, imageTarget, optMap);
+            } catch (InterruptedException e) {
+                // up to date
+            } catch (Exception e) {
+                logger.info(e.getMessage(), e);
             }
+        });
+    }
+
+    protected boolean isCacheHit(String imageTarget, int hashCode) {
+        Integer cacheHit = current.getCache().get(imageTarget);
+        return Objects.nonNull(cacheHit) && hashCode == cacheHit;
+    }
+
+    protected void prepare(String imagesDir, String imageTarget, int hashCode) throws InterruptedException {
+
+        if (!imageTarget.endsWith(".png"))
+            throw new InterruptedException();
+
+        if (isCacheHit(imageTarget, hashCode))
+            throw new InterruptedException();
 
         current.getCache().put(imageTarget, hashCode);
 
@@ -46,6 +79,20 @@ public abstract class ChartBuilderService {
 
     }
 
+    /**
+     * Snapshots the chart in the next FX pulses, the png is written in background
+     */
+    protected void saveSnapshot(Node chart, String imagesDir, String imageTarget) {
+        snapshotService.saveImage(snapshotService.snapshot(chart), currentRoot, imagesDir, imageTarget)
+                .whenComplete((result, throwable) -> {
+                    if (Objects.nonNull(throwable)) {
+                        logger.info(throwable.getMessage(), throwable);
+                    } else {
+                        logger.debug("Chart extension is ended for {}", imageTarget);
+                    }
+                });
+    }
+
     protected XYChart<String, Number> createLineChart() {
         final CategoryAxis xAxis = new CategoryAxis();
         final NumberAxis yAxis = new NumberAxis();
@@ -0,0 +1,251 @@
+package com.kodedu.service.extension.chart;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Chart csv parsed into primitive columns.
+ * <p>
+ * Rows are "x,y" or "x,y,color", a line starting with // starts a new series named by the rest of the line.
+ * Rows whose numbers can't be parsed (like a header) are skipped.
+ */
+public final class ChartData {
+
+    // JavaFX styles series by .default-color0 to .default-color7
+    private static final int MAX_COLORS = 8;
+
+    private final List<Series> series;
+    private final List<String> colors;
+    private final String lastColor;
+    private final long rows;
+    private final boolean numberX;
+
+    private ChartData(List<Series> series, List<String> colors, String lastColor, long rows, boolean numberX) {
+        this.series = Collections.unmodifiableList(series);
+        this.colors = Collections.unmodifiableList(colors);
+        this.lastColor = lastColor;
+        this.rows = rows;
+        this.numberX = numberX;
+    }
+
+    /**
+     * Parses line by line without keeping the content
+     *
+     * @param numberX x values are numbers, otherwise they are kept as category labels
+     */
+    public static ChartData parse(Reader reader, boolean numberX) throws IOException {
+
+        BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+
+        List<Series> series = new ArrayList<>();
+        List<String> colors = new ArrayList<>();
+        String lastColor = null;
+        long rows = 0;
+
+        SeriesBuilder current = new SeriesBuilder(null, numberX);
+
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+
+            if (line.trim().startsWith("//")) {
+                addIfNotEmpty(series, current);
+                current = new SeriesBuilder(line.trim().substring(2), numberX);
+                continue;
+            }
+
+            int firstComma = line.indexOf(',');
+
+            if (firstComma < 0) {
+                continue;
+            }
+
+            int secondComma = line.indexOf(',', firstComma + 1);
+            String first = line.substring(0, firstComma);
+            String second = secondComma < 0 ? line.substring(firstComma + 1) : line.substring(firstComma + 1, secondComma);
+
+            if (second.isEmpty() && secondComma < 0) {
+                continue;
+            }
+
+            double y;
+            double x;
+
+            try {
+                y = Double.parseDouble(second);
+                x = numberX ? Double.parseDouble(first) : current.size;
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            if (secondComma >= 0 && line.indexOf(',', secondComma + 1) < 0) {
+                String color = line.substring(secondComma + 1);
+                if (!color.isEmpty()) {
+                    lastColor = color;
+                    if (colors.size() < MAX_COLORS) {
+                        colors.add(color);
+                    }
+                }
+            }
+
+            current.add(x, y, numberX ? null : first);
+            rows++;
+        }
+
+        addIfNotEmpty(series, current);
+
+        return new ChartData(series, colors, lastColor, rows, numberX);
+    }
+
+    private static void addIfNotEmpty(List<Series> series, SeriesBuilder builder) {
+        if (builder.size > 0) {
+            series.add(builder.build());
+        }
+    }
+
+    /**
+     * Every series reduced to at most threshold points
+     */
+    public ChartData downsample(Downsampling downsampling, int threshold) {
+
+        List<Series> sampled = new ArrayList<>(series.size());
+
+        for (Series serie : series) {
+            sampled.add(serie.select(downsampling.select(serie.x, serie.y, serie.size(), threshold)));
+        }
+
+        return new ChartData(sampled, colors, lastColor, rows, numberX);
+    }
+
+    public List<Series> getSeries() {
+        return series;
+    }
+
+    public List<String> getColors() {
+        return colors;
+    }
+
+    public String getLastColor() {
+        return lastColor;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * x values are the numbers of the csv, otherwise they are row indexes and the csv values are labels
+     */
+    public boolean isNumberX() {
+        return numberX;
+    }
+
+    public int getPoints() {
+        int points = 0;
+        for (Series serie : series) {
+            points += serie.size();
+        }
+        return points;
+    }
+
+    public static final class Series {
+
+        private final String name;
+        private final double[] x;
+        private final double[] y;
+        private final String[] labels;
+
+        private Series(String name, double[] x, double[] y, String[] labels) {
+            this.name = name;
+            this.x = x;
+            this.y = y;
+            this.labels = labels;
+        }
+
+        private Series select(int[] indexes) {
+
+            if (indexes.length == x.length) {
+                return this;
+            }
+
+            double[] sampledX = new double[indexes.length];
+            double[] sampledY = new double[indexes.length];
+            String[] sampledLabels = labels == null ? null : new String[indexes.length];
+
+            for (int i = 0; i < indexes.length; i++) {
+                sampledX[i] = x[indexes[i]];
+                sampledY[i] = y[indexes[i]];
+                if (sampledLabels != null) {
+                    sampledLabels[i] = labels[indexes[i]];
+                }
+            }
+
+            return new Series(name, sampledX, sampledY, sampledLabels);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int size() {
+            return x.length;
+        }
+
+        public double getX(int index) {
+            return x[index];
+        }
+
+        public double getY(int index) {
+            return y[index];
+        }
+
+        /**
+         * Category label of the point, null when x is a number
+         */
+        public String getLabel(int index) {
+            return labels == null ? null : labels[index];
+        }
+    }
+
+    private static final class SeriesBuilder {
+
+        private final String name;
+        private double[] x = new double[64];
+        private double[] y = new double[64];
+        private String[] labels;
+        private int size;
+
+        private SeriesBuilder(String name, boolean numberX) {
+            this.name = name;
+            this.labels = numberX ? null : new String[64];
+        }
+
+        private void add(double xValue, double yValue, String label) {
+
+            if (size == x.length) {
+                int capacity = size * 2;
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                if (labels != null) {
+                    labels = Arrays.copyOf(labels, capacity);
+                }
+            }
+
+            x[size] = xValue;
+            y[size] = yValue;
+            if (labels != null) {
+                labels[size] = label;
+            }
+            size++;
+        }
+
+        private Series build() {
+            return new Series(name, Arrays.copyOf(x, size), Arrays.copyOf(y, size),
+                    labels == null ? null : Arrays.copyOf(labels, size));
+        }
+    }
+}
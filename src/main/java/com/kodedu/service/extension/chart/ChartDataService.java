@@ -0,0 +1,113 @@
+package com.kodedu.service.extension.chart;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Parses and downsamples chart data before any chart node is created.
+ * <p>
+ * Csv files are streamed into primitive arrays, downsampled results are cached by (file, mtime, size, options).
+ */
+@Component
+public class ChartDataService {
+
+    private final Logger logger = LoggerFactory.getLogger(ChartDataService.class);
+
+    // XYChart's preferred width when no width option is given
+    private static final int DEFAULT_CHART_WIDTH = 500;
+
+    @Value("${application.chart.downsample:lttb}")
+    private String defaultDownsampling;
+
+    @Value("${application.chart.cache.size:16}")
+    private int cacheSize;
+
+    private final Map<String, ChartData> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Chart data of the csv file, downsampled to the chart width
+     */
+    public ChartData load(Path csvPath, boolean numberX, Map<String, String> optMap, int scale) throws IOException {
+
+        BasicFileAttributes attributes = Files.readAttributes(csvPath, BasicFileAttributes.class);
+        Downsampling downsampling = getDownsampling(optMap);
+        int threshold = getThreshold(optMap, scale);
+
+        String key = String.join("|", csvPath.toAbsolutePath().toString(),
+                String.valueOf(attributes.lastModifiedTime().toMillis()), String.valueOf(attributes.size()),
+                String.valueOf(numberX), downsampling.name(), String.valueOf(threshold));
+
+        ChartData cached = getCached(key);
+
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+
+        long startedAt = System.currentTimeMillis();
+
+        ChartData chartData;
+        try (BufferedReader reader = Files.newBufferedReader(csvPath, StandardCharsets.UTF_8)) {
+            chartData = ChartData.parse(reader, numberX).downsample(downsampling, threshold);
+        }
+
+        logger.debug("Chart data of {} is loaded, {} rows reduced to {} points in {} ms", csvPath, chartData.getRows(),
+                chartData.getPoints(), System.currentTimeMillis() - startedAt);
+
+        putCached(key, chartData);
+
+        return chartData;
+    }
+
+    /**
+     * Chart data of inline chart content, downsampled to the chart width
+     */
+    public ChartData parse(String chartContent, boolean numberX, Map<String, String> optMap, int scale) throws IOException {
+        return ChartData.parse(new StringReader(chartContent), numberX)
+                .downsample(getDownsampling(optMap), getThreshold(optMap, scale));
+    }
+
+    public Downsampling getDownsampling(Map<String, String> optMap) {
+        return Downsampling.of(optMap.get("downsample"), Downsampling.of(defaultDownsampling, Downsampling.LTTB));
+    }
+
+    /**
+     * Points per series, max-points option or the chart width in pixels
+     */
+    public int getThreshold(Map<String, String> optMap, int scale) {
+        try {
+            if (Objects.nonNull(optMap.get("max-points"))) {
+                return Integer.parseInt(optMap.get("max-points").trim());
+            }
+            if (Objects.nonNull(optMap.get("width"))) {
+                return (int) (Double.parseDouble(optMap.get("width").trim()) * Math.max(1, scale));
+            }
+        } catch (NumberFormatException e) {
+            logger.debug("Invalid chart size option", e);
+        }
+        return DEFAULT_CHART_WIDTH * Math.max(1, scale);
+    }
+
+    private synchronized ChartData getCached(String key) {
+        return cache.get(key);
+    }
+
+    private synchronized void putCached(String key, ChartData chartData) {
+        cache.put(key, chartData);
+        while (cache.size() > Math.max(1, cacheSize)) {
+            cache.remove(cache.keySet().iterator().next());
+        }
+    }
+}
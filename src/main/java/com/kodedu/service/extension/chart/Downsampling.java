@@ -0,0 +1,150 @@
+package com.kodedu.service.extension.chart;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reduces a series to the number of points its chart can show.
+ * <p>
+ * Algorithms return indexes of the kept points in ascending order, so labels and other columns follow the values.
+ */
+public enum Downsampling {
+
+    NONE {
+        @Override
+        public int[] select(double[] x, double[] y, int length, int threshold) {
+            return all(length);
+        }
+    },
+
+    /**
+     * Largest-Triangle-Three-Buckets, keeps the point forming the largest triangle with its neighbour buckets
+     */
+    LTTB {
+        @Override
+        public int[] select(double[] x, double[] y, int length, int threshold) {
+
+            if (threshold >= length || threshold < 3) {
+                return all(length);
+            }
+
+            int[] sampled = new int[threshold];
+            int count = 0;
+
+            double every = (double) (length - 2) / (threshold - 2);
+            int a = 0;
+            sampled[count++] = a;
+
+            for (int i = 0; i < threshold - 2; i++) {
+
+                int averageStart = (int) Math.floor((i + 1) * every) + 1;
+                int averageEnd = Math.min((int) Math.floor((i + 2) * every) + 1, length);
+
+                double averageX = 0;
+                double averageY = 0;
+
+                if (averageStart < averageEnd) {
+                    for (int j = averageStart; j < averageEnd; j++) {
+                        averageX += x[j];
+                        averageY += y[j];
+                    }
+                    averageX /= averageEnd - averageStart;
+                    averageY /= averageEnd - averageStart;
+                } else {
+                    averageX = x[length - 1];
+                    averageY = y[length - 1];
+                }
+
+                int rangeStart = (int) Math.floor(i * every) + 1;
+                int rangeEnd = Math.min((int) Math.floor((i + 1) * every) + 1, length - 1);
+
+                double maxArea = -1;
+                int next = rangeStart;
+
+                for (int j = rangeStart; j < rangeEnd; j++) {
+                    double area = Math.abs((x[a] - averageX) * (y[j] - y[a]) - (x[a] - x[j]) * (averageY - y[a]));
+                    if (area > maxArea) {
+                        maxArea = area;
+                        next = j;
+                    }
+                }
+
+                sampled[count++] = next;
+                a = next;
+            }
+
+            sampled[count++] = length - 1;
+
+            return Arrays.copyOf(sampled, count);
+        }
+    },
+
+    /**
+     * Keeps the minimum and maximum of each bucket, spikes always survive
+     */
+    MIN_MAX {
+        @Override
+        public int[] select(double[] x, double[] y, int length, int threshold) {
+
+            int buckets = threshold / 2;
+
+            if (threshold >= length || buckets < 1) {
+                return all(length);
+            }
+
+            int[] sampled = new int[buckets * 2];
+            int count = 0;
+            double every = (double) length / buckets;
+
+            for (int bucket = 0; bucket < buckets; bucket++) {
+
+                int start = (int) Math.floor(bucket * every);
+                int end = Math.min((int) Math.floor((bucket + 1) * every), length);
+
+                if (start >= end) {
+                    continue;
+                }
+
+                int min = start;
+                int max = start;
+
+                for (int j = start + 1; j < end; j++) {
+                    if (y[j] < y[min]) {
+                        min = j;
+                    }
+                    if (y[j] > y[max]) {
+                        max = j;
+                    }
+                }
+
+                sampled[count++] = Math.min(min, max);
+                if (min != max) {
+                    sampled[count++] = Math.max(min, max);
+                }
+            }
+
+            return Arrays.copyOf(sampled, count);
+        }
+    };
+
+    public abstract int[] select(double[] x, double[] y, int length, int threshold);
+
+    public static Downsampling of(String name, Downsampling defaultValue) {
+        if (name == null || name.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+
+    private static int[] all(int length) {
+        int[] indexes = new int[length];
+        for (int i = 0; i < length; i++) {
+            indexes[i] = i;
+        }
+        return indexes;
+    }
+}
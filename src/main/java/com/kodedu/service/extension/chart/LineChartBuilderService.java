@@ -16,8 +16,9 @@ import org.springframework.stereotype.Component;
 @Component("line-bean")
 public class LineChartBuilderService extends XYChartBuilderService {
 
-    public LineChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean) {
-        super(threadService, current, controller, extensionConfigBean);
+    public LineChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean,
+                                   ChartDataService chartDataService) {
+        super(threadService, current, controller, extensionConfigBean, chartDataService);
     }
 
     @Override
@@ -3,20 +3,15 @@ package com.kodedu.service.extension.chart;
 import com.kodedu.config.ExtensionConfigBean;
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.other.Current;
-import com.kodedu.other.IOHelper;
 import com.kodedu.service.ThreadService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Side;
 import javafx.scene.Node;
-import javafx.scene.SnapshotParameters;
 import javafx.scene.chart.PieChart;
-import javafx.scene.image.WritableImage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.awt.image.BufferedImage;
 import java.util.*;
 
 /**
@@ -120,19 +115,7 @@ public class PieChartBuilderService extends ChartBuilderService {
             node.setStyle(String.format("-fx-text-fill: %s; -fx-font-size: %s;", titleColor, titleSize));
         }
 
-        pieChart.setLayoutX(-19000);
-        pieChart.setLayoutY(-19000);
-
-        threadService.runActionLater(() -> {
-            controller.getRootAnchor().getChildren().add(pieChart);
-            WritableImage writableImage = pieChart.snapshot(new SnapshotParameters(), null);
-            controller.getRootAnchor().getChildren().remove(pieChart);
-            BufferedImage bufferedImage = SwingFXUtils.fromFXImage(writableImage, null);
-            IOHelper.createDirectories(currentRoot.resolve(imagesDir));
-            IOHelper.imageWrite(bufferedImage, "png", imagePath.toFile());
-            controller.clearImageCache(imagePath);
-
-        });
+        saveSnapshot(pieChart, imagesDir, imageTarget);
     }
 
 }
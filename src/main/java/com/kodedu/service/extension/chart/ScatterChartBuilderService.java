@@ -16,8 +16,9 @@ import org.springframework.stereotype.Component;
 @Component("scatter-bean")
 public class ScatterChartBuilderService extends XYChartBuilderService {
 
-    public ScatterChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean) {
-        super(threadService, current, controller, extensionConfigBean);
+    public ScatterChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean,
+                                      ChartDataService chartDataService) {
+        super(threadService, current, controller, extensionConfigBean, chartDataService);
     }
 
     @Override
@@ -16,8 +16,9 @@ import org.springframework.stereotype.Component;
 @Component("stacked-area-bean")
 public class StackedAreaChartBuilderService extends XYChartBuilderService {
 
-    public StackedAreaChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean) {
-        super(threadService, current, controller, extensionConfigBean);
+    public StackedAreaChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean,
+                                          ChartDataService chartDataService) {
+        super(threadService, current, controller, extensionConfigBean, chartDataService);
     }
 
     @Override
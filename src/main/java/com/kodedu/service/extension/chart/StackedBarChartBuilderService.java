@@ -16,8 +16,9 @@ import org.springframework.stereotype.Component;
 @Component("stacked-bar-bean")
 public class StackedBarChartBuilderService extends XYChartBuilderService {
 
-    public StackedBarChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean) {
-        super(threadService, current, controller, extensionConfigBean);
+    public StackedBarChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean,
+                                         ChartDataService chartDataService) {
+        super(threadService, current, controller, extensionConfigBean, chartDataService);
     }
 
     @Override
@@ -3,21 +3,19 @@ package com.kodedu.service.extension.chart;
 import com.kodedu.config.ExtensionConfigBean;
 import com.kodedu.controller.ApplicationController;
 import com.kodedu.other.Current;
-import com.kodedu.other.IOHelper;
 import com.kodedu.service.ThreadService;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Side;
 import javafx.scene.Node;
-import javafx.scene.SnapshotParameters;
 import javafx.scene.chart.Axis;
 import javafx.scene.chart.CategoryAxis;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
-import javafx.scene.image.WritableImage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 
 /**
@@ -29,14 +27,17 @@ public abstract class XYChartBuilderService extends ChartBuilderService {
     private final Current current;
     private final ApplicationController controller;
     private final ExtensionConfigBean extensionConfigBean;
+    private final ChartDataService chartDataService;
     private final Logger logger = LoggerFactory.getLogger(XYChartBuilderService.class);
 
-    public XYChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean) {
+    public XYChartBuilderService(ThreadService threadService, Current current, ApplicationController controller, ExtensionConfigBean extensionConfigBean,
+                                 ChartDataService chartDataService) {
         super(threadService, current, controller);
         this.threadService = threadService;
         this.current = current;
         this.controller = controller;
         this.extensionConfigBean = extensionConfigBean;
+        this.chartDataService = chartDataService;
     }
 
     @Override
@@ -48,11 +49,49 @@ public abstract class XYChartBuilderService extends ChartBuilderService {
             throw e;
         }
 
+        ChartData chartData = chartDataService.parse(chartContent, isNumberXAxis(), optMap, extensionConfigBean.getDefaultImageScale());
+        render(chartData, imagesDir, imageTarget, optMap);
+    }
+
+    /**
+     * Csv is parsed and downsampled in background, only the chart itself is built in FX thread
+     */
+    @Override
+    public void chartBuildFromCsv(Path csvPath, String imagesDir, String imageTarget, Map<String, String> optMap) {
+
+        if (!imageTarget.endsWith(".png"))
+            return;
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(csvPath, BasicFileAttributes.class);
+            int hashCode = (imageTarget + imagesDir + csvPath + attributes.lastModifiedTime().toMillis() + attributes.size()).hashCode()
+                    + optMap.hashCode();
+
+            if (isCacheHit(imageTarget, hashCode))
+                return;
+
+            ChartData chartData = chartDataService.load(csvPath, isNumberXAxis(), optMap, extensionConfigBean.getDefaultImageScale());
+
+            threadService.runActionLater(() -> {
+                try {
+                    prepare(imagesDir, imageTarget, hashCode);
+                    render(chartData, imagesDir, imageTarget, optMap);
+                } catch (InterruptedException e) {
+                    // up to date
+                } catch (Exception e) {
+                    logger.info(e.getMessage(), e);
+                }
+            });
+        } catch (Exception e) {
+            logger.info(e.getMessage(), e);
+        }
+    }
+
+    private void render(ChartData chartData, String imagesDir, String imageTarget, Map<String, String> optMap) {
+
         logger.debug("Chart extension is started for {}", imageTarget);
 
-        String[] split = chartContent.split("\\r?\\n");
-        List<String> lines = Arrays.asList(split);
-        List colors = new ArrayList<>();
+        List<String> colors = chartData.getColors();
 
         XYChart xyChart = createXYChart();
 
@@ -61,10 +100,20 @@ public abstract class XYChartBuilderService extends ChartBuilderService {
         xyChart.setScaleX(scale);
         xyChart.setScaleY(scale);
         xyChart.setScaleZ(scale);
-        XYChart.Series series = new XYChart.Series();
+
+        if (Objects.nonNull(optMap.get("width")))
+            xyChart.setPrefWidth(Double.parseDouble(optMap.get("width")));
+
+        if (Objects.nonNull(optMap.get("height")))
+            xyChart.setPrefHeight(Double.parseDouble(optMap.get("height")));
 
         Axis xAxis = xyChart.getXAxis();
         Axis yAxis = xyChart.getYAxis();
+
+        // a number axis fed with row indexes would plot every chart evenly spaced
+        if (xAxis instanceof NumberAxis && !chartData.isNumberX()) {
+            throw new IllegalStateException(getClass().getSimpleName() + " has a number x axis but doesn't parse x values as numbers, override isNumberXAxis");
+        }
         xAxis.setTickLabelsVisible(true);
         xAxis.setAnimated(false);
         xAxis.setTickLabelGap(10);
@@ -72,51 +121,31 @@ public abstract class XYChartBuilderService extends ChartBuilderService {
         yAxis.setAnimated(false);
         yAxis.setTickLabelGap(10);
 
-        for (String line : lines) {
+        for (ChartData.Series data : chartData.getSeries()) {
 
-            if (line.trim().startsWith("//")) {
-                series = new XYChart.Series();
-                series.setName(line.trim().substring(2));
-            }
+            XYChart.Series series = new XYChart.Series();
 
-            String[] parts = line.split(",");
+            if (Objects.nonNull(data.getName()))
+                series.setName(data.getName());
 
-            if (parts.length < 2)
-                continue;
-
-            Object name = null; // try first double
-            Object value = null; // try first double
-            Object color = null; // try first double
-
-            if (parts.length == 3) {
-                color = parts[2];
-                colors.add(color);
-                xyChart.setStyle("-fx-bar-fill: " + color + ";");
-            }
+            List<XYChart.Data> points = new ArrayList<>(data.size());
 
-            if (xAxis instanceof NumberAxis) {
-                name = Double.valueOf(parts[0]);
-            }
-
-            if (yAxis instanceof NumberAxis) {
-                value = Double.valueOf(parts[1]);
-            }
+            for (int i = 0; i < data.size(); i++) {
 
-            if (xAxis instanceof CategoryAxis) {
-                name = String.valueOf(parts[0]);
-            }
+                Object name = xAxis instanceof CategoryAxis ? Objects.toString(data.getLabel(i), String.valueOf(data.getX(i))) : data.getX(i);
+                Object value = yAxis instanceof CategoryAxis ? String.valueOf(data.getY(i)) : data.getY(i);
 
-            if (yAxis instanceof CategoryAxis) {
-                value = String.valueOf(parts[1]);
+                points.add(new XYChart.Data(name, value));
             }
 
-            series.getData().add(new XYChart.Data(name, value));
-
-            if (!xyChart.getData().contains(series))
-                xyChart.getData().add(series);
-
+            // added at once, so the chart lays out a series once instead of per point
+            series.getData().addAll(points);
+            xyChart.getData().add(series);
         }
 
+        if (Objects.nonNull(chartData.getLastColor()))
+            xyChart.setStyle("-fx-bar-fill: " + chartData.getLastColor() + ";");
+
         for (int i = 0; i < colors.size(); i++) {
             Object color = colors.get(i);
             if (Objects.isNull(color))
@@ -204,19 +233,16 @@ public abstract class XYChartBuilderService extends ChartBuilderService {
             yAxis.setSide(Side.valueOf(optMap.get("y-side").toUpperCase()));
         }
 
-        xyChart.setLayoutX(-10000);
-        xyChart.setLayoutY(-10000);
-
-        controller.getRootAnchor().getChildren().add(xyChart);
-        WritableImage writableImage = xyChart.snapshot(new SnapshotParameters(), null);
-        controller.getRootAnchor().getChildren().remove(xyChart);
-        BufferedImage bufferedImage = SwingFXUtils.fromFXImage(writableImage, null);
-        IOHelper.createDirectories(currentRoot.resolve(imagesDir));
-        IOHelper.imageWrite(bufferedImage, "png", imagePath.toFile());
-        logger.debug("Chart extension is ended for {}", imageTarget);
-        controller.clearImageCache(imagePath);
+        saveSnapshot(xyChart, imagesDir, imageTarget);
     }
 
     protected abstract XYChart createXYChart();
 
+    /**
+     * Has to be true when the x axis of {@link #createXYChart()} is a {@link NumberAxis}
+     */
+    protected boolean isNumberXAxis() {
+        return false;
+    }
+
 }
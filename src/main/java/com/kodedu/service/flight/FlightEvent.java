@@ -0,0 +1,42 @@
+package com.kodedu.service.flight;
+
+import java.util.Objects;
+
+/**
+ * An operation being recorded, its duration is the time between begin and {@link #end()}
+ */
+public interface FlightEvent {
+
+    FlightEvent NOOP = new FlightEvent() {
+    };
+
+    /**
+     * Whether the event is committed on end, useful to skip computing costly fields
+     */
+    default boolean isRecorded() {
+        return false;
+    }
+
+    default FlightEvent path(Object path) {
+        return this;
+    }
+
+    default FlightEvent size(long size) {
+        return this;
+    }
+
+    default FlightEvent cacheOutcome(String cacheOutcome) {
+        return this;
+    }
+
+    default FlightEvent cacheHit(boolean hit) {
+        return cacheOutcome(hit ? "hit" : "miss");
+    }
+
+    default void end() {
+    }
+
+    static String toText(Object value) {
+        return Objects.isNull(value) ? null : value.toString();
+    }
+}
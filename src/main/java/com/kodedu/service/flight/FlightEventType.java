@@ -0,0 +1,8 @@
+package com.kodedu.service.flight;
+
+/**
+ * Operations recorded as flight recorder events
+ */
+public enum FlightEventType {
+    RENDER, CONVERT, EXPORT, DIAGRAM, CACHE, FILE
+}
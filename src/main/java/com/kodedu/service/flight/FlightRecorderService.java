@@ -0,0 +1,97 @@
+package com.kodedu.service.flight;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+/**
+ * Emits custom flight recorder events and starts/stops recordings of them.
+ * <p>
+ * Needs a runtime with jdk.jfr (8u262+ or 11+), on others events are no-ops and recording is not supported.
+ */
+@Component
+public class FlightRecorderService {
+
+    private final Logger logger = LoggerFactory.getLogger(FlightRecorderService.class);
+
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final JfrSupport jfrSupport;
+
+    @Value("${application.flight.configuration:profile}")
+    private String configurationName;
+
+    public FlightRecorderService() {
+        this.jfrSupport = createSupport();
+    }
+
+    private JfrSupport createSupport() {
+        try {
+            if (JfrSupport.isAvailable()) {
+                return new JfrSupport();
+            }
+        } catch (Exception | LinkageError e) {
+            logger.debug("Flight recorder is not available", e);
+        }
+        return null;
+    }
+
+    public boolean isSupported() {
+        return Objects.nonNull(jfrSupport);
+    }
+
+    public boolean isRecording() {
+        return isSupported() && jfrSupport.isRecording();
+    }
+
+    /**
+     * Begins an event, it is committed by {@link FlightEvent#end()} if a recording is running
+     *
+     * @param detail mode, function, format or diagram type
+     */
+    public FlightEvent begin(FlightEventType type, String detail) {
+
+        if (!isSupported()) {
+            return FlightEvent.NOOP;
+        }
+
+        return jfrSupport.begin(type, detail);
+    }
+
+    public void startRecording() throws Exception {
+
+        if (!isSupported()) {
+            throw new IllegalStateException("Flight recorder is not supported by this Java runtime");
+        }
+
+        jfrSupport.start(configurationName);
+        logger.info("Flight recording is started");
+    }
+
+    /**
+     * Stops the recording and dumps it into the given directory
+     *
+     * @return the dumped .jfr file
+     */
+    public Path stopRecording(Path directory) throws Exception {
+
+        if (!isRecording()) {
+            return null;
+        }
+
+        Files.createDirectories(directory);
+        Path dumpPath = directory.resolve(String.format("asciidocfx-%s.jfr", LocalDateTime.now().format(FILE_NAME_FORMAT)));
+
+        jfrSupport.stop(dumpPath);
+        logger.info("Flight recording is saved to {}", dumpPath);
+
+        return dumpPath;
+    }
+}
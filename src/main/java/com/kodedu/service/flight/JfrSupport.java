@@ -0,0 +1,236 @@
+package com.kodedu.service.flight;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Everything touching jdk.jfr lives here. The api is reached reflectively, so the app compiles on JDK 8,
+ * the event types are defined with jdk.jfr.EventFactory on runtimes having the flight recorder.
+ */
+class JfrSupport {
+
+    // value indexes of the event fields, in the order they are defined
+    private static final int DETAIL = 0;
+    private static final int DOCUMENT_PATH = 1;
+    private static final int SIZE = 2;
+    private static final int CACHE_OUTCOME = 3;
+
+    private final Map<FlightEventType, Object> eventFactories = new EnumMap<>(FlightEventType.class);
+    private final Map<FlightEventType, String> eventNames = new EnumMap<>(FlightEventType.class);
+
+    private final Method newEvent;
+    private final Method isEnabled;
+    private final Method begin;
+    private final Method end;
+    private final Method shouldCommit;
+    private final Method commit;
+    private final Method set;
+
+    private final Class<?> annotationElementClass;
+    private final Class<?> recordingClass;
+    private final Class<?> configurationClass;
+
+    private Object recording;
+
+    static boolean isAvailable() {
+        try {
+            return (boolean) Class.forName("jdk.jfr.FlightRecorder").getMethod("isAvailable").invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return false;
+        }
+    }
+
+    JfrSupport() throws ReflectiveOperationException {
+
+        Class<?> eventClass = Class.forName("jdk.jfr.Event");
+        Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+        Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+
+        this.annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+        this.recordingClass = Class.forName("jdk.jfr.Recording");
+        this.configurationClass = Class.forName("jdk.jfr.Configuration");
+
+        this.newEvent = eventFactoryClass.getMethod("newEvent");
+        this.isEnabled = eventClass.getMethod("isEnabled");
+        this.begin = eventClass.getMethod("begin");
+        this.end = eventClass.getMethod("end");
+        this.shouldCommit = eventClass.getMethod("shouldCommit");
+        this.commit = eventClass.getMethod("commit");
+        this.set = eventClass.getMethod("set", int.class, Object.class);
+
+        Constructor<?> valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+
+        List<Object> fields = Arrays.asList(
+                valueDescriptor.newInstance(String.class, "detail",
+                        Arrays.asList(annotation("Label", "Detail"), annotation("Description", "Mode, function, format or diagram type"))),
+                valueDescriptor.newInstance(String.class, "documentPath", Collections.singletonList(annotation("Label", "Document Path"))),
+                valueDescriptor.newInstance(long.class, "size", Arrays.asList(annotation("Label", "Size"), annotation("DataAmount", "BYTES"))),
+                valueDescriptor.newInstance(String.class, "cacheOutcome", Collections.singletonList(annotation("Label", "Cache Outcome"))));
+
+        Method create = eventFactoryClass.getMethod("create", List.class, List.class);
+
+        for (FlightEventType type : FlightEventType.values()) {
+            String name = "com.kodedu." + eventName(type);
+            List<Object> annotations = Arrays.asList(
+                    annotation("Name", name),
+                    annotation("Label", eventLabel(type)),
+                    annotation("Category", new String[]{"AsciidocFX"}),
+                    annotation("StackTrace", false));
+            eventFactories.put(type, create.invoke(null, annotations, fields));
+            eventNames.put(type, name);
+        }
+    }
+
+    private Object annotation(String type, Object value) throws ReflectiveOperationException {
+        return annotationElementClass.getConstructor(Class.class, Object.class)
+                .newInstance(Class.forName("jdk.jfr." + type), value);
+    }
+
+    private String eventName(FlightEventType type) {
+        switch (type) {
+            case RENDER:
+                return "Render";
+            case CONVERT:
+                return "Convert";
+            case EXPORT:
+                return "Export";
+            case DIAGRAM:
+                return "Diagram";
+            case CACHE:
+                return "Cache";
+            default:
+                return "File";
+        }
+    }
+
+    private String eventLabel(FlightEventType type) {
+        switch (type) {
+            case RENDER:
+                return "Preview Render";
+            case CONVERT:
+                return "Asciidoctor Conversion";
+            case EXPORT:
+                return "Export";
+            case DIAGRAM:
+                return "Diagram";
+            case CACHE:
+                return "Binary Cache";
+            default:
+                return "File Served";
+        }
+    }
+
+    FlightEvent begin(FlightEventType type, String detail) {
+
+        Object event = invoke(newEvent, eventFactories.get(type));
+
+        if (!(boolean) invoke(isEnabled, event)) {
+            return FlightEvent.NOOP;
+        }
+
+        invoke(set, event, DETAIL, detail);
+        invoke(begin, event);
+
+        return new Span(event);
+    }
+
+    synchronized boolean isRecording() {
+        return Objects.nonNull(recording);
+    }
+
+    synchronized void start(String configurationName) throws Exception {
+
+        if (isRecording()) {
+            return;
+        }
+
+        Object configuration = configurationClass.getMethod("getConfiguration", String.class).invoke(null, configurationName);
+        Object recording = recordingClass.getConstructor(configurationClass).newInstance(configuration);
+        recordingClass.getMethod("setName", String.class).invoke(recording, "AsciidocFX");
+        recordingClass.getMethod("setToDisk", boolean.class).invoke(recording, true);
+        recordingClass.getMethod("setMaxAge", Duration.class).invoke(recording, Duration.ofMinutes(30));
+
+        Method enable = recordingClass.getMethod("enable", String.class);
+        Method withoutStackTrace = Class.forName("jdk.jfr.EventSettings").getMethod("withoutStackTrace");
+        for (String name : eventNames.values()) {
+            withoutStackTrace.invoke(enable.invoke(recording, name));
+        }
+
+        recordingClass.getMethod("start").invoke(recording);
+        this.recording = recording;
+    }
+
+    synchronized void stop(Path dumpPath) throws Exception {
+
+        if (!isRecording()) {
+            return;
+        }
+
+        try {
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("dump", Path.class).invoke(recording, dumpPath);
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+            recording = null;
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class Span implements FlightEvent {
+
+        private final Object event;
+
+        private Span(Object event) {
+            this.event = event;
+        }
+
+        @Override
+        public boolean isRecorded() {
+            return true;
+        }
+
+        @Override
+        public FlightEvent path(Object path) {
+            invoke(set, event, DOCUMENT_PATH, FlightEvent.toText(path));
+            return this;
+        }
+
+        @Override
+        public FlightEvent size(long size) {
+            invoke(set, event, SIZE, size);
+            return this;
+        }
+
+        @Override
+        public FlightEvent cacheOutcome(String cacheOutcome) {
+            invoke(set, event, CACHE_OUTCOME, cacheOutcome);
+            return this;
+        }
+
+        @Override
+        public void end() {
+            invoke(end, event);
+            if ((boolean) invoke(shouldCommit, event)) {
+                invoke(commit, event);
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.kodedu.service.live;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits rendered html into its top-level elements and computes the changed range between two renders.
+ * <p>
+ * The scanner only tracks tag depth, it doesn't validate html. Anything it can't balance ends up in a single block.
+ */
+final class HtmlBlocks {
+
+    private static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track", "wbr"));
+
+    private static final Set<String> RAW_TEXT_ELEMENTS = new HashSet<>(Arrays.asList("script", "style", "textarea"));
+
+    private HtmlBlocks() {
+    }
+
+    /**
+     * Top-level blocks of the html, text between blocks belongs to the following block
+     */
+    static List<String> split(String html) {
+
+        List<String> blocks = new ArrayList<>();
+
+        int length = html.length();
+        int depth = 0;
+        int start = 0;
+        int index = 0;
+
+        while (index < length) {
+
+            int open = html.indexOf('<', index);
+
+            if (open < 0 || open + 1 >= length) {
+                break;
+            }
+
+            if (html.startsWith("<!--", open)) {
+                int end = html.indexOf("-->", open + 4);
+                index = end < 0 ? length : end + 3;
+                continue;
+            }
+
+            int close = tagEnd(html, open + 1);
+
+            if (close < 0) {
+                break;
+            }
+
+            char next = html.charAt(open + 1);
+
+            if (next == '!' || next == '?') {
+                index = close + 1;
+                continue;
+            }
+
+            boolean closing = next == '/';
+            String name = tagName(html, closing ? open + 2 : open + 1);
+
+            if (name.isEmpty()) {
+                index = open + 1;
+                continue;
+            }
+
+            index = close + 1;
+
+            if (closing) {
+                depth--;
+                if (depth < 0) {
+                    return Collections.singletonList(html);
+                }
+            } else if (RAW_TEXT_ELEMENTS.contains(name)) {
+                int end = indexOfIgnoreCase(html, "</" + name, index);
+                if (end < 0) {
+                    return Collections.singletonList(html);
+                }
+                int endClose = html.indexOf('>', end);
+                index = endClose < 0 ? length : endClose + 1;
+            } else if (!VOID_ELEMENTS.contains(name) && html.charAt(close - 1) != '/') {
+                depth++;
+            }
+
+            if (depth == 0) {
+                blocks.add(html.substring(start, index));
+                start = index;
+            }
+        }
+
+        if (depth != 0) {
+            return Collections.singletonList(html);
+        }
+
+        if (start < length) {
+            String rest = html.substring(start);
+            if (blocks.isEmpty() || !rest.trim().isEmpty()) {
+                blocks.add(rest);
+            } else {
+                int last = blocks.size() - 1;
+                blocks.set(last, blocks.get(last) + rest);
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Smallest contiguous range replacing old blocks with new ones, found by common prefix and suffix
+     */
+    static Change diff(List<String> oldBlocks, List<String> newBlocks) {
+
+        int oldSize = oldBlocks.size();
+        int newSize = newBlocks.size();
+        int limit = Math.min(oldSize, newSize);
+
+        int prefix = 0;
+        while (prefix < limit && oldBlocks.get(prefix).equals(newBlocks.get(prefix))) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && oldBlocks.get(oldSize - 1 - suffix).equals(newBlocks.get(newSize - 1 - suffix))) {
+            suffix++;
+        }
+
+        return new Change(prefix, oldSize - prefix - suffix, newBlocks.subList(prefix, newSize - suffix));
+    }
+
+    /**
+     * Index of the '>' ending the tag, a '>' inside a quoted attribute value doesn't end it
+     */
+    private static int tagEnd(String html, int from) {
+        char quote = 0;
+        char previous = 0;
+        for (int i = from; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '>') {
+                return i;
+            } else if ((c == '"' || c == '\'') && previous == '=') {
+                quote = c;
+            }
+            if (!Character.isWhitespace(c)) {
+                previous = c;
+            }
+        }
+        return -1;
+    }
+
+    private static String tagName(String html, int from) {
+        int end = from;
+        while (end < html.length()) {
+            char c = html.charAt(end);
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != ':') {
+                break;
+            }
+            end++;
+        }
+        return html.substring(from, end).toLowerCase(Locale.ENGLISH);
+    }
+
+    private static int indexOfIgnoreCase(String html, String target, int from) {
+        for (int i = from; i <= html.length() - target.length(); i++) {
+            if (html.regionMatches(true, i, target, 0, target.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static final class Change {
+        private final int start;
+        private final int deleteCount;
+        private final List<String> blocks;
+
+        Change(int start, int deleteCount, List<String> blocks) {
+            this.start = start;
+            this.deleteCount = deleteCount;
+            this.blocks = blocks;
+        }
+
+        int getStart() {
+            return start;
+        }
+
+        int getDeleteCount() {
+            return deleteCount;
+        }
+
+        List<String> getBlocks() {
+            return blocks;
+        }
+
+        boolean isEmpty() {
+            return deleteCount == 0 && blocks.isEmpty();
+        }
+    }
+}
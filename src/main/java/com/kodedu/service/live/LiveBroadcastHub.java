@@ -0,0 +1,299 @@
+package com.kodedu.service.live;
+
+import com.kodedu.service.Lane;
+import com.kodedu.service.ThreadService;
+import com.kodedu.service.metrics.Counter;
+import com.kodedu.service.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broadcasts the rendered preview to browser clients over WebSocket.
+ * <p>
+ * Every render gets a version. Clients that say hello receive a full document once and then only the changed
+ * top-level blocks against the version they acknowledged. A session has at most one message in flight,
+ * versions published meanwhile are conflated into the next message, so a slow client never queues stale renders.
+ * Clients that never say hello receive plain html as before.
+ */
+@Component
+public class LiveBroadcastHub extends TextWebSocketHandler {
+
+    private final Logger logger = LoggerFactory.getLogger(LiveBroadcastHub.class);
+
+    private final ThreadService threadService;
+    private final Map<String, LiveSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    private final Counter fullMessages;
+    private final Counter patchMessages;
+    private final Counter htmlMessages;
+    private final Counter conflatedVersions;
+
+    private volatile Snapshot latest;
+
+    @Value("${application.live.send-time-limit:10000}")
+    private int sendTimeLimit;
+
+    @Value("${application.live.buffer-size-limit:4194304}")
+    private int bufferSizeLimit;
+
+    @Value("${application.live.ack-timeout:10000}")
+    private long ackTimeout;
+
+    @Autowired
+    public LiveBroadcastHub(ThreadService threadService, MetricRegistry metricRegistry) {
+        this.threadService = threadService;
+
+        metricRegistry.gauge("afx_live_sessions", "Open live preview sessions", sessions::size);
+        this.fullMessages = metricRegistry.counter("afx_live_messages_total", "Live preview messages sent", "type", "full");
+        this.patchMessages = metricRegistry.counter("afx_live_messages_total", "Live preview messages sent", "type", "patch");
+        this.htmlMessages = metricRegistry.counter("afx_live_messages_total", "Live preview messages sent", "type", "html");
+        this.conflatedVersions = metricRegistry.counter("afx_live_conflated_total", "Rendered versions skipped for slow live preview sessions");
+    }
+
+    /**
+     * Publishes a new render to all sessions, returns immediately
+     */
+    public void publish(String html) {
+
+        if (Objects.isNull(html)) {
+            return;
+        }
+
+        latest = new Snapshot(versions.incrementAndGet(), html);
+
+        for (LiveSession session : sessions.values()) {
+            flushLater(session);
+        }
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        LiveSession liveSession = new LiveSession(new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, bufferSizeLimit));
+        sessions.put(session.getId(), liveSession);
+        flushLater(liveSession);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+
+        LiveSession liveSession = sessions.get(session.getId());
+
+        if (Objects.isNull(liveSession)) {
+            return;
+        }
+
+        JsonObject jsonObject;
+        try (JsonReader reader = Json.createReader(new StringReader(message.getPayload()))) {
+            jsonObject = reader.readObject();
+        } catch (Exception e) {
+            logger.debug("Ignoring live preview message {}", message.getPayload(), e);
+            return;
+        }
+
+        String type = jsonObject.getString("type", "");
+
+        if ("hello".equals(type)) {
+            liveSession.reset(true);
+        } else if ("ack".equals(type)) {
+            liveSession.acknowledge(jsonObject.getJsonNumber("version").longValue());
+        } else if ("resync".equals(type)) {
+            liveSession.reset(liveSession.isPatchCapable());
+        }
+
+        flushLater(liveSession);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        logger.debug("Live preview session {} failed", session.getId(), exception);
+        sessions.remove(session.getId());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        sessions.remove(session.getId());
+    }
+
+    private void flushLater(LiveSession liveSession) {
+        threadService.runTaskLater(Lane.DEFAULT, () -> flush(liveSession));
+    }
+
+    private void flush(LiveSession liveSession) {
+
+        Snapshot snapshot = latest;
+
+        if (Objects.isNull(snapshot)) {
+            return;
+        }
+
+        String payload;
+        boolean patchCapable;
+
+        synchronized (liveSession) {
+
+            if (Objects.nonNull(liveSession.inFlight)) {
+                if (System.currentTimeMillis() - liveSession.sentAt < ackTimeout) {
+                    // conflated, the latest version goes out when the client catches up
+                    return;
+                }
+                // ack is lost, start over with a full document
+                liveSession.acked = null;
+                liveSession.inFlight = null;
+            }
+
+            Snapshot acked = liveSession.acked;
+
+            if (Objects.nonNull(acked) && acked.version >= snapshot.version) {
+                return;
+            }
+
+            if (Objects.nonNull(acked)) {
+                conflatedVersions.add(snapshot.version - acked.version - 1);
+            }
+
+            patchCapable = liveSession.patchCapable;
+
+            if (patchCapable) {
+                payload = message(acked, snapshot);
+            } else {
+                htmlMessages.increment();
+                payload = snapshot.html;
+            }
+
+            liveSession.inFlight = snapshot;
+            liveSession.sentAt = System.currentTimeMillis();
+        }
+
+        WebSocketSession session = liveSession.session;
+
+        if (!session.isOpen()) {
+            sessions.remove(session.getId());
+            return;
+        }
+
+        try {
+            session.sendMessage(new TextMessage(payload));
+        } catch (Exception e) {
+            logger.error("Problem occured while sending content over WebSocket", e);
+            sessions.remove(session.getId());
+            return;
+        }
+
+        if (!patchCapable) {
+            // plain clients don't acknowledge, a completed send is enough
+            liveSession.acknowledge(snapshot.version);
+            if (latest != snapshot) {
+                flushLater(liveSession);
+            }
+        }
+    }
+
+    private String message(Snapshot base, Snapshot snapshot) {
+
+        if (Objects.nonNull(base)) {
+
+            HtmlBlocks.Change change = HtmlBlocks.diff(base.getBlocks(), snapshot.getBlocks());
+
+            String patch = Json.createObjectBuilder()
+                    .add("type", "patch")
+                    .add("version", snapshot.version)
+                    .add("base", base.version)
+                    .add("start", change.getStart())
+                    .add("deleteCount", change.getDeleteCount())
+                    .add("blocks", toArray(change.getBlocks()))
+                    .build()
+                    .toString();
+
+            // a patch touching most of the document is not worth the client side work
+            if (patch.length() < snapshot.html.length()) {
+                patchMessages.increment();
+                return patch;
+            }
+        }
+
+        fullMessages.increment();
+
+        return Json.createObjectBuilder()
+                .add("type", "full")
+                .add("version", snapshot.version)
+                .add("blocks", toArray(snapshot.getBlocks()))
+                .build()
+                .toString();
+    }
+
+    private JsonArrayBuilder toArray(List<String> blocks) {
+        JsonArrayBuilder arrayBuilder = Json.createArrayBuilder();
+        for (String block : blocks) {
+            arrayBuilder.add(block);
+        }
+        return arrayBuilder;
+    }
+
+    private final class LiveSession {
+        private final WebSocketSession session;
+        private boolean patchCapable;
+        private Snapshot acked;
+        private Snapshot inFlight;
+        private long sentAt;
+
+        private LiveSession(WebSocketSession session) {
+            this.session = session;
+        }
+
+        private synchronized boolean isPatchCapable() {
+            return patchCapable;
+        }
+
+        private synchronized void reset(boolean patchCapable) {
+            this.patchCapable = patchCapable;
+            this.acked = null;
+            this.inFlight = null;
+        }
+
+        private synchronized void acknowledge(long version) {
+            if (Objects.nonNull(inFlight) && inFlight.version == version) {
+                acked = inFlight;
+                inFlight = null;
+            }
+        }
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final String html;
+        private volatile List<String> blocks;
+
+        private Snapshot(long version, String html) {
+            this.version = version;
+            this.html = html;
+        }
+
+        // split on first use, plain clients never need the blocks
+        private List<String> getBlocks() {
+            if (Objects.isNull(blocks)) {
+                blocks = HtmlBlocks.split(html);
+            }
+            return blocks;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.kodedu.service.metrics;
+
+import javax.json.JsonObjectBuilder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter, cheap to increment from many threads
+ */
+public class Counter extends Metric {
+
+    private final LongAdder adder = new LongAdder();
+
+    public Counter(String name, String help, String... labels) {
+        super(name, help, labels);
+    }
+
+    public void increment() {
+        adder.increment();
+    }
+
+    public void add(long amount) {
+        adder.add(amount);
+    }
+
+    public long getCount() {
+        return adder.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+
+    @Override
+    public double getValue() {
+        return getCount();
+    }
+
+    @Override
+    public String describe() {
+        return String.valueOf(getCount());
+    }
+
+    @Override
+    protected void writePrometheus(StringBuilder builder) {
+        builder.append(getName()).append(labelString()).append(" ").append(getCount()).append("\n");
+    }
+
+    @Override
+    protected void writeJson(JsonObjectBuilder builder) {
+        builder.add("value", getCount());
+    }
+}
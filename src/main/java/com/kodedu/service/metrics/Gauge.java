@@ -0,0 +1,51 @@
+package com.kodedu.service.metrics;
+
+import javax.json.JsonObjectBuilder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Value read on demand, e.g. a queue depth
+ */
+public class Gauge extends Metric {
+
+    private final DoubleSupplier supplier;
+
+    public Gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        super(name, help, labels);
+        this.supplier = supplier;
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+
+    @Override
+    public double getValue() {
+        try {
+            return supplier.getAsDouble();
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    public String describe() {
+        return format(getValue());
+    }
+
+    @Override
+    protected void writePrometheus(StringBuilder builder) {
+        builder.append(getName()).append(labelString()).append(" ").append(format(getValue())).append("\n");
+    }
+
+    @Override
+    protected void writeJson(JsonObjectBuilder builder) {
+        double value = getValue();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            builder.addNull("value");
+        } else {
+            builder.add("value", value);
+        }
+    }
+}
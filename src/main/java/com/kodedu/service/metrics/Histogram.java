@@ -0,0 +1,128 @@
+package com.kodedu.service.metrics;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.ConcurrentHistogram;
+
+import javax.json.JsonObjectBuilder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HDR histogram of recorded values, exposed as a Prometheus summary.
+ * <p>
+ * Values are recorded in raw units (e.g. nanoseconds) and multiplied by scale when exposed (e.g. to seconds).
+ */
+public class Histogram extends Metric {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.95, 0.99, 0.999};
+
+    private final ConcurrentHistogram histogram = new ConcurrentHistogram(3);
+    private final LongAdder sum = new LongAdder();
+    private final double scale;
+
+    public Histogram(String name, String help, double scale, String... labels) {
+        super(name, help, labels);
+        this.scale = scale;
+    }
+
+    public void record(long value) {
+        long recorded = Math.max(0, value);
+        histogram.recordValue(recorded);
+        sum.add(recorded);
+    }
+
+    /**
+     * Records the time passed since startedAt
+     *
+     * @param startedAt {@link System#nanoTime()} when the measured work started
+     */
+    public void recordSince(long startedAt) {
+        record(System.nanoTime() - startedAt);
+    }
+
+    public long getCount() {
+        return histogram.getTotalCount();
+    }
+
+    public double getSum() {
+        return sum.sum() * scale;
+    }
+
+    /**
+     * Scaled value at the given percentile (0..100)
+     */
+    public double getValueAtPercentile(double percentile) {
+        return snapshot().getValueAtPercentile(percentile) * scale;
+    }
+
+    public double getMax() {
+        return histogram.getMaxValue() * scale;
+    }
+
+    public double getMean() {
+        return histogram.getMean() * scale;
+    }
+
+    private AbstractHistogram snapshot() {
+        return histogram.copy();
+    }
+
+    @Override
+    public String getType() {
+        return "summary";
+    }
+
+    @Override
+    public double getValue() {
+        return getCount();
+    }
+
+    @Override
+    public String describe() {
+        AbstractHistogram snapshot = snapshot();
+        return String.format("count=%d p50=%s p95=%s p99=%s max=%s",
+                snapshot.getTotalCount(),
+                humanize(snapshot.getValueAtPercentile(50) * scale),
+                humanize(snapshot.getValueAtPercentile(95) * scale),
+                humanize(snapshot.getValueAtPercentile(99) * scale),
+                humanize(snapshot.getMaxValue() * scale));
+    }
+
+    @Override
+    protected void writePrometheus(StringBuilder builder) {
+
+        AbstractHistogram snapshot = snapshot();
+
+        for (double quantile : QUANTILES) {
+            builder.append(getName()).append(labelString("quantile", String.valueOf(quantile))).append(" ")
+                    .append(format(snapshot.getValueAtPercentile(quantile * 100) * scale)).append("\n");
+        }
+
+        builder.append(getName()).append("_sum").append(labelString()).append(" ").append(format(getSum())).append("\n");
+        builder.append(getName()).append("_count").append(labelString()).append(" ").append(snapshot.getTotalCount()).append("\n");
+    }
+
+    @Override
+    protected void writeJson(JsonObjectBuilder builder) {
+
+        AbstractHistogram snapshot = snapshot();
+        long count = snapshot.getTotalCount();
+
+        builder.add("count", count)
+                .add("sum", getSum())
+                .add("mean", count > 0 ? snapshot.getMean() * scale : 0)
+                .add("max", snapshot.getMaxValue() * scale)
+                .add("p50", snapshot.getValueAtPercentile(50) * scale)
+                .add("p90", snapshot.getValueAtPercentile(90) * scale)
+                .add("p95", snapshot.getValueAtPercentile(95) * scale)
+                .add("p99", snapshot.getValueAtPercentile(99) * scale)
+                .add("p999", snapshot.getValueAtPercentile(99.9) * scale);
+    }
+
+    private String humanize(double value) {
+        if (scale < 1) {
+            // seconds
+            return value < 1 ? String.format("%.1fms", value * 1000) : String.format("%.2fs", value);
+        }
+        return format(value);
+    }
+}
@@ -0,0 +1,129 @@
+package com.kodedu.service.metrics;
+
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Base of registry entries, a metric is identified by its name and labels
+ */
+public abstract class Metric {
+
+    private final String name;
+    private final String help;
+    private final Map<String, String> labels;
+
+    protected Metric(String name, String help, String... labels) {
+
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as key value pairs: " + name);
+        }
+
+        Map<String, String> labelMap = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i += 2) {
+            labelMap.put(labels[i], labels[i + 1]);
+        }
+
+        this.name = name;
+        this.help = help;
+        this.labels = Collections.unmodifiableMap(labelMap);
+    }
+
+    /**
+     * Prometheus type of the metric
+     */
+    public abstract String getType();
+
+    /**
+     * Single value for overviews, total of counters, current value of gauges and count of histograms
+     */
+    public abstract double getValue();
+
+    /**
+     * Short human readable value for the dashboard
+     */
+    public abstract String describe();
+
+    protected abstract void writePrometheus(StringBuilder builder);
+
+    protected abstract void writeJson(JsonObjectBuilder builder);
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    public String getId() {
+        return name + labelString();
+    }
+
+    public String labelString() {
+        return labelString(null, null);
+    }
+
+    /**
+     * Labels in {key="value",..} form, extra label is appended when given
+     */
+    protected String labelString(String extraKey, String extraValue) {
+
+        if (labels.isEmpty() && Objects.isNull(extraKey)) {
+            return "";
+        }
+
+        StringBuilder builder = new StringBuilder("{");
+
+        for (Map.Entry<String, String> entry : labels.entrySet()) {
+            if (builder.length() > 1) {
+                builder.append(",");
+            }
+            builder.append(entry.getKey()).append("=\"").append(escape(entry.getValue())).append("\"");
+        }
+
+        if (Objects.nonNull(extraKey)) {
+            if (builder.length() > 1) {
+                builder.append(",");
+            }
+            builder.append(extraKey).append("=\"").append(escape(extraValue)).append("\"");
+        }
+
+        return builder.append("}").toString();
+    }
+
+    protected JsonObjectBuilder jsonBase() {
+
+        JsonObjectBuilder labelBuilder = Json.createObjectBuilder();
+        labels.forEach(labelBuilder::add);
+
+        return Json.createObjectBuilder()
+                .add("name", name)
+                .add("type", getType())
+                .add("labels", labelBuilder);
+    }
+
+    protected static String format(double value) {
+
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+
+        return String.valueOf(value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,101 @@
+package com.kodedu.service.metrics;
+
+import org.springframework.stereotype.Component;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * In-process registry of counters, gauges and histograms.
+ * <p>
+ * Metrics are usually created once and kept by their owners, so recording doesn't go through the registry.
+ * Asking for an existing name and labels returns the same metric.
+ */
+@Component
+public class MetricRegistry {
+
+    private static final double NANOS_TO_SECONDS = 1e-9;
+
+    private final ConcurrentNavigableMap<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    public Counter counter(String name, String help, String... labels) {
+        return register(name, labels, Counter.class, () -> new Counter(name, help, labels));
+    }
+
+    public Gauge gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        return register(name, labels, Gauge.class, () -> new Gauge(name, help, supplier, labels));
+    }
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return register(name, labels, Histogram.class, () -> new Histogram(name, help, 1, labels));
+    }
+
+    /**
+     * Histogram of durations recorded in nanoseconds and exposed in seconds
+     */
+    public Histogram timer(String name, String help, String... labels) {
+        return register(name, labels, Histogram.class, () -> new Histogram(name, help, NANOS_TO_SECONDS, labels));
+    }
+
+    private <T extends Metric> T register(String name, String[] labels, Class<T> type, Supplier<T> factory) {
+
+        // separator sorts before any name character, so metrics of a name stay together for the exposition
+        String key = name + '\u0000' + String.join("\u0000", labels);
+
+        Metric metric = metrics.computeIfAbsent(key, k -> factory.get());
+
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException(String.format("%s is already registered as %s", metric.getId(), metric.getType()));
+        }
+
+        return type.cast(metric);
+    }
+
+    public Collection<Metric> getMetrics() {
+        return new ArrayList<>(metrics.values());
+    }
+
+    /**
+     * Prometheus text exposition format (version 0.0.4)
+     */
+    public String toPrometheus() {
+
+        StringBuilder builder = new StringBuilder();
+        String lastName = null;
+
+        for (Metric metric : metrics.values()) {
+            if (!metric.getName().equals(lastName)) {
+                builder.append("# HELP ").append(metric.getName()).append(" ").append(metric.getHelp()).append("\n");
+                builder.append("# TYPE ").append(metric.getName()).append(" ").append(metric.getType()).append("\n");
+                lastName = metric.getName();
+            }
+            metric.writePrometheus(builder);
+        }
+
+        return builder.toString();
+    }
+
+    public JsonObject toJson() {
+
+        JsonArrayBuilder arrayBuilder = Json.createArrayBuilder();
+
+        for (Metric metric : metrics.values()) {
+            JsonObjectBuilder builder = metric.jsonBase();
+            metric.writeJson(builder);
+            arrayBuilder.add(builder);
+        }
+
+        return Json.createObjectBuilder()
+                .add("timestamp", System.currentTimeMillis())
+                .add("metrics", arrayBuilder)
+                .build();
+    }
+}
@@ -0,0 +1,373 @@
+package com.kodedu.service.ui;
+
+import com.kodedu.component.EditorPane;
+import com.kodedu.controller.ApplicationController;
+import com.kodedu.other.Current;
+import com.kodedu.outline.HeadingLines;
+import com.kodedu.outline.Section;
+import com.kodedu.service.Lane;
+import com.kodedu.service.ThreadService;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonNumber;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the outline tree in sync with the rendered document.
+ * <p>
+ * outliner.js sends the whole outline as one batch per render, a flat json array of
+ * [parentIndex, level, lineno, id, title] entries in document order. Unchanged batches are dropped,
+ * changed ones are parsed in background and merged into the existing tree items, so only the
+ * changed sections are added or removed and expanded states survive renders.
+ * <p>
+ * Large documents are rendered section by section, their outline is built from a scan of the heading lines instead,
+ * which are kept in sync with the changed rows of the editor.
+ */
+@Component
+public class OutlineService {
+
+    private final Logger logger = LoggerFactory.getLogger(OutlineService.class);
+
+    private final ApplicationController controller;
+    private final ThreadService threadService;
+    private final Current current;
+
+    private static final Pattern HEADING = Pattern.compile("^(={1,6}|#{1,6})\\s+(.+?)\\s*$");
+    private static final Pattern BLOCK_DELIMITER = Pattern.compile("^(-{4,}|\\.{4,}|/{4,}|\\+{4,}|_{4,}|={4,}|\\*{4,}|```.*)$");
+    private static final Pattern BLOCK_ID = Pattern.compile("^\\[(?:\\[([^,\\]]+).*\\]|#([^.%,\\]]+).*)\\]$");
+
+    private final AtomicLong latestUpdate = new AtomicLong();
+    private final AtomicLong latestScan = new AtomicLong();
+
+    // accessed in FX thread only
+    private String appliedOutline;
+    private String pendingOutline;
+
+    @Autowired
+    public OutlineService(ApplicationController controller, ThreadService threadService, Current current) {
+        this.controller = controller;
+        this.threadService = threadService;
+        this.current = current;
+    }
+
+    /**
+     * Applies an outline batch, must be called in FX thread.
+     * While the outline view is hidden only the latest batch is kept and applied when it is shown.
+     */
+    public void update(String outline) {
+
+        if (Objects.isNull(outline) || outline.equals(appliedOutline)) {
+            pendingOutline = null;
+            return;
+        }
+
+        TreeView<Section> treeView = controller.outlineTreeView;
+        TreeItem<Section> root = getRoot(treeView);
+
+        if (!treeView.isVisible()) {
+            pendingOutline = outline;
+            return;
+        }
+
+        pendingOutline = null;
+        appliedOutline = outline;
+
+        long version = latestUpdate.incrementAndGet();
+
+        threadService.runTaskLater(() -> {
+            try {
+                List<Section> sections = parse(outline);
+                threadService.runActionLater(() -> {
+                    if (version == latestUpdate.get()) {
+                        merge(root, sections, 0);
+                    }
+                });
+            } catch (Exception e) {
+                logger.error("Problem occured while updating outline", e);
+                threadService.runActionLater(() -> appliedOutline = null);
+            }
+        });
+    }
+
+    /**
+     * Builds the outline of a document from its heading lines in background, without rendering it
+     */
+    public void scan(HeadingLines lines, String mode) {
+
+        long version = latestScan.incrementAndGet();
+
+        threadService.runTaskLater(Lane.INDEXING, () -> {
+            if (version != latestScan.get()) {
+                return;
+            }
+            try {
+                String outline = scanHeadings(lines.snapshot(), "markdown".equalsIgnoreCase(mode));
+                threadService.runActionLater(() -> update(outline));
+            } catch (Exception e) {
+                logger.error("Problem occured while scanning outline", e);
+            }
+        });
+    }
+
+    /**
+     * Heading lines outside of delimited blocks, as [parentIndex, level, lineno, id, title] entries
+     */
+    private String scanHeadings(List<String> lines, boolean markdown) {
+
+        JsonArrayBuilder outline = Json.createArrayBuilder();
+
+        // index and level of the open sections
+        int[] parents = new int[8];
+        int[] levels = new int[8];
+        int depth = 0;
+        int count = 0;
+
+        String openDelimiter = null;
+        String explicitId = null;
+        int lineno = 0;
+
+        for (String line : lines) {
+
+            lineno++;
+
+            if (Objects.nonNull(openDelimiter)) {
+                if (Objects.nonNull(line) && line.startsWith(openDelimiter) && (markdown || line.equals(openDelimiter))) {
+                    openDelimiter = null;
+                }
+                continue;
+            }
+
+            // lines which can't change the outline are kept as null
+            if (Objects.isNull(line) || (markdown ? !line.startsWith("`") && !line.startsWith("#") : !isAsciidocMarker(line.charAt(0)))) {
+                explicitId = null;
+                continue;
+            }
+
+            if (BLOCK_DELIMITER.matcher(line).matches()) {
+                openDelimiter = line.startsWith("```") ? "```" : line;
+                continue;
+            }
+
+            Matcher blockId = markdown ? null : BLOCK_ID.matcher(line);
+            if (Objects.nonNull(blockId) && blockId.matches()) {
+                explicitId = Objects.nonNull(blockId.group(1)) ? blockId.group(1) : blockId.group(2);
+                continue;
+            }
+
+            Matcher heading = HEADING.matcher(line);
+            String id = explicitId;
+            explicitId = null;
+
+            if (!heading.matches() || (markdown != heading.group(1).startsWith("#"))) {
+                continue;
+            }
+
+            // markdown has no document title, # is a top level section like == in asciidoc
+            int level = markdown ? heading.group(1).length() : heading.group(1).length() - 1;
+
+            // the asciidoc document title isn't a section
+            if (level == 0) {
+                continue;
+            }
+
+            String title = heading.group(2);
+
+            while (depth > 0 && levels[depth - 1] >= level) {
+                depth--;
+            }
+
+            outline.add(Json.createArrayBuilder()
+                    .add(depth > 0 ? parents[depth - 1] : -1)
+                    .add(level)
+                    .add(lineno)
+                    .add(Objects.nonNull(id) ? id : autoId(title))
+                    .add(title));
+
+            parents[depth] = count++;
+            levels[depth] = level;
+            depth = Math.min(depth + 1, parents.length - 1);
+        }
+
+        return outline.build().toString();
+    }
+
+    private boolean isAsciidocMarker(char first) {
+        return first == '=' || first == '-' || first == '.' || first == '/' || first == '+'
+                || first == '_' || first == '*' || first == '`' || first == '[';
+    }
+
+    private String autoId(String title) {
+        String id = title.toLowerCase().replaceAll("\\W+", "_");
+        return "_" + (id.endsWith("_") ? id.substring(0, id.length() - 1) : id);
+    }
+
+    private TreeItem<Section> getRoot(TreeView<Section> treeView) {
+
+        if (Objects.nonNull(treeView.getRoot())) {
+            return treeView.getRoot();
+        }
+
+        Section rootSection = new Section();
+        rootSection.setLevel(-1);
+        rootSection.setTitle("Outline");
+
+        TreeItem<Section> rootItem = new TreeItem<>(rootSection);
+        rootItem.setExpanded(true);
+
+        treeView.setRoot(rootItem);
+
+        treeView.setOnMouseClicked(event -> {
+            try {
+                TreeItem<Section> item = treeView.getSelectionModel().getSelectedItem();
+                EditorPane editorPane = current.currentEditor();
+                editorPane.moveCursorTo(item.getValue().getLineno());
+            } catch (Exception e) {
+                logger.error("Problem occured while jumping from outline");
+            }
+        });
+
+        treeView.visibleProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue && Objects.nonNull(pendingOutline)) {
+                update(pendingOutline);
+            }
+        });
+
+        return rootItem;
+    }
+
+    private List<Section> parse(String outline) {
+
+        List<Section> roots = new ArrayList<>();
+        List<Section> sections = new ArrayList<>();
+
+        try (JsonReader reader = Json.createReader(new StringReader(outline))) {
+            for (JsonValue value : reader.readArray()) {
+
+                JsonArray entry = (JsonArray) value;
+                int parentIndex = number(entry.get(0), -1);
+
+                Section section = new Section();
+                section.setLevel(number(entry.get(1), 0));
+                section.setLineno(number(entry.get(2), 0));
+                section.setId(text(entry.get(3)));
+                section.setTitle(Objects.toString(text(entry.get(4)), ""));
+
+                if (parentIndex >= 0 && parentIndex < sections.size()) {
+                    Section parent = sections.get(parentIndex);
+                    parent.getSubsections().add(section);
+                    section.setParent(parent);
+                } else {
+                    roots.add(section);
+                }
+
+                sections.add(section);
+            }
+        }
+
+        return roots;
+    }
+
+    /**
+     * Matches children by common prefix and suffix, matched items are updated in place, the rest is replaced
+     */
+    private void merge(TreeItem<Section> parentItem, List<Section> sections, int depth) {
+
+        ObservableList<TreeItem<Section>> items = parentItem.getChildren();
+
+        int oldSize = items.size();
+        int newSize = sections.size();
+        int limit = Math.min(oldSize, newSize);
+
+        int prefix = 0;
+        while (prefix < limit && isSameNode(items.get(prefix).getValue(), sections.get(prefix))) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        while (suffix < limit - prefix && isSameNode(items.get(oldSize - 1 - suffix).getValue(), sections.get(newSize - 1 - suffix))) {
+            suffix++;
+        }
+
+        for (int i = 0; i < prefix; i++) {
+            reuse(items.get(i), sections.get(i), depth);
+        }
+
+        for (int i = 0; i < suffix; i++) {
+            reuse(items.get(oldSize - 1 - i), sections.get(newSize - 1 - i), depth);
+        }
+
+        if (prefix + suffix < oldSize || prefix + suffix < newSize) {
+
+            List<TreeItem<Section>> created = new ArrayList<>();
+            for (Section section : sections.subList(prefix, newSize - suffix)) {
+                created.add(createItem(section, depth));
+            }
+
+            items.remove(prefix, oldSize - suffix);
+            items.addAll(prefix, created);
+        }
+
+        TreeSet<Section> subsections = new TreeSet<>();
+        for (TreeItem<Section> item : items) {
+            item.getValue().setParent(parentItem.getValue());
+            subsections.add(item.getValue());
+        }
+        parentItem.getValue().setSubsections(subsections);
+    }
+
+    private void reuse(TreeItem<Section> item, Section section, int depth) {
+
+        // line numbers are not displayed, so moving a section doesn't need a cell update
+        Section value = item.getValue();
+        value.setLineno(section.getLineno());
+        value.setId(section.getId());
+
+        merge(item, new ArrayList<>(section.getSubsections()), depth + 1);
+    }
+
+    private TreeItem<Section> createItem(Section section, int depth) {
+
+        TreeItem<Section> item = new TreeItem<>(section);
+        item.setExpanded(depth < 2);
+
+        List<TreeItem<Section>> children = new ArrayList<>();
+        for (Section subsection : section.getSubsections()) {
+            children.add(createItem(subsection, depth + 1));
+        }
+        item.getChildren().addAll(children);
+
+        return item;
+    }
+
+    private boolean isSameNode(Section section, Section other) {
+        return Objects.equals(section.getLevel(), other.getLevel())
+                && Objects.equals(section.getTitle(), other.getTitle());
+    }
+
+    private int number(JsonValue value, int defaultValue) {
+        return value instanceof JsonNumber ? ((JsonNumber) value).intValue() : defaultValue;
+    }
+
+    private String text(JsonValue value) {
+        return value instanceof JsonString ? ((JsonString) value).getString() : null;
+    }
+}
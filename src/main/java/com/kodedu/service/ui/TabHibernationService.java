@@ -0,0 +1,196 @@
+package com.kodedu.service.ui;
+
+import com.kodedu.component.EditorPane;
+import com.kodedu.component.MyTab;
+import com.kodedu.service.ThreadService;
+import com.kodedu.service.metrics.Counter;
+import com.kodedu.service.metrics.MetricRegistry;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unloads the editor pages of inactive tabs.
+ * <p>
+ * Every editor tab loads its own Ace page, which keeps native WebKit memory while the tab is in background.
+ * Tabs which weren't selected for a while, or the least recently selected ones above the resident limit, keep only
+ * their text and editor state (selection, scroll position, undo history) and load their page again when selected.
+ */
+@Component
+public class TabHibernationService {
+
+    private final Logger logger = LoggerFactory.getLogger(TabHibernationService.class);
+
+    // time for WebKit to release the pages before memory is measured
+    private static final long MEASURE_DELAY_SECONDS = 5;
+
+    private final ThreadService threadService;
+    private final Counter hibernations;
+    private final Counter wakeUps;
+    private final Counter reclaimedBytes;
+    private final AtomicInteger residentTabs = new AtomicInteger();
+    private final AtomicInteger hibernatedTabs = new AtomicInteger();
+
+    // accessed in FX thread only
+    private final Map<EditorPane, Long> lastSelected = new WeakHashMap<>();
+    private TabPane tabPane;
+
+    @Value("${application.tab.hibernate-after:600000}")
+    private long hibernateAfter;
+
+    @Value("${application.tab.max-resident:8}")
+    private int maxResident;
+
+    @Value("${application.tab.check-interval:30000}")
+    private long checkInterval;
+
+    @Autowired
+    public TabHibernationService(ThreadService threadService, MetricRegistry metricRegistry) {
+        this.threadService = threadService;
+        this.hibernations = metricRegistry.counter("afx_tab_hibernations_total", "Editor tabs whose page was unloaded");
+        this.wakeUps = metricRegistry.counter("afx_tab_wakeups_total", "Hibernated editor tabs loaded again");
+        this.reclaimedBytes = metricRegistry.counter("afx_tab_reclaimed_bytes_total",
+                "Committed process memory released after hibernating tabs");
+        metricRegistry.gauge("afx_tabs", "Editor tabs by state", residentTabs::get, "state", "resident");
+        metricRegistry.gauge("afx_tabs", "Editor tabs by state", hibernatedTabs::get, "state", "hibernated");
+    }
+
+    public void initialize(TabPane tabPane) {
+
+        this.tabPane = tabPane;
+
+        tabPane.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, selectedTab) -> {
+            if (oldValue instanceof MyTab) {
+                lastSelected.put(((MyTab) oldValue).getEditorPane(), System.currentTimeMillis());
+            }
+            if (selectedTab instanceof MyTab) {
+                EditorPane editorPane = ((MyTab) selectedTab).getEditorPane();
+                lastSelected.put(editorPane, System.currentTimeMillis());
+                if (editorPane.isHibernated()) {
+                    editorPane.wake();
+                    wakeUps.increment();
+                    logger.debug("Tab {} is restored", editorPane.getPath());
+                }
+            }
+            countTabs();
+        });
+
+        if (hibernateAfter > 0 || maxResident > 0) {
+            threadService.scheduleWithDelay(() -> threadService.runActionLater(this::hibernateInactiveTabs),
+                    checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void hibernateInactiveTabs() {
+
+        long now = System.currentTimeMillis();
+        Tab selectedTab = tabPane.getSelectionModel().getSelectedItem();
+
+        List<EditorPane> candidates = new ArrayList<>();
+        int resident = 0;
+
+        for (Tab tab : tabPane.getTabs()) {
+            if (!(tab instanceof MyTab)) {
+                continue;
+            }
+            EditorPane editorPane = ((MyTab) tab).getEditorPane();
+            lastSelected.putIfAbsent(editorPane, now);
+            if (editorPane.isHibernated()) {
+                continue;
+            }
+            resident++;
+            if (tab != selectedTab && editorPane.getReady()) {
+                candidates.add(editorPane);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            countTabs();
+            return;
+        }
+
+        candidates.sort(Comparator.comparing(lastSelected::get));
+
+        long committedBefore = committedMemory();
+        List<EditorPane> hibernated = new ArrayList<>();
+
+        for (EditorPane editorPane : candidates) {
+            boolean idle = hibernateAfter > 0 && now - lastSelected.get(editorPane) > hibernateAfter;
+            boolean overLimit = maxResident > 0 && resident > maxResident;
+            if ((idle || overLimit) && editorPane.hibernate()) {
+                resident--;
+                hibernated.add(editorPane);
+            }
+        }
+
+        countTabs();
+
+        if (!hibernated.isEmpty()) {
+            hibernations.add(hibernated.size());
+            logger.debug("{} inactive tabs are hibernated", hibernated.size());
+            measureReclaimed(committedBefore);
+        }
+    }
+
+    private void countTabs() {
+        int resident = 0;
+        int hibernated = 0;
+        for (Tab tab : tabPane.getTabs()) {
+            if (tab instanceof MyTab) {
+                if (((MyTab) tab).getEditorPane().isHibernated()) {
+                    hibernated++;
+                } else {
+                    resident++;
+                }
+            }
+        }
+        residentTabs.set(resident);
+        hibernatedTabs.set(hibernated);
+    }
+
+    private void measureReclaimed(long before) {
+        if (before <= 0) {
+            return;
+        }
+        threadService.schedule(() -> {
+            long after = committedMemory();
+            if (after > 0 && after < before) {
+                reclaimedBytes.add(before - after);
+            }
+        }, MEASURE_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private long committedMemory() {
+        OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+        if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) operatingSystem).getCommittedVirtualMemorySize();
+        }
+        return -1;
+    }
+
+    public int getResidentTabs() {
+        return residentTabs.get();
+    }
+
+    public int getHibernatedTabs() {
+        return hibernatedTabs.get();
+    }
+
+    public long getReclaimedBytes() {
+        return reclaimedBytes.getCount();
+    }
+}